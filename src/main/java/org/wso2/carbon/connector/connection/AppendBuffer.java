@@ -0,0 +1,424 @@
+/*
+ *  Copyright (c) 2025, WSO2 LLC. (https://www.wso2.com).
+ *
+ *  WSO2 LLC. licenses this file to you under the Apache License,
+ *  Version 2.0 (the "License"); you may not use this file except
+ *  in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *  "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License.
+ */
+
+
+package org.wso2.carbon.connector.connection;
+
+import com.azure.core.http.rest.Response;
+import com.azure.core.util.BinaryData;
+import com.azure.storage.file.datalake.DataLakeFileAsyncClient;
+import com.azure.storage.file.datalake.options.DataLakeFileAppendOptions;
+import com.azure.storage.file.datalake.options.DataLakeFileFlushOptions;
+import io.netty.util.concurrent.DefaultThreadFactory;
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+import java.nio.ByteBuffer;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Write-behind buffer of the appends of a connection. Records appended to the same file by concurrent messages are
+ * gathered and written as a single append that also flushes, once the buffered records of the file reach the batch
+ * size or the oldest of them has waited for the linger time. A file has at most one batch in flight, so its records
+ * are written in the order they were buffered. The memory held by buffered and in-flight records of a connection
+ * is bounded; appends wait for memory once the bound is reached.
+ */
+public class AppendBuffer {
+
+    private static final Log log = LogFactory.getLog(AppendBuffer.class);
+
+    static final int DEFAULT_BATCH_SIZE = 4 * 1024;
+    static final int DEFAULT_LINGER_TIME = 500;
+    static final int DEFAULT_MAX_MEMORY = 64;
+
+    /**
+     * How long an append waits for buffer memory before it fails.
+     */
+    private static final Duration MEMORY_TIMEOUT = Duration.ofSeconds(30);
+
+    /**
+     * How long shutdown waits for the buffered records to be written.
+     */
+    public static final Duration CLOSE_TIMEOUT = Duration.ofSeconds(30);
+
+    private static final Set<AppendBuffer> BUFFERS = ConcurrentHashMap.newKeySet();
+    private static final ScheduledExecutorService TIMER = Executors.newSingleThreadScheduledExecutor(
+            new DefaultThreadFactory("msazuredatalakestorage-append-buffer", true));
+
+    private final String connectionName;
+    private final AppendOffsetTracker offsetTracker;
+    private final Map<String, PathBuffer> paths = new HashMap<>();
+    private final AtomicLong bufferedBytes = new AtomicLong();
+    private final AtomicLong batchCount = new AtomicLong();
+    private final AtomicLong recordCount = new AtomicLong();
+    private final AtomicLong failedBatchCount = new AtomicLong();
+    private volatile long batchSize;
+    private volatile long lingerTime;
+    private volatile int maxMemory;
+    private volatile Semaphore memory;
+
+    AppendBuffer(ConnectionConfiguration config, AppendOffsetTracker offsetTracker) {
+
+        this.connectionName = config.getConnectionName();
+        this.offsetTracker = offsetTracker;
+        configure(config);
+        BUFFERS.add(this);
+    }
+
+    /**
+     * Applies the buffer settings of the connection. Records already buffered keep counting against the previous
+     * memory bound.
+     *
+     * @param config the connection configuration.
+     */
+    synchronized void configure(ConnectionConfiguration config) {
+
+        batchSize = (config.getAppendBufferSize() != null ?
+                config.getAppendBufferSize() : DEFAULT_BATCH_SIZE) * 1024L;
+        lingerTime = config.getAppendBufferLingerTime() != null ?
+                config.getAppendBufferLingerTime() : DEFAULT_LINGER_TIME;
+        int configuredMaxMemory = (config.getAppendBufferMemory() != null ?
+                config.getAppendBufferMemory() : DEFAULT_MAX_MEMORY) * 1024 * 1024;
+        if (memory == null || configuredMaxMemory != maxMemory) {
+            memory = new Semaphore(configuredMaxMemory);
+            maxMemory = configuredMaxMemory;
+        }
+    }
+
+    /**
+     * Buffers a record to be appended to a file. Waits for memory if the buffers of the connection are full.
+     *
+     * @param client the client of the file.
+     * @param record the record.
+     * @throws TimeoutException     if no memory became available in time.
+     * @throws InterruptedException if the thread was interrupted while it waited for memory.
+     */
+    public void append(DataLakeFileAsyncClient client, byte[] record) throws TimeoutException, InterruptedException {
+
+        if (record.length == 0) {
+            return;
+        }
+        Semaphore recordMemory = memory;
+        if (record.length > maxMemory) {
+            throw new IllegalArgumentException("A record of " + record.length + " bytes does not fit into the "
+                    + maxMemory + " bytes of append buffer memory");
+        }
+        if (!recordMemory.tryAcquire(record.length, MEMORY_TIMEOUT.toMillis(), TimeUnit.MILLISECONDS)) {
+            throw new TimeoutException("No append buffer memory became available within "
+                    + MEMORY_TIMEOUT.getSeconds() + " seconds");
+        }
+        bufferedBytes.addAndGet(record.length);
+        recordCount.incrementAndGet();
+        Batch batch = null;
+        synchronized (paths) {
+            PathBuffer path = paths.computeIfAbsent(client.getFileUrl(), PathBuffer::new);
+            path.client = client;
+            path.add(record, recordMemory);
+            if (path.pendingBytes >= batchSize) {
+                batch = path.takeBatch();
+            } else if (path.timer == null && !path.flushing) {
+                path.timer = TIMER.schedule(() -> send(path), lingerTime, TimeUnit.MILLISECONDS);
+            }
+        }
+        if (batch != null) {
+            write(batch);
+        }
+    }
+
+    /**
+     * Writes every buffered record and waits until they are written.
+     *
+     * @param timeout the longest time to wait.
+     * @return whether every record was written in time, successfully or not.
+     */
+    public boolean flush(Duration timeout) {
+
+        long deadline = System.nanoTime() + timeout.toNanos();
+        List<Batch> batches = new ArrayList<>();
+        synchronized (paths) {
+            for (PathBuffer path : paths.values()) {
+                Batch batch = path.takeBatch();
+                if (batch != null) {
+                    batches.add(batch);
+                }
+            }
+        }
+        batches.forEach(this::write);
+        synchronized (paths) {
+            while (!paths.isEmpty()) {
+                long remaining = TimeUnit.NANOSECONDS.toMillis(deadline - System.nanoTime());
+                if (remaining <= 0) {
+                    return false;
+                }
+                try {
+                    paths.wait(remaining);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Writes the buffered records of the connection, used as the connection shuts down.
+     */
+    void close() {
+
+        BUFFERS.remove(this);
+        if (!flush(CLOSE_TIMEOUT)) {
+            log.warn("Not all buffered appends of the connection " + connectionName + " were written within "
+                    + CLOSE_TIMEOUT.getSeconds() + " seconds, " + bufferedBytes.get() + " bytes are lost");
+        }
+    }
+
+    /**
+     * Writes the buffered records of every connection in parallel and waits until they are written, used as the
+     * connector is undeployed.
+     *
+     * @param timeout the longest time to wait.
+     */
+    public static void flushAll(Duration timeout) {
+
+        long deadline = System.nanoTime() + timeout.toNanos();
+        List<AppendBuffer> buffers = new ArrayList<>(BUFFERS);
+        // Start every write before waiting on any of them
+        for (AppendBuffer buffer : buffers) {
+            buffer.flush(Duration.ZERO);
+        }
+        for (AppendBuffer buffer : buffers) {
+            if (!buffer.flush(Duration.ofNanos(Math.max(0, deadline - System.nanoTime())))) {
+                log.warn("Not all buffered appends of the connection " + buffer.connectionName + " were written "
+                        + "within " + timeout.getSeconds() + " seconds, " + buffer.bufferedBytes.get()
+                        + " bytes are lost");
+            }
+        }
+    }
+
+    private void send(PathBuffer path) {
+
+        Batch batch;
+        synchronized (paths) {
+            path.timer = null;
+            batch = path.takeBatch();
+        }
+        if (batch != null) {
+            write(batch);
+        }
+    }
+
+    private void write(Batch batch) {
+
+        batchCount.incrementAndGet();
+        Mono.fromCallable(batch::contentMd5)
+                .flatMap(contentMd5 -> append(batch, contentMd5, true))
+                .subscribe(response -> {
+                }, e -> {
+                    failedBatchCount.incrementAndGet();
+                    log.error("Unable to append " + batch.records.size() + " buffered record(s) of " + batch.size
+                            + " bytes to " + batch.path.fileUrl, e);
+                    complete(batch);
+                }, () -> complete(batch));
+    }
+
+    private Mono<Response<Void>> append(Batch batch, byte[] contentMd5, boolean resync) {
+
+        DataLakeFileAsyncClient client = batch.path.client;
+        String fileUrl = batch.path.fileUrl;
+        // Waiting for the other appends to the file blocks, so it happens off the event loop
+        return Mono.fromCallable(() -> offsetTracker.reserve(fileUrl, null, batch.size, false,
+                        () -> client.getProperties().block().getFileSize(), AppendOffsetTracker.DEFAULT_WAIT_TIMEOUT))
+                .subscribeOn(Schedulers.boundedElastic())
+                .flatMap(range -> append(batch, contentMd5, range)
+                        // Someone else wrote to the file, append once more at its actual length
+                        .onErrorResume(e -> range.failed(e) && resync, e -> append(batch, contentMd5, false)));
+    }
+
+    /**
+     * Appends a batch at its reserved range and flushes the file at its end, in order with the other appends.
+     */
+    private static Mono<Response<Void>> append(Batch batch, byte[] contentMd5, AppendOffsetTracker.Range range) {
+
+        DataLakeFileAsyncClient client = batch.path.client;
+        return Mono.fromCallable(() -> range.beginAppend(true, AppendOffsetTracker.DEFAULT_WAIT_TIMEOUT))
+                .subscribeOn(Schedulers.boundedElastic())
+                .flatMap(flushWithAppend -> client.appendWithResponse(batch.content(), range.getPosition(),
+                                new DataLakeFileAppendOptions().setContentHash(contentMd5).setFlush(flushWithAppend))
+                        .flatMap(response -> {
+                            if (flushWithAppend) {
+                                range.committed();
+                                return Mono.just(response);
+                            }
+                            range.appended();
+                            return Mono.fromCallable(() -> range.beginFlush(AppendOffsetTracker.DEFAULT_WAIT_TIMEOUT))
+                                    .subscribeOn(Schedulers.boundedElastic())
+                                    .flatMap(flush -> flush ? client.flushWithResponse(range.getEnd(),
+                                                    new DataLakeFileFlushOptions().setUncommittedDataRetained(true))
+                                            .doOnSuccess(flushResponse -> range.committed()) : Mono.empty())
+                                    .thenReturn(response);
+                        }));
+    }
+
+    private void complete(Batch batch) {
+
+        bufferedBytes.addAndGet(-batch.size);
+        batch.releaseMemory();
+        Batch next;
+        synchronized (paths) {
+            PathBuffer path = batch.path;
+            path.flushing = false;
+            // Records that arrived while the batch was in flight have waited long enough
+            next = path.takeBatch();
+            if (next == null) {
+                paths.remove(path.fileUrl);
+                paths.notifyAll();
+            }
+        }
+        if (next != null) {
+            write(next);
+        }
+    }
+
+    public long getBufferedBytes() {
+
+        return bufferedBytes.get();
+    }
+
+    public long getBatchCount() {
+
+        return batchCount.get();
+    }
+
+    public long getRecordCount() {
+
+        return recordCount.get();
+    }
+
+    public long getFailedBatchCount() {
+
+        return failedBatchCount.get();
+    }
+
+    /**
+     * The buffered records of a file. Guarded by the path map of the buffer.
+     */
+    private static final class PathBuffer {
+
+        private final String fileUrl;
+        private DataLakeFileAsyncClient client;
+        private List<byte[]> pending = new ArrayList<>();
+        private List<Semaphore> pendingMemory = new ArrayList<>();
+        private long pendingBytes;
+        private boolean flushing;
+        private ScheduledFuture<?> timer;
+
+        private PathBuffer(String fileUrl) {
+
+            this.fileUrl = fileUrl;
+        }
+
+        private void add(byte[] record, Semaphore memory) {
+
+            pending.add(record);
+            pendingMemory.add(memory);
+            pendingBytes += record.length;
+        }
+
+        /**
+         * Takes the pending records as the next batch of the file, unless there are none or a batch is in flight.
+         */
+        private Batch takeBatch() {
+
+            if (flushing || pending.isEmpty()) {
+                return null;
+            }
+            if (timer != null) {
+                timer.cancel(false);
+                timer = null;
+            }
+            Batch batch = new Batch(this, pending, pendingMemory, pendingBytes);
+            pending = new ArrayList<>();
+            pendingMemory = new ArrayList<>();
+            pendingBytes = 0;
+            flushing = true;
+            return batch;
+        }
+    }
+
+    /**
+     * Records written by a single append.
+     */
+    private static final class Batch {
+
+        private final PathBuffer path;
+        private final List<byte[]> records;
+        private final List<Semaphore> memory;
+        private final long size;
+
+        private Batch(PathBuffer path, List<byte[]> records, List<Semaphore> memory, long size) {
+
+            this.path = path;
+            this.records = records;
+            this.memory = memory;
+            this.size = size;
+        }
+
+        private BinaryData content() {
+
+            List<ByteBuffer> buffers = new ArrayList<>(records.size());
+            for (byte[] record : records) {
+                buffers.add(ByteBuffer.wrap(record));
+            }
+            return BinaryData.fromListByteBuffer(buffers);
+        }
+
+        private byte[] contentMd5() throws NoSuchAlgorithmException {
+
+            MessageDigest digest = MessageDigest.getInstance("MD5");
+            for (byte[] record : records) {
+                digest.update(record);
+            }
+            return digest.digest();
+        }
+
+        private void releaseMemory() {
+
+            for (int i = 0; i < records.size(); i++) {
+                memory.get(i).release(records.get(i).length);
+            }
+        }
+    }
+}
@@ -0,0 +1,512 @@
+/*
+ *  Copyright (c) 2025, WSO2 LLC. (https://www.wso2.com).
+ *
+ *  WSO2 LLC. licenses this file to you under the Apache License,
+ *  Version 2.0 (the "License"); you may not use this file except
+ *  in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *  "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License.
+ */
+
+package org.wso2.carbon.connector.connection;
+
+import com.azure.storage.file.datalake.models.DataLakeStorageException;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.TreeMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+
+/**
+ * Tracks the committed length and the next append position of the files a connection appends to, keyed by file URL,
+ * so that appends and flushes do not fetch the properties of the file first. Concurrent appends to a file reserve
+ * disjoint ranges after the data appended before them and may upload them in any order, but the file is only
+ * flushed at the end of a range once every range before it is appended, and one flush at a time. The offsets only
+ * account for writes through this connection; a write by anyone else surfaces as an offset mismatch reported by the
+ * service, after which the offsets are fetched again once no append to the file is in flight any more. The service
+ * checks the position of flushes only, so an append that is not flushed checks the length of the file first unless
+ * it holds a lease. An append under a lease trusts the offsets tracked under the same lease, since no one else can
+ * write to the file while it is held, and fetches them again under any other lease. The least recently used idle
+ * file is forgotten once the tracker is full.
+ */
+public class AppendOffsetTracker {
+
+    static final int MAX_SIZE = 10000;
+
+    /**
+     * How long an append or flush waits for the other appends to the file by default.
+     */
+    public static final Duration DEFAULT_WAIT_TIMEOUT = Duration.ofSeconds(60);
+
+    /**
+     * Error code of the service for an append or flush position that is not the length of the file.
+     */
+    private static final String OFFSET_MISMATCH_ERROR = "InvalidFlushPosition";
+
+    private final AtomicLong hitCount = new AtomicLong();
+    private final AtomicLong missCount = new AtomicLong();
+    private final AtomicLong resyncCount = new AtomicLong();
+    private final LinkedHashMap<String, Offsets> offsets = new LinkedHashMap<String, Offsets>(16, 0.75f, true) {
+
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, Offsets> eldest) {
+
+            // A file with appends in flight is kept, or a new append could overlap them
+            return size() > MAX_SIZE && eldest.getValue().isIdle();
+        }
+    };
+
+    /**
+     * Reserves the range of an append to a file. The length of the file is fetched if the file is not tracked yet,
+     * is tracked under another lease or must be checked. A file whose offsets are no longer valid, after a failed
+     * append or under another lease, is only fetched again once its appends in flight are done, so that the range
+     * never overlaps them.
+     *
+     * @param fileUrl  the URL of the file.
+     * @param leaseId  the lease the append is made under, or {@code null}.
+     * @param length   the length of the append.
+     * @param verify   whether to check the length of a tracked file, for an append whose position the service does
+     *                 not check.
+     * @param fileSize fetches the committed length of the file.
+     * @param timeout  how long to wait for the appends in flight.
+     * @return the reserved range.
+     * @throws InterruptedException if the thread is interrupted while waiting.
+     * @throws TimeoutException     if the appends in flight are not done in time.
+     */
+    public Range reserve(String fileUrl, String leaseId, long length, boolean verify, LongSupplier fileSize,
+                         Duration timeout) throws InterruptedException, TimeoutException {
+
+        long deadline = System.nanoTime() + timeout.toNanos();
+        Long committedLength = null;
+        while (true) {
+            synchronized (offsets) {
+                Offsets fileOffsets = awaitValid(fileUrl, leaseId, deadline);
+                if (fileOffsets == null && committedLength != null) {
+                    missCount.incrementAndGet();
+                    fileOffsets = new Offsets(fileUrl, committedLength, leaseId);
+                    offsets.put(fileUrl, fileOffsets);
+                    return fileOffsets.reserve(length);
+                } else if (fileOffsets != null && !verify) {
+                    // Offsets tracked meanwhile, by a concurrent append, take precedence over a fetched length
+                    if (committedLength == null) {
+                        hitCount.incrementAndGet();
+                    } else {
+                        missCount.incrementAndGet();
+                    }
+                    return fileOffsets.reserve(length);
+                } else if (fileOffsets != null && committedLength != null) {
+                    missCount.incrementAndGet();
+                    if (fileOffsets.isCommittedLength(committedLength)) {
+                        return fileOffsets.reserve(length);
+                    }
+                    // Someone else wrote to the file, it is fetched again once the appends in flight are done
+                    resyncCount.incrementAndGet();
+                    fileOffsets.invalidate();
+                    committedLength = null;
+                    continue;
+                }
+            }
+            committedLength = fileSize.getAsLong();
+        }
+    }
+
+    /**
+     * Reserves flushing a file at a position, once every tracked append before the position is appended and no
+     * other flush of the file is in flight.
+     *
+     * @param fileUrl  the URL of the file.
+     * @param position the position to flush the file at.
+     * @param timeout  how long to wait for the appends and flush in flight.
+     * @return the flush, to report its outcome to, or {@code null} if the file is not tracked.
+     * @throws InterruptedException if the thread is interrupted while waiting.
+     * @throws TimeoutException     if the appends and flush in flight are not done in time.
+     */
+    public Range beginFlush(String fileUrl, long position, Duration timeout)
+            throws InterruptedException, TimeoutException {
+
+        long deadline = System.nanoTime() + timeout.toNanos();
+        synchronized (offsets) {
+            Offsets fileOffsets = offsets.get(fileUrl);
+            if (fileOffsets == null || fileOffsets.stale) {
+                return null;
+            }
+            Range flush = new Range(fileOffsets, position, position);
+            while (!fileOffsets.isFlushable(position)) {
+                await(deadline);
+                if (fileOffsets.stale || offsets.get(fileUrl) != fileOffsets) {
+                    return null;
+                }
+            }
+            flush.holdFlush();
+            return flush;
+        }
+    }
+
+    /**
+     * Returns the committed length of a file.
+     *
+     * @param fileUrl the URL of the file.
+     * @return the committed length, or {@code null} if the file is not tracked.
+     */
+    public Long getCommittedLength(String fileUrl) {
+
+        synchronized (offsets) {
+            Offsets fileOffsets = offsets.get(fileUrl);
+            return fileOffsets != null && !fileOffsets.stale ? fileOffsets.committedLength : null;
+        }
+    }
+
+    /**
+     * Returns the position after the data appended to a file, committed or not.
+     *
+     * @param fileUrl the URL of the file.
+     * @return the next append position, or {@code null} if the file is not tracked.
+     */
+    public Long getNextPosition(String fileUrl) {
+
+        synchronized (offsets) {
+            Offsets fileOffsets = offsets.get(fileUrl);
+            return fileOffsets != null && !fileOffsets.stale ? fileOffsets.nextPosition : null;
+        }
+    }
+
+    public void clear() {
+
+        synchronized (offsets) {
+            offsets.clear();
+            offsets.notifyAll();
+        }
+    }
+
+    public int getSize() {
+
+        synchronized (offsets) {
+            return offsets.size();
+        }
+    }
+
+    public long getHitCount() {
+
+        return hitCount.get();
+    }
+
+    public long getMissCount() {
+
+        return missCount.get();
+    }
+
+    public long getResyncCount() {
+
+        return resyncCount.get();
+    }
+
+    /**
+     * Waits until the tracked offsets of a file, if any, are valid under a lease, dropping invalid offsets once no
+     * append to the file is in flight. Called with the offset map locked.
+     */
+    private Offsets awaitValid(String fileUrl, String leaseId, long deadline)
+            throws InterruptedException, TimeoutException {
+
+        while (true) {
+            Offsets fileOffsets = offsets.get(fileUrl);
+            if (fileOffsets == null || !fileOffsets.stale && Objects.equals(fileOffsets.leaseId, leaseId)) {
+                return fileOffsets;
+            }
+            if (fileOffsets.isIdle()) {
+                offsets.remove(fileUrl);
+                return null;
+            }
+            await(deadline);
+        }
+    }
+
+    /**
+     * Waits for a change of the offsets. Called with the offset map locked.
+     */
+    private void await(long deadline) throws InterruptedException, TimeoutException {
+
+        long remaining = deadline - System.nanoTime();
+        if (remaining <= 0) {
+            throw new TimeoutException("The other appends to the file did not complete in time");
+        }
+        TimeUnit.NANOSECONDS.timedWait(offsets, remaining);
+    }
+
+    private static boolean isOffsetMismatch(Throwable error) {
+
+        return error instanceof DataLakeStorageException
+                && OFFSET_MISMATCH_ERROR.equals(((DataLakeStorageException) error).getErrorCode());
+    }
+
+    /**
+     * A reserved range of a file, to append and flush in order with the other ranges of the file.
+     */
+    public final class Range {
+
+        private final Offsets fileOffsets;
+        private final long position;
+        private final long end;
+        private boolean flushHeld;
+        private boolean done;
+
+        private Range(Offsets fileOffsets, long position, long end) {
+
+            this.fileOffsets = fileOffsets;
+            this.position = position;
+            this.end = end;
+        }
+
+        public long getPosition() {
+
+            return position;
+        }
+
+        public long getEnd() {
+
+            return end;
+        }
+
+        /**
+         * Waits until the range may be appended, which is once no append to the file that flushes it in the same
+         * request is in flight, since such a flush would discard the data appended after it.
+         *
+         * @param flush   whether the file is to be flushed at the end of the range.
+         * @param timeout how long to wait for the append in flight.
+         * @return whether the append may flush the file itself, which it may if no other append to the file is in
+         * flight or appended after the range. If not, the range is flushed with {@link #beginFlush(Duration)}
+         * once it is appended.
+         * @throws IllegalStateException if an append before the range failed, so that the range must be reserved
+         *                               again.
+         * @throws InterruptedException  if the thread is interrupted while waiting.
+         * @throws TimeoutException      if the append in flight is not done in time.
+         */
+        public boolean beginAppend(boolean flush, Duration timeout) throws InterruptedException, TimeoutException {
+
+            long deadline = System.nanoTime() + timeout.toNanos();
+            synchronized (offsets) {
+                while (fileOffsets.exclusive != null && fileOffsets.exclusive != this) {
+                    await(deadline);
+                }
+                if (fileOffsets.stale) {
+                    // The range follows a failed append, it is reserved again at the actual length of the file
+                    throw new StaleOffsetsException();
+                }
+                if (flush && !fileOffsets.flushing && fileOffsets.inFlight.size() == 1
+                        && fileOffsets.inFlight.get(position) == this && fileOffsets.nextPosition == end) {
+                    fileOffsets.exclusive = this;
+                    holdFlush();
+                    return true;
+                }
+                return false;
+            }
+        }
+
+        /**
+         * Records that the data of the range was appended without flushing the file.
+         */
+        public void appended() {
+
+            synchronized (offsets) {
+                fileOffsets.inFlight.remove(position, this);
+                offsets.notifyAll();
+            }
+        }
+
+        /**
+         * Waits until every range before the end of this one is appended and no other flush of the file is in
+         * flight, and reserves flushing the file at the end of the range.
+         *
+         * @param timeout how long to wait for the appends and flush in flight.
+         * @return whether the file is to be flushed at the end of the range, which it is not if a later range was
+         * flushed meanwhile.
+         * @throws IllegalStateException if an append before the range failed, so that the range cannot be flushed.
+         * @throws InterruptedException  if the thread is interrupted while waiting.
+         * @throws TimeoutException      if the appends and flush in flight are not done in time.
+         */
+        public boolean beginFlush(Duration timeout) throws InterruptedException, TimeoutException {
+
+            long deadline = System.nanoTime() + timeout.toNanos();
+            synchronized (offsets) {
+                while (true) {
+                    if (fileOffsets.stale) {
+                        throw new StaleOffsetsException();
+                    }
+                    if (fileOffsets.committedLength >= end) {
+                        return false;
+                    }
+                    if (fileOffsets.isFlushable(end)) {
+                        holdFlush();
+                        return true;
+                    }
+                    await(deadline);
+                }
+            }
+        }
+
+        /**
+         * Records a successful flush of the file at the end of the range, retaining the data appended after it.
+         */
+        public void committed() {
+
+            committed(true);
+        }
+
+        /**
+         * Records a successful flush of the file at the end of the range.
+         *
+         * @param uncommittedDataKept whether the data appended after the range was retained.
+         */
+        public void committed(boolean uncommittedDataKept) {
+
+            synchronized (offsets) {
+                release();
+                if (fileOffsets.committedLength < end) {
+                    fileOffsets.committedLength = end;
+                }
+                if (!uncommittedDataKept || fileOffsets.nextPosition < end) {
+                    fileOffsets.nextPosition = end;
+                }
+                offsets.notifyAll();
+            }
+        }
+
+        /**
+         * Records a failed append or flush of the range. The offsets of the file are fetched again once no append to
+         * the file is in flight, and the ranges reserved before that cannot be flushed.
+         *
+         * @param error the failure.
+         * @return whether the failure was an offset mismatch, after which the operation can be retried.
+         */
+        public boolean failed(Throwable error) {
+
+            synchronized (offsets) {
+                release();
+                fileOffsets.invalidate();
+                offsets.notifyAll();
+            }
+            boolean mismatch = isOffsetMismatch(error) || error instanceof StaleOffsetsException;
+            if (mismatch) {
+                resyncCount.incrementAndGet();
+            }
+            return mismatch;
+        }
+
+        private void holdFlush() {
+
+            fileOffsets.flushing = true;
+            fileOffsets.flushPosition = end;
+            flushHeld = true;
+        }
+
+        /**
+         * Ends the range, releasing the flush if it holds it. Called with the offset map locked.
+         */
+        private void release() {
+
+            if (done) {
+                return;
+            }
+            done = true;
+            fileOffsets.inFlight.remove(position, this);
+            if (fileOffsets.exclusive == this) {
+                fileOffsets.exclusive = null;
+            }
+            if (flushHeld) {
+                fileOffsets.flushing = false;
+                flushHeld = false;
+            }
+        }
+    }
+
+    /**
+     * Reported for a range that cannot be flushed since an append before it failed.
+     */
+    private static final class StaleOffsetsException extends IllegalStateException {
+
+        private StaleOffsetsException() {
+
+            super("An earlier append to the file failed, so the appended data cannot be flushed");
+        }
+    }
+
+    /**
+     * The offsets of a file. Guarded by the offset map of the tracker.
+     */
+    private final class Offsets {
+
+        private final String fileUrl;
+        private final String leaseId;
+        /**
+         * The ranges reserved and not appended yet, by position.
+         */
+        private final TreeMap<Long, Range> inFlight = new TreeMap<>();
+        private long committedLength;
+        private long nextPosition;
+        private boolean flushing;
+        private long flushPosition;
+        private Range exclusive;
+        private boolean stale;
+
+        private Offsets(String fileUrl, long committedLength, String leaseId) {
+
+            this.fileUrl = fileUrl;
+            this.leaseId = leaseId;
+            this.committedLength = committedLength;
+            this.nextPosition = committedLength;
+        }
+
+        private Range reserve(long length) {
+
+            Range range = new Range(this, nextPosition, nextPosition + length);
+            inFlight.put(range.position, range);
+            nextPosition += length;
+            return range;
+        }
+
+        /**
+         * @return whether the file can be flushed at the position, with every range before it appended and no
+         * other flush in flight.
+         */
+        private boolean isFlushable(long position) {
+
+            return !flushing && (inFlight.isEmpty() || inFlight.firstKey() >= position);
+        }
+
+        /**
+         * @return whether a fetched length of the file is accounted for by the flushes through this connection.
+         */
+        private boolean isCommittedLength(long length) {
+
+            return length == committedLength || flushing && length == flushPosition;
+        }
+
+        private boolean isIdle() {
+
+            return inFlight.isEmpty() && !flushing;
+        }
+
+        /**
+         * Marks the offsets as no longer valid, dropping them right away if nothing is in flight.
+         */
+        private void invalidate() {
+
+            stale = true;
+            if (isIdle() && offsets.get(fileUrl) == this) {
+                offsets.remove(fileUrl);
+            }
+        }
+    }
+}
@@ -18,44 +18,128 @@
 
 package org.wso2.carbon.connector.connection;
 
+import com.azure.core.http.HttpClient;
 import com.azure.core.http.netty.NettyAsyncHttpClientBuilder;
-import com.azure.identity.ClientSecretCredential;
-import com.azure.identity.ClientSecretCredentialBuilder;
+import com.azure.storage.file.datalake.DataLakeServiceAsyncClient;
 import com.azure.storage.file.datalake.DataLakeServiceClient;
+import com.azure.storage.common.policy.RequestRetryOptions;
+import com.azure.storage.common.policy.RetryPolicyType;
 import com.azure.storage.file.datalake.DataLakeServiceClientBuilder;
 import org.apache.commons.lang.StringUtils;
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.wso2.carbon.connector.connection.DataLakeServiceClientCache.CachedServiceClient;
+import org.wso2.carbon.connector.connection.SharedNettyResources.Resources;
 import org.wso2.carbon.connector.core.ConnectException;
 import org.wso2.carbon.connector.core.connection.Connection;
 import org.wso2.carbon.connector.core.connection.ConnectionConfig;
 import org.wso2.carbon.connector.util.AbstractAzureMediator;
 import org.wso2.carbon.connector.util.AzureConstants;
 
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
 /**
  * Handles the connection to Azure Storage.
  */
 public class AzureStorageConnectionHandler implements Connection {
 
-    private ConnectionConfiguration connectionConfig;
-    private DataLakeServiceClient dataLakeServiceClient;
+    private static final Log log = LogFactory.getLog(AzureStorageConnectionHandler.class);
+    private static final int DEFAULT_WARM_UP_CONNECTIONS = 1;
+
+    private volatile ConnectionConfiguration connectionConfig;
+    private final AtomicReference<CachedServiceClient> cachedServiceClient = new AtomicReference<>();
+    private final Object lifecycleLock = new Object();
+    private final CircuitBreaker circuitBreaker;
+    private final ConcurrencyLimiter concurrencyLimiter;
+    private final OffloadExecutor offloadExecutor;
+    private final PathClientCache pathClientCache;
+    private final TransferTuner transferTuner = new TransferTuner();
+    private final RemoteHashCache remoteHashCache = new RemoteHashCache();
+    private final AppendOffsetTracker appendOffsetTracker = new AppendOffsetTracker();
+    private final AppendBuffer appendBuffer;
+    private final ConnectionMetrics metrics;
 
     public AzureStorageConnectionHandler(ConnectionConfiguration fsConfig) {
 
         this.connectionConfig = fsConfig;
+        this.circuitBreaker = new CircuitBreaker(fsConfig);
+        this.concurrencyLimiter = new ConcurrencyLimiter(fsConfig);
+        this.offloadExecutor = new OffloadExecutor(fsConfig);
+        this.pathClientCache = new PathClientCache(fsConfig);
+        this.appendBuffer = new AppendBuffer(fsConfig, appendOffsetTracker);
+        this.metrics = new ConnectionMetrics(fsConfig.getConnectionName(), circuitBreaker, concurrencyLimiter,
+                offloadExecutor, pathClientCache, transferTuner, remoteHashCache, appendBuffer, appendOffsetTracker);
+        this.metrics.register();
     }
 
     /**
      * Retrieves the DataLakeServiceClient instance. If the instance is not already created,
-     * it initializes a new one using the provided connection configuration.
+     * it is obtained from the shared client cache using the provided connection configuration.
      *
      * @return an instance of DataLakeServiceClient.
      * @throws ConnectException if there is an issue creating the client instance.
      */
     public DataLakeServiceClient getDataLakeServiceClient() throws ConnectException {
 
-        if (dataLakeServiceClient == null) {
-            dataLakeServiceClient = createNewDataLakeServiceClientInstance(this.connectionConfig);
+        CachedServiceClient client = cachedServiceClient.get();
+        if (client == null) {
+            client = initializeClient();
+        }
+        return client.getClient();
+    }
+
+    /**
+     * Retrieves the DataLakeServiceAsyncClient instance, which shares the HTTP pipeline settings of the
+     * DataLakeServiceClient of this connection.
+     *
+     * @return an instance of DataLakeServiceAsyncClient.
+     * @throws ConnectException if there is an issue creating the client instance.
+     */
+    public DataLakeServiceAsyncClient getDataLakeServiceAsyncClient() throws ConnectException {
+
+        CachedServiceClient client = cachedServiceClient.get();
+        if (client == null) {
+            client = initializeClient();
+        }
+        return client.getAsyncClient();
+    }
+
+    /**
+     * Leases the current service client for the duration of an operation. The lease keeps the client open if the
+     * connection switches to a new client while the operation is running, so it must always be closed.
+     *
+     * @return a lease on the current service client.
+     * @throws ConnectException if there is an issue creating the client instance.
+     */
+    public ClientLease leaseDataLakeServiceClient() throws ConnectException {
+
+        while (true) {
+            CachedServiceClient client = cachedServiceClient.get();
+            if (client == null) {
+                client = initializeClient();
+            }
+            if (client.retain()) {
+                return new ClientLease(client);
+            }
+            // The client was swapped out and closed after it was read; retry with the current one
+        }
+    }
+
+    /**
+     * Builds the service client on first use. Only the first of the concurrent callers builds it.
+     */
+    private CachedServiceClient initializeClient() throws ConnectException {
+
+        synchronized (lifecycleLock) {
+            CachedServiceClient client = cachedServiceClient.get();
+            if (client == null) {
+                client = DataLakeServiceClientCache.acquire(connectionConfig);
+                cachedServiceClient.set(client);
+            }
+            return client;
         }
-        return dataLakeServiceClient;
     }
 
    /**
@@ -69,35 +153,178 @@ public class AzureStorageConnectionHandler implements Connection {
     }
 
     /**
-     * Set the connection configuration
+     * Returns the runtime statistics of this connection.
+     *
+     * @return connection metrics.
+     */
+    public ConnectionMetrics getMetrics() {
+
+        return metrics;
+    }
+
+    /**
+     * Returns the circuit breaker guarding the storage account of this connection.
+     *
+     * @return circuit breaker.
+     */
+    public CircuitBreaker getCircuitBreaker() {
+
+        return circuitBreaker;
+    }
+
+    /**
+     * Returns the limiter of the operations this connection has in flight.
+     *
+     * @return concurrency limiter.
+     */
+    public ConcurrencyLimiter getConcurrencyLimiter() {
+
+        return concurrencyLimiter;
+    }
+
+    /**
+     * Returns the executor running the blocking operations of this connection off the mediation thread.
+     *
+     * @return offload executor.
+     */
+    public OffloadExecutor getOffloadExecutor() {
+
+        return offloadExecutor;
+    }
+
+    /**
+     * Returns the cache of the file system, file and directory clients of this connection.
+     *
+     * @return path client cache.
+     */
+    public PathClientCache getPathClientCache() {
+
+        return pathClientCache;
+    }
+
+    /**
+     * Returns the tuner that chooses the block size and concurrency of the transfers of this connection.
+     *
+     * @return transfer tuner.
+     */
+    public TransferTuner getTransferTuner() {
+
+        return transferTuner;
+    }
+
+    /**
+     * Returns the cache of the hashes of the remote files uploads of this connection compare their content with.
+     *
+     * @return remote hash cache.
+     */
+    public RemoteHashCache getRemoteHashCache() {
+
+        return remoteHashCache;
+    }
+
+    /**
+     * Returns the tracker of the append positions of the files this connection appends to.
+     *
+     * @return append offset tracker.
+     */
+    public AppendOffsetTracker getAppendOffsetTracker() {
+
+        return appendOffsetTracker;
+    }
+
+    /**
+     * Returns the write-behind buffer of the appends of this connection.
+     *
+     * @return append buffer.
+     */
+    public AppendBuffer getAppendBuffer() {
+
+        return appendBuffer;
+    }
+
+    /**
+     * Set the connection configuration. The service client is only replaced when the settings it is
+     * built from have changed. Operations that leased the previous client complete on it, and it is
+     * closed once the last of them releases it.
      *
      * @param connectionConfig ConnectionConfiguration object
      */
     public void setConnectionConfig(ConnectionConfiguration connectionConfig)
             throws ConnectException {
 
-        this.connectionConfig = connectionConfig;
-        dataLakeServiceClient = createNewDataLakeServiceClientInstance(this.connectionConfig);
+        synchronized (lifecycleLock) {
+            CachedServiceClient previousClient = cachedServiceClient.get();
+            if (previousClient != null &&
+                    !previousClient.getFingerprint().equals(connectionConfig.getClientFingerprint())) {
+                CachedServiceClient newClient = DataLakeServiceClientCache.acquire(connectionConfig);
+                // Warm the new client up before it starts serving messages
+                warmUp(connectionConfig, newClient.getClient());
+                cachedServiceClient.set(newClient);
+                DataLakeServiceClientCache.release(previousClient);
+                // Clients derived from the previous service client are no longer handed out, free them early
+                pathClientCache.clear();
+                metrics.recordClientRebuild();
+            }
+            this.connectionConfig = connectionConfig;
+            circuitBreaker.configure(connectionConfig);
+            concurrencyLimiter.configure(connectionConfig);
+            offloadExecutor.configure(connectionConfig);
+            pathClientCache.configure(connectionConfig);
+            appendBuffer.configure(connectionConfig);
+        }
+    }
+
+    /**
+     * Eagerly builds the service client and, if warm-up is enabled for the connection, opens the configured number
+     * of pooled connections and fetches the access token so that the first messages do not pay for it. Failures
+     * are logged and otherwise ignored since the operations establish the connections on demand anyway.
+     *
+     * @throws ConnectException if the service client cannot be built.
+     */
+    public void warmUp() throws ConnectException {
+
+        if (connectionConfig.isWarmUp()) {
+            warmUp(connectionConfig, getDataLakeServiceClient());
+        }
+    }
+
+    private void warmUp(ConnectionConfiguration config, DataLakeServiceClient client) {
+
+        if (!config.isWarmUp()) {
+            return;
+        }
+        int connections = config.getWarmUpConnections() != null ?
+                config.getWarmUpConnections() : DEFAULT_WARM_UP_CONNECTIONS;
+        long start = System.nanoTime();
+        try {
+            long opened = ConnectionWarmUp.warmUp(client, connections);
+            long duration = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+            metrics.recordWarmUp(duration, opened);
+            log.info("Warmed up " + opened + " connection(s) of the Azure Data Lake connection "
+                    + config.getConnectionName() + " in " + duration + " ms");
+        } catch (RuntimeException e) {
+            log.warn("Unable to warm up the Azure Data Lake connection " + config.getConnectionName(), e);
+        }
     }
 
    /**
-    * Creates a new instance of `DataLakeServiceClient`.
+    * Creates the builder of the `DataLakeServiceClient` and `DataLakeServiceAsyncClient` instances of a
+    * connection.
     *
-    * This method initializes a new `DataLakeServiceClient` instance using the provided
-    * connection configuration. It supports different authentication methods including
-    * OAuth2, Access Key, and Shared Access Signature (SAS) Token.
+    * This method configures the builder using the provided connection configuration. It supports different
+    * authentication methods including OAuth2, Access Key, and Shared Access Signature (SAS) Token.
     *
-    * @param config the `ConnectionConfiguration` object containing the connection settings.
-    * @return a new instance of `DataLakeServiceClient`.
-    * @throws ConnectException if there is an issue creating the client instance or if required
-    *                          authentication parameters are missing.
+    * @param config             the `ConnectionConfiguration` object containing the connection settings.
+    * @param resources          the shared Netty resources used by the HTTP client of the new instances.
+    * @param credential         the shared OAuth2 credential, or null if the connection does not use OAuth2.
+    * @return the configured builder.
+    * @throws ConnectException if required authentication parameters are missing.
     */
-    private DataLakeServiceClient createNewDataLakeServiceClientInstance(ConnectionConfiguration config)
+    static DataLakeServiceClientBuilder createDataLakeServiceClientBuilder(ConnectionConfiguration config,
+                                                                           Resources resources,
+                                                                           SharedTokenCredential credential)
             throws ConnectException {
 
-        String clientId = config.getClientID();
-        String clientSecret = config.getClientSecret();
-        String tenantId = config.getTenantID();
         String accountName = config.getAccountName();
         String accountKey = config.getAccountKey();
         String sasToken = config.getSasToken();
@@ -107,32 +334,29 @@ public class AzureStorageConnectionHandler implements Connection {
         }
 
         DataLakeServiceClientBuilder builder = new DataLakeServiceClientBuilder()
-                .httpClient(new NettyAsyncHttpClientBuilder().build());
-
-        if (StringUtils.isNotEmpty(clientId) && StringUtils.isNotEmpty(clientSecret) &&
-                StringUtils.isNotEmpty(tenantId)) {
-            ClientSecretCredential credential = new ClientSecretCredentialBuilder()
-                    .httpClient(new NettyAsyncHttpClientBuilder().build())
-                    .clientId(clientId)
-                    .clientSecret(clientSecret)
-                    .tenantId(tenantId)
-                    .build();
+                .httpClient(createHttpClient(config, resources))
+                .addPolicy(new TransactionalCrc64Policy())
+                .addPolicy(new TransferLatencyPolicy());
+        if (ConnectionRetryPolicy.isConfigured(config)) {
+            // The connection retry policy takes over the retries, the storage one only enforces the per-try timeout
+            builder.retryOptions(new RequestRetryOptions(RetryPolicyType.FIXED, 1, config.getTryTimeout(),
+                            null, null, null))
+                    .addPolicy(new ConnectionRetryPolicy(config));
+        }
 
+        if (credential != null) {
             return builder.credential(credential)
-                    .endpoint(AzureConstants.HTTPS_PROTOCOL + accountName + AzureConstants.DFS_ENDPOINT_SUFFIX)
-                    .buildClient();
+                    .endpoint(AzureConstants.HTTPS_PROTOCOL + accountName + AzureConstants.DFS_ENDPOINT_SUFFIX);
         }
 
         if (StringUtils.isNotEmpty(accountKey)) {
             return builder.connectionString(
-                            AbstractAzureMediator.getStorageConnectionString(accountName, accountKey, AzureConstants.HTTPS))
-                    .buildClient();
+                    AbstractAzureMediator.getStorageConnectionString(accountName, accountKey, AzureConstants.HTTPS));
         }
 
         if (StringUtils.isNotEmpty(sasToken)) {
             return builder.endpoint(AzureConstants.HTTPS_PROTOCOL + accountName + AzureConstants.DFS_ENDPOINT_SUFFIX)
-                    .sasToken(sasToken)
-                    .buildClient();
+                    .sasToken(sasToken);
         }
 
         throw new ConnectException("Missing authentication parameters. " +
@@ -141,6 +365,41 @@ public class AzureStorageConnectionHandler implements Connection {
                 "If the access type is Shared Access Signature Token, you must provide a SAS token.");
     }
 
+    /**
+     * Checks whether the configuration carries the OAuth2 client credentials.
+     *
+     * @param config the connection configuration.
+     * @return true if the client ID, client secret and tenant ID are all provided.
+     */
+    static boolean hasClientCredentials(ConnectionConfiguration config) {
+
+        return StringUtils.isNotEmpty(config.getClientID()) && StringUtils.isNotEmpty(config.getClientSecret()) &&
+                StringUtils.isNotEmpty(config.getTenantID());
+    }
+
+    /**
+     * Creates the Netty based HTTP client on top of the shared connection pool and event loop group.
+     *
+     * @param config    the connection configuration holding the timeout settings.
+     * @param resources the shared Netty resources.
+     * @return the HTTP client.
+     */
+    private static HttpClient createHttpClient(ConnectionConfiguration config, Resources resources) {
+
+        NettyAsyncHttpClientBuilder builder = new NettyAsyncHttpClientBuilder()
+                .connectionProvider(resources.getConnectionProvider());
+        if (resources.getEventLoopGroup() != null) {
+            builder.eventLoopGroup(resources.getEventLoopGroup());
+        }
+        if (config.getConnectTimeout() != null) {
+            builder.connectTimeout(Duration.ofSeconds(config.getConnectTimeout()));
+        }
+        if (config.getResponseTimeout() != null) {
+            builder.responseTimeout(Duration.ofSeconds(config.getResponseTimeout()));
+        }
+        return builder.build();
+    }
+
     @Override
     public void connect(ConnectionConfig connectionConfig) {
 
@@ -148,7 +407,16 @@ public class AzureStorageConnectionHandler implements Connection {
 
     @Override
     public void close() {
-        // Close the connection
+
+        // Buffered appends still need the service client
+        appendBuffer.close();
+        synchronized (lifecycleLock) {
+            DataLakeServiceClientCache.release(cachedServiceClient.getAndSet(null));
+            pathClientCache.clear();
+            remoteHashCache.clear();
+            appendOffsetTracker.clear();
+        }
+        metrics.unregister();
     }
 
 }
@@ -0,0 +1,210 @@
+/*
+ *  Copyright (c) 2025, WSO2 LLC. (https://www.wso2.com).
+ *
+ *  WSO2 LLC. licenses this file to you under the Apache License,
+ *  Version 2.0 (the "License"); you may not use this file except
+ *  in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *  "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License.
+ */
+
+package org.wso2.carbon.connector.connection;
+
+import com.azure.core.exception.HttpResponseException;
+
+import reactor.netty.http.client.PrematureCloseException;
+
+import java.net.SocketException;
+import java.net.SocketTimeoutException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+
+/**
+ * Stops sending requests of a connection to the storage account after a number of consecutive operations failed
+ * because the account was throttling, unavailable or not responding. While the circuit is open operations fail
+ * fast. Once the open period has elapsed a single operation is let through as a probe, and its outcome decides
+ * whether the circuit closes again or stays open for another period.
+ */
+public class CircuitBreaker {
+
+    static final int DEFAULT_OPEN_TIME = 30;
+
+    /**
+     * State of the circuit.
+     */
+    public enum State {
+        CLOSED, OPEN, HALF_OPEN
+    }
+
+    private final LongSupplier nanoTime;
+    private final AtomicLong openCount = new AtomicLong();
+    private final AtomicLong rejectedCount = new AtomicLong();
+    private volatile Integer failureThreshold;
+    private volatile long openTimeNanos;
+    private volatile State state = State.CLOSED;
+    private int consecutiveFailures;
+    private long openedAt;
+    private boolean probeInFlight;
+
+    CircuitBreaker(ConnectionConfiguration config) {
+
+        this(config, System::nanoTime);
+    }
+
+    /**
+     * @param nanoTime the clock the open period is measured with, in nanoseconds.
+     */
+    CircuitBreaker(ConnectionConfiguration config, LongSupplier nanoTime) {
+
+        this.nanoTime = nanoTime;
+        configure(config);
+    }
+
+    /**
+     * Applies the circuit breaker settings of the connection. The circuit is disabled if no failure threshold is
+     * configured.
+     *
+     * @param config the connection configuration.
+     */
+    synchronized void configure(ConnectionConfiguration config) {
+
+        this.failureThreshold = config.getCircuitBreakerThreshold();
+        this.openTimeNanos = TimeUnit.SECONDS.toNanos(config.getCircuitBreakerOpenTime() != null ?
+                config.getCircuitBreakerOpenTime() : DEFAULT_OPEN_TIME);
+        if (failureThreshold == null) {
+            close();
+        }
+    }
+
+    /**
+     * Checks whether an operation may be sent to the storage account. Every permitted operation must report its
+     * outcome through {@link #recordSuccess()} or {@link #recordFailure()}, or {@link #releaseProbe()} if it never
+     * reached the storage account.
+     *
+     * @return false if the operation must fail fast.
+     */
+    public boolean allowRequest() {
+
+        if (failureThreshold == null || state == State.CLOSED) {
+            return true;
+        }
+        synchronized (this) {
+            if (state == State.OPEN && nanoTime.getAsLong() - openedAt >= openTimeNanos) {
+                state = State.HALF_OPEN;
+            }
+            if (state == State.CLOSED || (state == State.HALF_OPEN && !probeInFlight)) {
+                probeInFlight = state == State.HALF_OPEN;
+                return true;
+            }
+        }
+        rejectedCount.incrementAndGet();
+        return false;
+    }
+
+    /**
+     * Records an operation that reached a healthy storage account, even if the operation itself failed.
+     */
+    public void recordSuccess() {
+
+        if (failureThreshold == null) {
+            return;
+        }
+        synchronized (this) {
+            close();
+        }
+    }
+
+    /**
+     * Records an operation that was let through but never reached the storage account, for example because it was
+     * throttled locally. The state is left as it is; if the operation was the probe, another one may be sent.
+     */
+    public void releaseProbe() {
+
+        if (failureThreshold == null) {
+            return;
+        }
+        synchronized (this) {
+            if (state == State.HALF_OPEN) {
+                probeInFlight = false;
+            }
+        }
+    }
+
+    /**
+     * Records an operation that failed because the storage account was unhealthy.
+     */
+    public void recordFailure() {
+
+        Integer threshold = failureThreshold;
+        if (threshold == null) {
+            return;
+        }
+        synchronized (this) {
+            if (state == State.OPEN) {
+                // Late failures of operations let through before the circuit opened do not extend the open period
+                return;
+            }
+            if (state == State.HALF_OPEN || ++consecutiveFailures >= threshold) {
+                openCount.incrementAndGet();
+                state = State.OPEN;
+                openedAt = nanoTime.getAsLong();
+                probeInFlight = false;
+            }
+        }
+    }
+
+    private void close() {
+
+        state = State.CLOSED;
+        consecutiveFailures = 0;
+        probeInFlight = false;
+    }
+
+    /**
+     * Checks whether an error shows that the storage account is throttling, unavailable or not responding, as
+     * opposed to an error caused by the request itself.
+     *
+     * @param throwable the error, which is inspected along with its causes.
+     * @return true if the error is caused by the service.
+     */
+    public static boolean isServiceFailure(Throwable throwable) {
+
+        for (Throwable cause = throwable; cause != null; cause = cause.getCause()) {
+            if (cause instanceof HttpResponseException && ((HttpResponseException) cause).getResponse() != null) {
+                int statusCode = ((HttpResponseException) cause).getResponse().getStatusCode();
+                return statusCode == 408 || statusCode == 429 || statusCode == 500 || statusCode == 502 ||
+                        statusCode == 503 || statusCode == 504;
+            }
+            if (cause instanceof TimeoutException || cause instanceof SocketTimeoutException ||
+                    cause instanceof SocketException || cause instanceof PrematureCloseException) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    public State getState() {
+
+        return state;
+    }
+
+    public long getOpenCount() {
+
+        return openCount.get();
+    }
+
+    public long getRejectedCount() {
+
+        return rejectedCount.get();
+    }
+}
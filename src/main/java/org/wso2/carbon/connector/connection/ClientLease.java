@@ -0,0 +1,58 @@
+/*
+ *  Copyright (c) 2025, WSO2 LLC. (https://www.wso2.com).
+ *
+ *  WSO2 LLC. licenses this file to you under the Apache License,
+ *  Version 2.0 (the "License"); you may not use this file except
+ *  in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *  "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License.
+ */
+
+package org.wso2.carbon.connector.connection;
+
+import com.azure.storage.file.datalake.DataLakeServiceAsyncClient;
+import com.azure.storage.file.datalake.DataLakeServiceClient;
+import org.wso2.carbon.connector.connection.DataLakeServiceClientCache.CachedServiceClient;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * A reference to the service client of a connection held for the duration of an operation. The client stays open
+ * until the lease is closed, even if the connection switches to a new client in the meantime.
+ */
+public final class ClientLease implements AutoCloseable {
+
+    private final CachedServiceClient cachedServiceClient;
+    private final AtomicBoolean closed = new AtomicBoolean();
+
+    ClientLease(CachedServiceClient cachedServiceClient) {
+
+        this.cachedServiceClient = cachedServiceClient;
+    }
+
+    public DataLakeServiceClient getClient() {
+
+        return cachedServiceClient.getClient();
+    }
+
+    public DataLakeServiceAsyncClient getAsyncClient() {
+
+        return cachedServiceClient.getAsyncClient();
+    }
+
+    @Override
+    public void close() {
+
+        if (closed.compareAndSet(false, true)) {
+            DataLakeServiceClientCache.release(cachedServiceClient);
+        }
+    }
+}
@@ -0,0 +1,209 @@
+/*
+ *  Copyright (c) 2025, WSO2 LLC. (https://www.wso2.com).
+ *
+ *  WSO2 LLC. licenses this file to you under the Apache License,
+ *  Version 2.0 (the "License"); you may not use this file except
+ *  in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *  "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License.
+ */
+
+package org.wso2.carbon.connector.connection;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Limits the number of operations of a connection that are in flight at the same time, adapting the limit the way
+ * TCP congestion control adapts its window: the limit grows by one for every limit's worth of operations that
+ * completed in time, and is halved when the storage account throttles, fails or responds slower than the latency
+ * threshold. Operations over the limit wait for a permit until the queue timeout elapses.
+ */
+public class ConcurrencyLimiter {
+
+    static final int DEFAULT_INITIAL_LIMIT = 20;
+    static final int DEFAULT_MAX_LIMIT = 200;
+    static final int DEFAULT_QUEUE_TIMEOUT = 60;
+    private static final int MIN_LIMIT = 1;
+    private static final double BACKOFF_RATIO = 0.5;
+
+    /**
+     * Permit handed out while the limiter is disabled.
+     */
+    private static final Permit UNLIMITED = new Permit(null, 0);
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition permitReleased = lock.newCondition();
+    private final AtomicLong acquiredCount = new AtomicLong();
+    private final AtomicLong totalQueueWaitTime = new AtomicLong();
+    private final AtomicLong queueTimeoutCount = new AtomicLong();
+    private volatile boolean enabled;
+    private volatile double limit;
+    private volatile int inFlight;
+    private volatile long lastQueueWaitTime;
+    private int maxLimit;
+    private long latencyThresholdNanos;
+    private long queueTimeoutNanos;
+    private long lastBackoff = System.nanoTime();
+
+    ConcurrencyLimiter(ConnectionConfiguration config) {
+
+        configure(config);
+    }
+
+    /**
+     * Applies the concurrency settings of the connection. The adapted limit is kept across reconfigurations, it
+     * only starts over from the initial limit when the limiter is enabled.
+     *
+     * @param config the connection configuration.
+     */
+    void configure(ConnectionConfiguration config) {
+
+        lock.lock();
+        try {
+            boolean wasEnabled = enabled;
+            maxLimit = config.getMaxConcurrencyLimit() != null ? config.getMaxConcurrencyLimit() : DEFAULT_MAX_LIMIT;
+            latencyThresholdNanos = config.getConcurrencyLatencyThreshold() != null ?
+                    TimeUnit.MILLISECONDS.toNanos(config.getConcurrencyLatencyThreshold()) : 0;
+            queueTimeoutNanos = TimeUnit.SECONDS.toNanos(config.getConcurrencyQueueTimeout() != null ?
+                    config.getConcurrencyQueueTimeout() : DEFAULT_QUEUE_TIMEOUT);
+            if (!wasEnabled) {
+                limit = config.getInitialConcurrencyLimit() != null ?
+                        config.getInitialConcurrencyLimit() : DEFAULT_INITIAL_LIMIT;
+            }
+            limit = Math.max(MIN_LIMIT, Math.min(limit, maxLimit));
+            enabled = config.isAdaptiveConcurrency();
+            // Waiting operations re-check the new limit, or pass if the limiter got disabled
+            permitReleased.signalAll();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Waits for a permit to send an operation to the storage account. Every permit must be handed back through
+     * {@link Permit#release(boolean)}.
+     *
+     * @return the permit, or {@code null} if none became available within the queue timeout.
+     * @throws InterruptedException if the thread is interrupted while waiting.
+     */
+    public Permit acquire() throws InterruptedException {
+
+        if (!enabled) {
+            return UNLIMITED;
+        }
+        long start = System.nanoTime();
+        lock.lockInterruptibly();
+        try {
+            long remaining = queueTimeoutNanos;
+            while (enabled && inFlight >= (int) limit) {
+                if (remaining <= 0) {
+                    queueTimeoutCount.incrementAndGet();
+                    return null;
+                }
+                remaining = permitReleased.awaitNanos(remaining);
+            }
+            if (!enabled) {
+                return UNLIMITED;
+            }
+            inFlight++;
+        } finally {
+            lock.unlock();
+        }
+        long acquiredAt = System.nanoTime();
+        long waitTime = TimeUnit.NANOSECONDS.toMillis(acquiredAt - start);
+        acquiredCount.incrementAndGet();
+        totalQueueWaitTime.addAndGet(waitTime);
+        lastQueueWaitTime = waitTime;
+        return new Permit(this, acquiredAt);
+    }
+
+    private void release(long acquiredAt, boolean serviceFailure) {
+
+        long latency = System.nanoTime() - acquiredAt;
+        lock.lock();
+        try {
+            inFlight--;
+            if (serviceFailure || (latencyThresholdNanos > 0 && latency > latencyThresholdNanos)) {
+                // Back off once per congestion event rather than once for every operation that was in flight
+                if (acquiredAt - lastBackoff > 0) {
+                    limit = Math.max(MIN_LIMIT, limit * BACKOFF_RATIO);
+                    lastBackoff = System.nanoTime();
+                }
+            } else if (inFlight + 1 >= (int) limit / 2) {
+                // Only grow while the current limit is actually being used
+                limit = Math.min(maxLimit, limit + 1 / limit);
+            }
+            permitReleased.signalAll();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public int getLimit() {
+
+        return (int) limit;
+    }
+
+    public int getInFlight() {
+
+        return inFlight;
+    }
+
+    public long getAcquiredCount() {
+
+        return acquiredCount.get();
+    }
+
+    public long getTotalQueueWaitTime() {
+
+        return totalQueueWaitTime.get();
+    }
+
+    public long getLastQueueWaitTime() {
+
+        return lastQueueWaitTime;
+    }
+
+    public long getQueueTimeoutCount() {
+
+        return queueTimeoutCount.get();
+    }
+
+    /**
+     * Permission to have one operation in flight.
+     */
+    public static final class Permit {
+
+        private final ConcurrencyLimiter limiter;
+        private final long acquiredAt;
+
+        private Permit(ConcurrencyLimiter limiter, long acquiredAt) {
+
+            this.limiter = limiter;
+            this.acquiredAt = acquiredAt;
+        }
+
+        /**
+         * Hands the permit back and adapts the limit to the outcome of the operation.
+         *
+         * @param serviceFailure whether the operation failed because the storage account was unhealthy.
+         */
+        public void release(boolean serviceFailure) {
+
+            if (limiter != null) {
+                limiter.release(acquiredAt, serviceFailure);
+            }
+        }
+    }
+}
@@ -21,6 +21,11 @@ package org.wso2.carbon.connector.connection;
 import org.apache.commons.lang3.StringUtils;
 import org.wso2.carbon.connector.core.ConnectException;
 
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Objects;
+
 /**
  * Represents the configuration required for Azure Storage connection.
  */
@@ -33,6 +38,36 @@ public class ConnectionConfiguration {
     private String clientSecret;
     private String tenantID;
     private String sasToken;
+    private Integer maxConnections;
+    private Integer maxPendingAcquires;
+    private Integer pendingAcquireTimeout;
+    private Integer maxIdleTime;
+    private Integer maxLifeTime;
+    private Integer evictionInterval;
+    private Integer connectTimeout;
+    private Integer responseTimeout;
+    private Integer eventLoopThreads;
+    private boolean warmUp;
+    private Integer warmUpConnections;
+    private Integer maxRetries;
+    private Integer retryDelay;
+    private Integer maxRetryDelay;
+    private Integer retryJitter;
+    private Integer tryTimeout;
+    private Integer circuitBreakerThreshold;
+    private Integer circuitBreakerOpenTime;
+    private boolean adaptiveConcurrency;
+    private Integer initialConcurrencyLimit;
+    private Integer maxConcurrencyLimit;
+    private Integer concurrencyLatencyThreshold;
+    private Integer concurrencyQueueTimeout;
+    private boolean offloadExecution;
+    private Integer maxOffloadedOperations;
+    private Integer offloadTimeout;
+    private Integer pathClientCacheSize;
+    private Integer appendBufferSize;
+    private Integer appendBufferLingerTime;
+    private Integer appendBufferMemory;
 
     public String getConnectionName() {
 
@@ -108,4 +143,407 @@ public class ConnectionConfiguration {
         this.sasToken = sasToken;
     }
 
+    public Integer getMaxConnections() {
+
+        return maxConnections;
+    }
+
+    public void setMaxConnections(Integer maxConnections) {
+
+        this.maxConnections = maxConnections;
+    }
+
+    public Integer getMaxPendingAcquires() {
+
+        return maxPendingAcquires;
+    }
+
+    public void setMaxPendingAcquires(Integer maxPendingAcquires) {
+
+        this.maxPendingAcquires = maxPendingAcquires;
+    }
+
+    public Integer getPendingAcquireTimeout() {
+
+        return pendingAcquireTimeout;
+    }
+
+    public void setPendingAcquireTimeout(Integer pendingAcquireTimeout) {
+
+        this.pendingAcquireTimeout = pendingAcquireTimeout;
+    }
+
+    public Integer getMaxIdleTime() {
+
+        return maxIdleTime;
+    }
+
+    public void setMaxIdleTime(Integer maxIdleTime) {
+
+        this.maxIdleTime = maxIdleTime;
+    }
+
+    public Integer getMaxLifeTime() {
+
+        return maxLifeTime;
+    }
+
+    public void setMaxLifeTime(Integer maxLifeTime) {
+
+        this.maxLifeTime = maxLifeTime;
+    }
+
+    public Integer getEvictionInterval() {
+
+        return evictionInterval;
+    }
+
+    public void setEvictionInterval(Integer evictionInterval) {
+
+        this.evictionInterval = evictionInterval;
+    }
+
+    public Integer getConnectTimeout() {
+
+        return connectTimeout;
+    }
+
+    public void setConnectTimeout(Integer connectTimeout) {
+
+        this.connectTimeout = connectTimeout;
+    }
+
+    public Integer getResponseTimeout() {
+
+        return responseTimeout;
+    }
+
+    public void setResponseTimeout(Integer responseTimeout) {
+
+        this.responseTimeout = responseTimeout;
+    }
+
+    public Integer getEventLoopThreads() {
+
+        return eventLoopThreads;
+    }
+
+    public void setEventLoopThreads(Integer eventLoopThreads) {
+
+        this.eventLoopThreads = eventLoopThreads;
+    }
+
+    public boolean isWarmUp() {
+
+        return warmUp;
+    }
+
+    public void setWarmUp(boolean warmUp) {
+
+        this.warmUp = warmUp;
+    }
+
+    public Integer getWarmUpConnections() {
+
+        return warmUpConnections;
+    }
+
+    public void setWarmUpConnections(Integer warmUpConnections) {
+
+        this.warmUpConnections = warmUpConnections;
+    }
+
+    public Integer getMaxRetries() {
+
+        return maxRetries;
+    }
+
+    public void setMaxRetries(Integer maxRetries) {
+
+        this.maxRetries = maxRetries;
+    }
+
+    public Integer getRetryDelay() {
+
+        return retryDelay;
+    }
+
+    public void setRetryDelay(Integer retryDelay) {
+
+        this.retryDelay = retryDelay;
+    }
+
+    public Integer getMaxRetryDelay() {
+
+        return maxRetryDelay;
+    }
+
+    public void setMaxRetryDelay(Integer maxRetryDelay) {
+
+        this.maxRetryDelay = maxRetryDelay;
+    }
+
+    public Integer getRetryJitter() {
+
+        return retryJitter;
+    }
+
+    public void setRetryJitter(Integer retryJitter) {
+
+        this.retryJitter = retryJitter;
+    }
+
+    public Integer getTryTimeout() {
+
+        return tryTimeout;
+    }
+
+    public void setTryTimeout(Integer tryTimeout) {
+
+        this.tryTimeout = tryTimeout;
+    }
+
+    public Integer getCircuitBreakerThreshold() {
+
+        return circuitBreakerThreshold;
+    }
+
+    public void setCircuitBreakerThreshold(Integer circuitBreakerThreshold) {
+
+        this.circuitBreakerThreshold = circuitBreakerThreshold;
+    }
+
+    public Integer getCircuitBreakerOpenTime() {
+
+        return circuitBreakerOpenTime;
+    }
+
+    public void setCircuitBreakerOpenTime(Integer circuitBreakerOpenTime) {
+
+        this.circuitBreakerOpenTime = circuitBreakerOpenTime;
+    }
+
+    public boolean isAdaptiveConcurrency() {
+
+        return adaptiveConcurrency;
+    }
+
+    public void setAdaptiveConcurrency(boolean adaptiveConcurrency) {
+
+        this.adaptiveConcurrency = adaptiveConcurrency;
+    }
+
+    public Integer getInitialConcurrencyLimit() {
+
+        return initialConcurrencyLimit;
+    }
+
+    public void setInitialConcurrencyLimit(Integer initialConcurrencyLimit) {
+
+        this.initialConcurrencyLimit = initialConcurrencyLimit;
+    }
+
+    public Integer getMaxConcurrencyLimit() {
+
+        return maxConcurrencyLimit;
+    }
+
+    public void setMaxConcurrencyLimit(Integer maxConcurrencyLimit) {
+
+        this.maxConcurrencyLimit = maxConcurrencyLimit;
+    }
+
+    public Integer getConcurrencyLatencyThreshold() {
+
+        return concurrencyLatencyThreshold;
+    }
+
+    public void setConcurrencyLatencyThreshold(Integer concurrencyLatencyThreshold) {
+
+        this.concurrencyLatencyThreshold = concurrencyLatencyThreshold;
+    }
+
+    public Integer getConcurrencyQueueTimeout() {
+
+        return concurrencyQueueTimeout;
+    }
+
+    public void setConcurrencyQueueTimeout(Integer concurrencyQueueTimeout) {
+
+        this.concurrencyQueueTimeout = concurrencyQueueTimeout;
+    }
+
+    public boolean isOffloadExecution() {
+
+        return offloadExecution;
+    }
+
+    public void setOffloadExecution(boolean offloadExecution) {
+
+        this.offloadExecution = offloadExecution;
+    }
+
+    public Integer getMaxOffloadedOperations() {
+
+        return maxOffloadedOperations;
+    }
+
+    public void setMaxOffloadedOperations(Integer maxOffloadedOperations) {
+
+        this.maxOffloadedOperations = maxOffloadedOperations;
+    }
+
+    public Integer getOffloadTimeout() {
+
+        return offloadTimeout;
+    }
+
+    public void setOffloadTimeout(Integer offloadTimeout) {
+
+        this.offloadTimeout = offloadTimeout;
+    }
+
+    public Integer getPathClientCacheSize() {
+
+        return pathClientCacheSize;
+    }
+
+    public void setPathClientCacheSize(Integer pathClientCacheSize) {
+
+        this.pathClientCacheSize = pathClientCacheSize;
+    }
+
+    public Integer getAppendBufferSize() {
+
+        return appendBufferSize;
+    }
+
+    public void setAppendBufferSize(Integer appendBufferSize) {
+
+        this.appendBufferSize = appendBufferSize;
+    }
+
+    public Integer getAppendBufferLingerTime() {
+
+        return appendBufferLingerTime;
+    }
+
+    public void setAppendBufferLingerTime(Integer appendBufferLingerTime) {
+
+        this.appendBufferLingerTime = appendBufferLingerTime;
+    }
+
+    public Integer getAppendBufferMemory() {
+
+        return appendBufferMemory;
+    }
+
+    public void setAppendBufferMemory(Integer appendBufferMemory) {
+
+        this.appendBufferMemory = appendBufferMemory;
+    }
+
+    /**
+     * Returns a stable fingerprint of the settings that determine how the service client is built. The connection
+     * name is excluded so that connections with identical credentials can share a client, and the secrets are only
+     * ever fed into the digest, never exposed in clear text.
+     *
+     * @return hex encoded SHA-256 fingerprint of the client settings.
+     */
+    public String getClientFingerprint() {
+
+        return fingerprint(accountName, accountKey, clientID, clientSecret, tenantID, sasToken, maxConnections,
+                maxPendingAcquires, pendingAcquireTimeout, maxIdleTime, maxLifeTime, evictionInterval, connectTimeout,
+                responseTimeout, eventLoopThreads, maxRetries, retryDelay, maxRetryDelay, retryJitter, tryTimeout);
+    }
+
+    /**
+     * Returns a SHA-256 fingerprint of the given values, which identifies them without revealing them.
+     *
+     * @param values the values, null values included.
+     * @return hex encoded SHA-256 fingerprint of the values.
+     */
+    static String fingerprint(Object... values) {
+
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            for (Object value : values) {
+                if (value != null) {
+                    digest.update(value.toString().getBytes(StandardCharsets.UTF_8));
+                }
+                // Field separator so that ("ab", "c") and ("a", "bc") do not collide
+                digest.update((byte) 0);
+            }
+            StringBuilder fingerprint = new StringBuilder();
+            for (byte b : digest.digest()) {
+                fingerprint.append(String.format("%02x", b));
+            }
+            return fingerprint.toString();
+        } catch (NoSuchAlgorithmException e) {
+            // SHA-256 is mandatory on every Java platform
+            throw new IllegalStateException("SHA-256 algorithm is not available", e);
+        }
+    }
+
+    @Override
+    public boolean equals(Object o) {
+
+        if (this == o) {
+            return true;
+        }
+        if (o == null || getClass() != o.getClass()) {
+            return false;
+        }
+        ConnectionConfiguration that = (ConnectionConfiguration) o;
+        return Objects.equals(connectionName, that.connectionName) &&
+                Objects.equals(accountName, that.accountName) &&
+                Objects.equals(accountKey, that.accountKey) &&
+                Objects.equals(clientID, that.clientID) &&
+                Objects.equals(clientSecret, that.clientSecret) &&
+                Objects.equals(tenantID, that.tenantID) &&
+                Objects.equals(sasToken, that.sasToken) &&
+                Objects.equals(maxConnections, that.maxConnections) &&
+                Objects.equals(maxPendingAcquires, that.maxPendingAcquires) &&
+                Objects.equals(pendingAcquireTimeout, that.pendingAcquireTimeout) &&
+                Objects.equals(maxIdleTime, that.maxIdleTime) &&
+                Objects.equals(maxLifeTime, that.maxLifeTime) &&
+                Objects.equals(evictionInterval, that.evictionInterval) &&
+                Objects.equals(connectTimeout, that.connectTimeout) &&
+                Objects.equals(responseTimeout, that.responseTimeout) &&
+                Objects.equals(eventLoopThreads, that.eventLoopThreads) &&
+                warmUp == that.warmUp &&
+                Objects.equals(warmUpConnections, that.warmUpConnections) &&
+                Objects.equals(maxRetries, that.maxRetries) &&
+                Objects.equals(retryDelay, that.retryDelay) &&
+                Objects.equals(maxRetryDelay, that.maxRetryDelay) &&
+                Objects.equals(retryJitter, that.retryJitter) &&
+                Objects.equals(tryTimeout, that.tryTimeout) &&
+                Objects.equals(circuitBreakerThreshold, that.circuitBreakerThreshold) &&
+                Objects.equals(circuitBreakerOpenTime, that.circuitBreakerOpenTime) &&
+                adaptiveConcurrency == that.adaptiveConcurrency &&
+                Objects.equals(initialConcurrencyLimit, that.initialConcurrencyLimit) &&
+                Objects.equals(maxConcurrencyLimit, that.maxConcurrencyLimit) &&
+                Objects.equals(concurrencyLatencyThreshold, that.concurrencyLatencyThreshold) &&
+                Objects.equals(concurrencyQueueTimeout, that.concurrencyQueueTimeout) &&
+                offloadExecution == that.offloadExecution &&
+                Objects.equals(maxOffloadedOperations, that.maxOffloadedOperations) &&
+                Objects.equals(offloadTimeout, that.offloadTimeout) &&
+                Objects.equals(pathClientCacheSize, that.pathClientCacheSize) &&
+                Objects.equals(appendBufferSize, that.appendBufferSize) &&
+                Objects.equals(appendBufferLingerTime, that.appendBufferLingerTime) &&
+                Objects.equals(appendBufferMemory, that.appendBufferMemory);
+    }
+
+    @Override
+    public int hashCode() {
+
+        return Objects.hash(connectionName, accountName, accountKey, clientID, clientSecret, tenantID, sasToken,
+                maxConnections, maxPendingAcquires, pendingAcquireTimeout, maxIdleTime, maxLifeTime,
+                evictionInterval, connectTimeout, responseTimeout, eventLoopThreads, warmUp, warmUpConnections,
+                maxRetries, retryDelay, maxRetryDelay, retryJitter, tryTimeout, circuitBreakerThreshold,
+                circuitBreakerOpenTime, adaptiveConcurrency, initialConcurrencyLimit, maxConcurrencyLimit,
+                concurrencyLatencyThreshold, concurrencyQueueTimeout, offloadExecution, maxOffloadedOperations,
+                offloadTimeout, pathClientCacheSize, appendBufferSize, appendBufferLingerTime, appendBufferMemory);
+    }
+
 }
@@ -0,0 +1,298 @@
+/*
+ *  Copyright (c) 2025, WSO2 LLC. (https://www.wso2.com).
+ *
+ *  WSO2 LLC. licenses this file to you under the Apache License,
+ *  Version 2.0 (the "License"); you may not use this file except
+ *  in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *  "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License.
+ */
+
+package org.wso2.carbon.connector.connection;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.apache.synapse.commons.jmx.MBeanRegistrar;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Runtime statistics of a single Azure Data Lake connection, exposed over JMX.
+ */
+public class ConnectionMetrics implements ConnectionMetricsMBean {
+
+    private static final Log log = LogFactory.getLog(ConnectionMetrics.class);
+    private static final String MBEAN_CATEGORY = "AzureDataLakeConnection";
+
+    private final String connectionName;
+    private final CircuitBreaker circuitBreaker;
+    private final ConcurrencyLimiter concurrencyLimiter;
+    private final OffloadExecutor offloadExecutor;
+    private final PathClientCache pathClientCache;
+    private final TransferTuner transferTuner;
+    private final RemoteHashCache remoteHashCache;
+    private final AppendBuffer appendBuffer;
+    private final AppendOffsetTracker appendOffsetTracker;
+    private final AtomicLong clientRebuildCount = new AtomicLong();
+    private volatile long lastWarmUpTime = -1;
+    private volatile long lastWarmUpConnectionCount;
+
+    public ConnectionMetrics(String connectionName, CircuitBreaker circuitBreaker,
+                             ConcurrencyLimiter concurrencyLimiter, OffloadExecutor offloadExecutor,
+                             PathClientCache pathClientCache, TransferTuner transferTuner,
+                             RemoteHashCache remoteHashCache, AppendBuffer appendBuffer,
+                             AppendOffsetTracker appendOffsetTracker) {
+
+        this.connectionName = connectionName;
+        this.circuitBreaker = circuitBreaker;
+        this.concurrencyLimiter = concurrencyLimiter;
+        this.offloadExecutor = offloadExecutor;
+        this.pathClientCache = pathClientCache;
+        this.transferTuner = transferTuner;
+        this.remoteHashCache = remoteHashCache;
+        this.appendBuffer = appendBuffer;
+        this.appendOffsetTracker = appendOffsetTracker;
+    }
+
+    /**
+     * Registers this instance with the platform MBean server under the connection name.
+     */
+    public void register() {
+
+        try {
+            MBeanRegistrar.getInstance().registerMBean(this, MBEAN_CATEGORY, connectionName);
+        } catch (Exception e) {
+            // Metrics must never prevent the connection from being used
+            log.warn("Unable to register metrics for connection " + connectionName, e);
+        }
+    }
+
+    /**
+     * Removes this instance from the platform MBean server.
+     */
+    public void unregister() {
+
+        try {
+            MBeanRegistrar.getInstance().unRegisterMBean(MBEAN_CATEGORY, connectionName);
+        } catch (Exception e) {
+            log.warn("Unable to unregister metrics for connection " + connectionName, e);
+        }
+    }
+
+    public void recordClientRebuild() {
+
+        clientRebuildCount.incrementAndGet();
+    }
+
+    public void recordWarmUp(long durationMillis, long connectionCount) {
+
+        lastWarmUpTime = durationMillis;
+        lastWarmUpConnectionCount = connectionCount;
+    }
+
+    @Override
+    public long getClientRebuildCount() {
+
+        return clientRebuildCount.get();
+    }
+
+    @Override
+    public long getTotalClientBuildCount() {
+
+        return DataLakeServiceClientCache.getClientBuildCount();
+    }
+
+    @Override
+    public long getLastWarmUpTime() {
+
+        return lastWarmUpTime;
+    }
+
+    @Override
+    public long getLastWarmUpConnectionCount() {
+
+        return lastWarmUpConnectionCount;
+    }
+
+    @Override
+    public String getCircuitState() {
+
+        return circuitBreaker.getState().name();
+    }
+
+    @Override
+    public long getCircuitOpenCount() {
+
+        return circuitBreaker.getOpenCount();
+    }
+
+    @Override
+    public long getCircuitRejectedCount() {
+
+        return circuitBreaker.getRejectedCount();
+    }
+
+    @Override
+    public int getConcurrencyLimit() {
+
+        return concurrencyLimiter.getLimit();
+    }
+
+    @Override
+    public int getInFlightOperations() {
+
+        return concurrencyLimiter.getInFlight();
+    }
+
+    @Override
+    public long getPermitCount() {
+
+        return concurrencyLimiter.getAcquiredCount();
+    }
+
+    @Override
+    public long getTotalQueueWaitTime() {
+
+        return concurrencyLimiter.getTotalQueueWaitTime();
+    }
+
+    @Override
+    public long getLastQueueWaitTime() {
+
+        return concurrencyLimiter.getLastQueueWaitTime();
+    }
+
+    @Override
+    public long getQueueTimeoutCount() {
+
+        return concurrencyLimiter.getQueueTimeoutCount();
+    }
+
+    @Override
+    public int getOffloadedOperations() {
+
+        return offloadExecutor.getInFlight();
+    }
+
+    @Override
+    public long getOffloadRejectedCount() {
+
+        return offloadExecutor.getRejectedCount();
+    }
+
+    @Override
+    public long getOffloadTimeoutCount() {
+
+        return offloadExecutor.getTimeoutCount();
+    }
+
+    @Override
+    public int getPathClientCacheSize() {
+
+        return pathClientCache.getSize();
+    }
+
+    @Override
+    public long getPathClientCacheHitCount() {
+
+        return pathClientCache.getHitCount();
+    }
+
+    @Override
+    public long getPathClientCacheMissCount() {
+
+        return pathClientCache.getMissCount();
+    }
+
+    @Override
+    public long getPathClientCacheEvictionCount() {
+
+        return pathClientCache.getEvictionCount();
+    }
+
+    @Override
+    public double getTransferLatency() {
+
+        return transferTuner.getLatency();
+    }
+
+    @Override
+    public double getTransferThroughput() {
+
+        return transferTuner.getThroughput();
+    }
+
+    @Override
+    public int getRemoteHashCacheSize() {
+
+        return remoteHashCache.getSize();
+    }
+
+    @Override
+    public long getRemoteHashCacheHitCount() {
+
+        return remoteHashCache.getHitCount();
+    }
+
+    @Override
+    public long getRemoteHashCacheMissCount() {
+
+        return remoteHashCache.getMissCount();
+    }
+
+    @Override
+    public long getBufferedAppendBytes() {
+
+        return appendBuffer.getBufferedBytes();
+    }
+
+    @Override
+    public long getBufferedAppendRecordCount() {
+
+        return appendBuffer.getRecordCount();
+    }
+
+    @Override
+    public long getBufferedAppendBatchCount() {
+
+        return appendBuffer.getBatchCount();
+    }
+
+    @Override
+    public long getFailedAppendBatchCount() {
+
+        return appendBuffer.getFailedBatchCount();
+    }
+
+    @Override
+    public int getTrackedAppendFileCount() {
+
+        return appendOffsetTracker.getSize();
+    }
+
+    @Override
+    public long getAppendOffsetHitCount() {
+
+        return appendOffsetTracker.getHitCount();
+    }
+
+    @Override
+    public long getAppendOffsetMissCount() {
+
+        return appendOffsetTracker.getMissCount();
+    }
+
+    @Override
+    public long getAppendOffsetResyncCount() {
+
+        return appendOffsetTracker.getResyncCount();
+    }
+}
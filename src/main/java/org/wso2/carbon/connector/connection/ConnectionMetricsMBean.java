@@ -0,0 +1,190 @@
+/*
+ *  Copyright (c) 2025, WSO2 LLC. (https://www.wso2.com).
+ *
+ *  WSO2 LLC. licenses this file to you under the Apache License,
+ *  Version 2.0 (the "License"); you may not use this file except
+ *  in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *  "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License.
+ */
+
+package org.wso2.carbon.connector.connection;
+
+/**
+ * JMX view of the runtime statistics of an Azure Data Lake connection.
+ */
+public interface ConnectionMetricsMBean {
+
+    /**
+     * @return number of times the service client of this connection was replaced due to a configuration change.
+     */
+    long getClientRebuildCount();
+
+    /**
+     * @return number of service clients built by the connector across all connections.
+     */
+    long getTotalClientBuildCount();
+
+    /**
+     * @return duration in milliseconds of the last warm-up of this connection, or -1 if it was never warmed up.
+     */
+    long getLastWarmUpTime();
+
+    /**
+     * @return number of connections opened by the last warm-up of this connection.
+     */
+    long getLastWarmUpConnectionCount();
+
+    /**
+     * @return state of the circuit breaker of this connection: CLOSED, OPEN or HALF_OPEN.
+     */
+    String getCircuitState();
+
+    /**
+     * @return number of times the circuit breaker of this connection opened.
+     */
+    long getCircuitOpenCount();
+
+    /**
+     * @return number of operations failed fast while the circuit breaker was open.
+     */
+    long getCircuitRejectedCount();
+
+    /**
+     * @return current adaptive limit of operations in flight, meaningful only if adaptive concurrency is enabled.
+     */
+    int getConcurrencyLimit();
+
+    /**
+     * @return number of operations currently holding a concurrency permit.
+     */
+    int getInFlightOperations();
+
+    /**
+     * @return number of concurrency permits handed out.
+     */
+    long getPermitCount();
+
+    /**
+     * @return total time in milliseconds operations waited for a concurrency permit.
+     */
+    long getTotalQueueWaitTime();
+
+    /**
+     * @return time in milliseconds the last operation waited for a concurrency permit.
+     */
+    long getLastQueueWaitTime();
+
+    /**
+     * @return number of operations that failed because no concurrency permit became available in time.
+     */
+    long getQueueTimeoutCount();
+
+    /**
+     * @return number of operations currently running on the offload executor.
+     */
+    int getOffloadedOperations();
+
+    /**
+     * @return number of operations rejected because the maximum of offloaded operations was reached.
+     */
+    long getOffloadRejectedCount();
+
+    /**
+     * @return number of offloaded operations interrupted because they exceeded the offload timeout.
+     */
+    long getOffloadTimeoutCount();
+
+    /**
+     * @return number of file system, file and directory clients cached for this connection.
+     */
+    int getPathClientCacheSize();
+
+    /**
+     * @return number of lookups served from the path client cache.
+     */
+    long getPathClientCacheHitCount();
+
+    /**
+     * @return number of lookups that created a new path client.
+     */
+    long getPathClientCacheMissCount();
+
+    /**
+     * @return number of path clients evicted because the cache was full.
+     */
+    long getPathClientCacheEvictionCount();
+
+    /**
+     * @return moving average of the request latency in milliseconds seen by auto-tuned transfers.
+     */
+    double getTransferLatency();
+
+    /**
+     * @return best moving average of the throughput in bytes per second reached by auto-tuned transfers.
+     */
+    double getTransferThroughput();
+
+    /**
+     * @return number of remote file hashes cached for uploads that skip unchanged content.
+     */
+    int getRemoteHashCacheSize();
+
+    /**
+     * @return number of unchanged checks answered from the remote hash cache.
+     */
+    long getRemoteHashCacheHitCount();
+
+    /**
+     * @return number of unchanged checks that had to fetch the properties of the remote file.
+     */
+    long getRemoteHashCacheMissCount();
+
+    /**
+     * @return number of bytes of buffered appends that are not written yet.
+     */
+    long getBufferedAppendBytes();
+
+    /**
+     * @return number of records buffered by appends.
+     */
+    long getBufferedAppendRecordCount();
+
+    /**
+     * @return number of appends that wrote buffered records.
+     */
+    long getBufferedAppendBatchCount();
+
+    /**
+     * @return number of appends of buffered records that failed, losing the records.
+     */
+    long getFailedAppendBatchCount();
+
+    /**
+     * @return number of files whose append positions are tracked.
+     */
+    int getTrackedAppendFileCount();
+
+    /**
+     * @return number of appends whose position was known without fetching the properties of the file.
+     */
+    long getAppendOffsetHitCount();
+
+    /**
+     * @return number of appends that fetched the properties of the file for its length.
+     */
+    long getAppendOffsetMissCount();
+
+    /**
+     * @return number of appends and flushes repeated after the service reported an offset mismatch.
+     */
+    long getAppendOffsetResyncCount();
+}
@@ -0,0 +1,127 @@
+/*
+ *  Copyright (c) 2025, WSO2 LLC. (https://www.wso2.com).
+ *
+ *  WSO2 LLC. licenses this file to you under the Apache License,
+ *  Version 2.0 (the "License"); you may not use this file except
+ *  in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *  "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License.
+ */
+
+package org.wso2.carbon.connector.connection;
+
+import com.azure.core.http.HttpPipelineCallContext;
+import com.azure.core.http.HttpPipelineNextPolicy;
+import com.azure.core.http.HttpPipelineNextSyncPolicy;
+import com.azure.core.http.HttpPipelinePosition;
+import com.azure.core.http.HttpResponse;
+import com.azure.core.http.policy.HttpPipelinePolicy;
+import com.azure.core.http.policy.RetryPolicy;
+import com.azure.core.http.policy.RetryStrategy;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Retries failed requests with exponential backoff and jitter. A delay requested by the service through the
+ * {@code Retry-After}, {@code retry-after-ms} or {@code x-ms-retry-after-ms} response headers takes precedence over
+ * the computed backoff.
+ * <p>
+ * The policy runs once per call, ahead of the storage retry policy. The latter is limited to a single try and only
+ * enforces the per-try timeout, so that every retry gets a fresh timeout, date header and authorization.
+ */
+class ConnectionRetryPolicy implements HttpPipelinePolicy {
+
+    static final int DEFAULT_MAX_RETRIES = 3;
+    static final long DEFAULT_RETRY_DELAY = 4000;
+    static final long DEFAULT_MAX_RETRY_DELAY = 120000;
+    static final int DEFAULT_RETRY_JITTER = 50;
+
+    private final RetryPolicy delegate;
+
+    ConnectionRetryPolicy(ConnectionConfiguration config) {
+
+        int maxRetries = config.getMaxRetries() != null ? config.getMaxRetries() : DEFAULT_MAX_RETRIES;
+        long retryDelay = config.getRetryDelay() != null ? config.getRetryDelay() : DEFAULT_RETRY_DELAY;
+        long maxRetryDelay = config.getMaxRetryDelay() != null ? config.getMaxRetryDelay() : DEFAULT_MAX_RETRY_DELAY;
+        int jitter = config.getRetryJitter() != null ? config.getRetryJitter() : DEFAULT_RETRY_JITTER;
+        this.delegate = new RetryPolicy(new JitteredExponentialBackoff(maxRetries, Duration.ofMillis(retryDelay),
+                Duration.ofMillis(Math.max(retryDelay, maxRetryDelay)), Math.min(jitter, 100) / 100.0));
+    }
+
+    /**
+     * Checks whether the configuration overrides any of the retry settings. Connections that set none of them
+     * keep the retry behaviour of the storage SDK.
+     *
+     * @param config the connection configuration.
+     * @return true if a retry setting is configured.
+     */
+    static boolean isConfigured(ConnectionConfiguration config) {
+
+        return config.getMaxRetries() != null || config.getRetryDelay() != null ||
+                config.getMaxRetryDelay() != null || config.getRetryJitter() != null ||
+                config.getTryTimeout() != null;
+    }
+
+    @Override
+    public Mono<HttpResponse> process(HttpPipelineCallContext context, HttpPipelineNextPolicy next) {
+
+        return delegate.process(context, next);
+    }
+
+    @Override
+    public HttpResponse processSync(HttpPipelineCallContext context, HttpPipelineNextSyncPolicy next) {
+
+        return delegate.processSync(context, next);
+    }
+
+    @Override
+    public HttpPipelinePosition getPipelinePosition() {
+
+        return HttpPipelinePosition.PER_CALL;
+    }
+
+    /**
+     * Exponential backoff capped at a maximum delay, with a random part of each delay dropped so that the
+     * mediation threads hitting a throttled account do not retry in lockstep.
+     */
+    static final class JitteredExponentialBackoff implements RetryStrategy {
+
+        private final int maxRetries;
+        private final Duration baseDelay;
+        private final Duration maxDelay;
+        private final double jitter;
+
+        JitteredExponentialBackoff(int maxRetries, Duration baseDelay, Duration maxDelay, double jitter) {
+
+            this.maxRetries = maxRetries;
+            this.baseDelay = baseDelay;
+            this.maxDelay = maxDelay;
+            this.jitter = jitter;
+        }
+
+        @Override
+        public int getMaxRetries() {
+
+            return maxRetries;
+        }
+
+        @Override
+        public Duration calculateRetryDelay(int retryAttempts) {
+
+            // Cap the shift so that the delay cannot overflow for large retry counts
+            long exponentialDelay = baseDelay.toMillis() << Math.min(retryAttempts, 30);
+            long delay = exponentialDelay > 0 ? Math.min(exponentialDelay, maxDelay.toMillis()) : maxDelay.toMillis();
+            return Duration.ofMillis((long) (delay * (1 - jitter * ThreadLocalRandom.current().nextDouble())));
+        }
+    }
+}
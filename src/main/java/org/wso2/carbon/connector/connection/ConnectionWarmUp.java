@@ -0,0 +1,68 @@
+/*
+ *  Copyright (c) 2025, WSO2 LLC. (https://www.wso2.com).
+ *
+ *  WSO2 LLC. licenses this file to you under the Apache License,
+ *  Version 2.0 (the "License"); you may not use this file except
+ *  in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *  "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License.
+ */
+
+package org.wso2.carbon.connector.connection;
+
+import com.azure.core.http.HttpMethod;
+import com.azure.core.http.HttpPipeline;
+import com.azure.core.http.HttpRequest;
+import com.azure.storage.file.datalake.DataLakeServiceClient;
+import reactor.core.publisher.Flux;
+
+import java.time.Duration;
+
+/**
+ * Opens pooled connections to the storage account ahead of the first mediated message.
+ */
+final class ConnectionWarmUp {
+
+    private static final Duration WARM_UP_TIMEOUT = Duration.ofSeconds(30);
+    private static final String VERSION_HEADER = "x-ms-version";
+
+    private ConnectionWarmUp() {
+
+    }
+
+    /**
+     * Sends the given number of concurrent lightweight requests through the pipeline of the client. The first
+     * request resolves DNS and, for OAuth2 connections, fetches and caches the access token; every request
+     * completes a TLS handshake on its own pooled connection. The status code of the responses is irrelevant,
+     * since an authorization failure still leaves a reusable connection behind.
+     *
+     * @param client      the service client to warm up
+     * @param connections the number of connections to open
+     * @return the number of requests that received a response
+     */
+    static long warmUp(DataLakeServiceClient client, int connections) {
+
+        HttpPipeline pipeline = client.getHttpPipeline();
+        String url = client.getAccountUrl() + "/?resource=account&maxResults=1";
+        String version = client.getServiceVersion().getVersion();
+
+        Long completed = Flux.range(0, connections)
+                .flatMap(i -> pipeline.send(new HttpRequest(HttpMethod.GET, url).setHeader(VERSION_HEADER, version))
+                        // Drain the body so that the connection goes back to the pool
+                        .flatMap(response -> response.getBodyAsByteArray()
+                                .then()
+                                .doFinally(signal -> response.close())
+                                .thenReturn(1)), connections)
+                .count()
+                .block(WARM_UP_TIMEOUT);
+        return completed != null ? completed : 0;
+    }
+}
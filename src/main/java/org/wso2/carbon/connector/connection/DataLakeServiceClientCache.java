@@ -0,0 +1,175 @@
+/*
+ *  Copyright (c) 2025, WSO2 LLC. (https://www.wso2.com).
+ *
+ *  WSO2 LLC. licenses this file to you under the Apache License,
+ *  Version 2.0 (the "License"); you may not use this file except
+ *  in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *  "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License.
+ */
+
+package org.wso2.carbon.connector.connection;
+
+import com.azure.storage.file.datalake.DataLakeServiceAsyncClient;
+import com.azure.storage.file.datalake.DataLakeServiceClient;
+import com.azure.storage.file.datalake.DataLakeServiceClientBuilder;
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.wso2.carbon.connector.connection.SharedNettyResources.Resources;
+import org.wso2.carbon.connector.core.ConnectException;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Reference counted cache of {@link DataLakeServiceClient} instances keyed by the client fingerprint of the
+ * connection configuration. A client is only built when no connection is using the same settings, and it is
+ * closed once the last connection or in-flight operation referring to it has released it.
+ */
+final class DataLakeServiceClientCache {
+
+    private static final Log log = LogFactory.getLog(DataLakeServiceClientCache.class);
+
+    private static final Map<String, CachedServiceClient> CLIENTS = new HashMap<>();
+    private static final AtomicLong CLIENT_BUILD_COUNT = new AtomicLong();
+
+    private DataLakeServiceClientCache() {
+
+    }
+
+    /**
+     * Returns the cached client for the given configuration, building it if this is the first reference.
+     *
+     * @param config connection configuration
+     * @return the cached client, which must be handed back through {@link #release(CachedServiceClient)}
+     * @throws ConnectException if the client cannot be built
+     */
+    static synchronized CachedServiceClient acquire(ConnectionConfiguration config) throws ConnectException {
+
+        String fingerprint = config.getClientFingerprint();
+        CachedServiceClient cachedClient = CLIENTS.get(fingerprint);
+        // A client whose last reference is being released concurrently cannot be revived
+        if (cachedClient == null || !cachedClient.retain()) {
+            Resources resources = SharedNettyResources.acquire(config);
+            // Clients of the same service principal share one token, whatever account or pool they use
+            SharedTokenCredential credential = AzureStorageConnectionHandler.hasClientCredentials(config) ?
+                    SharedTokenCredential.acquire(config.getTenantID(), config.getClientID(),
+                            config.getClientSecret()) : null;
+            try {
+                DataLakeServiceClientBuilder builder = AzureStorageConnectionHandler
+                        .createDataLakeServiceClientBuilder(config, resources, credential);
+                cachedClient = new CachedServiceClient(fingerprint, builder.buildClient(), builder.buildAsyncClient(),
+                        resources, credential);
+                cachedClient.references.set(1);
+            } catch (ConnectException | RuntimeException e) {
+                SharedNettyResources.release(resources);
+                SharedTokenCredential.release(credential);
+                throw e;
+            }
+            CLIENTS.put(fingerprint, cachedClient);
+            CLIENT_BUILD_COUNT.incrementAndGet();
+            if (log.isDebugEnabled()) {
+                log.debug("Built a new Data Lake service client for account " + config.getAccountName());
+            }
+        }
+        return cachedClient;
+    }
+
+    /**
+     * Releases a reference obtained through {@link #acquire(ConnectionConfiguration)} or
+     * {@link CachedServiceClient#retain()}. The client is removed from the cache and its share of the Netty
+     * resources is released once no references remain.
+     *
+     * @param cachedClient the client to release
+     */
+    static void release(CachedServiceClient cachedClient) {
+
+        if (cachedClient != null && cachedClient.references.decrementAndGet() == 0) {
+            synchronized (DataLakeServiceClientCache.class) {
+                CLIENTS.remove(cachedClient.fingerprint, cachedClient);
+            }
+            cachedClient.close();
+        }
+    }
+
+    /**
+     * @return the number of clients built since the connector was loaded.
+     */
+    static long getClientBuildCount() {
+
+        return CLIENT_BUILD_COUNT.get();
+    }
+
+    /**
+     * A service client and its asynchronous counterpart together with the shared Netty resources and credential
+     * they use.
+     */
+    static final class CachedServiceClient {
+
+        private final String fingerprint;
+        private final DataLakeServiceClient client;
+        private final DataLakeServiceAsyncClient asyncClient;
+        private final Resources resources;
+        private final SharedTokenCredential credential;
+        private final AtomicInteger references = new AtomicInteger();
+
+        private CachedServiceClient(String fingerprint, DataLakeServiceClient client,
+                                    DataLakeServiceAsyncClient asyncClient, Resources resources,
+                                    SharedTokenCredential credential) {
+
+            this.fingerprint = fingerprint;
+            this.client = client;
+            this.asyncClient = asyncClient;
+            this.resources = resources;
+            this.credential = credential;
+        }
+
+        String getFingerprint() {
+
+            return fingerprint;
+        }
+
+        DataLakeServiceClient getClient() {
+
+            return client;
+        }
+
+        DataLakeServiceAsyncClient getAsyncClient() {
+
+            return asyncClient;
+        }
+
+        /**
+         * Adds a reference to this client without taking the cache lock.
+         *
+         * @return {@code false} if the client has already been closed and must not be used
+         */
+        boolean retain() {
+
+            int current;
+            do {
+                current = references.get();
+                if (current == 0) {
+                    return false;
+                }
+            } while (!references.compareAndSet(current, current + 1));
+            return true;
+        }
+
+        private void close() {
+
+            SharedNettyResources.release(resources);
+            SharedTokenCredential.release(credential);
+        }
+    }
+}
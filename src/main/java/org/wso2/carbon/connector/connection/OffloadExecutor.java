@@ -0,0 +1,169 @@
+/*
+ *  Copyright (c) 2025, WSO2 LLC. (https://www.wso2.com).
+ *
+ *  WSO2 LLC. licenses this file to you under the Apache License,
+ *  Version 2.0 (the "License"); you may not use this file except
+ *  in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *  "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License.
+ */
+
+package org.wso2.carbon.connector.connection;
+
+import io.netty.util.concurrent.DefaultThreadFactory;
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import reactor.core.publisher.Mono;
+
+import java.lang.reflect.Method;
+import java.time.Duration;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Runs blocking operations of a connection off the mediation thread. On Java 21 and later every operation gets
+ * its own virtual thread, so thousands of operations waiting on the storage account do not pin platform threads.
+ * On older runtimes a cached pool of daemon threads is used instead. The number of offloaded operations of a
+ * connection is bounded, and an operation is interrupted once it exceeds the offload timeout.
+ */
+public class OffloadExecutor {
+
+    private static final Log log = LogFactory.getLog(OffloadExecutor.class);
+
+    static final int DEFAULT_MAX_OPERATIONS = 1000;
+    static final int DEFAULT_TIMEOUT = 300;
+
+    private static final ExecutorService EXECUTOR = createExecutor();
+
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final AtomicLong rejectedCount = new AtomicLong();
+    private final AtomicLong timeoutCount = new AtomicLong();
+    private volatile boolean enabled;
+    private volatile Semaphore permits;
+    private volatile int maxOperations;
+    private volatile Duration timeout;
+
+    OffloadExecutor(ConnectionConfiguration config) {
+
+        configure(config);
+    }
+
+    /**
+     * Applies the offload settings of the connection. Operations already offloaded keep counting against the
+     * previous bound.
+     *
+     * @param config the connection configuration.
+     */
+    synchronized void configure(ConnectionConfiguration config) {
+
+        int configuredMaxOperations = config.getMaxOffloadedOperations() != null ?
+                config.getMaxOffloadedOperations() : DEFAULT_MAX_OPERATIONS;
+        if (permits == null || configuredMaxOperations != maxOperations) {
+            permits = new Semaphore(configuredMaxOperations);
+            maxOperations = configuredMaxOperations;
+        }
+        timeout = Duration.ofSeconds(config.getOffloadTimeout() != null ?
+                config.getOffloadTimeout() : DEFAULT_TIMEOUT);
+        enabled = config.isOffloadExecution();
+    }
+
+    public boolean isEnabled() {
+
+        return enabled;
+    }
+
+    /**
+     * Runs a blocking task on an offload thread. The task fails with a {@link RejectedExecutionException} if the
+     * connection has the maximum number of operations offloaded, and with a {@link TimeoutException} if it does
+     * not complete within the offload timeout, in which case its thread is interrupted.
+     *
+     * @param task the blocking task.
+     * @return completes once the task has run.
+     */
+    public Mono<Void> execute(Runnable task) {
+
+        Duration operationTimeout = timeout;
+        return Mono.<Void>create(sink -> {
+            Semaphore operationPermits = permits;
+            if (!operationPermits.tryAcquire()) {
+                rejectedCount.incrementAndGet();
+                sink.error(new RejectedExecutionException(
+                        "The maximum of " + maxOperations + " offloaded operations is reached"));
+                return;
+            }
+            inFlight.incrementAndGet();
+            Future<?> future;
+            try {
+                future = EXECUTOR.submit(() -> {
+                    Throwable failure = null;
+                    try {
+                        task.run();
+                    } catch (Throwable e) {
+                        failure = e;
+                    } finally {
+                        // The slot is free by the time the caller sees the outcome
+                        inFlight.decrementAndGet();
+                        operationPermits.release();
+                    }
+                    if (failure == null) {
+                        sink.success();
+                    } else {
+                        sink.error(failure);
+                    }
+                });
+            } catch (RejectedExecutionException e) {
+                inFlight.decrementAndGet();
+                operationPermits.release();
+                sink.error(e);
+                return;
+            }
+            sink.onCancel(() -> future.cancel(true));
+        }).timeout(operationTimeout).doOnError(TimeoutException.class, e -> timeoutCount.incrementAndGet());
+    }
+
+    public int getInFlight() {
+
+        return inFlight.get();
+    }
+
+    public long getRejectedCount() {
+
+        return rejectedCount.get();
+    }
+
+    public long getTimeoutCount() {
+
+        return timeoutCount.get();
+    }
+
+    /**
+     * Creates a virtual thread per task executor if the runtime supports it. The connector is compiled for older
+     * Java versions, hence the reflective lookup.
+     */
+    private static ExecutorService createExecutor() {
+
+        try {
+            Method factory = Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+            return (ExecutorService) factory.invoke(null);
+        } catch (ReflectiveOperationException e) {
+            log.info("Virtual threads are not available on Java " + System.getProperty("java.version") +
+                    ", offloaded Azure Data Lake operations run on a cached thread pool");
+            return Executors.newCachedThreadPool(new DefaultThreadFactory("msazuredatalakestorage-offload", true));
+        }
+    }
+}
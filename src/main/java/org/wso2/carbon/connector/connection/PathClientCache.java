@@ -0,0 +1,175 @@
+/*
+ *  Copyright (c) 2025, WSO2 LLC. (https://www.wso2.com).
+ *
+ *  WSO2 LLC. licenses this file to you under the Apache License,
+ *  Version 2.0 (the "License"); you may not use this file except
+ *  in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *  "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License.
+ */
+
+package org.wso2.carbon.connector.connection;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * A bounded cache of the file system, file and directory clients of a connection, keyed by the service client they
+ * were derived from, their type, file system and path. Operations that hit the same paths over and over reuse the
+ * clients instead of encoding the URL and wiring the pipeline on every message. The least recently used client is
+ * evicted once the cache is full.
+ */
+public class PathClientCache {
+
+    static final int DEFAULT_MAX_SIZE = 1000;
+
+    private final AtomicLong hitCount = new AtomicLong();
+    private final AtomicLong missCount = new AtomicLong();
+    private final AtomicLong evictionCount = new AtomicLong();
+    private final LinkedHashMap<Key, Object> clients = new LinkedHashMap<Key, Object>(16, 0.75f, true) {
+
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Key, Object> eldest) {
+
+            if (size() > maxSize) {
+                evictionCount.incrementAndGet();
+                return true;
+            }
+            return false;
+        }
+    };
+    private volatile int maxSize;
+
+    PathClientCache(ConnectionConfiguration config) {
+
+        configure(config);
+    }
+
+    /**
+     * Applies the cache size of the connection. Clients over the new size are evicted on the next insertion.
+     *
+     * @param config the connection configuration.
+     */
+    void configure(ConnectionConfiguration config) {
+
+        maxSize = config.getPathClientCacheSize() != null ? config.getPathClientCacheSize() : DEFAULT_MAX_SIZE;
+        if (maxSize == 0) {
+            clear();
+        }
+    }
+
+    /**
+     * Returns the cached client of the given path, creating it if it is not cached.
+     *
+     * @param parent     the service or file system client the client is derived from.
+     * @param type       the type of the client.
+     * @param fileSystem the file system name.
+     * @param path       the path within the file system, or {@code null} for a file system client.
+     * @param factory    creates the client on a miss.
+     * @return the client.
+     */
+    public <T> T get(Object parent, Class<T> type, String fileSystem, String path, Supplier<T> factory) {
+
+        if (maxSize == 0) {
+            return factory.get();
+        }
+        Key key = new Key(parent, type, fileSystem, path);
+        synchronized (clients) {
+            Object client = clients.get(key);
+            if (client != null) {
+                hitCount.incrementAndGet();
+                return type.cast(client);
+            }
+        }
+        missCount.incrementAndGet();
+        // Clients are created outside the lock, a concurrent miss on the same path just builds a spare one
+        T client = factory.get();
+        synchronized (clients) {
+            clients.put(key, client);
+        }
+        return client;
+    }
+
+    /**
+     * Drops every cached client, used once the service client they were derived from is replaced.
+     */
+    public void clear() {
+
+        synchronized (clients) {
+            clients.clear();
+        }
+    }
+
+    public int getSize() {
+
+        synchronized (clients) {
+            return clients.size();
+        }
+    }
+
+    public long getHitCount() {
+
+        return hitCount.get();
+    }
+
+    public long getMissCount() {
+
+        return missCount.get();
+    }
+
+    public long getEvictionCount() {
+
+        return evictionCount.get();
+    }
+
+    /**
+     * Identifies a cached client. The parent client is compared by identity so that clients of a replaced service
+     * client are never handed out.
+     */
+    private static final class Key {
+
+        private final Object parent;
+        private final Class<?> type;
+        private final String fileSystem;
+        private final String path;
+
+        private Key(Object parent, Class<?> type, String fileSystem, String path) {
+
+            this.parent = parent;
+            this.type = type;
+            this.fileSystem = fileSystem;
+            this.path = path;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof Key)) {
+                return false;
+            }
+            Key that = (Key) o;
+            return parent == that.parent && type == that.type && Objects.equals(fileSystem, that.fileSystem) &&
+                    Objects.equals(path, that.path);
+        }
+
+        @Override
+        public int hashCode() {
+
+            return Objects.hash(System.identityHashCode(parent), type, fileSystem, path);
+        }
+    }
+}
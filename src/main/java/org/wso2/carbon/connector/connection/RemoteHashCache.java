@@ -0,0 +1,189 @@
+/*
+ *  Copyright (c) 2025, WSO2 LLC. (https://www.wso2.com).
+ *
+ *  WSO2 LLC. licenses this file to you under the Apache License,
+ *  Version 2.0 (the "License"); you may not use this file except
+ *  in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *  "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License.
+ */
+
+
+package org.wso2.carbon.connector.connection;
+
+import reactor.core.publisher.Mono;
+
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * A bounded cache of the Content-MD5 and length of the files a connection uploaded or looked at, keyed by file URL.
+ * Uploads that skip unchanged content consult it instead of fetching the properties of the remote file, which lets
+ * bulk sync runs skip unchanged files without any request. The cache only knows what went through this connection,
+ * so it must only be used for files nothing else writes to. The least recently used entry is evicted once the cache
+ * is full.
+ */
+public class RemoteHashCache {
+
+    static final int MAX_SIZE = 100000;
+
+    private final AtomicLong hitCount = new AtomicLong();
+    private final AtomicLong missCount = new AtomicLong();
+    private final LinkedHashMap<String, Entry> entries = new LinkedHashMap<String, Entry>(16, 0.75f, true) {
+
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, Entry> eldest) {
+
+            return size() > MAX_SIZE;
+        }
+    };
+
+    /**
+     * Returns what is known about the content of a remote file.
+     *
+     * @param fileUrl the URL of the file.
+     * @return the cached hash and length, or {@code null} if the file is not cached.
+     */
+    public Entry get(String fileUrl) {
+
+        Entry entry;
+        synchronized (entries) {
+            entry = entries.get(fileUrl);
+        }
+        if (entry != null) {
+            hitCount.incrementAndGet();
+        } else {
+            missCount.incrementAndGet();
+        }
+        return entry;
+    }
+
+    /**
+     * Records the content of a remote file.
+     *
+     * @param fileUrl    the URL of the file.
+     * @param contentMd5 the MD5 of the content.
+     * @param size       the length of the content.
+     */
+    public void put(String fileUrl, byte[] contentMd5, long size) {
+
+        synchronized (entries) {
+            entries.put(fileUrl, new Entry(contentMd5, size));
+        }
+    }
+
+    /**
+     * Forgets a remote file, whose content is no longer known.
+     *
+     * @param fileUrl the URL of the file.
+     */
+    public void remove(String fileUrl) {
+
+        synchronized (entries) {
+            entries.remove(fileUrl);
+        }
+    }
+
+    /**
+     * Forgets a remote path and, if it is a directory, every file below it.
+     *
+     * @param pathUrl the URL of the file or directory.
+     */
+    public void removeTree(String pathUrl) {
+
+        String prefix = pathUrl.endsWith("/") ? pathUrl : pathUrl + "/";
+        synchronized (entries) {
+            entries.remove(pathUrl);
+            entries.keySet().removeIf(fileUrl -> fileUrl.startsWith(prefix));
+        }
+    }
+
+    /**
+     * Keeps the cache in line with a write to a remote file. The file is forgotten when the write starts. Once the
+     * write succeeds, its content is recorded if it is known, or the file is forgotten again, since a lookup may have
+     * cached it while the write was in progress. A failed write forgets the file as well, as it may have left the
+     * file in any state.
+     *
+     * @param write      the write.
+     * @param fileUrl    the URL of the file.
+     * @param contentMd5 supplies the MD5 of the written content once the write succeeded, or {@code null} if the
+     *                   content is not to be recorded.
+     * @param size       the length of the written content.
+     * @param <T>        the type of the result of the write.
+     * @return the write, updating the cache as it runs.
+     */
+    public <T> Mono<T> track(Mono<T> write, String fileUrl, Supplier<byte[]> contentMd5, long size) {
+
+        return Mono.defer(() -> {
+            remove(fileUrl);
+            return write;
+        }).doOnSuccess(result -> {
+            byte[] md5 = contentMd5 != null ? contentMd5.get() : null;
+            if (md5 != null && size >= 0) {
+                put(fileUrl, md5, size);
+            } else {
+                remove(fileUrl);
+            }
+        }).doOnError(e -> remove(fileUrl));
+    }
+
+    public void clear() {
+
+        synchronized (entries) {
+            entries.clear();
+        }
+    }
+
+    public int getSize() {
+
+        synchronized (entries) {
+            return entries.size();
+        }
+    }
+
+    public long getHitCount() {
+
+        return hitCount.get();
+    }
+
+    public long getMissCount() {
+
+        return missCount.get();
+    }
+
+    /**
+     * The hash and length of the content of a remote file.
+     */
+    public static final class Entry {
+
+        private final byte[] contentMd5;
+        private final long size;
+
+        private Entry(byte[] contentMd5, long size) {
+
+            this.contentMd5 = contentMd5.clone();
+            this.size = size;
+        }
+
+        /**
+         * @param contentMd5 the MD5 of some content.
+         * @param size       the length of that content.
+         * @return whether the remote file holds that content.
+         */
+        public boolean matches(byte[] contentMd5, long size) {
+
+            return this.size == size && Arrays.equals(this.contentMd5, contentMd5);
+        }
+    }
+}
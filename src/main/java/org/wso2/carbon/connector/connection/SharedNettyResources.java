@@ -0,0 +1,180 @@
+/*
+ *  Copyright (c) 2025, WSO2 LLC. (https://www.wso2.com).
+ *
+ *  WSO2 LLC. licenses this file to you under the Apache License,
+ *  Version 2.0 (the "License"); you may not use this file except
+ *  in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *  "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License.
+ */
+
+package org.wso2.carbon.connector.connection;
+
+import io.netty.channel.EventLoopGroup;
+import io.netty.channel.nio.NioEventLoopGroup;
+import io.netty.util.concurrent.DefaultThreadFactory;
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import reactor.netty.resources.ConnectionProvider;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Reference counted Netty resources shared by all Azure Data Lake connections. Connections with the same pool
+ * settings use one {@link ConnectionProvider}, and connections with the same event loop size use one
+ * {@link EventLoopGroup}, instead of every client creating its own.
+ */
+final class SharedNettyResources {
+
+    private static final Log log = LogFactory.getLog(SharedNettyResources.class);
+    private static final String POOL_NAME = "msazuredatalakestorage";
+
+    /**
+     * Grace period given to in-flight requests before a released connection pool is closed.
+     */
+    private static final Duration POOL_DISPOSE_TIMEOUT = Duration.ofSeconds(30);
+
+    private static final Map<List<Integer>, Shared<ConnectionProvider>> CONNECTION_PROVIDERS = new HashMap<>();
+    private static final Map<Integer, Shared<EventLoopGroup>> EVENT_LOOP_GROUPS = new HashMap<>();
+
+    private SharedNettyResources() {
+
+    }
+
+    /**
+     * Acquires the connection pool and event loop group matching the given configuration.
+     *
+     * @param config connection configuration
+     * @return the resources, which must be handed back through {@link #release(Resources)}
+     */
+    static synchronized Resources acquire(ConnectionConfiguration config) {
+
+        List<Integer> poolKey = Arrays.asList(config.getMaxConnections(), config.getMaxPendingAcquires(),
+                config.getPendingAcquireTimeout(), config.getMaxIdleTime(), config.getMaxLifeTime(),
+                config.getEvictionInterval());
+        Shared<ConnectionProvider> provider = CONNECTION_PROVIDERS.get(poolKey);
+        if (provider == null) {
+            provider = new Shared<>(createConnectionProvider(config));
+            CONNECTION_PROVIDERS.put(poolKey, provider);
+        }
+        provider.references++;
+
+        Integer eventLoopKey = config.getEventLoopThreads();
+        Shared<EventLoopGroup> eventLoopGroup = null;
+        if (eventLoopKey != null) {
+            eventLoopGroup = EVENT_LOOP_GROUPS.get(eventLoopKey);
+            if (eventLoopGroup == null) {
+                eventLoopGroup = new Shared<>(new NioEventLoopGroup(eventLoopKey,
+                        new DefaultThreadFactory(POOL_NAME + "-nio", true)));
+                EVENT_LOOP_GROUPS.put(eventLoopKey, eventLoopGroup);
+            }
+            eventLoopGroup.references++;
+        }
+        return new Resources(poolKey, provider.resource, eventLoopKey,
+                eventLoopGroup != null ? eventLoopGroup.resource : null);
+    }
+
+    /**
+     * Releases resources obtained through {@link #acquire(ConnectionConfiguration)}. The pool and the event loop
+     * group are shut down gracefully once no connection refers to them.
+     *
+     * @param resources the resources to release
+     */
+    static synchronized void release(Resources resources) {
+
+        Shared<ConnectionProvider> provider = CONNECTION_PROVIDERS.get(resources.poolKey);
+        if (provider != null && --provider.references == 0) {
+            CONNECTION_PROVIDERS.remove(resources.poolKey);
+            provider.resource.disposeLater()
+                    .subscribe(null, e -> log.warn("Error while closing the Data Lake connection pool", e));
+        }
+        if (resources.eventLoopKey != null) {
+            Shared<EventLoopGroup> eventLoopGroup = EVENT_LOOP_GROUPS.get(resources.eventLoopKey);
+            if (eventLoopGroup != null && --eventLoopGroup.references == 0) {
+                EVENT_LOOP_GROUPS.remove(resources.eventLoopKey);
+                eventLoopGroup.resource.shutdownGracefully();
+            }
+        }
+    }
+
+    private static ConnectionProvider createConnectionProvider(ConnectionConfiguration config) {
+
+        ConnectionProvider.Builder builder = ConnectionProvider.builder(POOL_NAME)
+                .disposeTimeout(POOL_DISPOSE_TIMEOUT);
+        if (config.getMaxConnections() != null) {
+            builder.maxConnections(config.getMaxConnections());
+        }
+        if (config.getMaxPendingAcquires() != null) {
+            builder.pendingAcquireMaxCount(config.getMaxPendingAcquires());
+        }
+        if (config.getPendingAcquireTimeout() != null) {
+            builder.pendingAcquireTimeout(Duration.ofSeconds(config.getPendingAcquireTimeout()));
+        }
+        if (config.getMaxIdleTime() != null) {
+            builder.maxIdleTime(Duration.ofSeconds(config.getMaxIdleTime()));
+        }
+        if (config.getMaxLifeTime() != null) {
+            builder.maxLifeTime(Duration.ofSeconds(config.getMaxLifeTime()));
+        }
+        if (config.getEvictionInterval() != null) {
+            builder.evictInBackground(Duration.ofSeconds(config.getEvictionInterval()));
+        }
+        return builder.build();
+    }
+
+    /**
+     * The Netty resources held by a single service client.
+     */
+    static final class Resources {
+
+        private final List<Integer> poolKey;
+        private final ConnectionProvider connectionProvider;
+        private final Integer eventLoopKey;
+        private final EventLoopGroup eventLoopGroup;
+
+        private Resources(List<Integer> poolKey, ConnectionProvider connectionProvider, Integer eventLoopKey,
+                          EventLoopGroup eventLoopGroup) {
+
+            this.poolKey = poolKey;
+            this.connectionProvider = connectionProvider;
+            this.eventLoopKey = eventLoopKey;
+            this.eventLoopGroup = eventLoopGroup;
+        }
+
+        ConnectionProvider getConnectionProvider() {
+
+            return connectionProvider;
+        }
+
+        /**
+         * @return the shared event loop group, or {@code null} to use the default Reactor Netty event loops.
+         */
+        EventLoopGroup getEventLoopGroup() {
+
+            return eventLoopGroup;
+        }
+    }
+
+    private static final class Shared<T> {
+
+        private final T resource;
+        private int references;
+
+        private Shared(T resource) {
+
+            this.resource = resource;
+        }
+    }
+}
@@ -0,0 +1,364 @@
+/*
+ *  Copyright (c) 2025, WSO2 LLC. (https://www.wso2.com).
+ *
+ *  WSO2 LLC. licenses this file to you under the Apache License,
+ *  Version 2.0 (the "License"); you may not use this file except
+ *  in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *  "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License.
+ */
+
+package org.wso2.carbon.connector.connection;
+
+import com.azure.core.credential.AccessToken;
+import com.azure.core.credential.TokenCredential;
+import com.azure.core.credential.TokenRequestContext;
+import com.azure.core.http.netty.NettyAsyncHttpClientBuilder;
+import com.azure.identity.ClientSecretCredentialBuilder;
+import io.netty.util.concurrent.DefaultThreadFactory;
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.apache.synapse.commons.jmx.MBeanRegistrar;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+import java.time.Duration;
+import java.time.OffsetDateTime;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * A {@link TokenCredential} that keeps the access token of a service principal cached and refreshes it in the
+ * background before it expires, so that token acquisition never runs inline on a mediation thread while a valid
+ * token is available. One instance is shared by every connection using the same tenant, client ID and secret.
+ */
+public class SharedTokenCredential implements TokenCredential, SharedTokenCredentialMBean {
+
+    private static final Log log = LogFactory.getLog(SharedTokenCredential.class);
+    private static final String MBEAN_CATEGORY = "AzureDataLakeTokenCache";
+
+    /**
+     * How long before expiry the token is refreshed in the background. A token that lives less than twice as long is
+     * refreshed halfway through its remaining lifetime instead.
+     */
+    private static final Duration DEFAULT_REFRESH_MARGIN = Duration.ofMinutes(5);
+
+    /**
+     * Shortest delay of a background refresh, so that an identity provider that keeps handing out a token close to
+     * its expiry is not asked again right away.
+     */
+    private static final Duration DEFAULT_MIN_REFRESH_DELAY = Duration.ofSeconds(30);
+
+    /**
+     * A cached token is not handed out if it expires within this period.
+     */
+    private static final Duration DEFAULT_EXPIRY_SAFETY_MARGIN = Duration.ofSeconds(30);
+
+    /**
+     * Delay before a failed background refresh is retried.
+     */
+    private static final Duration REFRESH_RETRY_DELAY = Duration.ofSeconds(30);
+
+    private static final Map<String, SharedTokenCredential> CREDENTIALS = new HashMap<>();
+    private static final ScheduledExecutorService REFRESH_EXECUTOR = Executors.newSingleThreadScheduledExecutor(
+            new DefaultThreadFactory("msazuredatalakestorage-token-refresh", true));
+
+    private final String key;
+    private final TokenCredential delegate;
+    private final Duration refreshMargin;
+    private final Duration minRefreshDelay;
+    private final Duration expirySafetyMargin;
+    private final AtomicLong fetchCount = new AtomicLong();
+    private final AtomicLong fetchFailureCount = new AtomicLong();
+    private final AtomicLong totalFetchTime = new AtomicLong();
+    private volatile long lastFetchTime = -1;
+    private volatile CachedToken cachedToken;
+    // The pending background refresh, replaced whenever a token is fetched, since only the latest token is cached
+    private ScheduledFuture<?> refreshFuture;
+    private int references;
+    private volatile boolean closed;
+
+    SharedTokenCredential(String key, TokenCredential delegate, Duration refreshMargin, Duration minRefreshDelay,
+                          Duration expirySafetyMargin) {
+
+        this.key = key;
+        this.delegate = delegate;
+        this.refreshMargin = refreshMargin;
+        this.minRefreshDelay = minRefreshDelay;
+        this.expirySafetyMargin = expirySafetyMargin;
+    }
+
+    /**
+     * Returns the shared credential of the given service principal, creating it on first use.
+     *
+     * @param tenantId     tenant ID
+     * @param clientId     client ID
+     * @param clientSecret client secret
+     * @return the shared credential, which must be handed back through {@link #release(SharedTokenCredential)}
+     */
+    static SharedTokenCredential acquire(String tenantId, String clientId, String clientSecret) {
+
+        // The credential has its own HTTP client since it outlives the pools of the individual service clients
+        return acquire(getKey(tenantId, clientId, clientSecret), () -> new ClientSecretCredentialBuilder()
+                .httpClient(new NettyAsyncHttpClientBuilder().build())
+                .tenantId(tenantId)
+                .clientId(clientId)
+                .clientSecret(clientSecret)
+                .build(), DEFAULT_REFRESH_MARGIN);
+    }
+
+    /**
+     * Returns the key a service principal's credential is shared under. The secret is part of the key through its
+     * fingerprint, so that a rotated secret gets its own credential and the old and new one can be told apart over
+     * JMX while connections move over, without the secret ever being exposed.
+     */
+    static String getKey(String tenantId, String clientId, String clientSecret) {
+
+        return tenantId + "/" + clientId + "/" + ConnectionConfiguration.fingerprint(tenantId, clientId, clientSecret);
+    }
+
+    static SharedTokenCredential acquire(String key, Supplier<TokenCredential> delegateFactory,
+                                         Duration refreshMargin) {
+
+        return acquire(key, delegateFactory, refreshMargin, DEFAULT_MIN_REFRESH_DELAY, DEFAULT_EXPIRY_SAFETY_MARGIN);
+    }
+
+    static SharedTokenCredential acquire(String key, Supplier<TokenCredential> delegateFactory,
+                                         Duration refreshMargin, Duration minRefreshDelay,
+                                         Duration expirySafetyMargin) {
+
+        synchronized (CREDENTIALS) {
+            SharedTokenCredential credential = CREDENTIALS.get(key);
+            if (credential == null) {
+                credential = new SharedTokenCredential(key, delegateFactory.get(), refreshMargin, minRefreshDelay,
+                        expirySafetyMargin);
+                CREDENTIALS.put(key, credential);
+                credential.register();
+            }
+            credential.references++;
+            return credential;
+        }
+    }
+
+    /**
+     * Releases a credential obtained through {@link #acquire(String, String, String)}. Background refreshes stop
+     * once no client uses the credential anymore.
+     *
+     * @param credential the credential to release
+     */
+    static void release(SharedTokenCredential credential) {
+
+        if (credential == null) {
+            return;
+        }
+        synchronized (CREDENTIALS) {
+            if (--credential.references == 0) {
+                CREDENTIALS.remove(credential.key);
+                credential.closed = true;
+                credential.cancelRefresh();
+                credential.unregister();
+            }
+        }
+    }
+
+    @Override
+    public Mono<AccessToken> getToken(TokenRequestContext request) {
+
+        if (request.getClaims() == null) {
+            CachedToken current = cachedToken;
+            if (current != null && isUsable(current, request)) {
+                return Mono.just(current.token);
+            }
+        }
+        // A fetch waits for the identity provider, which must not hold up the event loop of the pipeline
+        return Mono.fromCallable(() -> getTokenSync(request)).subscribeOn(Schedulers.boundedElastic());
+    }
+
+    @Override
+    public AccessToken getTokenSync(TokenRequestContext request) {
+
+        if (request.getClaims() != null) {
+            // Claims challenges must always go to the identity provider
+            return delegate.getTokenSync(request);
+        }
+        CachedToken current = cachedToken;
+        if (current != null && isUsable(current, request)) {
+            return current.token;
+        }
+        return fetchToken(request, false);
+    }
+
+    /**
+     * Fetches a new token from the identity provider. Concurrent callers wait for a single fetch.
+     *
+     * @param request the token request
+     * @param force   whether to fetch even if the cached token is still usable
+     * @return the token
+     */
+    private synchronized AccessToken fetchToken(TokenRequestContext request, boolean force) {
+
+        CachedToken current = cachedToken;
+        if (!force && current != null && isUsable(current, request)) {
+            return current.token;
+        }
+        long start = System.nanoTime();
+        AccessToken token;
+        try {
+            token = delegate.getTokenSync(request);
+        } catch (RuntimeException e) {
+            fetchFailureCount.incrementAndGet();
+            throw e;
+        }
+        long duration = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+        fetchCount.incrementAndGet();
+        totalFetchTime.addAndGet(duration);
+        lastFetchTime = duration;
+        cachedToken = new CachedToken(token, request);
+        scheduleRefresh(getRefreshDelay(Duration.between(OffsetDateTime.now(), token.getExpiresAt()),
+                refreshMargin, minRefreshDelay), request);
+        return token;
+    }
+
+    /**
+     * Returns how long after it was fetched a token is refreshed: the refresh margin before it expires, but no
+     * earlier than halfway through its lifetime and no sooner than the minimum delay.
+     *
+     * @param lifetime        the remaining lifetime of the token
+     * @param refreshMargin   how long before expiry the token is refreshed
+     * @param minRefreshDelay the shortest delay
+     * @return the delay of the refresh
+     */
+    static Duration getRefreshDelay(Duration lifetime, Duration refreshMargin, Duration minRefreshDelay) {
+
+        Duration halfLifetime = lifetime.dividedBy(2);
+        Duration delay = lifetime.minus(refreshMargin.compareTo(halfLifetime) < 0 ? refreshMargin : halfLifetime);
+        return delay.compareTo(minRefreshDelay) > 0 ? delay : minRefreshDelay;
+    }
+
+    /**
+     * Schedules the refresh of the cached token in place of the pending one, so that a credential never has more
+     * than one refresh cycle running.
+     */
+    private synchronized void scheduleRefresh(Duration delay, TokenRequestContext request) {
+
+        cancelRefresh();
+        if (!closed) {
+            refreshFuture = REFRESH_EXECUTOR.schedule(() -> refresh(request), delay.toMillis(),
+                    TimeUnit.MILLISECONDS);
+        }
+    }
+
+    private synchronized void cancelRefresh() {
+
+        if (refreshFuture != null) {
+            refreshFuture.cancel(false);
+            refreshFuture = null;
+        }
+    }
+
+    private void refresh(TokenRequestContext request) {
+
+        if (closed) {
+            return;
+        }
+        try {
+            fetchToken(request, true);
+        } catch (RuntimeException e) {
+            CachedToken current = cachedToken;
+            if (current != null && current.token.getExpiresAt().isAfter(OffsetDateTime.now())) {
+                log.warn("Unable to refresh the access token in the background, retrying in "
+                        + REFRESH_RETRY_DELAY.getSeconds() + " seconds", e);
+                scheduleRefresh(REFRESH_RETRY_DELAY, request);
+            } else {
+                // The next request fetches the token inline and restarts the refresh cycle
+                log.warn("Unable to refresh the access token in the background", e);
+            }
+        }
+    }
+
+    private boolean isUsable(CachedToken token, TokenRequestContext request) {
+
+        return token.scopes.equals(request.getScopes()) &&
+                token.token.getExpiresAt().isAfter(OffsetDateTime.now().plus(expirySafetyMargin));
+    }
+
+    private void register() {
+
+        try {
+            MBeanRegistrar.getInstance().registerMBean(this, MBEAN_CATEGORY, key);
+        } catch (Exception e) {
+            log.warn("Unable to register token metrics", e);
+        }
+    }
+
+    private void unregister() {
+
+        try {
+            MBeanRegistrar.getInstance().unRegisterMBean(MBEAN_CATEGORY, key);
+        } catch (Exception e) {
+            log.warn("Unable to unregister token metrics", e);
+        }
+    }
+
+    @Override
+    public long getTokenFetchCount() {
+
+        return fetchCount.get();
+    }
+
+    @Override
+    public long getTokenFetchFailureCount() {
+
+        return fetchFailureCount.get();
+    }
+
+    @Override
+    public long getLastTokenFetchTime() {
+
+        return lastFetchTime;
+    }
+
+    @Override
+    public long getTotalTokenFetchTime() {
+
+        return totalFetchTime.get();
+    }
+
+    @Override
+    public int getClientCount() {
+
+        synchronized (CREDENTIALS) {
+            return references;
+        }
+    }
+
+    /**
+     * An access token together with the scopes it was issued for.
+     */
+    private static final class CachedToken {
+
+        private final AccessToken token;
+        private final List<String> scopes;
+
+        private CachedToken(AccessToken token, TokenRequestContext request) {
+
+            this.token = token;
+            this.scopes = request.getScopes();
+        }
+    }
+}
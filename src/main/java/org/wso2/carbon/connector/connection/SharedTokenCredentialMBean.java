@@ -0,0 +1,50 @@
+/*
+ *  Copyright (c) 2025, WSO2 LLC. (https://www.wso2.com).
+ *
+ *  WSO2 LLC. licenses this file to you under the Apache License,
+ *  Version 2.0 (the "License"); you may not use this file except
+ *  in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *  "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License.
+ */
+
+package org.wso2.carbon.connector.connection;
+
+/**
+ * JMX view of the token statistics of an OAuth2 service principal shared by Azure Data Lake connections.
+ */
+public interface SharedTokenCredentialMBean {
+
+    /**
+     * @return number of tokens fetched from the identity provider.
+     */
+    long getTokenFetchCount();
+
+    /**
+     * @return number of token fetches that failed.
+     */
+    long getTokenFetchFailureCount();
+
+    /**
+     * @return duration in milliseconds of the last successful token fetch, or -1 if no token was fetched yet.
+     */
+    long getLastTokenFetchTime();
+
+    /**
+     * @return total duration in milliseconds of all successful token fetches.
+     */
+    long getTotalTokenFetchTime();
+
+    /**
+     * @return number of service clients sharing the token.
+     */
+    int getClientCount();
+}
@@ -0,0 +1,87 @@
+/*
+ *  Copyright (c) 2025, WSO2 LLC. (https://www.wso2.com).
+ *
+ *  WSO2 LLC. licenses this file to you under the Apache License,
+ *  Version 2.0 (the "License"); you may not use this file except
+ *  in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *  "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License.
+ */
+
+package org.wso2.carbon.connector.connection;
+
+import com.azure.core.http.HttpHeaderName;
+import com.azure.core.http.HttpPipelineCallContext;
+import com.azure.core.http.HttpPipelineNextPolicy;
+import com.azure.core.http.HttpPipelinePosition;
+import com.azure.core.http.HttpRequest;
+import com.azure.core.http.HttpResponse;
+import com.azure.core.http.policy.HttpPipelinePolicy;
+import com.azure.core.util.BinaryData;
+import org.wso2.carbon.connector.util.Crc64;
+import reactor.core.publisher.Mono;
+
+/**
+ * Adds the {@code x-ms-content-crc64} header to every append request of an operation that asked for transactional
+ * CRC64 checksums, by putting {@link #CONTEXT_KEY} into its request context or, for asynchronous operations, into
+ * the subscriber context. The service rejects an append whose content does not match. Other requests of the
+ * operation, such as create and flush, carry no content and are left alone.
+ * <p>
+ * The policy runs once per call, before the request is signed, so that the header is covered by the signature.
+ */
+public class TransactionalCrc64Policy implements HttpPipelinePolicy {
+
+    /**
+     * Context key that enables the policy for a call.
+     */
+    public static final String CONTEXT_KEY = "msazuredatalakestorage-transactional-crc64";
+
+    private static final HttpHeaderName CONTENT_CRC64 = HttpHeaderName.fromString("x-ms-content-crc64");
+
+    @Override
+    public Mono<HttpResponse> process(HttpPipelineCallContext context, HttpPipelineNextPolicy next) {
+
+        HttpRequest request = context.getHttpRequest();
+        if (!isAppend(request) || request.getBodyAsBinaryData() == null) {
+            return next.process();
+        }
+        // Chunked uploads hand each append a fresh context, for them the flag travels in the subscriber context
+        return Mono.deferContextual(subscriberContext -> {
+            if (!Boolean.TRUE.equals(context.getData(CONTEXT_KEY).orElse(null)) &&
+                    !Boolean.TRUE.equals(subscriberContext.getOrDefault(CONTEXT_KEY, null))) {
+                return next.process();
+            }
+            BinaryData body = request.getBodyAsBinaryData();
+            // A streamed block is buffered so that it can be both checksummed and sent, and retried
+            Mono<BinaryData> replayableBody =
+                    body.isReplayable() ? Mono.just(body) : body.toReplayableBinaryDataAsync();
+            return replayableBody.flatMap(content -> content.toFluxByteBuffer()
+                    .reduce(new Crc64(), Crc64::update)
+                    .flatMap(crc -> {
+                        request.setBody(content);
+                        request.setHeader(CONTENT_CRC64, crc.toBase64());
+                        return next.process();
+                    }));
+        });
+    }
+
+    @Override
+    public HttpPipelinePosition getPipelinePosition() {
+
+        return HttpPipelinePosition.PER_CALL;
+    }
+
+    private static boolean isAppend(HttpRequest request) {
+
+        String query = request.getUrl().getQuery();
+        return query != null && query.contains("action=append");
+    }
+}
@@ -0,0 +1,62 @@
+/*
+ *  Copyright (c) 2025, WSO2 LLC. (https://www.wso2.com).
+ *
+ *  WSO2 LLC. licenses this file to you under the Apache License,
+ *  Version 2.0 (the "License"); you may not use this file except
+ *  in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *  "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License.
+ */
+
+package org.wso2.carbon.connector.connection;
+
+import com.azure.core.http.HttpPipelineCallContext;
+import com.azure.core.http.HttpPipelineNextPolicy;
+import com.azure.core.http.HttpPipelinePosition;
+import com.azure.core.http.HttpResponse;
+import com.azure.core.http.policy.HttpPipelinePolicy;
+import com.azure.core.util.BinaryData;
+import reactor.core.publisher.Mono;
+
+/**
+ * Reports the time until the response headers of a request arrive to the {@link TransferTuner} that the operation
+ * put into its request or subscriber context under {@link TransferTuner#CONTEXT_KEY}. Only requests that carry no
+ * content, such as reads, creates and flushes, are measured, so that the time is not inflated by an upload.
+ * <p>
+ * The policy runs once per try, so that a retried request is measured from its last attempt.
+ */
+public class TransferLatencyPolicy implements HttpPipelinePolicy {
+
+    @Override
+    public Mono<HttpResponse> process(HttpPipelineCallContext context, HttpPipelineNextPolicy next) {
+
+        BinaryData body = context.getHttpRequest().getBodyAsBinaryData();
+        if (body != null && (body.getLength() == null || body.getLength() > 0)) {
+            return next.process();
+        }
+        return Mono.deferContextual(subscriberContext -> {
+            Object tuner = context.getData(TransferTuner.CONTEXT_KEY)
+                    .orElse(subscriberContext.getOrDefault(TransferTuner.CONTEXT_KEY, null));
+            if (!(tuner instanceof TransferTuner)) {
+                return next.process();
+            }
+            long start = System.nanoTime();
+            return next.process()
+                    .doOnNext(response -> ((TransferTuner) tuner).recordLatency(System.nanoTime() - start));
+        });
+    }
+
+    @Override
+    public HttpPipelinePosition getPipelinePosition() {
+
+        return HttpPipelinePosition.PER_RETRY;
+    }
+}
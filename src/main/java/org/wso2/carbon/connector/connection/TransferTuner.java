@@ -0,0 +1,236 @@
+/*
+ *  Copyright (c) 2025, WSO2 LLC. (https://www.wso2.com).
+ *
+ *  WSO2 LLC. licenses this file to you under the Apache License,
+ *  Version 2.0 (the "License"); you may not use this file except
+ *  in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *  "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License.
+ */
+
+package org.wso2.carbon.connector.connection;
+
+import reactor.core.publisher.Mono;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.LongSupplier;
+
+/**
+ * Chooses the block size and concurrency of the transfers of a connection from the size of the content and what
+ * earlier transfers of the connection achieved. The tuner keeps a moving average of the request latency, measured by
+ * {@link TransferLatencyPolicy}, and of the throughput reached at each concurrency level.
+ * <p>
+ * The concurrency climbs to the next level as long as it was never tried, then settles on the level with the best
+ * throughput, retrying a neighbouring level every few transfers in case conditions changed. Blocks are sized so that
+ * sending one takes several round trips, which keeps the share of per-request overhead low without buffering more
+ * than needed.
+ */
+public class TransferTuner {
+
+    /**
+     * Context key under which an operation hands its tuner to {@link TransferLatencyPolicy}.
+     */
+    public static final String CONTEXT_KEY = "msazuredatalakestorage-transfer-tuner";
+
+    static final long MEBIBYTE = 1024L * 1024L;
+    static final long DEFAULT_BLOCK_SIZE = 8 * MEBIBYTE;
+    static final long MIN_BLOCK_SIZE = MEBIBYTE;
+    static final long MAX_BLOCK_SIZE = 100 * MEBIBYTE;
+    static final int[] CONCURRENCY_LEVELS = {1, 2, 4, 8, 16, 32};
+    static final int DEFAULT_LEVEL = 2;
+
+    /**
+     * Number of round trips the transfer of a block should take, the request overhead then stays near a tenth.
+     */
+    static final int ROUND_TRIPS_PER_BLOCK = 8;
+
+    /**
+     * Transfers smaller than this are dominated by latency and do not tell anything about the throughput.
+     */
+    static final long MIN_MEASURED_TRANSFER = 4 * MEBIBYTE;
+
+    static final double SMOOTHING = 0.3;
+    static final int EXPLORATION_INTERVAL = 8;
+
+    private final double[] throughput = new double[CONCURRENCY_LEVELS.length];
+    private double latency;
+    private long tunings;
+
+    /**
+     * Chooses the settings of a transfer.
+     *
+     * @param contentLength size of the content in bytes, or a negative value if it is not known in advance.
+     * @return the block size and concurrency to use.
+     */
+    public synchronized Settings tune(long contentLength) {
+
+        int level = chooseLevel();
+        int concurrency = CONCURRENCY_LEVELS[level];
+        long blockSize = DEFAULT_BLOCK_SIZE;
+        if (latency > 0 && throughput[level] > 0) {
+            blockSize = (long) (throughput[level] / concurrency * latency * ROUND_TRIPS_PER_BLOCK);
+        }
+        blockSize = Math.min(MAX_BLOCK_SIZE, Math.max(MIN_BLOCK_SIZE, roundUpToMebibytes(blockSize)));
+        if (contentLength >= 0) {
+            // Small content is split so that every stream gets a block, and never gets more streams than blocks
+            if (contentLength < blockSize * concurrency) {
+                blockSize = Math.max(MIN_BLOCK_SIZE, roundUpToMebibytes(divideRoundingUp(contentLength, concurrency)));
+            }
+            concurrency = (int) Math.max(1, Math.min(concurrency, divideRoundingUp(contentLength, blockSize)));
+        }
+        return new Settings(blockSize, concurrency);
+    }
+
+    /**
+     * Records the time until the response of a request that carried no content arrived.
+     *
+     * @param nanos the latency in nanoseconds.
+     */
+    public synchronized void recordLatency(long nanos) {
+
+        latency = average(latency, nanos / 1e9);
+    }
+
+    /**
+     * Records a completed transfer. Only transfers large enough to keep every stream busy are taken into account.
+     *
+     * @param settings the settings the transfer used.
+     * @param bytes    number of bytes transferred.
+     * @param nanos    duration of the transfer in nanoseconds.
+     */
+    public synchronized void recordTransfer(Settings settings, long bytes, long nanos) {
+
+        if (bytes < MIN_MEASURED_TRANSFER || nanos <= 0 ||
+                divideRoundingUp(bytes, settings.blockSize) < settings.maxConcurrency) {
+            return;
+        }
+        int level = 0;
+        while (level + 1 < CONCURRENCY_LEVELS.length && CONCURRENCY_LEVELS[level + 1] <= settings.maxConcurrency) {
+            level++;
+        }
+        throughput[level] = average(throughput[level], bytes * 1e9 / nanos);
+    }
+
+    /**
+     * Times a transfer, records it once it completes and hands the tuner to the latency policy of its requests.
+     *
+     * @param transfer the transfer.
+     * @param settings the settings the transfer uses.
+     * @param bytes    returns the number of bytes transferred once the transfer completed.
+     * @return the transfer.
+     */
+    public <T> Mono<T> track(Mono<T> transfer, Settings settings, LongSupplier bytes) {
+
+        return Mono.defer(() -> {
+                    long start = System.nanoTime();
+                    return transfer.doOnSuccess(result ->
+                            recordTransfer(settings, bytes.getAsLong(), System.nanoTime() - start));
+                })
+                .contextWrite(context -> context.put(CONTEXT_KEY, this));
+    }
+
+    /**
+     * @return the average request latency in milliseconds, or 0 if it was never measured.
+     */
+    public synchronized double getLatency() {
+
+        return latency * 1000;
+    }
+
+    /**
+     * @return the best average throughput in bytes per second reached by a concurrency level, or 0 if none was
+     * measured.
+     */
+    public synchronized double getThroughput() {
+
+        double best = 0;
+        for (double levelThroughput : throughput) {
+            best = Math.max(best, levelThroughput);
+        }
+        return best;
+    }
+
+    private int chooseLevel() {
+
+        int best = -1;
+        for (int level = 0; level < throughput.length; level++) {
+            if (throughput[level] > 0 && (best < 0 || throughput[level] > throughput[best])) {
+                best = level;
+            }
+        }
+        if (best < 0) {
+            return DEFAULT_LEVEL;
+        }
+        if (best + 1 < throughput.length && throughput[best + 1] == 0) {
+            return best + 1;
+        }
+        if (++tunings % EXPLORATION_INTERVAL == 0) {
+            int neighbour = best + (ThreadLocalRandom.current().nextBoolean() ? 1 : -1);
+            if (neighbour >= 0 && neighbour < throughput.length) {
+                return neighbour;
+            }
+        }
+        return best;
+    }
+
+    private static double average(double current, double sample) {
+
+        return current == 0 ? sample : current + SMOOTHING * (sample - current);
+    }
+
+    private static long roundUpToMebibytes(long bytes) {
+
+        return divideRoundingUp(bytes, MEBIBYTE) * MEBIBYTE;
+    }
+
+    private static long divideRoundingUp(long dividend, long divisor) {
+
+        return (dividend + divisor - 1) / divisor;
+    }
+
+    /**
+     * The block size and concurrency chosen for a transfer.
+     */
+    public static final class Settings {
+
+        private final long blockSize;
+        private final int maxConcurrency;
+
+        public Settings(long blockSize, int maxConcurrency) {
+
+            this.blockSize = blockSize;
+            this.maxConcurrency = maxConcurrency;
+        }
+
+        /**
+         * Replaces the values that were set explicitly on the operation.
+         *
+         * @param blockSize      the block size in bytes, or {@code null} to keep the tuned one.
+         * @param maxConcurrency the concurrency, or {@code null} to keep the tuned one.
+         * @return the settings to use.
+         */
+        public Settings override(Long blockSize, Integer maxConcurrency) {
+
+            return new Settings(blockSize != null ? blockSize : this.blockSize,
+                    maxConcurrency != null ? maxConcurrency : this.maxConcurrency);
+        }
+
+        public long getBlockSize() {
+
+            return blockSize;
+        }
+
+        public int getMaxConcurrency() {
+
+            return maxConcurrency;
+        }
+    }
+}
@@ -19,19 +19,40 @@ package org.wso2.carbon.connector.operations;
 
 import com.azure.core.http.rest.Response;
 import com.azure.core.util.BinaryData;
+import com.azure.core.util.Context;
+import com.azure.storage.file.datalake.DataLakeFileAsyncClient;
 import com.azure.storage.file.datalake.DataLakeFileClient;
+import com.azure.storage.file.datalake.models.DataLakeRequestConditions;
 import com.azure.storage.file.datalake.models.DataLakeStorageException;
 import com.azure.storage.file.datalake.models.LeaseAction;
 import com.azure.storage.file.datalake.options.DataLakeFileAppendOptions;
+import com.azure.storage.file.datalake.options.DataLakeFileFlushOptions;
+import org.apache.commons.lang.StringEscapeUtils;
 import org.apache.synapse.MessageContext;
+import org.apache.synapse.commons.json.JsonUtil;
+import org.apache.synapse.core.axis2.Axis2MessageContext;
+import org.apache.synapse.transport.passthru.util.RelayUtils;
 import org.apache.synapse.util.InlineExpressionUtil;
 import org.jaxen.JaxenException;
 import org.json.JSONObject;
+import org.wso2.carbon.connector.connection.AppendOffsetTracker;
+import org.wso2.carbon.connector.connection.TransactionalCrc64Policy;
+import org.wso2.carbon.connector.connection.TransferTuner;
 import org.wso2.carbon.connector.core.ConnectException;
 import org.wso2.carbon.connector.util.AbstractAzureMediator;
 import org.wso2.carbon.connector.util.AzureConstants;
+import org.wso2.carbon.connector.util.ChecksumAlgorithm;
 import org.wso2.carbon.connector.util.Error;
+import org.wso2.carbon.connector.util.MappedFile;
+import org.wso2.carbon.connector.util.ParallelAppend;
+import org.wso2.carbon.connector.util.RecordBatch;
+import org.wso2.carbon.connector.util.RecordFormat;
+import reactor.core.publisher.Mono;
 
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
@@ -39,6 +60,7 @@ import java.security.MessageDigest;
 import java.time.Duration;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.TimeoutException;
 
 /**
  * Appends data to a file in Azure Data Lake Storage.
@@ -68,6 +90,29 @@ public class AppendFile extends AbstractAzureMediator {
                 getMediatorParameter(messageContext, AzureConstants.LEASE_DURATION, Integer.class, true);
         String proposedLeaseId =
                 getMediatorParameter(messageContext, AzureConstants.PROPOSED_LEASE_ID, String.class, true);
+        ChecksumAlgorithm checksumAlgorithm = getChecksumAlgorithm(messageContext);
+        Boolean bufferAppend = getMediatorParameter(messageContext, AzureConstants.BUFFER_APPEND, Boolean.class, true);
+        Boolean parallelAppend =
+                getMediatorParameter(messageContext, AzureConstants.PARALLEL_APPEND, Boolean.class, true);
+        boolean autoBlockSize = isAutoTuned(messageContext, AzureConstants.BLOCK_SIZE);
+        boolean autoConcurrency = isAutoTuned(messageContext, AzureConstants.MAX_CONCURRENCY);
+        Integer blockSize = autoBlockSize ? null :
+                getMediatorParameter(messageContext, AzureConstants.BLOCK_SIZE, Integer.class, true);
+        Integer maxConcurrency = autoConcurrency ? null :
+                getMediatorParameter(messageContext, AzureConstants.MAX_CONCURRENCY, Integer.class, true);
+        boolean records = AzureConstants.L_RECORDS.equals(inputType);
+        String preprocessedRecords = records ?
+                getMediatorParameter(messageContext, AzureConstants.RECORDS, String.class, true) : null;
+        String recordsPath = getMediatorParameter(messageContext, AzureConstants.RECORDS_PATH, String.class, true);
+        String recordDelimiter =
+                getMediatorParameter(messageContext, AzureConstants.RECORD_DELIMITER, String.class, true);
+        RecordFormat recordFormat;
+        try {
+            recordFormat = RecordFormat.fromString(
+                    getMediatorParameter(messageContext, AzureConstants.RECORD_FORMAT, String.class, true));
+        } catch (IllegalArgumentException e) {
+            throw createConnectorException(Error.INVALID_CONFIGURATION, messageContext, e);
+        }
 
         String fileSystemName =
                 InlineExpressionUtil.processInLineSynapseExpressionTemplate(messageContext, preprocessedFileSystemName);
@@ -80,45 +125,138 @@ public class AppendFile extends AbstractAzureMediator {
         String textContent = (preprocessedTextContent != null) ?
                 InlineExpressionUtil.processInLineSynapseExpressionTemplate(messageContext, preprocessedTextContent) :
                 null;
+        String recordsContent = (preprocessedRecords != null) ?
+                InlineExpressionUtil.processInLineSynapseExpressionTemplate(messageContext, preprocessedRecords) :
+                null;
 
         LeaseAction leaseActionConstant = getLeaseAction(leaseAction);
         long appendSize = 0;
+        int recordCount = 0;
         Response<?> response = null;
+        boolean appended = false;
+        Map<String, Object> attributes = new HashMap<>();
+
+        if (Boolean.TRUE.equals(bufferAppend)) {
+            if (textContent == null || localFilePath != null) {
+                throw createConnectorException(Error.INVALID_CONFIGURATION, messageContext,
+                        new IllegalArgumentException("Only text content can be buffered"));
+            }
+            if (leaseId != null || leaseActionConstant != null || leaseDuration != null || proposedLeaseId != null) {
+                throw createConnectorException(Error.INVALID_CONFIGURATION, messageContext,
+                        new IllegalArgumentException("A buffered append cannot use a lease, since it is written "
+                                + "together with the appends of other messages"));
+            }
+            bufferAppend(messageContext, responseVariable, overwriteBody, connectionName, fileSystemName,
+                    filePathToAppend, textContent);
+            return;
+        }
+        if (Boolean.TRUE.equals(parallelAppend) && (localFilePath == null || textContent != null)) {
+            throw createConnectorException(Error.INVALID_CONFIGURATION, messageContext,
+                    new IllegalArgumentException("Only a local file can be appended in parallel"));
+        }
 
         try {
 
             DataLakeFileClient dataLakeFileClient =
                     getDataLakeFileClient(connectionName, fileSystemName, filePathToAppend);
-            long fileSize = dataLakeFileClient.getProperties().getFileSize();
-            if (textContent != null && localFilePath == null) {
-                response = dataLakeFileClient.appendWithResponse(BinaryData.fromString(textContent), fileSize,
-                        new DataLakeFileAppendOptions().setFlush(flush)
-                                .setContentHash(MessageDigest.getInstance("MD5").digest(textContent.getBytes()))
-                                .setLeaseId(leaseId).setLeaseAction(leaseActionConstant)
-                                .setLeaseDuration(leaseDuration),
-                        timeout != null ? Duration.ofSeconds(timeout.longValue()) : null, null);
-                appendSize = textContent.length();
+            // Whatever the outcome, the cached hash of the file may no longer hold
+            getRemoteHashCache(connectionName).remove(dataLakeFileClient.getFileUrl());
+            // The CRC64 is added to the append request by the pipeline
+            Context context = checksumAlgorithm == ChecksumAlgorithm.CRC64 ?
+                    new Context(TransactionalCrc64Policy.CONTEXT_KEY, true) : null;
+            BinaryData content = null;
+            byte[] contentMd5 = null;
+            if (Boolean.TRUE.equals(parallelAppend)) {
+                Path file = Paths.get(localFilePath);
+                appendSize = Files.size(file);
+                Long chunkSize = blockSize != null ? blockSize * 1024L * 1024L : null;
+                TransferTuner transferTuner = null;
+                TransferTuner.Settings transferSettings = null;
+                if (autoBlockSize || autoConcurrency) {
+                    transferTuner = getTransferTuner(connectionName);
+                    transferSettings = transferTuner.tune(appendSize).override(chunkSize, maxConcurrency);
+                    chunkSize = transferSettings.getBlockSize();
+                    maxConcurrency = transferSettings.getMaxConcurrency();
+                    attributes.putAll(getTransferAttributes(transferSettings));
+                }
+                AppendOffsetTracker.Range range = reserveRange(getAppendOffsetTracker(connectionName),
+                        dataLakeFileClient, leaseId, appendSize, Boolean.TRUE.equals(flush), timeout);
+                Mono<Long> append = new ParallelAppend(
+                        getDataLakeFileAsyncClient(connectionName, fileSystemName, filePathToAppend), file,
+                        range.getPosition(), chunkSize, maxConcurrency, checksumAlgorithm == ChecksumAlgorithm.MD5,
+                        leaseId).append();
+                if (transferTuner != null) {
+                    long length = appendSize;
+                    append = transferTuner.track(append, transferSettings, () -> length);
+                }
+                if (checksumAlgorithm == ChecksumAlgorithm.CRC64) {
+                    // Every chunk is appended with its CRC64, the pipeline picks the flag up from the context
+                    append = append.contextWrite(subscriberContext ->
+                            subscriberContext.put(TransactionalCrc64Policy.CONTEXT_KEY, true));
+                }
+                response = appendInParallel(append, dataLakeFileClient, range, Boolean.TRUE.equals(flush), leaseId,
+                        leaseActionConstant, leaseDuration, proposedLeaseId, timeout);
+                appended = response == null || response.getStatusCode() == 200;
+            } else if (records) {
+                RecordBatch batch = readRecords(messageContext, recordsContent, recordsPath, recordFormat,
+                        recordDelimiter, checksumAlgorithm == ChecksumAlgorithm.MD5);
+                recordCount = batch.getRecordCount();
+                appendSize = batch.getLength();
+                if (recordCount > 0) {
+                    content = batch.toBinaryData();
+                    contentMd5 = batch.md5();
+                } else {
+                    // There is nothing to append, the file is left as it is
+                    appended = true;
+                }
+            } else if (textContent != null && localFilePath == null) {
+                byte[] bytes = textContent.getBytes(StandardCharsets.UTF_8);
+                content = BinaryData.fromBytes(bytes);
+                contentMd5 = checksumAlgorithm == ChecksumAlgorithm.MD5 ?
+                        MessageDigest.getInstance("MD5").digest(bytes) : null;
+                appendSize = bytes.length;
             } else if (localFilePath != null && textContent == null) {
-                Path filePath = Paths.get(localFilePath);
-                byte[] fileContent = Files.readAllBytes(filePath);
-                response = dataLakeFileClient.appendWithResponse(BinaryData.fromFile(filePath), fileSize,
-                        new DataLakeFileAppendOptions().setFlush(flush)
-                                .setContentHash(MessageDigest.getInstance("MD5").digest(fileContent))
-                                .setLeaseId(leaseId).setLeaseAction(leaseActionConstant).setLeaseDuration(leaseDuration)
-                                .setProposedLeaseId(proposedLeaseId),
-                        timeout != null ? Duration.ofSeconds(timeout.longValue()) : null, null);
-                appendSize = Files.size(filePath);
+                // The mapping serves both the digest and the request body, so the file is read from disk once
+                MappedFile mappedFile = MappedFile.map(Paths.get(localFilePath));
+                content = mappedFile.toBinaryData();
+                contentMd5 = checksumAlgorithm == ChecksumAlgorithm.MD5 ? mappedFile.md5() : null;
+                appendSize = mappedFile.getLength();
             }
 
-            Map<String, Object> attributes = new HashMap<>();
+            if (content != null) {
+                AppendOffsetTracker offsetTracker = getAppendOffsetTracker(connectionName);
+                boolean resynced = false;
+                while (response == null) {
+                    AppendOffsetTracker.Range range = reserveRange(offsetTracker, dataLakeFileClient, leaseId,
+                            appendSize, Boolean.TRUE.equals(flush), timeout);
+                    try {
+                        response = appendRange(dataLakeFileClient, range, content, contentMd5,
+                                Boolean.TRUE.equals(flush), leaseId, leaseActionConstant, leaseDuration,
+                                proposedLeaseId, timeout, context);
+                    } catch (RuntimeException | InterruptedException | TimeoutException e) {
+                        // Someone else wrote to the file, append once more at its actual length
+                        if (!range.failed(e) || resynced) {
+                            throw e;
+                        }
+                        resynced = true;
+                    }
+                }
+                appended = response.getStatusCode() == 202;
+            }
 
             attributes.put(AzureConstants.APPENDSIZE, appendSize);
+            if (records) {
+                attributes.put(AzureConstants.RECORD_COUNT, recordCount);
+            }
 
-            if (response != null && response.getStatusCode() == 202) {
+            if (appended) {
                 JSONObject responseObject = new JSONObject();
                 responseObject.put(AzureConstants.STATUS, true);
                 responseObject.put(AzureConstants.MESSAGE, "Successfully appended");
                 responseObject.put(AzureConstants.APPENDSIZE, appendSize);
+                if (records) {
+                    responseObject.put(AzureConstants.RECORD_COUNT, recordCount);
+                }
                 handleConnectorResponse(messageContext, responseVariable, overwriteBody, responseObject, null,
                         attributes);
             }
@@ -131,10 +269,174 @@ public class AppendFile extends AbstractAzureMediator {
             handleConnectorException(Error.DATA_LAKE_STORAGE_GEN2_ERROR, messageContext, e);
         } catch (ConnectException e) {
             handleConnectorException(Error.CONNECTION_ERROR, messageContext, e);
+        } catch (IllegalArgumentException e) {
+            handleConnectorException(Error.INVALID_CONFIGURATION, messageContext, e);
+        } catch (TimeoutException e) {
+            handleConnectorException(Error.TIMEOUT_ERROR, messageContext, e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            handleConnectorException(Error.GENERAL_ERROR, messageContext, e);
         } catch (Exception e) {
             handleConnectorException(Error.GENERAL_ERROR, messageContext, e);
         }
 
     }
 
+    /**
+     * Serializes the records of a JSON array, read from the records parameter if set and from the JSON payload of
+     * the message otherwise. The array is streamed from either source without building a string of the records.
+     */
+    private static RecordBatch readRecords(MessageContext messageContext, String recordsContent, String recordsPath,
+                                           RecordFormat recordFormat, String recordDelimiter, boolean md5)
+            throws Exception {
+
+        String delimiter = recordDelimiter != null ? StringEscapeUtils.unescapeJava(recordDelimiter) : "\n";
+        if (recordsContent != null) {
+            return RecordBatch.read(new StringReader(recordsContent), recordsPath, recordFormat, delimiter, md5);
+        }
+        org.apache.axis2.context.MessageContext axis2MessageContext =
+                ((Axis2MessageContext) messageContext).getAxis2MessageContext();
+        RelayUtils.buildMessage(axis2MessageContext);
+        if (!JsonUtil.hasAJsonPayload(axis2MessageContext)) {
+            throw new IllegalArgumentException("The records must be a JSON array, either in the records parameter "
+                    + "or in the message payload");
+        }
+        // The payload stream belongs to the message, so it is left open for the rest of the mediation
+        Reader reader = new InputStreamReader(JsonUtil.getJsonPayload(axis2MessageContext), StandardCharsets.UTF_8);
+        return RecordBatch.read(reader, recordsPath, recordFormat, delimiter, md5);
+    }
+
+    /**
+     * Reserves the range of an append, fetching the length of the file only if the connection does not track it or,
+     * for an append the service does not check the position of, to check that no one else wrote to the file.
+     */
+    private static AppendOffsetTracker.Range reserveRange(AppendOffsetTracker offsetTracker,
+                                                          DataLakeFileClient dataLakeFileClient, String leaseId,
+                                                          long length, boolean flush, Integer timeout)
+            throws InterruptedException, TimeoutException {
+
+        return offsetTracker.reserve(dataLakeFileClient.getFileUrl(), leaseId, length, !flush && leaseId == null,
+                () -> dataLakeFileClient.getProperties().getFileSize(), getWaitTimeout(timeout));
+    }
+
+    /**
+     * Appends content at a reserved range of a file and, if requested, flushes the file at the end of the range once
+     * every append before it is appended. The append flushes the file itself when no other append to the file is in
+     * flight; otherwise the file is flushed separately, retaining the data appended after the range.
+     *
+     * @return the response of the append.
+     */
+    static Response<?> appendRange(DataLakeFileClient dataLakeFileClient, AppendOffsetTracker.Range range,
+                                   BinaryData content, byte[] contentMd5, boolean flush, String leaseId,
+                                   LeaseAction leaseAction, Integer leaseDuration, String proposedLeaseId,
+                                   Integer timeout, Context context) throws InterruptedException, TimeoutException {
+
+        boolean flushWithAppend = range.beginAppend(flush, getWaitTimeout(timeout));
+        DataLakeFileAppendOptions options = new DataLakeFileAppendOptions().setFlush(flushWithAppend)
+                .setContentHash(contentMd5).setLeaseId(leaseId);
+        if (!flush || flushWithAppend) {
+            // A separate flush takes the lease action, which may release the lease the append needs
+            options.setLeaseAction(leaseAction).setLeaseDuration(leaseDuration).setProposedLeaseId(proposedLeaseId);
+        }
+        Response<?> response = dataLakeFileClient.appendWithResponse(content, range.getPosition(), options,
+                timeout != null ? Duration.ofSeconds(timeout.longValue()) : null, context);
+        if (flushWithAppend) {
+            range.committed();
+        } else {
+            range.appended();
+            if (flush) {
+                flushRange(dataLakeFileClient, range, leaseId, leaseAction, leaseDuration, proposedLeaseId, timeout);
+            }
+        }
+        return response;
+    }
+
+    /**
+     * Appends the chunks of a local file in parallel and commits them with a single flush if requested.
+     *
+     * @return the response of the flush, or {@code null} if the file is not flushed.
+     */
+    private static Response<?> appendInParallel(Mono<Long> append, DataLakeFileClient dataLakeFileClient,
+                                                AppendOffsetTracker.Range range, boolean flush, String leaseId,
+                                                LeaseAction leaseAction, Integer leaseDuration,
+                                                String proposedLeaseId, Integer timeout)
+            throws InterruptedException, TimeoutException {
+
+        try {
+            range.beginAppend(false, getWaitTimeout(timeout));
+            withTimeout(append, timeout).block();
+            range.appended();
+            return flush ? flushRange(dataLakeFileClient, range, leaseId, leaseAction, leaseDuration,
+                    proposedLeaseId, timeout) : null;
+        } catch (RuntimeException | InterruptedException | TimeoutException e) {
+            // The chunks of the range may be partly appended, the next append starts from the actual length
+            range.failed(e);
+            throw e;
+        }
+    }
+
+    /**
+     * Flushes the file at the end of an appended range once every append before it is appended.
+     *
+     * @return the response of the flush, or {@code null} if a later range was flushed meanwhile.
+     */
+    private static Response<?> flushRange(DataLakeFileClient dataLakeFileClient, AppendOffsetTracker.Range range,
+                                          String leaseId, LeaseAction leaseAction, Integer leaseDuration,
+                                          String proposedLeaseId, Integer timeout)
+            throws InterruptedException, TimeoutException {
+
+        if (!range.beginFlush(getWaitTimeout(timeout))) {
+            return null;
+        }
+        Response<?> response = dataLakeFileClient.flushWithResponse(range.getEnd(), new DataLakeFileFlushOptions()
+                        .setUncommittedDataRetained(true)
+                        .setRequestConditions(new DataLakeRequestConditions().setLeaseId(leaseId))
+                        .setLeaseAction(leaseAction).setLeaseDuration(leaseDuration)
+                        .setProposedLeaseId(proposedLeaseId),
+                timeout != null ? Duration.ofSeconds(timeout.longValue()) : null, null);
+        range.committed();
+        return response;
+    }
+
+    private static Duration getWaitTimeout(Integer timeout) {
+
+        return timeout != null ? Duration.ofSeconds(timeout.longValue()) : AppendOffsetTracker.DEFAULT_WAIT_TIMEOUT;
+    }
+
+    /**
+     * Hands the text content to the append buffer of the connection and reports it as buffered.
+     */
+    private void bufferAppend(MessageContext messageContext, String responseVariable, Boolean overwriteBody,
+                              String connectionName, String fileSystemName, String filePathToAppend,
+                              String textContent) {
+
+        try {
+            byte[] content = textContent.getBytes(StandardCharsets.UTF_8);
+            DataLakeFileAsyncClient dataLakeFileAsyncClient =
+                    getDataLakeFileAsyncClient(connectionName, fileSystemName, filePathToAppend);
+            getRemoteHashCache(connectionName).remove(dataLakeFileAsyncClient.getFileUrl());
+            getAppendBuffer(connectionName).append(dataLakeFileAsyncClient, content);
+
+            Map<String, Object> attributes = new HashMap<>();
+            attributes.put(AzureConstants.APPENDSIZE, content.length);
+            JSONObject responseObject = new JSONObject();
+            responseObject.put(AzureConstants.STATUS, true);
+            responseObject.put(AzureConstants.MESSAGE, "Successfully buffered the append");
+            responseObject.put(AzureConstants.APPENDSIZE, content.length);
+            handleConnectorResponse(messageContext, responseVariable, overwriteBody, responseObject, null,
+                    attributes);
+        } catch (TimeoutException e) {
+            handleConnectorException(Error.TIMEOUT_ERROR, messageContext, e);
+        } catch (ConnectException e) {
+            handleConnectorException(Error.CONNECTION_ERROR, messageContext, e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            handleConnectorException(Error.GENERAL_ERROR, messageContext, e);
+        } catch (IllegalArgumentException e) {
+            handleConnectorException(Error.INVALID_CONFIGURATION, messageContext, e);
+        } catch (Exception e) {
+            handleConnectorException(Error.GENERAL_ERROR, messageContext, e);
+        }
+    }
+
 }
@@ -18,11 +18,13 @@
 
 package org.wso2.carbon.connector.operations;
 
+import org.apache.commons.lang.StringUtils;
 import org.apache.synapse.ManagedLifecycle;
 import org.apache.synapse.MessageContext;
 import org.apache.synapse.SynapseConstants;
 import org.apache.synapse.SynapseException;
 import org.apache.synapse.core.SynapseEnvironment;
+import org.wso2.carbon.connector.connection.AppendBuffer;
 import org.wso2.carbon.connector.connection.AzureStorageConnectionHandler;
 import org.wso2.carbon.connector.connection.ConnectionConfiguration;
 import org.wso2.carbon.connector.core.AbstractConnector;
@@ -45,6 +47,8 @@ public class AzureConfig extends AbstractConnector implements ManagedLifecycle {
     @Override
     public void destroy() {
 
+        // Write the buffered appends of all connections in parallel before they are closed one by one
+        AppendBuffer.flushAll(AppendBuffer.CLOSE_TIMEOUT);
         ConnectionHandler.getConnectionHandler().
                 shutdownConnections(AzureConstants.CONNECTOR_NAME);
     }
@@ -68,6 +72,7 @@ public class AzureConfig extends AbstractConnector implements ManagedLifecycle {
                 AzureStorageConnectionHandler azureStorageConnectionHandler =
                         new AzureStorageConnectionHandler(configuration);
                 handler.createConnection(AzureConstants.CONNECTOR_NAME, connectionName, azureStorageConnectionHandler);
+                azureStorageConnectionHandler.warmUp();
             }
         } catch (ConnectException e) {
             this.log.error(Error.CONNECTION_ERROR.getErrorMessage(), e);
@@ -115,6 +120,93 @@ public class AzureConfig extends AbstractConnector implements ManagedLifecycle {
         connectionConfig.setClientSecret(clientSecret);
         connectionConfig.setTenantID(tenantId);
         connectionConfig.setSasToken(sasToken);
+        connectionConfig.setMaxConnections(getIntegerParameter(msgContext, AzureConstants.MAX_CONNECTIONS));
+        connectionConfig.setMaxPendingAcquires(getIntegerParameter(msgContext, AzureConstants.MAX_PENDING_ACQUIRES));
+        connectionConfig.setPendingAcquireTimeout(
+                getIntegerParameter(msgContext, AzureConstants.PENDING_ACQUIRE_TIMEOUT));
+        connectionConfig.setMaxIdleTime(getIntegerParameter(msgContext, AzureConstants.MAX_IDLE_TIME));
+        connectionConfig.setMaxLifeTime(getIntegerParameter(msgContext, AzureConstants.MAX_LIFE_TIME));
+        connectionConfig.setEvictionInterval(getIntegerParameter(msgContext, AzureConstants.EVICTION_INTERVAL));
+        connectionConfig.setConnectTimeout(getIntegerParameter(msgContext, AzureConstants.CONNECT_TIMEOUT));
+        connectionConfig.setResponseTimeout(getIntegerParameter(msgContext, AzureConstants.RESPONSE_TIMEOUT));
+        connectionConfig.setEventLoopThreads(getIntegerParameter(msgContext, AzureConstants.EVENT_LOOP_THREADS));
+        connectionConfig.setWarmUp(Boolean.parseBoolean((String) ConnectorUtils.
+                lookupTemplateParamater(msgContext, AzureConstants.WARM_UP)));
+        connectionConfig.setWarmUpConnections(getIntegerParameter(msgContext, AzureConstants.WARM_UP_CONNECTIONS));
+        connectionConfig.setMaxRetries(getIntegerParameter(msgContext, AzureConstants.MAX_RETRIES, 0));
+        connectionConfig.setRetryDelay(getIntegerParameter(msgContext, AzureConstants.RETRY_DELAY));
+        connectionConfig.setMaxRetryDelay(getIntegerParameter(msgContext, AzureConstants.MAX_RETRY_DELAY));
+        connectionConfig.setRetryJitter(getIntegerParameter(msgContext, AzureConstants.RETRY_JITTER, 0));
+        if (connectionConfig.getRetryJitter() != null && connectionConfig.getRetryJitter() > 100) {
+            throw new ConnectException("Parameter '" + AzureConstants.RETRY_JITTER + "' must be between 0 and 100.");
+        }
+        connectionConfig.setTryTimeout(getIntegerParameter(msgContext, AzureConstants.TRY_TIMEOUT));
+        connectionConfig.setCircuitBreakerThreshold(
+                getIntegerParameter(msgContext, AzureConstants.CIRCUIT_BREAKER_THRESHOLD));
+        connectionConfig.setCircuitBreakerOpenTime(
+                getIntegerParameter(msgContext, AzureConstants.CIRCUIT_BREAKER_OPEN_TIME));
+        connectionConfig.setAdaptiveConcurrency(Boolean.parseBoolean((String) ConnectorUtils.
+                lookupTemplateParamater(msgContext, AzureConstants.ADAPTIVE_CONCURRENCY)));
+        connectionConfig.setInitialConcurrencyLimit(
+                getIntegerParameter(msgContext, AzureConstants.INITIAL_CONCURRENCY_LIMIT));
+        connectionConfig.setMaxConcurrencyLimit(getIntegerParameter(msgContext, AzureConstants.MAX_CONCURRENCY_LIMIT));
+        connectionConfig.setConcurrencyLatencyThreshold(
+                getIntegerParameter(msgContext, AzureConstants.CONCURRENCY_LATENCY_THRESHOLD));
+        connectionConfig.setConcurrencyQueueTimeout(
+                getIntegerParameter(msgContext, AzureConstants.CONCURRENCY_QUEUE_TIMEOUT));
+        connectionConfig.setOffloadExecution(Boolean.parseBoolean((String) ConnectorUtils.
+                lookupTemplateParamater(msgContext, AzureConstants.OFFLOAD_EXECUTION)));
+        connectionConfig.setMaxOffloadedOperations(
+                getIntegerParameter(msgContext, AzureConstants.MAX_OFFLOADED_OPERATIONS));
+        connectionConfig.setOffloadTimeout(getIntegerParameter(msgContext, AzureConstants.OFFLOAD_TIMEOUT));
+        connectionConfig.setPathClientCacheSize(
+                getIntegerParameter(msgContext, AzureConstants.PATH_CLIENT_CACHE_SIZE, 0));
+        connectionConfig.setAppendBufferSize(getIntegerParameter(msgContext, AzureConstants.APPEND_BUFFER_SIZE));
+        connectionConfig.setAppendBufferLingerTime(
+                getIntegerParameter(msgContext, AzureConstants.APPEND_BUFFER_LINGER_TIME));
+        connectionConfig.setAppendBufferMemory(getIntegerParameter(msgContext, AzureConstants.APPEND_BUFFER_MEMORY));
         return connectionConfig;
     }
+
+    /**
+     * Get an optional positive integer parameter of the init template
+     *
+     * @param msgContext    Message context
+     * @param parameterName Name of the parameter
+     * @return Value of the parameter, or null if it is not set
+     * @throws ConnectException If the value is not a positive integer
+     */
+    private Integer getIntegerParameter(MessageContext msgContext, String parameterName) throws ConnectException {
+
+        return getIntegerParameter(msgContext, parameterName, 1);
+    }
+
+    /**
+     * Get an optional integer parameter of the init template that must not be less than the given minimum
+     *
+     * @param msgContext    Message context
+     * @param parameterName Name of the parameter
+     * @param minValue      Smallest accepted value
+     * @return Value of the parameter, or null if it is not set
+     * @throws ConnectException If the value is not an integer or is less than the minimum
+     */
+    private Integer getIntegerParameter(MessageContext msgContext, String parameterName, int minValue)
+            throws ConnectException {
+
+        String message = minValue == 1 ? "Parameter '" + parameterName + "' must be a positive integer." :
+                "Parameter '" + parameterName + "' must be an integer not less than " + minValue + ".";
+        String value = (String) ConnectorUtils.lookupTemplateParamater(msgContext, parameterName);
+        if (StringUtils.isBlank(value)) {
+            return null;
+        }
+        try {
+            int parsedValue = Integer.parseInt(value.trim());
+            if (parsedValue < minValue) {
+                throw new ConnectException(message);
+            }
+            return parsedValue;
+        } catch (NumberFormatException e) {
+            throw new ConnectException(e, message);
+        }
+    }
 }
@@ -70,6 +70,8 @@ public class DeleteFileSystem extends AbstractAzureMediator {
                     azureStorageConnectionHandler.getDataLakeServiceClient().getFileSystemClient(fileSystemName);
             DataLakeRequestConditions requestConditions = getRequestConditions(leaseId, ifMatch,
                     ifModifiedSince, ifNoneMatch, ifUnmodifiedSince);
+            // Whatever the outcome, the cached hashes of the files of the file system may no longer hold
+            azureStorageConnectionHandler.getRemoteHashCache().removeTree(dataLakeFileSystemClient.getFileSystemUrl());
             Response<?> response = dataLakeFileSystemClient.deleteIfExistsWithResponse(
                     new DataLakePathDeleteOptions().setRequestConditions(requestConditions).setIsRecursive(true),
                     timeout != null ? Duration.ofSeconds(timeout.longValue()) : null, null);
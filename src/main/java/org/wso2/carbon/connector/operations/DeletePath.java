@@ -69,6 +69,8 @@ public class DeletePath extends AbstractAzureMediator {
                     ifModifiedSince, ifNoneMatch, ifUnmodifiedSince);
             DataLakeFileClient dataLakeFileClient =
                     getDataLakeFileClient(connectionName, fileSystemName, directoryName);
+            // Whatever the outcome, the cached hashes of the path may no longer hold
+            getRemoteHashCache(connectionName).removeTree(dataLakeFileClient.getFileUrl());
             Response<?> response = dataLakeFileClient.deleteIfExistsWithResponse(
                     new DataLakePathDeleteOptions().setIsRecursive(recursive).setRequestConditions(requestConditions),
                     timeout != null ? Duration.ofSeconds(timeout.longValue()) : null, null);
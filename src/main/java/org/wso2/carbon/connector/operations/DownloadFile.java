@@ -19,7 +19,10 @@
 package org.wso2.carbon.connector.operations;
 
 import com.azure.core.http.rest.Response;
+import com.azure.core.util.Context;
+import com.azure.core.util.FluxUtil;
 import com.azure.storage.common.ParallelTransferOptions;
+import com.azure.storage.file.datalake.DataLakeFileAsyncClient;
 import com.azure.storage.file.datalake.DataLakeFileClient;
 import com.azure.storage.file.datalake.models.DataLakeRequestConditions;
 import com.azure.storage.file.datalake.models.DataLakeStorageException;
@@ -30,12 +33,20 @@ import org.apache.synapse.MessageContext;
 import org.apache.synapse.util.InlineExpressionUtil;
 import org.jaxen.JaxenException;
 import org.json.JSONObject;
+import org.wso2.carbon.connector.connection.TransferTuner;
 import org.wso2.carbon.connector.core.ConnectException;
 import org.wso2.carbon.connector.util.AbstractAzureMediator;
 import org.wso2.carbon.connector.util.AzureConstants;
+import org.wso2.carbon.connector.util.Compression;
 import org.wso2.carbon.connector.util.Error;
 
+import java.io.IOException;
 import java.io.UncheckedIOException;
+import java.nio.channels.AsynchronousFileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
 import java.time.Duration;
 
 /**
@@ -58,9 +69,12 @@ public class DownloadFile extends AbstractAzureMediator {
         String ifNoneMatch = getMediatorParameter(messageContext, AzureConstants.IF_NONE_MATCH, String.class, true);
         String ifModifiedSince = getMediatorParameter(messageContext, AzureConstants.IF_MODIFIED_SINCE,
                 String.class, true);
-        Integer blockSize = getMediatorParameter(messageContext, AzureConstants.BLOCK_SIZE, Integer.class, true);
-        Integer maxConcurrency = getMediatorParameter(messageContext, AzureConstants.MAX_CONCURRENCY, Integer.class,
-                true);
+        boolean autoBlockSize = isAutoTuned(messageContext, AzureConstants.BLOCK_SIZE);
+        boolean autoConcurrency = isAutoTuned(messageContext, AzureConstants.MAX_CONCURRENCY);
+        Integer blockSize = autoBlockSize ? null :
+                getMediatorParameter(messageContext, AzureConstants.BLOCK_SIZE, Integer.class, true);
+        Integer maxConcurrency = autoConcurrency ? null :
+                getMediatorParameter(messageContext, AzureConstants.MAX_CONCURRENCY, Integer.class, true);
         Integer maxRetryRequests =
                 getMediatorParameter(messageContext, AzureConstants.MAX_RETRY_REQUESTS, Integer.class,
                         true);
@@ -74,6 +88,8 @@ public class DownloadFile extends AbstractAzureMediator {
         Integer count = getMediatorParameter(messageContext, AzureConstants.COUNT, Integer.class, true);
         Boolean rangeGetContentMd5 = getMediatorParameter(messageContext, AzureConstants.RANGE_GET_CONTENT_MD5,
                 Boolean.class, true);
+        boolean decompress = Boolean.TRUE.equals(
+                getMediatorParameter(messageContext, AzureConstants.DECOMPRESS, Boolean.class, true));
 
         String fileSystemName =
                 InlineExpressionUtil.processInLineSynapseExpressionTemplate(messageContext, preprocessedFileSystemName);
@@ -84,16 +100,42 @@ public class DownloadFile extends AbstractAzureMediator {
 
         Long blockSizeL = blockSize != null ? blockSize.longValue() * 1024L * 1024L : null;
 
+        if (decompress && offset != null) {
+            throw createConnectorException(Error.INVALID_CONFIGURATION, messageContext, new IllegalArgumentException(
+                    "A range of compressed content cannot be decompressed, download the whole file to decompress it"));
+        }
+
         try {
 
             DataLakeFileClient dataLakeFileClient = getDataLakeFileClient(connectionName, fileSystemName, filePath);
-            ParallelTransferOptions parallelTransferOptions = new ParallelTransferOptions()
-                    .setBlockSizeLong(blockSizeL)
-                    .setMaxConcurrency(maxConcurrency);
 
             DataLakeRequestConditions requestConditions = getRequestConditions(leaseId, ifMatch,
                     ifModifiedSince, ifNoneMatch, ifUnmodifiedSince);
 
+            TransferTuner transferTuner = null;
+            TransferTuner.Settings transferSettings = null;
+            Context context = null;
+            long contentLength = -1;
+            if ((autoBlockSize || autoConcurrency) && !decompress) {
+                transferTuner = getTransferTuner(connectionName);
+                context = new Context(TransferTuner.CONTEXT_KEY, transferTuner);
+                if (count != null) {
+                    contentLength = count;
+                } else {
+                    // The size is needed to tune the download, the round trip also refreshes the latency estimate
+                    long fileSize = dataLakeFileClient.getPropertiesWithResponse(requestConditions,
+                            timeout != null ? Duration.ofSeconds(timeout.longValue()) : null, context)
+                            .getValue().getFileSize();
+                    contentLength = Math.max(0, fileSize - (offset != null ? offset : 0));
+                }
+                transferSettings = transferTuner.tune(contentLength).override(blockSizeL, maxConcurrency);
+                blockSizeL = transferSettings.getBlockSize();
+                maxConcurrency = transferSettings.getMaxConcurrency();
+            }
+            ParallelTransferOptions parallelTransferOptions = new ParallelTransferOptions()
+                    .setBlockSizeLong(blockSizeL)
+                    .setMaxConcurrency(maxConcurrency);
+
             FileRange fileRange;
             if (offset == null) {
                 fileRange = null;
@@ -104,13 +146,17 @@ public class DownloadFile extends AbstractAzureMediator {
             }
 
             Response<?> response;
+            long start = System.nanoTime();
 
-            if (maxRetryRequests == null) {
+            if (decompress) {
+                response = downloadDecompressed(getDataLakeFileAsyncClient(connectionName, fileSystemName, filePath),
+                        Paths.get(downloadFilePath), maxRetryRequests, requestConditions, timeout);
+            } else if (maxRetryRequests == null) {
                 response = dataLakeFileClient.readToFileWithResponse(
                         new ReadToFileOptions(downloadFilePath).setRangeGetContentMd5(rangeGetContentMd5)
                                 .setRange(fileRange).setParallelTransferOptions(parallelTransferOptions)
                                 .setDataLakeRequestConditions(requestConditions),
-                        timeout != null ? Duration.ofSeconds(timeout.longValue()) : null, null)
+                        timeout != null ? Duration.ofSeconds(timeout.longValue()) : null, context)
                 ;
             } else {
                 response = dataLakeFileClient.readToFileWithResponse(
@@ -119,25 +165,29 @@ public class DownloadFile extends AbstractAzureMediator {
                                 .setDownloadRetryOptions(
                                         new DownloadRetryOptions().setMaxRetryRequests(maxRetryRequests))
                                 .setDataLakeRequestConditions(requestConditions),
-                        timeout != null ? Duration.ofSeconds(timeout.longValue()) : null, null);
+                        timeout != null ? Duration.ofSeconds(timeout.longValue()) : null, context);
+            }
+            if (transferTuner != null) {
+                transferTuner.recordTransfer(transferSettings, contentLength, System.nanoTime() - start);
             }
 
-            if (response.getStatusCode() == 206) {
+            if (response.getStatusCode() == 206 || response.getStatusCode() == 200) {
                 JSONObject responseObject = new JSONObject();
                 responseObject.put(AzureConstants.STATUS, true);
                 responseObject.put(AzureConstants.MESSAGE, "Successfully downloaded the file");
-                handleConnectorResponse(messageContext, responseVariable, overwriteBody, responseObject, null, null);
+                handleConnectorResponse(messageContext, responseVariable, overwriteBody, responseObject, null,
+                        getTransferAttributes(transferSettings));
             }
 
             // No 'else' block is needed because if the download file operation fails,
             // the SDK throws an exception. We only handle the success case explicitly
-            // (status code 206) and let exceptions propagate for error handling.
+            // (status code 206, or 200 for a decompressed download) and let exceptions propagate for error handling.
 
         } catch (ConnectException e) {
             handleConnectorException(Error.CONNECTION_ERROR, messageContext, e);
         } catch (DataLakeStorageException e) {
             handleConnectorException(Error.DATA_LAKE_STORAGE_GEN2_ERROR, messageContext, e);
-        } catch (UncheckedIOException e) {
+        } catch (UncheckedIOException | IOException e) {
             handleConnectorException(Error.FILE_IO_ERROR, messageContext, e);
         } catch (Exception e) {
             handleConnectorException(Error.GENERAL_ERROR, messageContext, e);
@@ -145,4 +195,33 @@ public class DownloadFile extends AbstractAzureMediator {
 
     }
 
+    /**
+     * Downloads the whole file as a single stream and inflates it on the fly according to its Content-Encoding.
+     * Decompressed content can only be written in order, so the ranges of a parallel download do not apply. The
+     * target is removed if the download fails.
+     */
+    private static Response<?> downloadDecompressed(DataLakeFileAsyncClient dataLakeFileAsyncClient, Path target,
+                                                    Integer maxRetryRequests,
+                                                    DataLakeRequestConditions requestConditions, Integer timeout)
+            throws IOException {
+
+        boolean completed = false;
+        try (AsynchronousFileChannel channel = AsynchronousFileChannel.open(target, StandardOpenOption.CREATE_NEW,
+                StandardOpenOption.WRITE)) {
+            Response<?> response = withTimeout(dataLakeFileAsyncClient.readWithResponse(null,
+                    maxRetryRequests != null ? new DownloadRetryOptions().setMaxRetryRequests(maxRetryRequests) : null,
+                    requestConditions, false)
+                    .flatMap(read -> FluxUtil.writeFile(
+                            Compression.fromContentEncoding(read.getDeserializedHeaders().getContentEncoding())
+                                    .decompress(read.getValue()), channel)
+                            .thenReturn(read)), timeout)
+                    .block();
+            completed = true;
+            return response;
+        } finally {
+            if (!completed) {
+                Files.deleteIfExists(target);
+            }
+        }
+    }
 }
@@ -27,12 +27,14 @@ import org.apache.synapse.MessageContext;
 import org.apache.synapse.util.InlineExpressionUtil;
 import org.jaxen.JaxenException;
 import org.json.JSONObject;
+import org.wso2.carbon.connector.connection.AppendOffsetTracker;
 import org.wso2.carbon.connector.core.ConnectException;
 import org.wso2.carbon.connector.util.AbstractAzureMediator;
 import org.wso2.carbon.connector.util.AzureConstants;
 import org.wso2.carbon.connector.util.Error;
 
 import java.time.Duration;
+import java.util.concurrent.TimeoutException;
 
 /**
  * Flushes the specified file in Azure Data Lake.
@@ -83,24 +85,56 @@ public class FlushFile extends AbstractAzureMediator {
         try {
             DataLakeFileClient dataLakeFileClient =
                     getDataLakeFileClient(connectionName, fileSystemName, filePathToFlush);
-            long fileSizeBefore = dataLakeFileClient.getProperties().getFileSize();
+            AppendOffsetTracker offsetTracker = getAppendOffsetTracker(connectionName);
+            String fileUrl = dataLakeFileClient.getFileUrl();
+            // Whatever the outcome, the cached hash of the file may no longer hold
+            getRemoteHashCache(connectionName).remove(fileUrl);
+            DataLakeFileFlushOptions options = new DataLakeFileFlushOptions()
+                    .setUncommittedDataRetained(uncommittedDataRetained)
+                    .setRequestConditions(getRequestConditions(leaseId, ifMatch, ifNoneMatch, ifModifiedSince,
+                            ifUnmodifiedSince))
+                    .setPathHttpHeaders(new PathHttpHeaders().setCacheControl(cacheControl)
+                            .setContentDisposition(contentDisposition).setContentEncoding(contentEncoding)
+                            .setContentLanguage(contentLanguage).setContentType(contentType))
+                    .setClose(true).setLeaseAction(leaseActionConstant).setLeaseDuration(leaseDuration)
+                    .setProposedLeaseId(proposedLeaseId);
 
-            Response<?> response = dataLakeFileClient.flushWithResponse(
-                    fileSizeBefore + fileLength.longValue(),
-                    new DataLakeFileFlushOptions().setUncommittedDataRetained(uncommittedDataRetained)
-                            .setRequestConditions(
-                                    getRequestConditions(leaseId, ifMatch, ifNoneMatch, ifModifiedSince,
-                                            ifUnmodifiedSince)
-                                                 ).setPathHttpHeaders(
-
-                                    new PathHttpHeaders().setCacheControl(cacheControl)
-                                            .setContentDisposition(contentDisposition).setContentEncoding(contentEncoding)
-                                            .setContentLanguage(contentLanguage).setContentType(contentType)
-                                                                     ).setClose(true)
-                            .setLeaseAction(leaseActionConstant).setLeaseDuration(leaseDuration)
-                            .setProposedLeaseId(proposedLeaseId),
-                    timeout != null ? Duration.ofSeconds(timeout.longValue()) : null,
-                    null);
+            Response<?> response = null;
+            boolean resynced = false;
+            while (response == null) {
+                long position;
+                if (fileLength != null) {
+                    Long committedLength = offsetTracker.getCommittedLength(fileUrl);
+                    position = (committedLength != null ? committedLength :
+                            dataLakeFileClient.getProperties().getFileSize()) + fileLength.longValue();
+                } else {
+                    // Commits everything appended through this connection
+                    Long nextPosition = offsetTracker.getNextPosition(fileUrl);
+                    if (nextPosition == null) {
+                        throw createConnectorException(Error.INVALID_CONFIGURATION, messageContext,
+                                new IllegalArgumentException("The file length is required, since no appends to the "
+                                        + "file are tracked by the connection"));
+                    }
+                    position = nextPosition;
+                }
+                // Waits for the tracked appends before the position, the flush fails if they are not appended
+                AppendOffsetTracker.Range flush = offsetTracker.beginFlush(fileUrl, position,
+                        timeout != null ? Duration.ofSeconds(timeout.longValue()) :
+                                AppendOffsetTracker.DEFAULT_WAIT_TIMEOUT);
+                try {
+                    response = dataLakeFileClient.flushWithResponse(position, options,
+                            timeout != null ? Duration.ofSeconds(timeout.longValue()) : null, null);
+                    if (flush != null) {
+                        flush.committed(Boolean.TRUE.equals(uncommittedDataRetained));
+                    }
+                } catch (RuntimeException e) {
+                    // Someone else wrote to the file, flush once more relative to its actual length
+                    if (flush == null || !flush.failed(e) || resynced || fileLength == null) {
+                        throw e;
+                    }
+                    resynced = true;
+                }
+            }
 
             if (response != null && response.getStatusCode() == 200) {
                 JSONObject responseObject = new JSONObject();
@@ -118,6 +152,11 @@ public class FlushFile extends AbstractAzureMediator {
                     e);
         } catch (ConnectException e) {
             handleConnectorException(org.wso2.carbon.connector.util.Error.CONNECTION_ERROR, messageContext, e);
+        } catch (TimeoutException e) {
+            handleConnectorException(Error.TIMEOUT_ERROR, messageContext, e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            handleConnectorException(Error.GENERAL_ERROR, messageContext, e);
         } catch (Exception e) {
             handleConnectorException(Error.GENERAL_ERROR, messageContext, e);
         }
@@ -20,23 +20,45 @@ package org.wso2.carbon.connector.operations;
 
 import com.azure.core.http.HttpHeaderName;
 import com.azure.core.http.HttpHeaders;
-import com.azure.storage.file.datalake.DataLakeFileSystemClient;
+import com.azure.core.util.FluxUtil;
+import com.azure.storage.file.datalake.DataLakeFileAsyncClient;
 import com.azure.storage.file.datalake.models.DataLakeRequestConditions;
 import com.azure.storage.file.datalake.models.DataLakeStorageException;
 import com.azure.storage.file.datalake.models.DownloadRetryOptions;
 import com.azure.storage.file.datalake.models.FileRange;
-import com.azure.storage.file.datalake.models.FileReadResponse;
+import com.azure.storage.file.datalake.models.FileReadAsyncResponse;
+import org.apache.axiom.om.OMElement;
+import org.apache.axiom.om.OMException;
+import org.apache.axiom.om.OMSourcedElement;
+import org.apache.axis2.AxisFault;
+import org.apache.axis2.Constants;
+import org.apache.axis2.builder.Builder;
+import org.apache.axis2.builder.BuilderUtil;
+import org.apache.axis2.transport.TransportUtils;
 import org.apache.synapse.MessageContext;
+import org.apache.synapse.SynapseException;
+import org.apache.synapse.commons.json.JsonUtil;
+import org.apache.synapse.core.axis2.Axis2MessageContext;
+import org.apache.synapse.transport.passthru.PassThroughConstants;
 import org.apache.synapse.util.InlineExpressionUtil;
 import org.jaxen.JaxenException;
+import org.json.JSONException;
 import org.json.JSONObject;
 import org.wso2.carbon.connector.core.ConnectException;
 import org.wso2.carbon.connector.util.AbstractAzureMediator;
 import org.wso2.carbon.connector.util.AzureConstants;
+import org.wso2.carbon.connector.util.Compression;
 import org.wso2.carbon.connector.util.Error;
+import org.wso2.carbon.connector.util.FluxInputStream;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
 
-import java.io.ByteArrayOutputStream;
-import java.time.Duration;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 /**
  * Reads a file from Azure Data Lake Storage.
@@ -47,6 +69,13 @@ public class ReadFile extends AbstractAzureMediator {
     public void execute(MessageContext messageContext, String responseVariable, Boolean overwriteBody)
             throws JaxenException {
 
+        executeAsync(messageContext, responseVariable, overwriteBody).block();
+    }
+
+    @Override
+    protected Mono<Void> executeAsync(MessageContext messageContext, String responseVariable, Boolean overwriteBody)
+            throws JaxenException {
+
         String connectionName =
                 getProperty(messageContext, AzureConstants.CONNECTION_NAME, String.class, false);
         String preprocessedFileSystemName =
@@ -54,8 +83,9 @@ public class ReadFile extends AbstractAzureMediator {
         String preprocessedFilePath =
                 getMediatorParameter(messageContext, AzureConstants.FILE_PATH, String.class, false);
         Integer timeout = getMediatorParameter(messageContext, AzureConstants.TIMEOUT, Integer.class, true);
-        Integer count = getMediatorParameter(messageContext, AzureConstants.COUNT, Integer.class, true);
-        Integer offset = getMediatorParameter(messageContext, AzureConstants.OFFSET, Integer.class, true);
+        Long count = getMediatorParameter(messageContext, AzureConstants.COUNT, Long.class, true);
+        Long offset = getMediatorParameter(messageContext, AzureConstants.OFFSET, Long.class, true);
+        Integer maxBytes = getMediatorParameter(messageContext, AzureConstants.MAX_BYTES, Integer.class, true);
         Integer maxRetryRequests =
                 getMediatorParameter(messageContext, AzureConstants.MAX_RETRY_REQUESTS, Integer.class, true);
         String leaseId = getMediatorParameter(messageContext, AzureConstants.LEASE_ID, String.class, true);
@@ -65,59 +95,294 @@ public class ReadFile extends AbstractAzureMediator {
         String ifNoneMatch = getMediatorParameter(messageContext, AzureConstants.IF_NONE_MATCH, String.class, true);
         String ifModifiedSince =
                 getMediatorParameter(messageContext, AzureConstants.IF_MODIFIED_SINCE, String.class, true);
+        Boolean decompress = getMediatorParameter(messageContext, AzureConstants.DECOMPRESS, Boolean.class, true);
+        Boolean streamContent =
+                getMediatorParameter(messageContext, AzureConstants.STREAM_CONTENT, Boolean.class, true);
+        String contentType = getMediatorParameter(messageContext, AzureConstants.CONTENT_TYPE, String.class, true);
+        String charset = getMediatorParameter(messageContext, AzureConstants.CHARSET, String.class, true);
 
         String fileSystemName =
                 InlineExpressionUtil.processInLineSynapseExpressionTemplate(messageContext, preprocessedFileSystemName);
         String filePath =
                 InlineExpressionUtil.processInLineSynapseExpressionTemplate(messageContext, preprocessedFilePath);
 
+        if (Boolean.TRUE.equals(decompress) && (offset != null || maxBytes != null)) {
+            throw createConnectorException(Error.INVALID_CONFIGURATION, messageContext, new IllegalArgumentException(
+                    "A range of compressed content cannot be decompressed, read the whole file to decompress it"));
+        }
+        if (maxBytes != null && maxBytes <= 0) {
+            throw createConnectorException(Error.INVALID_CONFIGURATION, messageContext,
+                    new IllegalArgumentException("The maximum number of bytes to read must be positive"));
+        }
+        Charset contentCharset;
+        try {
+            contentCharset = charset != null ? Charset.forName(charset) : StandardCharsets.UTF_8;
+        } catch (IllegalArgumentException e) {
+            throw createConnectorException(Error.INVALID_CONFIGURATION, messageContext, e);
+        }
+
         try {
 
-            DataLakeFileSystemClient dataLakeFileSystemClient =
-                    getDataLakeFileSystemClient(connectionName, fileSystemName);
+            DataLakeFileAsyncClient dataLakeFileAsyncClient =
+                    getDataLakeFileAsyncClient(connectionName, fileSystemName, filePath);
             FileRange fileRange;
-            if (offset == null) {
+            if (maxBytes != null) {
+                // A page never holds more than maxBytes, however large the file or the requested count
+                fileRange = new FileRange(offset != null ? offset : 0,
+                        count != null ? Math.min(count, maxBytes.longValue()) : maxBytes.longValue());
+            } else if (offset == null) {
                 fileRange = null;
             } else if (count == null) {
-                fileRange = new FileRange(offset.longValue());
+                fileRange = new FileRange(offset);
             } else {
-                fileRange = new FileRange(offset.longValue(), count.longValue());
+                fileRange = new FileRange(offset, count);
             }
 
-            ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
-
             DataLakeRequestConditions requestConditions = getRequestConditions(leaseId, ifMatch,
                     ifModifiedSince, ifNoneMatch, ifUnmodifiedSince);
-            FileReadResponse response = dataLakeFileSystemClient.getFileClient(filePath).readWithResponse(
-                    outputStream, fileRange,
+            Mono<FileReadAsyncResponse> read = dataLakeFileAsyncClient.readWithResponse(fileRange,
                     maxRetryRequests != null ? new DownloadRetryOptions().setMaxRetryRequests(maxRetryRequests) : null,
                     requestConditions,
-                    false,
-                    timeout != null ? Duration.ofSeconds(timeout) : null,
-                    null
-                                                                                                         );
-            String content = outputStream.toString();
-
-            if (response.getStatusCode() == 200) {
-                HttpHeaders headers = response.getHeaders();
-                JSONObject contentJson = new JSONObject();
-                contentJson.put(AzureConstants.STATUS, true);
-                contentJson.put(AzureConstants.CONTENT, content);
-                contentJson.put(AzureConstants.LENGTH, headers.getValue(HttpHeaderName.CONTENT_LENGTH));
-
-                handleConnectorResponse(messageContext, responseVariable, overwriteBody, contentJson, null, null);
+                    false);
+
+            if (Boolean.TRUE.equals(streamContent)) {
+                // The payload may be read after the operation completes, so the client lease and concurrency permit
+                // are held until the content stream is done with, and released here only if it never was created
+                Runnable release = holdScope();
+                AtomicBoolean streaming = new AtomicBoolean();
+                // The builder blocks while it reads the content, so it runs off the thread of the download
+                return withTimeout(read.flatMap(response -> Mono.fromCallable(() -> {
+                            streaming.set(true);
+                            streamContent(messageContext, responseVariable, response, decompress, contentType,
+                                    charset, maxBytes != null ? getContinuation(response, fileRange) : null, release);
+                            return response;
+                        }).subscribeOn(Schedulers.boundedElastic())), timeout)
+                        .doFinally(signal -> {
+                            if (!streaming.get()) {
+                                release.run();
+                            }
+                        })
+                        .then()
+                        .onErrorResume(e -> maxBytes != null && isPastEnd(e), e -> Mono.fromCallable(() -> {
+                            streamPastEnd(messageContext, responseVariable,
+                                    getPastEndContinuation(fileRange, (DataLakeStorageException) e));
+                            return true;
+                        }).then())
+                        .onErrorMap(e -> toConnectorException(messageContext, e));
             }
 
-        } catch (ConnectException e) {
-            handleConnectorException(Error.CONNECTION_ERROR, messageContext, e);
-        } catch (DataLakeStorageException e) {
-            handleConnectorException(Error.DATA_LAKE_STORAGE_GEN2_ERROR, messageContext, e);
-        } catch (RuntimeException e) {
-            handleConnectorException(Error.TIMEOUT_ERROR, messageContext, e);
+            return withTimeout(read.flatMap(response -> FluxUtil.collectBytesInByteBufferStream(
+                    getCompression(response, decompress).decompress(response.getValue()))
+                    .flatMap(content -> Mono.fromCallable(() -> {
+                        if (response.getStatusCode() == 200 || response.getStatusCode() == 206) {
+                            HttpHeaders headers = response.getHeaders();
+                            JSONObject contentJson = new JSONObject();
+                            contentJson.put(AzureConstants.STATUS, true);
+                            contentJson.put(AzureConstants.CONTENT, new String(content, contentCharset));
+                            contentJson.put(AzureConstants.LENGTH,
+                                    getCompression(response, decompress) != Compression.NONE ?
+                                            String.valueOf(content.length) :
+                                            headers.getValue(HttpHeaderName.CONTENT_LENGTH));
+                            if (maxBytes != null) {
+                                Map<String, Object> continuation = getContinuation(response, fileRange);
+                                for (Map.Entry<String, Object> entry : continuation.entrySet()) {
+                                    contentJson.put(entry.getKey(), entry.getValue());
+                                }
+                            }
+
+                            handleConnectorResponse(messageContext, responseVariable, overwriteBody, contentJson,
+                                    null, null);
+                        }
+                        return content;
+                    }))), timeout)
+                    .then()
+                    .onErrorResume(e -> maxBytes != null && isPastEnd(e), e -> Mono.fromRunnable(() ->
+                            respondPastEnd(messageContext, responseVariable, overwriteBody, fileRange,
+                                    (DataLakeStorageException) e)))
+                    .onErrorMap(e -> toConnectorException(messageContext, e));
+
         } catch (Exception e) {
-            handleConnectorException(Error.GENERAL_ERROR, messageContext, e);
+            throw toConnectorException(messageContext, e);
         }
 
     }
 
+    /**
+     * Replaces the message body with the content of the file, streamed from the download into the message builder
+     * of its content type, so the content is neither collected in memory nor converted to a string first. The
+     * content type is the one given, or the one stored with the file, and the charset the one given, or the one of
+     * the content type. The release is run once the content stream is closed, read to the end or dropped unread.
+     */
+    private void streamContent(MessageContext messageContext, String responseVariable,
+                               FileReadAsyncResponse response, Boolean decompress, String contentType,
+                               String charset, Map<String, Object> continuation, Runnable release)
+            throws AxisFault, JSONException {
+
+        String type = contentType != null ? contentType : response.getDeserializedHeaders().getContentType();
+        if (type == null || type.trim().isEmpty()) {
+            type = AzureConstants.BINARY_CONTENT_TYPE;
+        }
+        String mediaType = type.split(";")[0].trim();
+        if (charset != null) {
+            type = mediaType + "; charset=" + charset;
+        }
+
+        org.apache.axis2.context.MessageContext axis2MessageContext =
+                ((Axis2MessageContext) messageContext).getAxis2MessageContext();
+        Builder builder = BuilderUtil.getBuilderFromSelector(mediaType, axis2MessageContext);
+        if (builder == null) {
+            throw new IllegalArgumentException("No message builder is registered for the content type " + mediaType);
+        }
+        axis2MessageContext.setProperty(Constants.Configuration.CHARACTER_SET_ENCODING,
+                charset != null ? charset : BuilderUtil.getCharSetEncoding(type));
+        FluxInputStream content = new FluxInputStream(getCompression(response, decompress).decompress(
+                response.getValue()), release);
+        OMElement documentElement;
+        try {
+            documentElement = builder.processDocument(content, type, axis2MessageContext);
+            if (!(documentElement instanceof OMSourcedElement)) {
+                // XML is parsed now, so a malformed file fails the read instead of a later mediator
+                documentElement.build();
+                // Nothing reads the content any more, which frees the connection of the download right away
+                content.close();
+            }
+        } catch (OMException e) {
+            content.close();
+            throw new AxisFault("Unable to build the message from the content of the file", e);
+        } catch (AxisFault | RuntimeException e) {
+            content.close();
+            throw e;
+        }
+
+        JsonUtil.removeJsonPayload(axis2MessageContext);
+        axis2MessageContext.setEnvelope(TransportUtils.createSOAPEnvelope(documentElement));
+        axis2MessageContext.setProperty(Constants.Configuration.MESSAGE_TYPE, mediaType);
+        axis2MessageContext.setProperty(Constants.Configuration.CONTENT_TYPE, type);
+        axis2MessageContext.setProperty(PassThroughConstants.MESSAGE_BUILDER_INVOKED, Boolean.TRUE);
+        axis2MessageContext.removeProperty(PassThroughConstants.NO_ENTITY_BODY);
+
+        String length = getCompression(response, decompress) != Compression.NONE ? null :
+                response.getHeaders().getValue(HttpHeaderName.CONTENT_LENGTH);
+        Map<String, Object> attributes = new HashMap<>();
+        attributes.put(AzureConstants.CONTENT_TYPE, type);
+        if (length != null) {
+            attributes.put(AzureConstants.LENGTH, Long.parseLong(length));
+        }
+        if (continuation != null) {
+            attributes.putAll(continuation);
+        }
+        JSONObject responseObject = new JSONObject();
+        responseObject.put(AzureConstants.STATUS, true);
+        handleConnectorResponse(messageContext, responseVariable, false, responseObject, null, attributes);
+    }
+
+    /**
+     * Replaces the message body with the empty content of a page that starts at or after the end of the file, and
+     * reports the continuation that completes the read.
+     */
+    private void streamPastEnd(MessageContext messageContext, String responseVariable,
+                               Map<String, Object> continuation) throws AxisFault, JSONException {
+
+        org.apache.axis2.context.MessageContext axis2MessageContext =
+                ((Axis2MessageContext) messageContext).getAxis2MessageContext();
+        JsonUtil.removeJsonPayload(axis2MessageContext);
+        axis2MessageContext.setEnvelope(TransportUtils.createSOAPEnvelope(null));
+        axis2MessageContext.setProperty(PassThroughConstants.MESSAGE_BUILDER_INVOKED, Boolean.TRUE);
+        axis2MessageContext.setProperty(PassThroughConstants.NO_ENTITY_BODY, Boolean.TRUE);
+
+        Map<String, Object> attributes = new HashMap<>(continuation);
+        attributes.put(AzureConstants.LENGTH, 0L);
+        JSONObject responseObject = new JSONObject();
+        responseObject.put(AzureConstants.STATUS, true);
+        handleConnectorResponse(messageContext, responseVariable, false, responseObject, null, attributes);
+    }
+
+    /**
+     * Returns where the next page of a paged read starts and the ETag the file must still match when it is read,
+     * which the flow passes back as the offset and ifMatch parameters. The read is complete once the next offset
+     * reaches the length of the file, as reported by the Content-Range of the page.
+     */
+    private static Map<String, Object> getContinuation(FileReadAsyncResponse response, FileRange fileRange) {
+
+        long length = Long.parseLong(response.getHeaders().getValue(HttpHeaderName.CONTENT_LENGTH));
+        long nextOffset = fileRange.getOffset() + length;
+        String contentRange = response.getDeserializedHeaders().getContentRange();
+        long fileLength = contentRange != null && contentRange.contains("/") ?
+                Long.parseLong(contentRange.substring(contentRange.lastIndexOf('/') + 1).trim()) : nextOffset;
+
+        Map<String, Object> continuation = new HashMap<>();
+        continuation.put(AzureConstants.NEXT_OFFSET, nextOffset);
+        continuation.put(AzureConstants.E_TAG, response.getDeserializedHeaders().getETag());
+        continuation.put(AzureConstants.COMPLETE, nextOffset >= fileLength);
+        return continuation;
+    }
+
+    /**
+     * Tells whether a read failed because the page starts at or after the end of the file, as for an empty file.
+     */
+    static boolean isPastEnd(Throwable e) {
+
+        return e instanceof DataLakeStorageException && ((DataLakeStorageException) e).getStatusCode() == 416;
+    }
+
+    /**
+     * Responds to a page that starts at or after the end of the file with empty content that completes the read.
+     */
+    private void respondPastEnd(MessageContext messageContext, String responseVariable, Boolean overwriteBody,
+                                FileRange fileRange, DataLakeStorageException e) {
+
+        try {
+            JSONObject contentJson = new JSONObject();
+            contentJson.put(AzureConstants.STATUS, true);
+            contentJson.put(AzureConstants.CONTENT, "");
+            contentJson.put(AzureConstants.LENGTH, "0");
+            for (Map.Entry<String, Object> entry : getPastEndContinuation(fileRange, e).entrySet()) {
+                contentJson.put(entry.getKey(), entry.getValue());
+            }
+            handleConnectorResponse(messageContext, responseVariable, overwriteBody, contentJson, null, null);
+        } catch (JSONException ex) {
+            throw createConnectorException(Error.GENERAL_ERROR, messageContext, ex);
+        }
+    }
+
+    /**
+     * Returns the continuation of a page that starts at or after the end of the file: the read is complete, and the
+     * next page would start where this one did.
+     */
+    static Map<String, Object> getPastEndContinuation(FileRange fileRange, DataLakeStorageException e) {
+
+        Map<String, Object> continuation = new HashMap<>();
+        continuation.put(AzureConstants.NEXT_OFFSET, fileRange.getOffset());
+        continuation.put(AzureConstants.E_TAG, e.getResponse().getHeaderValue(HttpHeaderName.ETAG));
+        continuation.put(AzureConstants.COMPLETE, true);
+        return continuation;
+    }
+
+    /**
+     * Returns the compression to undo while the content streams in: the one named by the Content-Encoding of the
+     * stored content if decompression was requested, NONE otherwise.
+     */
+    private static Compression getCompression(FileReadAsyncResponse response, Boolean decompress) {
+
+        return Boolean.TRUE.equals(decompress) ?
+                Compression.fromContentEncoding(response.getDeserializedHeaders().getContentEncoding()) :
+                Compression.NONE;
+    }
+
+    private SynapseException toConnectorException(MessageContext messageContext, Throwable e) {
+
+        if (e instanceof SynapseException) {
+            return (SynapseException) e;
+        } else if (e instanceof ConnectException) {
+            return createConnectorException(Error.CONNECTION_ERROR, messageContext, e);
+        } else if (e instanceof DataLakeStorageException) {
+            return createConnectorException(Error.DATA_LAKE_STORAGE_GEN2_ERROR, messageContext, e);
+        } else if (e instanceof IllegalArgumentException) {
+            return createConnectorException(Error.INVALID_CONFIGURATION, messageContext, e);
+        } else if (e instanceof RuntimeException || e instanceof TimeoutException) {
+            return createConnectorException(Error.TIMEOUT_ERROR, messageContext, e);
+        }
+        return createConnectorException(Error.GENERAL_ERROR, messageContext, e);
+    }
+
 }
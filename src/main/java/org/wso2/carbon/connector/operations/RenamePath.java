@@ -26,6 +26,7 @@ import org.apache.synapse.MessageContext;
 import org.apache.synapse.util.InlineExpressionUtil;
 import org.jaxen.JaxenException;
 import org.json.JSONObject;
+import org.wso2.carbon.connector.connection.RemoteHashCache;
 import org.wso2.carbon.connector.core.ConnectException;
 import org.wso2.carbon.connector.util.AbstractAzureMediator;
 import org.wso2.carbon.connector.util.AzureConstants;
@@ -95,6 +96,11 @@ public class RenamePath extends AbstractAzureMediator {
 
             DataLakeFileClient dataLakeFileClient =
                     getDataLakeFileClient(connectionName, fileSystemName, directoryName);
+            // Both the source and the destination change, whatever the outcome
+            RemoteHashCache remoteHashCache = getRemoteHashCache(connectionName);
+            remoteHashCache.removeTree(dataLakeFileClient.getFileUrl());
+            remoteHashCache.removeTree(getDataLakeFileClient(connectionName,
+                    newFileSystemName != null ? newFileSystemName : fileSystemName, newDirectoryName).getFileUrl());
 
             Response<?> response = dataLakeFileClient
                     .renameWithResponse(newFileSystemName, newDirectoryName, sourceRequestConditions,
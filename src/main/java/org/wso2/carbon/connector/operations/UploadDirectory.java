@@ -0,0 +1,381 @@
+/*
+ *  Copyright (c) 2025, WSO2 LLC. (https://www.wso2.com).
+ *
+ *  WSO2 LLC. licenses this file to you under the Apache License,
+ *  Version 2.0 (the "License"); you may not use this file except
+ *  in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *  "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License.
+ */
+
+package org.wso2.carbon.connector.operations;
+
+import com.azure.core.http.rest.Response;
+import com.azure.storage.common.ParallelTransferOptions;
+import com.azure.storage.file.datalake.DataLakeFileAsyncClient;
+import com.azure.storage.file.datalake.DataLakeFileSystemAsyncClient;
+import com.azure.storage.file.datalake.models.DataLakeStorageException;
+import com.azure.storage.file.datalake.models.PathHttpHeaders;
+import com.azure.storage.file.datalake.options.DataLakePathCreateOptions;
+import org.apache.synapse.MessageContext;
+import org.apache.synapse.SynapseException;
+import org.apache.synapse.util.InlineExpressionUtil;
+import org.jaxen.JaxenException;
+import org.json.JSONArray;
+import org.json.JSONException;
+import org.json.JSONObject;
+import org.wso2.carbon.connector.connection.RemoteHashCache;
+import org.wso2.carbon.connector.connection.TransactionalCrc64Policy;
+import org.wso2.carbon.connector.core.ConnectException;
+import org.wso2.carbon.connector.util.AbstractAzureMediator;
+import org.wso2.carbon.connector.util.AzureConstants;
+import org.wso2.carbon.connector.util.ChecksumAlgorithm;
+import org.wso2.carbon.connector.util.Error;
+import org.wso2.carbon.connector.util.Utils;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.FileVisitOption;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.NotDirectoryException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.TreeMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Uploads the files of a local directory to a directory in Azure Data Lake Storage. The remote directory structure
+ * is created once, level by level, and the files are then uploaded with bounded parallelism over the connection of
+ * the operation. A failed file does not stop the others; the result lists every file with its outcome.
+ */
+public class UploadDirectory extends AbstractAzureMediator {
+
+    private static final int DEFAULT_MAX_PARALLEL_UPLOADS = 8;
+
+    @Override
+    public void execute(MessageContext messageContext, String responseVariable, Boolean overwriteBody)
+            throws JaxenException {
+
+        executeAsync(messageContext, responseVariable, overwriteBody).block();
+    }
+
+    @Override
+    protected Mono<Void> executeAsync(MessageContext messageContext, String responseVariable, Boolean overwriteBody)
+            throws JaxenException {
+
+        String connectionName = getProperty(messageContext, AzureConstants.CONNECTION_NAME, String.class, false);
+        String preprocessedFileSystemName =
+                getMediatorParameter(messageContext, AzureConstants.FILE_SYSTEM_NAME, String.class, false);
+        String preprocessedLocalDirectoryPath =
+                getMediatorParameter(messageContext, AzureConstants.LOCAL_DIRECTORY_PATH, String.class, false);
+        String preprocessedDirectoryName =
+                getMediatorParameter(messageContext, AzureConstants.DIRECTORY_NAME, String.class, true);
+        Boolean recursive = getMediatorParameter(messageContext, AzureConstants.RECURSIVE, Boolean.class, true);
+        Integer maxParallelUploads =
+                getMediatorParameter(messageContext, AzureConstants.MAX_PARALLEL_UPLOADS, Integer.class, true);
+        Integer blockSize = getMediatorParameter(messageContext, AzureConstants.BLOCK_SIZE, Integer.class, true);
+        Integer maxSingleUploadSize =
+                getMediatorParameter(messageContext, AzureConstants.MAX_SINGLE_UPLOAD_SIZE, Integer.class, true);
+        Integer maxConcurrency =
+                getMediatorParameter(messageContext, AzureConstants.MAX_CONCURRENCY, Integer.class, true);
+        Integer timeout = getMediatorParameter(messageContext, AzureConstants.TIMEOUT, Integer.class, true);
+        ChecksumAlgorithm checksumAlgorithm = getChecksumAlgorithm(messageContext);
+
+        String fileSystemName =
+                InlineExpressionUtil.processInLineSynapseExpressionTemplate(messageContext, preprocessedFileSystemName);
+        String localDirectoryPath = InlineExpressionUtil.processInLineSynapseExpressionTemplate(messageContext,
+                preprocessedLocalDirectoryPath);
+        String directoryName = preprocessedDirectoryName != null ?
+                InlineExpressionUtil.processInLineSynapseExpressionTemplate(messageContext, preprocessedDirectoryName) :
+                null;
+
+        int workers = maxParallelUploads != null && maxParallelUploads > 0 ?
+                maxParallelUploads : DEFAULT_MAX_PARALLEL_UPLOADS;
+        ParallelTransferOptions parallelTransferOptions = new ParallelTransferOptions()
+                .setBlockSizeLong(blockSize != null ? blockSize.longValue() * 1024L * 1024L : null)
+                .setMaxConcurrency(maxConcurrency)
+                .setMaxSingleUploadSizeLong(
+                        maxSingleUploadSize != null ? maxSingleUploadSize.longValue() * 1024L * 1024L : null);
+        String remoteRoot = directoryName != null ? directoryName.replaceAll("^/+|/+$", "") : "";
+
+        try {
+
+            DataLakeFileSystemAsyncClient fileSystemClient =
+                    getDataLakeServiceAsyncClient(connectionName).getFileSystemAsyncClient(fileSystemName);
+
+            Mono<Summary> upload = upload(fileSystemClient, Paths.get(localDirectoryPath),
+                    !Boolean.FALSE.equals(recursive), remoteRoot, workers, parallelTransferOptions, checksumAlgorithm,
+                    getRemoteHashCache(connectionName));
+            if (checksumAlgorithm == ChecksumAlgorithm.CRC64) {
+                upload = upload.contextWrite(context -> context.put(TransactionalCrc64Policy.CONTEXT_KEY, true));
+            }
+
+            return withTimeout(upload, timeout)
+                    .flatMap(summary -> Mono.fromCallable(() -> {
+                        JSONObject responseObject = new JSONObject();
+                        boolean succeeded = summary.failedFiles == 0;
+                        responseObject.put(AzureConstants.STATUS, succeeded);
+                        responseObject.put(AzureConstants.MESSAGE, succeeded ?
+                                "Successfully uploaded the directory" :
+                                "Failed to upload " + summary.failedFiles + " of " + summary.files.size() + " files");
+                        responseObject.put(AzureConstants.RESULT, summary.toJson());
+                        handleConnectorResponse(messageContext, responseVariable, overwriteBody, responseObject,
+                                null, null);
+                        return summary;
+                    }))
+                    .onErrorMap(e -> toConnectorException(messageContext, e))
+                    .then();
+
+        } catch (Exception e) {
+            throw toConnectorException(messageContext, e);
+        }
+    }
+
+    /**
+     * Uploads the files of a local directory after creating the remote directories they go to.
+     *
+     * @param fileSystemClient the client of the file system to upload to.
+     * @param localDirectory   the local directory.
+     * @param recursive        whether to upload the files of subdirectories as well.
+     * @param remoteRoot       the remote directory to upload to, or an empty string for the root of the file system.
+     * @param workers          the number of files uploaded at once.
+     * @param remoteHashCache  the cache of remote hashes of the connection, which forgets every uploaded file.
+     * @return the outcome of every file.
+     */
+    static Mono<Summary> upload(DataLakeFileSystemAsyncClient fileSystemClient, Path localDirectory,
+                                boolean recursive, String remoteRoot, int workers,
+                                ParallelTransferOptions parallelTransferOptions,
+                                ChecksumAlgorithm checksumAlgorithm, RemoteHashCache remoteHashCache) {
+
+        long start = System.nanoTime();
+        return Mono.fromCallable(() -> LocalTree.scan(localDirectory, recursive, remoteRoot))
+                .subscribeOn(Schedulers.boundedElastic())
+                .flatMap(tree -> createDirectories(fileSystemClient, tree, workers)
+                        .flatMap(createdDirectories -> Flux.fromIterable(tree.files)
+                                .flatMap(file -> uploadFile(fileSystemClient, file, parallelTransferOptions,
+                                        checksumAlgorithm, remoteHashCache), workers)
+                                .collectList()
+                                .map(results -> new Summary(results, createdDirectories,
+                                        TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start)))));
+    }
+
+    /**
+     * Creates the remote directories, parents before their children, and emits the number of directories that did
+     * not exist yet.
+     */
+    private static Mono<Integer> createDirectories(DataLakeFileSystemAsyncClient fileSystemClient, LocalTree tree,
+                                                   int workers) {
+
+        TreeMap<Integer, List<String>> levels = new TreeMap<>();
+        for (String directory : tree.directories) {
+            levels.computeIfAbsent(directory.split("/").length, depth -> new ArrayList<>()).add(directory);
+        }
+        return Flux.fromIterable(levels.values())
+                .concatMap(level -> Flux.fromIterable(level)
+                        .flatMap(directory -> fileSystemClient.getDirectoryAsyncClient(directory)
+                                .createIfNotExistsWithResponse(new DataLakePathCreateOptions()), workers))
+                .filter(response -> response.getStatusCode() == 201)
+                .count()
+                .map(Long::intValue);
+    }
+
+    private static Mono<FileResult> uploadFile(DataLakeFileSystemAsyncClient fileSystemClient, LocalFile file,
+                                               ParallelTransferOptions parallelTransferOptions,
+                                               ChecksumAlgorithm checksumAlgorithm,
+                                               RemoteHashCache remoteHashCache) {
+
+        DataLakeFileAsyncClient fileClient = fileSystemClient.getFileAsyncClient(file.remotePath);
+        Mono<PathHttpHeaders> headers = checksumAlgorithm == ChecksumAlgorithm.MD5 ?
+                Mono.fromCallable(() -> new PathHttpHeaders().setContentMd5(Utils.md5(file.path)))
+                        .subscribeOn(Schedulers.boundedElastic()) :
+                Mono.just(new PathHttpHeaders());
+        Mono<?> upload = headers.flatMap(pathHttpHeaders -> fileClient.uploadFromFileWithResponse(
+                file.path.toString(), parallelTransferOptions, pathHttpHeaders, null, null));
+        return remoteHashCache.track(upload, fileClient.getFileUrl(), null, file.size)
+                .map(response -> new FileResult(file, null))
+                .onErrorResume(e -> Mono.just(new FileResult(file, describe(e))));
+    }
+
+    /**
+     * Returns a short description of the failure of a file, the messages of storage errors being too verbose to be
+     * repeated for every file.
+     */
+    private static String describe(Throwable e) {
+
+        if (e instanceof DataLakeStorageException) {
+            DataLakeStorageException storageException = (DataLakeStorageException) e;
+            return "HTTP " + storageException.getStatusCode() +
+                    (storageException.getErrorCode() != null ? " " + storageException.getErrorCode() : "");
+        }
+        return String.valueOf(e.getMessage());
+    }
+
+    private SynapseException toConnectorException(MessageContext messageContext, Throwable e) {
+
+        if (e instanceof SynapseException) {
+            return (SynapseException) e;
+        } else if (e instanceof DataLakeStorageException) {
+            return createConnectorException(Error.DATA_LAKE_STORAGE_GEN2_ERROR, messageContext, e);
+        } else if (e instanceof ConnectException) {
+            return createConnectorException(Error.CONNECTION_ERROR, messageContext, e);
+        } else if (e instanceof IOException) {
+            return createConnectorException(Error.IO_EXCEPTION, messageContext, e);
+        } else if (e instanceof TimeoutException) {
+            return createConnectorException(Error.TIMEOUT_ERROR, messageContext, e);
+        }
+        return createConnectorException(Error.GENERAL_ERROR, messageContext, e);
+    }
+
+    /**
+     * The outcome of the upload of a single file.
+     */
+    private static final class FileResult {
+
+        private final LocalFile file;
+        private final String error;
+
+        private FileResult(LocalFile file, String error) {
+
+            this.file = file;
+            this.error = error;
+        }
+    }
+
+    /**
+     * The outcome of the upload of the whole directory.
+     */
+    static final class Summary {
+
+        private final List<FileResult> files;
+        private final int createdDirectories;
+        private final long elapsedTime;
+        private int failedFiles;
+        private long totalBytes;
+
+        private Summary(List<FileResult> files, int createdDirectories, long elapsedTime) {
+
+            this.files = files;
+            this.createdDirectories = createdDirectories;
+            this.elapsedTime = elapsedTime;
+            for (FileResult result : files) {
+                if (result.error != null) {
+                    failedFiles++;
+                } else {
+                    totalBytes += result.file.size;
+                }
+            }
+            files.sort(Comparator.comparing(result -> result.file.remotePath));
+        }
+
+        JSONObject toJson() throws JSONException {
+
+            JSONArray fileResults = new JSONArray();
+            for (FileResult result : files) {
+                JSONObject fileResult = new JSONObject();
+                fileResult.put(AzureConstants.PATH, result.file.remotePath);
+                fileResult.put(AzureConstants.SIZE, result.file.size);
+                fileResult.put(AzureConstants.STATUS, result.error == null);
+                if (result.error != null) {
+                    fileResult.put(AzureConstants.ERROR, result.error);
+                }
+                fileResults.put(fileResult);
+            }
+            JSONObject json = new JSONObject();
+            json.put(AzureConstants.TOTAL_FILES, files.size());
+            json.put(AzureConstants.UPLOADED_FILES, files.size() - failedFiles);
+            json.put(AzureConstants.FAILED_FILES, failedFiles);
+            json.put(AzureConstants.TOTAL_BYTES, totalBytes);
+            json.put(AzureConstants.CREATED_DIRECTORIES, createdDirectories);
+            json.put(AzureConstants.ELAPSED_TIME, elapsedTime);
+            json.put(AzureConstants.FILES, fileResults);
+            return json;
+        }
+    }
+
+    /**
+     * A local file and the remote path it is uploaded to.
+     */
+    private static final class LocalFile {
+
+        private final Path path;
+        private final String remotePath;
+        private final long size;
+
+        private LocalFile(Path path, String remotePath, long size) {
+
+            this.path = path;
+            this.remotePath = remotePath;
+            this.size = size;
+        }
+    }
+
+    /**
+     * The remote directories and files that mirror a local directory.
+     */
+    private static final class LocalTree {
+
+        private final List<String> directories = new ArrayList<>();
+        private final List<LocalFile> files = new ArrayList<>();
+
+        private static LocalTree scan(Path root, boolean recursive, String remoteRoot) throws IOException {
+
+            if (!Files.isDirectory(root)) {
+                throw new NotDirectoryException(root.toString());
+            }
+            LocalTree tree = new LocalTree();
+            if (!remoteRoot.isEmpty()) {
+                tree.directories.add(remoteRoot);
+            }
+            Files.walkFileTree(root, EnumSet.noneOf(FileVisitOption.class), recursive ? Integer.MAX_VALUE : 1,
+                    new SimpleFileVisitor<Path>() {
+
+                        @Override
+                        public FileVisitResult preVisitDirectory(Path directory, BasicFileAttributes attributes) {
+
+                            if (!directory.equals(root)) {
+                                tree.directories.add(toRemotePath(remoteRoot, root.relativize(directory)));
+                            }
+                            return FileVisitResult.CONTINUE;
+                        }
+
+                        @Override
+                        public FileVisitResult visitFile(Path file, BasicFileAttributes attributes) {
+
+                            if (attributes.isRegularFile()) {
+                                tree.files.add(new LocalFile(file,
+                                        toRemotePath(remoteRoot, root.relativize(file)), attributes.size()));
+                            }
+                            return FileVisitResult.CONTINUE;
+                        }
+                    });
+            Collections.sort(tree.directories);
+            return tree;
+        }
+
+        private static String toRemotePath(String remoteRoot, Path relativePath) {
+
+            String path = relativePath.toString().replace(File.separatorChar, '/');
+            return remoteRoot.isEmpty() ? path : remoteRoot + "/" + path;
+        }
+    }
+}
@@ -19,38 +19,78 @@ package org.wso2.carbon.connector.operations;
 
 import com.azure.core.http.rest.Response;
 import com.azure.core.util.BinaryData;
+import com.azure.core.util.FluxUtil;
 import com.azure.storage.common.ParallelTransferOptions;
-import com.azure.storage.file.datalake.DataLakeFileClient;
+import com.azure.storage.file.datalake.DataLakeFileAsyncClient;
 import com.azure.storage.file.datalake.models.DataLakeStorageException;
 import com.azure.storage.file.datalake.models.PathHttpHeaders;
 import com.azure.storage.file.datalake.options.FileParallelUploadOptions;
+import org.apache.axiom.om.OMElement;
+import org.apache.axiom.om.OMText;
 import org.apache.synapse.MessageContext;
+import org.apache.synapse.SynapseException;
+import org.apache.synapse.commons.json.JsonUtil;
+import org.apache.synapse.core.axis2.Axis2MessageContext;
+import org.apache.synapse.transport.passthru.util.RelayUtils;
 import org.apache.synapse.util.InlineExpressionUtil;
 import org.jaxen.JaxenException;
 import org.json.JSONObject;
+import org.wso2.carbon.connector.connection.RemoteHashCache;
+import org.wso2.carbon.connector.connection.TransactionalCrc64Policy;
+import org.wso2.carbon.connector.connection.TransferTuner;
 import org.wso2.carbon.connector.core.ConnectException;
 import org.wso2.carbon.connector.util.AbstractAzureMediator;
 import org.wso2.carbon.connector.util.AzureConstants;
+import org.wso2.carbon.connector.util.ChecksumAlgorithm;
+import org.wso2.carbon.connector.util.Compression;
 import org.wso2.carbon.connector.util.Error;
+import org.wso2.carbon.connector.util.ResumableUpload;
 import org.wso2.carbon.connector.util.Utils;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
+import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.security.MessageDigest;
 import java.security.NoSuchAlgorithmException;
-import java.time.Duration;
+import java.util.Arrays;
 import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicLong;
+
+import javax.activation.DataHandler;
+import javax.xml.namespace.QName;
+import javax.xml.stream.XMLStreamException;
 
 /**
  * Uploads a file to Azure Data Lake Storage.
  */
 public class UploadFile extends AbstractAzureMediator {
 
+    private static final QName BINARY_PAYLOAD = new QName("http://ws.apache.org/commons/ns/payload", "binary");
+    private static final QName TEXT_PAYLOAD = new QName("http://ws.apache.org/commons/ns/payload", "text");
+    private static final int BODY_CHUNK_SIZE = 64 * 1024;
+
     @Override
     public void execute(MessageContext messageContext, String responseVariable, Boolean overwriteBody)
             throws JaxenException {
 
+        executeAsync(messageContext, responseVariable, overwriteBody).block();
+    }
+
+    @Override
+    protected Mono<Void> executeAsync(MessageContext messageContext, String responseVariable, Boolean overwriteBody)
+            throws JaxenException {
+
         String connectionName = getProperty(messageContext, AzureConstants.CONNECTION_NAME, String.class, false);
         String preprocessedFileSystemName =
                 getMediatorParameter(messageContext, AzureConstants.FILE_SYSTEM_NAME, String.class, false);
@@ -71,13 +111,26 @@ public class UploadFile extends AbstractAzureMediator {
         String contentDisposition =
                 getMediatorParameter(messageContext, AzureConstants.CONTENT_DISPOSITION, String.class, true);
         String cacheControl = getMediatorParameter(messageContext, AzureConstants.CACHE_CONTROL, String.class, true);
-        Integer blockSize = getMediatorParameter(messageContext, AzureConstants.BLOCK_SIZE, Integer.class, true);
+        boolean autoBlockSize = isAutoTuned(messageContext, AzureConstants.BLOCK_SIZE);
+        boolean autoConcurrency = isAutoTuned(messageContext, AzureConstants.MAX_CONCURRENCY);
+        Integer blockSize = autoBlockSize ? null :
+                getMediatorParameter(messageContext, AzureConstants.BLOCK_SIZE, Integer.class, true);
         Integer maxSingleUploadSize =
                 getMediatorParameter(messageContext, AzureConstants.MAX_SINGLE_UPLOAD_SIZE, Integer.class, true);
-        Integer maxConcurrency =
+        Integer maxConcurrency = autoConcurrency ? null :
                 getMediatorParameter(messageContext, AzureConstants.MAX_CONCURRENCY, Integer.class, true);
         String metadata = getMediatorParameter(messageContext, AzureConstants.METADATA, String.class, true);
         Integer timeout = getMediatorParameter(messageContext, AzureConstants.TIMEOUT, Integer.class, true);
+        ChecksumAlgorithm checksumAlgorithm = getChecksumAlgorithm(messageContext);
+        Boolean resumableUpload =
+                getMediatorParameter(messageContext, AzureConstants.RESUMABLE_UPLOAD, Boolean.class, true);
+        String checkpointDirectory =
+                getMediatorParameter(messageContext, AzureConstants.CHECKPOINT_DIRECTORY, String.class, true);
+        Compression compression = getCompression(messageContext);
+        boolean skipIfUnchanged = Boolean.TRUE.equals(
+                getMediatorParameter(messageContext, AzureConstants.SKIP_IF_UNCHANGED, Boolean.class, true));
+        boolean cacheRemoteHashes = Boolean.TRUE.equals(
+                getMediatorParameter(messageContext, AzureConstants.CACHE_REMOTE_HASHES, Boolean.class, true));
 
         String fileSystemName =
                 InlineExpressionUtil.processInLineSynapseExpressionTemplate(messageContext, preprocessedFileSystemName);
@@ -95,10 +148,35 @@ public class UploadFile extends AbstractAzureMediator {
                 maxSingleUploadSize != null ? maxSingleUploadSize.longValue() * 1024L * 1024L : null;
         Long blockSizeL = blockSize != null ? blockSize.longValue() * 1024L * 1024L : null;
 
+        if (compression != Compression.NONE && Boolean.TRUE.equals(resumableUpload)) {
+            throw createConnectorException(Error.INVALID_CONFIGURATION, messageContext, new IllegalArgumentException(
+                    "A resumable upload cannot be compressed, since its checkpoint refers to offsets of the local "
+                            + "file"));
+        }
+        if (skipIfUnchanged && (AzureConstants.L_MESSAGE_BODY.equals(inputType) || compression != Compression.NONE)) {
+            throw createConnectorException(Error.INVALID_CONFIGURATION, messageContext, new IllegalArgumentException(
+                    "Unchanged content can only be skipped for an uncompressed local file or text, whose hash is "
+                            + "known before the upload"));
+        }
+
         try {
 
-            DataLakeFileClient dataLakeFileClient =
-                    getDataLakeFileClient(connectionName, fileSystemName, filePathToUpload);
+            DataLakeFileAsyncClient dataLakeFileAsyncClient =
+                    getDataLakeFileAsyncClient(connectionName, fileSystemName, filePathToUpload);
+            TransferTuner transferTuner = null;
+            TransferTuner.Settings transferSettings = null;
+            long contentLength = -1;
+            if (autoBlockSize || autoConcurrency) {
+                transferTuner = getTransferTuner(connectionName);
+                contentLength = getContentLength(inputType, localFilePath, textContent);
+                transferSettings = transferTuner.tune(contentLength).override(blockSizeL, maxConcurrency);
+                blockSizeL = transferSettings.getBlockSize();
+                maxConcurrency = transferSettings.getMaxConcurrency();
+                if (maxSingleUploadSizeL == null) {
+                    // Content that fits into a block is sent in a single request
+                    maxSingleUploadSizeL = blockSizeL;
+                }
+            }
             ParallelTransferOptions parallelTransferOptions = new ParallelTransferOptions()
                     .setBlockSizeLong(blockSizeL)
                     .setMaxConcurrency(maxConcurrency)
@@ -116,53 +194,255 @@ public class UploadFile extends AbstractAzureMediator {
                     .setCacheControl(cacheControl)
                     .setContentType(contentType)
                     .setContentDisposition(contentDisposition)
-                    .setContentEncoding(contentEncoding)
+                    .setContentEncoding(compression != Compression.NONE ?
+                            compression.getContentEncoding() : contentEncoding)
                     .setContentLanguage(contentLanguage);
 
-            Response<?> response = null;
-
-            if (localFilePath != null && textContent == null) {
-                byte[] fileContent = Files.readAllBytes(Paths.get(localFilePath));
+            Mono<? extends Response<?>> upload = Mono.empty();
+            AtomicLong bodyLength = new AtomicLong();
+            // The hash of content known before the upload, needed for its Content-MD5 or to compare it with the
+            // remote file
+            boolean hashBeforeUpload = checksumAlgorithm == ChecksumAlgorithm.MD5 || skipIfUnchanged;
+            Mono<byte[]> contentMd5 = Mono.empty();
 
-                response = dataLakeFileClient.uploadFromFileWithResponse(
-                        localFilePath,
-                        parallelTransferOptions,
-                        headers.setContentMd5(MessageDigest.getInstance("MD5").digest(fileContent)),
-                        metadataMap,
-                        null,
-                        timeout != null ? Duration.ofSeconds(timeout.longValue()) : null,
-                        null);
+            if (AzureConstants.L_MESSAGE_BODY.equals(inputType) || compression != Compression.NONE) {
+                Flux<ByteBuffer> content;
+                if (AzureConstants.L_MESSAGE_BODY.equals(inputType)) {
+                    org.apache.axis2.context.MessageContext axis2MessageContext =
+                            ((Axis2MessageContext) messageContext).getAxis2MessageContext();
+                    // The body is read on a worker thread, since a streamed payload may block while it arrives
+                    content = FluxUtil.toFluxByteBuffer(getMessageBody(messageContext), BODY_CHUNK_SIZE)
+                            .subscribeOn(Schedulers.boundedElastic());
+                    if (headers.getContentType() == null) {
+                        headers.setContentType(JsonUtil.hasAJsonPayload(axis2MessageContext) ?
+                                AzureConstants.JSON_CONTENT_TYPE :
+                                (String) axis2MessageContext.getProperty(
+                                        org.apache.axis2.Constants.Configuration.CONTENT_TYPE));
+                    }
+                } else if (localFilePath != null && textContent == null) {
+                    content = BinaryData.fromFile(Paths.get(localFilePath)).toFluxByteBuffer();
+                } else {
+                    content = BinaryData.fromString(textContent).toFluxByteBuffer();
+                }
+                // Compressed content is only known once it was produced, so it is streamed like the message body
+                content = compression.compress(content)
+                        .doOnNext(buffer -> bodyLength.addAndGet(buffer.remaining()));
+                if (checksumAlgorithm == ChecksumAlgorithm.MD5) {
+                    // The content can only be read once, so it is digested while it is uploaded. The Content-MD5
+                    // is sent with the flush, which starts only after the last block has been read.
+                    MessageDigest digest = MessageDigest.getInstance("MD5");
+                    content = content.doOnNext(buffer -> digest.update(buffer.duplicate()))
+                            .doOnComplete(() -> headers.setContentMd5(digest.digest()));
+                }
+                upload = dataLakeFileAsyncClient.uploadWithResponse(
+                        new FileParallelUploadOptions(content)
+                                .setHeaders(headers)
+                                .setParallelTransferOptions(parallelTransferOptions)
+                                .setMetadata(metadataMap));
+            } else if (localFilePath != null && textContent == null) {
+                Path file = Paths.get(localFilePath);
+                if (hashBeforeUpload) {
+                    contentMd5 = md5(file);
+                }
+                upload = uploadFile(dataLakeFileAsyncClient, file, contentMd5, headers, metadataMap,
+                        parallelTransferOptions, Boolean.TRUE.equals(resumableUpload), checkpointDirectory);
             } else if (textContent != null && localFilePath == null) {
-                response = dataLakeFileClient.uploadWithResponse(
-                        new FileParallelUploadOptions(BinaryData.fromString(textContent))
-                                .setHeaders(headers.setContentMd5(
-                                        MessageDigest.getInstance("MD5").digest(textContent.getBytes())))
+                byte[] content = textContent.getBytes(StandardCharsets.UTF_8);
+                if (hashBeforeUpload) {
+                    byte[] md5 = MessageDigest.getInstance("MD5").digest(content);
+                    headers.setContentMd5(md5);
+                    contentMd5 = Mono.just(md5);
+                }
+                upload = dataLakeFileAsyncClient.uploadWithResponse(
+                        new FileParallelUploadOptions(BinaryData.fromBytes(content))
+                                .setHeaders(headers)
                                 .setParallelTransferOptions(parallelTransferOptions)
-                                .setMetadata(metadataMap),
-                        timeout != null ? Duration.ofSeconds(timeout.longValue()) : null,
-                        null);
+                                .setMetadata(metadataMap));
+            }
+            if (transferTuner != null) {
+                // The tuner measures the bytes sent, which for compressed content are only known at the end
+                long knownLength = compression == Compression.NONE ? contentLength : -1;
+                upload = transferTuner.track(upload, transferSettings,
+                        () -> knownLength >= 0 ? knownLength : bodyLength.get());
+            }
+            Map<String, Object> attributes = getTransferAttributes(transferSettings);
+            if (checksumAlgorithm == ChecksumAlgorithm.CRC64) {
+                // Every block is appended with its CRC64, the pipeline picks the flag up from the context
+                upload = upload.contextWrite(context -> context.put(TransactionalCrc64Policy.CONTEXT_KEY, true));
             }
 
-            if (response != null && response.getStatusCode() == 200) {
-                JSONObject responseObject = new JSONObject();
-                responseObject.put(AzureConstants.STATUS, true);
-                responseObject.put(AzureConstants.MESSAGE, "Successfully uploaded the file");
-                handleConnectorResponse(messageContext, responseVariable, overwriteBody, responseObject, null, null);
+            RemoteHashCache remoteHashCache = getRemoteHashCache(connectionName);
+            long size = skipIfUnchanged ? getContentLength(inputType, localFilePath, textContent) : -1;
+            Mono<Boolean> unchanged = Mono.just(false);
+            if (skipIfUnchanged) {
+                RemoteHashCache lookupCache = cacheRemoteHashes ? remoteHashCache : null;
+                unchanged = contentMd5.flatMap(md5 -> isUnchanged(dataLakeFileAsyncClient, lookupCache, md5, size));
             }
-            // No 'else' block is needed because if the upload file operation fails,
-            // the SDK throws an exception. We only handle the success case explicitly
-            // (status code 200) and let exceptions propagate for error handling.
-
-        } catch (DataLakeStorageException e) {
-            handleConnectorException(Error.DATA_LAKE_STORAGE_GEN2_ERROR, messageContext, e);
-        } catch (ConnectException e) {
-            handleConnectorException(Error.CONNECTION_ERROR, messageContext, e);
-        } catch (NoSuchAlgorithmException e) {
-            handleConnectorException(Error.No_SUCH_ALGORITHM, messageContext, e);
-        } catch (IOException e) {
-            handleConnectorException(Error.IO_EXCEPTION, messageContext, e);
+            // Whether or not hashes are cached for this upload, it replaces the content a cached hash describes
+            upload = remoteHashCache.track(upload, dataLakeFileAsyncClient.getFileUrl(),
+                    skipIfUnchanged && cacheRemoteHashes ? headers::getContentMd5 : null, size);
+            Mono<? extends Response<?>> transfer = upload;
+
+            return withTimeout(unchanged.flatMap(skip -> skip ?
+                    Mono.fromCallable(() -> {
+                        JSONObject responseObject = new JSONObject();
+                        responseObject.put(AzureConstants.STATUS, true);
+                        responseObject.put(AzureConstants.MESSAGE, "The file is unchanged, skipped the upload");
+                        responseObject.put(AzureConstants.SKIPPED, true);
+                        handleConnectorResponse(messageContext, responseVariable, overwriteBody, responseObject,
+                                null, null);
+                        return skip;
+                    }).then() :
+                    transfer.flatMap(response -> Mono.fromCallable(() -> {
+                        if (response.getStatusCode() == 200) {
+                            JSONObject responseObject = new JSONObject();
+                            responseObject.put(AzureConstants.STATUS, true);
+                            responseObject.put(AzureConstants.MESSAGE, "Successfully uploaded the file");
+                            if (skipIfUnchanged) {
+                                responseObject.put(AzureConstants.SKIPPED, false);
+                            }
+                            handleConnectorResponse(messageContext, responseVariable, overwriteBody, responseObject,
+                                    null, attributes);
+                        }
+                        // No 'else' block is needed because if the upload file operation fails,
+                        // the SDK signals an error. We only handle the success case explicitly
+                        // (status code 200) and let errors propagate for error handling.
+                        return response;
+                    })).then()), timeout)
+                    .onErrorMap(e -> toConnectorException(messageContext, e));
+
         } catch (Exception e) {
-            handleConnectorException(Error.GENERAL_ERROR, messageContext, e);
+            throw toConnectorException(messageContext, e);
+        }
+    }
+
+    /**
+     * Digests a local file in a streaming pass, on a worker thread so that asynchronous dispatch does not wait for
+     * it. The digest is computed once, however often the result is subscribed to.
+     */
+    static Mono<byte[]> md5(Path file) {
+
+        return Mono.fromCallable(() -> Utils.md5(file)).subscribeOn(Schedulers.boundedElastic()).cache();
+    }
+
+    /**
+     * Uploads a local file, resumable or through the SDK. The Content-MD5, if any, is set on the headers before the
+     * upload starts.
+     *
+     * @param contentMd5 the MD5 of the file, or an empty Mono if none is sent
+     */
+    static Mono<? extends Response<?>> uploadFile(DataLakeFileAsyncClient dataLakeFileAsyncClient, Path file,
+                                                  Mono<byte[]> contentMd5, PathHttpHeaders headers,
+                                                  Map<String, String> metadataMap,
+                                                  ParallelTransferOptions parallelTransferOptions,
+                                                  boolean resumable, String checkpointDirectory) {
+
+        Mono<PathHttpHeaders> uploadHeaders = contentMd5.map(headers::setContentMd5).defaultIfEmpty(headers);
+        if (resumable) {
+            ResumableUpload resumableUpload = new ResumableUpload(dataLakeFileAsyncClient, file,
+                    checkpointDirectory, parallelTransferOptions.getBlockSizeLong(),
+                    parallelTransferOptions.getMaxConcurrency(), headers, metadataMap, false);
+            return uploadHeaders.then(resumableUpload.upload());
+        }
+        return uploadHeaders.flatMap(pathHttpHeaders ->
+                dataLakeFileAsyncClient.uploadFromFileWithResponse(
+                        file.toString(),
+                        parallelTransferOptions,
+                        pathHttpHeaders,
+                        metadataMap,
+                        null));
+    }
+
+    /**
+     * Tells whether the remote file already holds the content with the given hash and length. The remote hash cache
+     * answers for files it knows, the properties of the remote file for the others. A file that does not exist or
+     * has no Content-MD5 is never unchanged.
+     */
+    private static Mono<Boolean> isUnchanged(DataLakeFileAsyncClient dataLakeFileAsyncClient,
+                                             RemoteHashCache remoteHashCache, byte[] contentMd5, long size) {
+
+        String fileUrl = dataLakeFileAsyncClient.getFileUrl();
+        RemoteHashCache.Entry cached = remoteHashCache != null ? remoteHashCache.get(fileUrl) : null;
+        if (cached != null) {
+            return Mono.just(cached.matches(contentMd5, size));
+        }
+        return dataLakeFileAsyncClient.getProperties()
+                .map(properties -> {
+                    byte[] remoteMd5 = properties.getContentMd5();
+                    if (remoteMd5 == null) {
+                        return false;
+                    }
+                    if (remoteHashCache != null) {
+                        remoteHashCache.put(fileUrl, remoteMd5, properties.getFileSize());
+                    }
+                    return properties.getFileSize() == size && Arrays.equals(remoteMd5, contentMd5);
+                })
+                .onErrorResume(e -> e instanceof DataLakeStorageException &&
+                        ((DataLakeStorageException) e).getStatusCode() == 404, e -> Mono.just(false));
+    }
+
+    /**
+     * Returns the size of the content to upload, or -1 if it is only known once the message body was read.
+     */
+    private static long getContentLength(String inputType, String localFilePath, String textContent)
+            throws IOException {
+
+        if (AzureConstants.L_MESSAGE_BODY.equals(inputType)) {
+            return -1;
+        } else if (localFilePath != null && textContent == null) {
+            return Files.size(Paths.get(localFilePath));
+        } else if (textContent != null) {
+            return textContent.getBytes(StandardCharsets.UTF_8).length;
+        }
+        return -1;
+    }
+
+    /**
+     * Opens the payload of the message as a stream. Binary payloads are streamed from their data handler and JSON
+     * payloads from the JSON stream, without converting them to a string. Text payloads are sent as UTF-8 and
+     * other XML payloads in their serialized form.
+     */
+    private static InputStream getMessageBody(MessageContext messageContext) throws IOException, XMLStreamException {
+
+        org.apache.axis2.context.MessageContext axis2MessageContext =
+                ((Axis2MessageContext) messageContext).getAxis2MessageContext();
+        RelayUtils.buildMessage(axis2MessageContext);
+        if (JsonUtil.hasAJsonPayload(axis2MessageContext)) {
+            return JsonUtil.getJsonPayload(axis2MessageContext);
+        }
+        OMElement payload = messageContext.getEnvelope().getBody().getFirstElement();
+        if (payload == null) {
+            return new ByteArrayInputStream(new byte[0]);
+        }
+        if (BINARY_PAYLOAD.equals(payload.getQName()) && payload.getFirstOMChild() instanceof OMText) {
+            OMText binary = (OMText) payload.getFirstOMChild();
+            if (binary.isBinary()) {
+                return ((DataHandler) binary.getDataHandler()).getInputStream();
+            }
+        }
+        if (TEXT_PAYLOAD.equals(payload.getQName())) {
+            return new ByteArrayInputStream(payload.getText().getBytes(StandardCharsets.UTF_8));
+        }
+        ByteArrayOutputStream xml = new ByteArrayOutputStream();
+        payload.serialize(xml);
+        return new ByteArrayInputStream(xml.toByteArray());
+    }
+
+    private SynapseException toConnectorException(MessageContext messageContext, Throwable e) {
+
+        if (e instanceof SynapseException) {
+            return (SynapseException) e;
+        } else if (e instanceof DataLakeStorageException) {
+            return createConnectorException(Error.DATA_LAKE_STORAGE_GEN2_ERROR, messageContext, e);
+        } else if (e instanceof ConnectException) {
+            return createConnectorException(Error.CONNECTION_ERROR, messageContext, e);
+        } else if (e instanceof NoSuchAlgorithmException) {
+            return createConnectorException(Error.No_SUCH_ALGORITHM, messageContext, e);
+        } else if (e instanceof IOException) {
+            return createConnectorException(Error.IO_EXCEPTION, messageContext, e);
+        } else if (e instanceof TimeoutException) {
+            return createConnectorException(Error.TIMEOUT_ERROR, messageContext, e);
         }
+        return createConnectorException(Error.GENERAL_ERROR, messageContext, e);
     }
 }
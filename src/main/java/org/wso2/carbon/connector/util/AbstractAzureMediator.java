@@ -18,12 +18,17 @@
 package org.wso2.carbon.connector.util;
 
 import com.azure.storage.file.datalake.DataLakeDirectoryClient;
+import com.azure.storage.file.datalake.DataLakeFileAsyncClient;
 import com.azure.storage.file.datalake.DataLakeFileClient;
 import com.azure.storage.file.datalake.DataLakeFileSystemClient;
+import com.azure.storage.file.datalake.DataLakeServiceAsyncClient;
 import com.azure.storage.file.datalake.DataLakeServiceClient;
 import com.azure.storage.file.datalake.models.DataLakeRequestConditions;
 import com.azure.storage.file.datalake.models.LeaseAction;
 import org.apache.axis2.AxisFault;
+import org.apache.commons.lang.StringUtils;
+import org.apache.synapse.FaultHandler;
+import org.apache.synapse.Mediator;
 import org.apache.synapse.MessageContext;
 import org.apache.synapse.SynapseConstants;
 import org.apache.synapse.SynapseException;
@@ -31,27 +36,51 @@ import org.apache.synapse.commons.json.JsonUtil;
 import org.apache.synapse.core.axis2.Axis2MessageContext;
 import org.apache.synapse.data.connector.ConnectorResponse;
 import org.apache.synapse.data.connector.DefaultConnectorResponse;
+import org.apache.synapse.mediators.base.SequenceMediator;
 import org.jaxen.JaxenException;
+import org.wso2.carbon.connector.connection.AppendBuffer;
+import org.wso2.carbon.connector.connection.AppendOffsetTracker;
 import org.wso2.carbon.connector.connection.AzureStorageConnectionHandler;
+import org.wso2.carbon.connector.connection.CircuitBreaker;
+import org.wso2.carbon.connector.connection.ClientLease;
+import org.wso2.carbon.connector.connection.ConcurrencyLimiter;
+import org.wso2.carbon.connector.connection.PathClientCache;
+import org.wso2.carbon.connector.connection.RemoteHashCache;
+import org.wso2.carbon.connector.connection.TransferTuner;
 import org.wso2.carbon.connector.core.AbstractConnector;
 import org.wso2.carbon.connector.core.ConnectException;
 import org.wso2.carbon.connector.core.connection.ConnectionHandler;
+import reactor.core.publisher.Mono;
 
+import java.time.Duration;
 import java.time.OffsetDateTime;
 import java.time.format.DateTimeParseException;
+import java.util.HashMap;
 import java.util.Map;
 import java.util.Objects;
+import java.util.Stack;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /**
  * Abstract class for handling common Azure operations.
  */
 public abstract class AbstractAzureMediator extends AbstractConnector {
 
+    /**
+     * The scope of the operation running on the current thread, holding the client leased for it.
+     */
+    private static final ThreadLocal<OperationScope> ACTIVE_SCOPE = new ThreadLocal<>();
+
     @SuppressWarnings("unchecked")
     public static <T> T parse(String value, Class<T> type) throws IllegalArgumentException {
 
         if (type == Integer.class) {
             return (T) Integer.valueOf(value);
+        } else if (type == Long.class) {
+            return (T) Long.valueOf(value);
         } else if (type == Double.class) {
             return (T) Double.valueOf(value);
         } else if (type == Boolean.class) {
@@ -81,6 +110,53 @@ public abstract class AbstractAzureMediator extends AbstractConnector {
     abstract public void execute(MessageContext messageContext, String responseVariable, Boolean overwriteBody)
             throws JaxenException;
 
+    /**
+     * Runs the operation on the asynchronous service client. The returned {@link Mono} completes once the result of
+     * the operation has been set on the message. Operations that have no asynchronous implementation run
+     * {@link #execute(MessageContext, String, Boolean)} on the offload executor of the connection if offload
+     * execution is enabled, and on the subscribing thread otherwise.
+     *
+     * @param messageContext   the message context.
+     * @param responseVariable the variable to store the result in.
+     * @param overwriteBody    whether to replace the message body with the result.
+     * @return the pending operation.
+     * @throws JaxenException if a parameter expression cannot be evaluated.
+     */
+    protected Mono<Void> executeAsync(MessageContext messageContext, String responseVariable,
+                                      Boolean overwriteBody) throws JaxenException {
+
+        OperationScope scope = ACTIVE_SCOPE.get();
+        if (scope == null || scope.connection == null || !scope.connection.getOffloadExecutor().isEnabled()) {
+            return Mono.fromRunnable(() -> executeOperation(messageContext, responseVariable, overwriteBody));
+        }
+        return scope.connection.getOffloadExecutor().execute(() -> {
+                    // The offload thread uses the client leased by the dispatching thread
+                    ACTIVE_SCOPE.set(scope);
+                    try {
+                        executeOperation(messageContext, responseVariable, overwriteBody);
+                    } finally {
+                        ACTIVE_SCOPE.remove();
+                    }
+                })
+                .onErrorMap(RejectedExecutionException.class,
+                        e -> createConnectorException(Error.THROTTLED, messageContext, e))
+                .onErrorMap(TimeoutException.class,
+                        e -> createConnectorException(Error.TIMEOUT_ERROR, messageContext, e));
+    }
+
+    @Override
+    public boolean mediate(MessageContext messageContext) {
+
+        String resumeSequence =
+                getMediatorParameter(messageContext, AzureConstants.RESUME_SEQUENCE, String.class, true);
+        if (StringUtils.isEmpty(resumeSequence)) {
+            return super.mediate(messageContext);
+        }
+        dispatchAsync(messageContext, resumeSequence);
+        // The mediation thread is released, mediation resumes in the resume sequence once the operation completes
+        return false;
+    }
+
     @Override
     public void connect(MessageContext messageContext) {
 
@@ -89,6 +165,21 @@ public abstract class AbstractAzureMediator extends AbstractConnector {
                                                       );
         Boolean overwriteBody = getMediatorParameter(
                 messageContext, AzureConstants.OVERWRITE_BODY, Boolean.class, false);
+        OperationScope scope = openScope(messageContext);
+        boolean serviceFailure = false;
+        try {
+            executeOperation(messageContext, responseVariable, overwriteBody);
+        } catch (RuntimeException e) {
+            serviceFailure = CircuitBreaker.isServiceFailure(e);
+            throw e;
+        } finally {
+            ACTIVE_SCOPE.remove();
+            scope.close(serviceFailure);
+        }
+    }
+
+    private void executeOperation(MessageContext messageContext, String responseVariable, Boolean overwriteBody) {
+
         try {
             execute(messageContext, responseVariable, overwriteBody);
         } catch (JaxenException e) {
@@ -96,6 +187,126 @@ public abstract class AbstractAzureMediator extends AbstractConnector {
         }
     }
 
+    /**
+     * Starts the operation without waiting for it to complete. Once it completes, the message is injected into the
+     * resume sequence on a Synapse worker thread, or handed to the fault handler of the flow if the operation
+     * failed. The circuit breaker, concurrency permit and client lease are held until then.
+     */
+    private void dispatchAsync(MessageContext messageContext, String resumeSequenceName) {
+
+        Mediator resumeSequence = messageContext.getSequence(resumeSequenceName);
+        if (!(resumeSequence instanceof SequenceMediator)) {
+            handleConnectorException(Error.INVALID_CONFIGURATION, messageContext,
+                    new IllegalArgumentException("Resume sequence " + resumeSequenceName + " does not exist"));
+        }
+        String responseVariable = getMediatorParameter(
+                messageContext, AzureConstants.RESPONSE_VARIABLE, String.class, false);
+        Boolean overwriteBody = getMediatorParameter(
+                messageContext, AzureConstants.OVERWRITE_BODY, Boolean.class, false);
+        OperationScope scope = openScope(messageContext);
+        boolean subscribed = false;
+        try {
+            executeAsync(messageContext, responseVariable, overwriteBody).subscribe(null, error -> {
+                scope.close(CircuitBreaker.isServiceFailure(error));
+                resumeWithFault(messageContext, error);
+            }, () -> {
+                scope.close(false);
+                messageContext.getEnvironment().injectAsync(messageContext, (SequenceMediator) resumeSequence);
+            });
+            subscribed = true;
+        } catch (JaxenException e) {
+            handleException("Error in executing the connector", e, messageContext);
+        } finally {
+            ACTIVE_SCOPE.remove();
+            if (!subscribed) {
+                scope.close(false);
+            }
+        }
+    }
+
+    /**
+     * Hands the error of an asynchronous operation to the innermost fault handler of the flow, the way Synapse
+     * reports errors of non-blocking calls.
+     */
+    private void resumeWithFault(MessageContext messageContext, Throwable error) {
+
+        Exception exception = error instanceof Exception ? (Exception) error : new SynapseException(error);
+        messageContext.getEnvironment().getExecutorService().execute(() -> {
+            Stack<FaultHandler> faultStack = messageContext.getFaultStack();
+            if (faultStack.isEmpty()) {
+                log.error("No fault handler is available for the failed asynchronous operation", exception);
+            } else {
+                faultStack.pop().handleFault(messageContext, exception);
+            }
+        });
+    }
+
+    /**
+     * Acquires what the operation needs to run on the connection used by the message: a go from the circuit
+     * breaker, a concurrency permit and a lease on the service client. The scope is bound to the current thread
+     * until it is removed by the caller. Nothing is acquired if the connection cannot be resolved, in which case
+     * the operation reports the error itself.
+     */
+    private OperationScope openScope(MessageContext messageContext) {
+
+        Object connectionName = messageContext.getProperty(AzureConstants.CONNECTION_NAME);
+        if (connectionName == null) {
+            return OperationScope.EMPTY;
+        }
+        AzureStorageConnectionHandler connection;
+        try {
+            connection = getConnectionHandler(connectionName.toString());
+        } catch (ConnectException e) {
+            return OperationScope.EMPTY;
+        }
+        CircuitBreaker circuitBreaker = connection.getCircuitBreaker();
+        if (!circuitBreaker.allowRequest()) {
+            handleConnectorException(Error.THROTTLED, messageContext);
+        }
+        ConcurrencyLimiter.Permit permit = null;
+        try {
+            permit = connection.getConcurrencyLimiter().acquire();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            circuitBreaker.releaseProbe();
+            handleConnectorException(Error.GENERAL_ERROR, messageContext, e);
+        }
+        if (permit == null) {
+            circuitBreaker.releaseProbe();
+            handleConnectorException(Error.THROTTLED, messageContext);
+        }
+        // The lease keeps the client open even if the connection is reconfigured while the operation runs
+        ClientLease lease = null;
+        try {
+            lease = connection.leaseDataLakeServiceClient();
+        } catch (ConnectException e) {
+            // The operation reports the error when it asks for the client
+        }
+        OperationScope scope = new OperationScope(connectionName.toString(), connection, permit, lease);
+        ACTIVE_SCOPE.set(scope);
+        return scope;
+    }
+
+    /**
+     * Keeps the concurrency permit and client lease of the operation running on the current thread past the end of
+     * the operation, for content that is read after the operation completes. They are released, and the outcome
+     * reported to the circuit breaker, once both the operation and the hold are done.
+     *
+     * @return releases the hold, only its first run has an effect.
+     */
+    protected static Runnable holdScope() {
+
+        OperationScope scope = ACTIVE_SCOPE.get();
+        return scope != null && scope.connection != null ? scope.hold() : () -> {
+        };
+    }
+
+    private static AzureStorageConnectionHandler getConnectionHandler(String connectionName) throws ConnectException {
+
+        ConnectionHandler handler = ConnectionHandler.getConnectionHandler();
+        return (AzureStorageConnectionHandler) handler.getConnection(AzureConstants.CONNECTOR_NAME, connectionName);
+    }
+
     protected <T> T getMediatorParameter(
             MessageContext messageContext, String parameterName, Class<T> type, boolean isOptional) {
 
@@ -128,6 +339,53 @@ public abstract class AbstractAzureMediator extends AbstractConnector {
         return null;
     }
 
+    /**
+     * Reads the checksum algorithm of an upload or append operation.
+     *
+     * @param messageContext the message context.
+     * @return the algorithm, MD5 if the parameter is not set.
+     */
+    protected ChecksumAlgorithm getChecksumAlgorithm(MessageContext messageContext) {
+
+        String checksumAlgorithm =
+                getMediatorParameter(messageContext, AzureConstants.CHECKSUM_ALGORITHM, String.class, true);
+        try {
+            return ChecksumAlgorithm.fromString(checksumAlgorithm);
+        } catch (IllegalArgumentException e) {
+            throw createConnectorException(Error.INVALID_CONFIGURATION, messageContext, e);
+        }
+    }
+
+    /**
+     * Reads the compression of an upload operation.
+     *
+     * @param messageContext the message context.
+     * @return the compression, NONE if the parameter is not set.
+     */
+    protected Compression getCompression(MessageContext messageContext) {
+
+        String compression = getMediatorParameter(messageContext, AzureConstants.COMPRESS, String.class, true);
+        try {
+            return Compression.fromString(compression);
+        } catch (IllegalArgumentException e) {
+            throw createConnectorException(Error.INVALID_CONFIGURATION, messageContext, e);
+        }
+    }
+
+    /**
+     * Tells whether a transfer parameter is set to {@link AzureConstants#AUTO}, leaving its value to the transfer
+     * tuner of the connection.
+     *
+     * @param messageContext the message context.
+     * @param parameterName  the name of the parameter.
+     * @return whether the parameter is tuned automatically.
+     */
+    protected boolean isAutoTuned(MessageContext messageContext, String parameterName) {
+
+        return AzureConstants.AUTO.equalsIgnoreCase(
+                getMediatorParameter(messageContext, parameterName, String.class, true));
+    }
+
     /**
      * Creates and returns a {@link DataLakeRequestConditions} object with the specified conditions.
      *
@@ -208,11 +466,26 @@ public abstract class AbstractAzureMediator extends AbstractConnector {
      */
     public void handleConnectorException(Error code, MessageContext mc, Throwable e) {
 
+        throw createConnectorException(code, mc, e);
+    }
+
+    /**
+     * Logs the given error code and message along with the provided exception, sets the corresponding error
+     * properties in the {@link MessageContext}, and returns a {@link SynapseException} with the error message and
+     * cause. Used to signal the errors of asynchronous operations.
+     *
+     * @param code the {@link Error} object containing the error code and message
+     * @param mc   the {@link MessageContext} in which the error properties should be set
+     * @param e    the {@link Throwable} exception that caused this error
+     * @return a {@link SynapseException} with the error message and cause from the provided {@link Error} object
+     */
+    public SynapseException createConnectorException(Error code, MessageContext mc, Throwable e) {
+
         this.log.error(code.getErrorMessage(), e);
 
         mc.setProperty(SynapseConstants.ERROR_CODE, code.getErrorCode());
         mc.setProperty(SynapseConstants.ERROR_MESSAGE, code.getErrorMessage());
-        throw new SynapseException(code.getErrorMessage(), e);
+        return new SynapseException(code.getErrorMessage(), e);
     }
 
     /**
@@ -261,32 +534,227 @@ public abstract class AbstractAzureMediator extends AbstractConnector {
     public DataLakeServiceClient getDataLakeServiceClient(
             String connectionName) throws ConnectException {
 
-        ConnectionHandler handler = ConnectionHandler.getConnectionHandler();
-        AzureStorageConnectionHandler azureStorageConnectionHandler =
-                (AzureStorageConnectionHandler) handler.getConnection(AzureConstants.CONNECTOR_NAME,
-                        connectionName);
-        return azureStorageConnectionHandler.getDataLakeServiceClient();
+        OperationScope scope = ACTIVE_SCOPE.get();
+        if (scope != null && scope.isLeased(connectionName)) {
+            return scope.lease.getClient();
+        }
+        return getConnectionHandler(connectionName).getDataLakeServiceClient();
+    }
+
+    public DataLakeServiceAsyncClient getDataLakeServiceAsyncClient(
+            String connectionName) throws ConnectException {
+
+        OperationScope scope = ACTIVE_SCOPE.get();
+        if (scope != null && scope.isLeased(connectionName)) {
+            return scope.lease.getAsyncClient();
+        }
+        return getConnectionHandler(connectionName).getDataLakeServiceAsyncClient();
+    }
+
+    public DataLakeFileAsyncClient getDataLakeFileAsyncClient(
+            String connectionName, String fileSystemName, String filePath) throws ConnectException {
+
+        DataLakeServiceAsyncClient serviceClient = getDataLakeServiceAsyncClient(connectionName);
+        return getPathClientCache(connectionName).get(serviceClient, DataLakeFileAsyncClient.class, fileSystemName,
+                filePath, () -> serviceClient.getFileSystemAsyncClient(fileSystemName).getFileAsyncClient(filePath));
+    }
+
+    /**
+     * Returns the path client cache of the connection, without looking the connection up again if the operation
+     * running on the current thread uses it.
+     */
+    private static PathClientCache getPathClientCache(String connectionName) throws ConnectException {
+
+        OperationScope scope = ACTIVE_SCOPE.get();
+        if (scope != null && scope.connection != null && scope.connectionName.equals(connectionName)) {
+            return scope.connection.getPathClientCache();
+        }
+        return getConnectionHandler(connectionName).getPathClientCache();
+    }
+
+    /**
+     * Returns the transfer tuner of the connection.
+     */
+    protected static TransferTuner getTransferTuner(String connectionName) throws ConnectException {
+
+        OperationScope scope = ACTIVE_SCOPE.get();
+        if (scope != null && scope.connection != null && scope.connectionName.equals(connectionName)) {
+            return scope.connection.getTransferTuner();
+        }
+        return getConnectionHandler(connectionName).getTransferTuner();
+    }
+
+    /**
+     * Returns the cache of the hashes of remote files of the connection.
+     */
+    protected static RemoteHashCache getRemoteHashCache(String connectionName) throws ConnectException {
+
+        OperationScope scope = ACTIVE_SCOPE.get();
+        if (scope != null && scope.connection != null && scope.connectionName.equals(connectionName)) {
+            return scope.connection.getRemoteHashCache();
+        }
+        return getConnectionHandler(connectionName).getRemoteHashCache();
+    }
+
+    /**
+     * Returns the tracker of the append positions of the connection.
+     */
+    protected static AppendOffsetTracker getAppendOffsetTracker(String connectionName) throws ConnectException {
+
+        OperationScope scope = ACTIVE_SCOPE.get();
+        if (scope != null && scope.connection != null && scope.connectionName.equals(connectionName)) {
+            return scope.connection.getAppendOffsetTracker();
+        }
+        return getConnectionHandler(connectionName).getAppendOffsetTracker();
+    }
+
+    /**
+     * Returns the write-behind buffer of the appends of the connection.
+     */
+    protected static AppendBuffer getAppendBuffer(String connectionName) throws ConnectException {
+
+        OperationScope scope = ACTIVE_SCOPE.get();
+        if (scope != null && scope.connection != null && scope.connectionName.equals(connectionName)) {
+            return scope.connection.getAppendBuffer();
+        }
+        return getConnectionHandler(connectionName).getAppendBuffer();
+    }
+
+    /**
+     * Returns the response attributes that report the settings chosen for an auto-tuned transfer.
+     *
+     * @param settings the settings of the transfer, or {@code null} if it was not tuned.
+     * @return the block size in MB and the concurrency, or {@code null} if the transfer was not tuned.
+     */
+    protected static Map<String, Object> getTransferAttributes(TransferTuner.Settings settings) {
+
+        if (settings == null) {
+            return null;
+        }
+        Map<String, Object> attributes = new HashMap<>();
+        attributes.put(AzureConstants.BLOCK_SIZE, settings.getBlockSize() / (1024L * 1024L));
+        attributes.put(AzureConstants.MAX_CONCURRENCY, settings.getMaxConcurrency());
+        return attributes;
+    }
+
+    /**
+     * Applies the operation timeout to an asynchronous operation.
+     *
+     * @param operation the operation.
+     * @param timeout   the timeout in seconds, or {@code null} for no timeout.
+     * @return the operation failing with a {@link java.util.concurrent.TimeoutException} once the timeout elapses.
+     */
+    protected static <T> Mono<T> withTimeout(Mono<T> operation, Integer timeout) {
+
+        return timeout != null ? operation.timeout(Duration.ofSeconds(timeout.longValue())) : operation;
     }
 
     public DataLakeFileSystemClient getDataLakeFileSystemClient(
             String connectionName, String fileSystemName) throws ConnectException {
 
         DataLakeServiceClient dataLakeServiceClient = getDataLakeServiceClient(connectionName);
-        return dataLakeServiceClient.getFileSystemClient(fileSystemName);
+        return getPathClientCache(connectionName).get(dataLakeServiceClient, DataLakeFileSystemClient.class,
+                fileSystemName, null, () -> dataLakeServiceClient.getFileSystemClient(fileSystemName));
     }
 
     public DataLakeFileClient getDataLakeFileClient(
             String connectionName, String fileSystemName, String directoryName) throws ConnectException {
 
-        DataLakeFileSystemClient dataLakeFileSystemClient = getDataLakeFileSystemClient(connectionName, fileSystemName);
-        return dataLakeFileSystemClient.getFileClient(directoryName);
+        DataLakeServiceClient dataLakeServiceClient = getDataLakeServiceClient(connectionName);
+        return getPathClientCache(connectionName).get(dataLakeServiceClient, DataLakeFileClient.class,
+                fileSystemName, directoryName,
+                () -> dataLakeServiceClient.getFileSystemClient(fileSystemName).getFileClient(directoryName));
     }
 
     public DataLakeDirectoryClient getDataLakeDirectoryClient(
             String connectionName, String fileSystemName, String directoryName) throws ConnectException {
 
-        DataLakeFileSystemClient dataLakeFileSystemClient = getDataLakeFileSystemClient(connectionName, fileSystemName);
-        return dataLakeFileSystemClient.getDirectoryClient(directoryName);
+        DataLakeServiceClient dataLakeServiceClient = getDataLakeServiceClient(connectionName);
+        return getPathClientCache(connectionName).get(dataLakeServiceClient, DataLakeDirectoryClient.class,
+                fileSystemName, directoryName,
+                () -> dataLakeServiceClient.getFileSystemClient(fileSystemName).getDirectoryClient(directoryName));
     }
 
+    /**
+     * The connection used by a running operation, together with the concurrency permit and client lease it holds.
+     */
+    private static final class OperationScope {
+
+        private static final OperationScope EMPTY = new OperationScope(null, null, null, null);
+
+        private final String connectionName;
+        private final AzureStorageConnectionHandler connection;
+        private final CircuitBreaker circuitBreaker;
+        private final ConcurrencyLimiter.Permit permit;
+        private final ClientLease lease;
+        private final AtomicInteger holds = new AtomicInteger(1);
+        private volatile boolean serviceFailure;
+
+        private OperationScope(String connectionName, AzureStorageConnectionHandler connection,
+                               ConcurrencyLimiter.Permit permit, ClientLease lease) {
+
+            this.connectionName = connectionName;
+            this.connection = connection;
+            this.circuitBreaker = connection != null ? connection.getCircuitBreaker() : null;
+            this.permit = permit;
+            this.lease = lease;
+        }
+
+        private boolean isLeased(String connection) {
+
+            return lease != null && connectionName.equals(connection);
+        }
+
+        /**
+         * Keeps the scope open until the returned hold is released as well.
+         */
+        private Runnable hold() {
+
+            holds.incrementAndGet();
+            AtomicBoolean released = new AtomicBoolean();
+            return () -> {
+                if (released.compareAndSet(false, true)) {
+                    release();
+                }
+            };
+        }
+
+        /**
+         * Ends the operation, releasing everything held by it and reporting its outcome unless the scope is held.
+         *
+         * @param serviceFailure whether the operation failed because the storage account was unhealthy.
+         */
+        private void close(boolean serviceFailure) {
+
+            if (serviceFailure) {
+                this.serviceFailure = true;
+            }
+            release();
+        }
+
+        private void release() {
+
+            // Nothing is held by an operation without a connection
+            if (connection == null || holds.decrementAndGet() != 0) {
+                return;
+            }
+            if (lease != null) {
+                lease.close();
+            }
+            if (permit != null) {
+                permit.release(serviceFailure);
+            }
+            if (circuitBreaker != null) {
+                if (serviceFailure) {
+                    circuitBreaker.recordFailure();
+                } else if (lease == null) {
+                    // Without a client the operation failed before it could reach the storage account
+                    circuitBreaker.releaseProbe();
+                } else {
+                    // Any other outcome shows that the storage account is responding
+                    circuitBreaker.recordSuccess();
+                }
+            }
+        }
+    }
 }
@@ -41,6 +41,8 @@ public class AzureConstants {
     public static final String PROTOCOL_KEY_PARAM = "DefaultEndpointsProtocol=";
     public static final String SEMICOLON = ";";
     public static final String LOCAL_FILE_PATH = "localFilePath";
+    public static final String LOCAL_DIRECTORY_PATH = "localDirectoryPath";
+    public static final String MAX_PARALLEL_UPLOADS = "maxParallelUploads";
     public static final String FILE_PATH_TO_UPLOAD = "filePathToUpload";
     public static final String TEXT_CONTENT = "textContent";
     public static final String FILE_PATH_TO_ADD_META_DATA = "filePathToAddMetaData";
@@ -50,7 +52,9 @@ public class AzureConstants {
     public static final String HTTPS_PROTOCOL = "https://";
     public static final String RESPONSE_VARIABLE = "responseVariable";
     public static final String OVERWRITE_BODY = "overwriteBody";
+    public static final String RESUME_SEQUENCE = "resumeSequence";
     public static final String JSON_CONTENT_TYPE = "application/json";
+    public static final String BINARY_CONTENT_TYPE = "application/octet-stream";
     public static final String TIMEOUT = "timeout";
     public static final String PREFIX = "prefix";
     public static final String RECURSIVE = "recursive";
@@ -72,6 +76,27 @@ public class AzureConstants {
     public static final String BLOCK_SIZE = "blockSize";
     public static final String MAX_SINGLE_UPLOAD_SIZE = "maxSingleUploadSize";
     public static final String MAX_CONCURRENCY = "maxConcurrency";
+    public static final String CHECKSUM_ALGORITHM = "checksumAlgorithm";
+    public static final String AUTO = "auto";
+    public static final String RESUMABLE_UPLOAD = "resumableUpload";
+    public static final String CHECKPOINT_DIRECTORY = "checkpointDirectory";
+    public static final String COMPRESS = "compress";
+    public static final String DECOMPRESS = "decompress";
+    public static final String STREAM_CONTENT = "streamContent";
+    public static final String CHARSET = "charset";
+    public static final String MAX_BYTES = "maxBytes";
+    public static final String NEXT_OFFSET = "nextOffset";
+    public static final String E_TAG = "eTag";
+    public static final String COMPLETE = "complete";
+    public static final String SKIP_IF_UNCHANGED = "skipIfUnchanged";
+    public static final String CACHE_REMOTE_HASHES = "cacheRemoteHashes";
+    public static final String BUFFER_APPEND = "bufferAppend";
+    public static final String PARALLEL_APPEND = "parallelAppend";
+    public static final String RECORDS = "records";
+    public static final String RECORDS_PATH = "recordsPath";
+    public static final String RECORD_FORMAT = "recordFormat";
+    public static final String RECORD_DELIMITER = "recordDelimiter";
+    public static final String SKIPPED = "skipped";
     public static final String PERMISSIONS = "permissions";
     public static final String UMASK = "umask";
     public static final String OWNER = "owner";
@@ -97,6 +122,8 @@ public class AzureConstants {
     public static final String INPUT_TYPE = "inputType";
     public static final String L_TEXT_CONTENT = "Text Content";
     public static final String L_LOCAL_FILE_PATH = "Local File";
+    public static final String L_MESSAGE_BODY = "Message Body";
+    public static final String L_RECORDS = "Records";
     public static final String PROPOSED_LEASE_ID = "proposedLeaseId";
     public static final String FILE_PATH_TO_FLUSH = "filePathToFlush";
     public static final String FILE_LENGTH = "fileLength";
@@ -110,6 +137,46 @@ public class AzureConstants {
     public static final String LENGTH = "length";
     public static final String RESULT = "result";
     public static final String APPENDSIZE = "appendSize";
+    public static final String RECORD_COUNT = "recordCount";
+    public static final String TOTAL_FILES = "totalFiles";
+    public static final String UPLOADED_FILES = "uploadedFiles";
+    public static final String FAILED_FILES = "failedFiles";
+    public static final String TOTAL_BYTES = "totalBytes";
+    public static final String CREATED_DIRECTORIES = "createdDirectories";
+    public static final String ELAPSED_TIME = "elapsedTime";
+    public static final String FILES = "files";
+    public static final String SIZE = "size";
+    public static final String ERROR = "error";
+    public static final String MAX_CONNECTIONS = "maxConnections";
+    public static final String MAX_PENDING_ACQUIRES = "maxPendingAcquires";
+    public static final String PENDING_ACQUIRE_TIMEOUT = "pendingAcquireTimeout";
+    public static final String MAX_IDLE_TIME = "maxIdleTime";
+    public static final String MAX_LIFE_TIME = "maxLifeTime";
+    public static final String EVICTION_INTERVAL = "evictionInterval";
+    public static final String CONNECT_TIMEOUT = "connectTimeout";
+    public static final String RESPONSE_TIMEOUT = "responseTimeout";
+    public static final String EVENT_LOOP_THREADS = "eventLoopThreads";
+    public static final String WARM_UP = "warmUp";
+    public static final String WARM_UP_CONNECTIONS = "warmUpConnections";
+    public static final String MAX_RETRIES = "maxRetries";
+    public static final String RETRY_DELAY = "retryDelay";
+    public static final String MAX_RETRY_DELAY = "maxRetryDelay";
+    public static final String RETRY_JITTER = "retryJitter";
+    public static final String TRY_TIMEOUT = "tryTimeout";
+    public static final String CIRCUIT_BREAKER_THRESHOLD = "circuitBreakerThreshold";
+    public static final String CIRCUIT_BREAKER_OPEN_TIME = "circuitBreakerOpenTime";
+    public static final String ADAPTIVE_CONCURRENCY = "adaptiveConcurrency";
+    public static final String INITIAL_CONCURRENCY_LIMIT = "initialConcurrencyLimit";
+    public static final String MAX_CONCURRENCY_LIMIT = "maxConcurrencyLimit";
+    public static final String CONCURRENCY_LATENCY_THRESHOLD = "concurrencyLatencyThreshold";
+    public static final String CONCURRENCY_QUEUE_TIMEOUT = "concurrencyQueueTimeout";
+    public static final String OFFLOAD_EXECUTION = "offloadExecution";
+    public static final String MAX_OFFLOADED_OPERATIONS = "maxOffloadedOperations";
+    public static final String OFFLOAD_TIMEOUT = "offloadTimeout";
+    public static final String PATH_CLIENT_CACHE_SIZE = "pathClientCacheSize";
+    public static final String APPEND_BUFFER_SIZE = "appendBufferSize";
+    public static final String APPEND_BUFFER_LINGER_TIME = "appendBufferLingerTime";
+    public static final String APPEND_BUFFER_MEMORY = "appendBufferMemory";
 
 
     private AzureConstants() {
@@ -0,0 +1,57 @@
+/*
+ *  Copyright (c) 2025, WSO2 LLC. (https://www.wso2.com).
+ *
+ *  WSO2 LLC. licenses this file to you under the Apache License,
+ *  Version 2.0 (the "License"); you may not use this file except
+ *  in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *  "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License.
+ */
+
+package org.wso2.carbon.connector.util;
+
+import java.util.Locale;
+
+/**
+ * Integrity checksums the upload and append operations can send with their content.
+ */
+public enum ChecksumAlgorithm {
+
+    /**
+     * MD5 of the whole content, as a transactional hash of an append or the stored Content-MD5 of an upload.
+     */
+    MD5,
+
+    /**
+     * Transactional CRC64 of every append request, validated by the service.
+     */
+    CRC64,
+
+    /**
+     * No checksum.
+     */
+    NONE;
+
+    /**
+     * Parses the value of the {@code checksumAlgorithm} parameter.
+     *
+     * @param value the parameter value, MD5 if empty
+     * @return the algorithm
+     * @throws IllegalArgumentException if the value is not a known algorithm
+     */
+    public static ChecksumAlgorithm fromString(String value) {
+
+        if (value == null || value.isEmpty()) {
+            return MD5;
+        }
+        return valueOf(value.trim().toUpperCase(Locale.ROOT));
+    }
+}
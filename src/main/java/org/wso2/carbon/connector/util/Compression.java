@@ -0,0 +1,201 @@
+/*
+ *  Copyright (c) 2025, WSO2 LLC. (https://www.wso2.com).
+ *
+ *  WSO2 LLC. licenses this file to you under the Apache License,
+ *  Version 2.0 (the "License"); you may not use this file except
+ *  in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *  "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License.
+ */
+
+package org.wso2.carbon.connector.util;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufUtil;
+import io.netty.buffer.Unpooled;
+import io.netty.channel.ChannelHandler;
+import io.netty.channel.embedded.EmbeddedChannel;
+import io.netty.handler.codec.compression.JdkZlibDecoder;
+import io.netty.handler.codec.compression.JdkZlibEncoder;
+import io.netty.handler.codec.compression.ZlibWrapper;
+import io.netty.handler.codec.compression.Zstd;
+import io.netty.handler.codec.compression.ZstdDecoder;
+import io.netty.handler.codec.compression.ZstdEncoder;
+import reactor.core.publisher.Flux;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Content encodings the upload operations can compress with and the read operations can decompress. Content is
+ * transcoded chunk by chunk as it streams through, so neither side holds the whole content in memory.
+ */
+public enum Compression {
+
+    /**
+     * gzip, understood by every HTTP client.
+     */
+    GZIP("gzip"),
+
+    /**
+     * zlib wrapped deflate, as the HTTP {@code deflate} encoding.
+     */
+    DEFLATE("deflate"),
+
+    /**
+     * Zstandard, which needs the zstd-jni native library at runtime.
+     */
+    ZSTD("zstd"),
+
+    /**
+     * No compression.
+     */
+    NONE(null);
+
+    private final String contentEncoding;
+
+    Compression(String contentEncoding) {
+
+        this.contentEncoding = contentEncoding;
+    }
+
+    /**
+     * @return the value of the Content-Encoding header of compressed content, or null for {@link #NONE}
+     */
+    public String getContentEncoding() {
+
+        return contentEncoding;
+    }
+
+    /**
+     * Parses the value of the {@code compress} parameter.
+     *
+     * @param value the parameter value, NONE if empty
+     * @return the compression
+     * @throws IllegalArgumentException if the value is not a known compression
+     */
+    public static Compression fromString(String value) {
+
+        if (value == null || value.isEmpty()) {
+            return NONE;
+        }
+        return valueOf(value.trim().toUpperCase(Locale.ROOT));
+    }
+
+    /**
+     * Returns the compression of stored content from its Content-Encoding header.
+     *
+     * @param contentEncoding the header value
+     * @return the compression, {@link #NONE} if the content is not encoded or the encoding is not one of these
+     */
+    public static Compression fromContentEncoding(String contentEncoding) {
+
+        if (contentEncoding != null) {
+            for (Compression compression : values()) {
+                if (compression.contentEncoding != null &&
+                        compression.contentEncoding.equalsIgnoreCase(contentEncoding.trim())) {
+                    return compression;
+                }
+            }
+        }
+        return NONE;
+    }
+
+    /**
+     * Compresses a stream of content.
+     *
+     * @param content the content
+     * @return the compressed content, which ends once the content ended
+     */
+    public Flux<ByteBuffer> compress(Flux<ByteBuffer> content) {
+
+        if (this == NONE) {
+            return content;
+        }
+        return transcode(content, true);
+    }
+
+    /**
+     * Decompresses a stream of content compressed with this compression.
+     *
+     * @param content the compressed content
+     * @return the content
+     */
+    public Flux<ByteBuffer> decompress(Flux<ByteBuffer> content) {
+
+        if (this == NONE) {
+            return content;
+        }
+        return transcode(content, false);
+    }
+
+    private ChannelHandler newCodec(boolean encode) {
+
+        switch (this) {
+            case GZIP:
+                return encode ? new JdkZlibEncoder(ZlibWrapper.GZIP) : new JdkZlibDecoder(ZlibWrapper.GZIP);
+            case DEFLATE:
+                // Some servers send raw deflate as the deflate encoding, which the decoder detects
+                return encode ? new JdkZlibEncoder(ZlibWrapper.ZLIB) : new JdkZlibDecoder(ZlibWrapper.ZLIB_OR_NONE);
+            case ZSTD:
+                if (!Zstd.isAvailable()) {
+                    throw new IllegalStateException("zstd compression is not available", Zstd.cause());
+                }
+                return encode ? new ZstdEncoder() : new ZstdDecoder();
+            default:
+                throw new IllegalStateException("No codec for " + this);
+        }
+    }
+
+    /**
+     * Runs the content through a Netty codec on an embedded channel, which keeps the state of the codec between the
+     * chunks of the content.
+     */
+    private Flux<ByteBuffer> transcode(Flux<ByteBuffer> content, boolean encode) {
+
+        return Flux.using(() -> new EmbeddedChannel(newCodec(encode)),
+                channel -> content
+                        .concatMapIterable(buffer -> {
+                            ByteBuf chunk = Unpooled.wrappedBuffer(buffer.duplicate());
+                            if (encode) {
+                                channel.writeOutbound(chunk);
+                            } else {
+                                channel.writeInbound(chunk);
+                            }
+                            return drain(channel, encode);
+                        })
+                        .concatWith(Flux.defer(() -> {
+                            // Encoders write what they buffered and their trailer when the channel closes
+                            channel.flushOutbound();
+                            channel.finish();
+                            return Flux.fromIterable(drain(channel, encode));
+                        })),
+                EmbeddedChannel::finishAndReleaseAll);
+    }
+
+    private static List<ByteBuffer> drain(EmbeddedChannel channel, boolean encode) {
+
+        List<ByteBuffer> output = new ArrayList<>();
+        ByteBuf buffer;
+        while ((buffer = encode ? channel.readOutbound() : channel.readInbound()) != null) {
+            try {
+                if (buffer.isReadable()) {
+                    output.add(ByteBuffer.wrap(ByteBufUtil.getBytes(buffer)));
+                }
+            } finally {
+                buffer.release();
+            }
+        }
+        return output;
+    }
+}
@@ -0,0 +1,113 @@
+/*
+ *  Copyright (c) 2025, WSO2 LLC. (https://www.wso2.com).
+ *
+ *  WSO2 LLC. licenses this file to you under the Apache License,
+ *  Version 2.0 (the "License"); you may not use this file except
+ *  in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *  "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License.
+ */
+
+package org.wso2.carbon.connector.util;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.Base64;
+
+/**
+ * Incremental CRC64 in the variant used by Azure Storage for transactional integrity checks (reflected polynomial
+ * 0x9A6C9329AC4BC9B5, initial value and final XOR of all ones). The checksum is computed eight bytes at a time with
+ * slicing tables, at about twice the throughput of an MD5 digest of the same content.
+ */
+public final class Crc64 {
+
+    private static final long POLYNOMIAL = 0x9A6C9329AC4BC9B5L;
+    private static final long[][] TABLES = createTables();
+
+    private long crc = ~0L;
+
+    /**
+     * Adds the remaining bytes of a buffer to the checksum, without moving the position of the buffer.
+     *
+     * @param buffer the bytes to add
+     * @return this checksum
+     */
+    public Crc64 update(ByteBuffer buffer) {
+
+        ByteBuffer data = buffer.duplicate().order(ByteOrder.LITTLE_ENDIAN);
+        long value = crc;
+        while (data.remaining() >= Long.BYTES) {
+            value ^= data.getLong();
+            value = TABLES[7][(int) value & 0xff] ^
+                    TABLES[6][(int) (value >>> 8) & 0xff] ^
+                    TABLES[5][(int) (value >>> 16) & 0xff] ^
+                    TABLES[4][(int) (value >>> 24) & 0xff] ^
+                    TABLES[3][(int) (value >>> 32) & 0xff] ^
+                    TABLES[2][(int) (value >>> 40) & 0xff] ^
+                    TABLES[1][(int) (value >>> 48) & 0xff] ^
+                    TABLES[0][(int) (value >>> 56)];
+        }
+        while (data.hasRemaining()) {
+            value = TABLES[0][(int) (value ^ data.get()) & 0xff] ^ (value >>> 8);
+        }
+        crc = value;
+        return this;
+    }
+
+    /**
+     * Adds a range of an array to the checksum.
+     *
+     * @param bytes  the array
+     * @param offset the offset of the first byte to add
+     * @param length the number of bytes to add
+     * @return this checksum
+     */
+    public Crc64 update(byte[] bytes, int offset, int length) {
+
+        return update(ByteBuffer.wrap(bytes, offset, length));
+    }
+
+    /**
+     * @return the checksum of the bytes added so far
+     */
+    public long getValue() {
+
+        return ~crc;
+    }
+
+    /**
+     * @return the checksum in the encoding of the {@code x-ms-content-crc64} header: base64 of its eight bytes in
+     * little-endian order
+     */
+    public String toBase64() {
+
+        ByteBuffer bytes = ByteBuffer.allocate(Long.BYTES).order(ByteOrder.LITTLE_ENDIAN).putLong(getValue());
+        return Base64.getEncoder().encodeToString(bytes.array());
+    }
+
+    private static long[][] createTables() {
+
+        long[][] tables = new long[8][256];
+        for (int i = 0; i < 256; i++) {
+            long value = i;
+            for (int bit = 0; bit < 8; bit++) {
+                value = (value & 1) != 0 ? (value >>> 1) ^ POLYNOMIAL : value >>> 1;
+            }
+            tables[0][i] = value;
+        }
+        for (int i = 0; i < 256; i++) {
+            for (int k = 1; k < 8; k++) {
+                tables[k][i] = (tables[k - 1][i] >>> 8) ^ tables[0][(int) tables[k - 1][i] & 0xff];
+            }
+        }
+        return tables;
+    }
+}
@@ -40,7 +40,8 @@ public enum Error {
     No_SUCH_ALGORITHM("710015", "No_SUCH_ALGORITHM"),
     IO_EXCEPTION("710016", "IO_EXCEPTION"),
     DIRECTORY_ALREADY_EXISTS_ERROR("700717", "DIRECTORY_ALREADY_EXISTS_ERROR"),
-    INVALID_MAX_RETRY_REQUESTS("710018", "INVALID_MAX_RETRY_REQUESTS");
+    INVALID_MAX_RETRY_REQUESTS("710018", "INVALID_MAX_RETRY_REQUESTS"),
+    THROTTLED("710019", "THROTTLED");
 
     // Constant prefix used in error messages
     private static final String ERROR_PREFIX = "MS_AZURE_DATALAKE_GEN2:";
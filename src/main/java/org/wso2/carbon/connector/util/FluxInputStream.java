@@ -0,0 +1,135 @@
+/*
+ *  Copyright (c) 2025, WSO2 LLC. (https://www.wso2.com).
+ *
+ *  WSO2 LLC. licenses this file to you under the Apache License,
+ *  Version 2.0 (the "License"); you may not use this file except
+ *  in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *  "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License.
+ */
+
+
+package org.wso2.carbon.connector.util;
+
+import reactor.core.publisher.Flux;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.ref.Cleaner;
+import java.nio.ByteBuffer;
+import java.util.Iterator;
+import java.util.stream.Stream;
+
+/**
+ * Reads a stream of buffers, such as the body of a download, as an {@link InputStream}. Buffers are requested from
+ * the source only as the stream is read, so no more than a few of them are held at once. Closing the stream cancels
+ * the source. A stream that is dropped without being closed or read to the end, such as a message payload nothing
+ * consumed, cancels the source once it is garbage collected, so the connection of a download is never held forever.
+ */
+public final class FluxInputStream extends InputStream {
+
+    static final int PREFETCH = 4;
+    private static final Cleaner CLEANER = Cleaner.create();
+
+    private final Iterator<ByteBuffer> iterator;
+    private final Cleaner.Cleanable source;
+    private ByteBuffer current;
+    private boolean closed;
+
+    public FluxInputStream(Flux<ByteBuffer> content) {
+
+        this(content, null);
+    }
+
+    /**
+     * @param content the buffers to read.
+     * @param onDone  run once the source is done with, when the stream is closed, read to the end, fails or is
+     *                dropped unread, or null.
+     */
+    public FluxInputStream(Flux<ByteBuffer> content, Runnable onDone) {
+
+        Stream<ByteBuffer> buffers = content.toStream(PREFETCH);
+        this.iterator = buffers.iterator();
+        // The clean up must not refer to the stream, or the stream would never become unreachable
+        this.source = CLEANER.register(this, () -> {
+            try {
+                buffers.close();
+            } finally {
+                if (onDone != null) {
+                    onDone.run();
+                }
+            }
+        });
+    }
+
+    @Override
+    public int read() throws IOException {
+
+        return nextBuffer() ? current.get() & 0xFF : -1;
+    }
+
+    @Override
+    public int read(byte[] bytes, int offset, int length) throws IOException {
+
+        if (length == 0) {
+            return 0;
+        }
+        if (!nextBuffer()) {
+            return -1;
+        }
+        int count = Math.min(length, current.remaining());
+        current.get(bytes, offset, count);
+        return count;
+    }
+
+    @Override
+    public int available() {
+
+        return current != null ? current.remaining() : 0;
+    }
+
+    @Override
+    public void close() {
+
+        if (!closed) {
+            closed = true;
+            current = null;
+            source.clean();
+        }
+    }
+
+    /**
+     * Makes sure the current buffer has bytes left, waiting for the next buffer of the source if needed.
+     *
+     * @return false if the source is complete
+     */
+    private boolean nextBuffer() throws IOException {
+
+        if (closed) {
+            throw new IOException("The stream is closed");
+        }
+        try {
+            while (current == null || !current.hasRemaining()) {
+                if (!iterator.hasNext()) {
+                    current = null;
+                    source.clean();
+                    return false;
+                }
+                current = iterator.next();
+            }
+            return true;
+        } catch (RuntimeException e) {
+            // The download failed part way, the reader sees it as a failed read
+            source.clean();
+            throw new IOException("Unable to read the content", e);
+        }
+    }
+}
@@ -0,0 +1,152 @@
+/*
+ *  Copyright (c) 2025, WSO2 LLC. (https://www.wso2.com).
+ *
+ *  WSO2 LLC. licenses this file to you under the Apache License,
+ *  Version 2.0 (the "License"); you may not use this file except
+ *  in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *  "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License.
+ */
+
+package org.wso2.carbon.connector.util;
+
+import com.azure.core.util.BinaryData;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * A region of a local file mapped into memory, so that it can be digested and sent as a request body straight from
+ * the page cache. The content is read from disk once, by whichever of the two touches it first, instead of once for
+ * the digest and again for the request.
+ */
+public final class MappedFile {
+
+    /**
+     * Largest single mapping. Larger regions are mapped in several parts so that any region fits in the int indexed
+     * {@link java.nio.MappedByteBuffer}.
+     */
+    static final long MAX_MAPPING_SIZE = 64L * 1024L * 1024L;
+
+    /**
+     * Regions below this size are copied to the heap, for which a plain read is cheaper than setting up a mapping.
+     */
+    static final long MIN_MAPPING_SIZE = 1024L * 1024L;
+
+    private final List<ByteBuffer> buffers;
+    private final long length;
+
+    private MappedFile(List<ByteBuffer> buffers, long length) {
+
+        this.buffers = buffers;
+        this.length = length;
+    }
+
+    /**
+     * Maps a whole file.
+     *
+     * @param file the file to map
+     * @return the mapped file
+     * @throws IOException if the file cannot be read
+     */
+    public static MappedFile map(Path file) throws IOException {
+
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            return map(channel, 0, channel.size());
+        }
+    }
+
+    /**
+     * Maps a region of a file.
+     *
+     * @param file     the file to map
+     * @param position offset of the region in the file
+     * @param length   length of the region
+     * @return the mapped region
+     * @throws IOException if the file cannot be read
+     */
+    public static MappedFile map(Path file, long position, long length) throws IOException {
+
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            return map(channel, position, length);
+        }
+    }
+
+    private static MappedFile map(FileChannel channel, long position, long length) throws IOException {
+
+        if (position + length > channel.size()) {
+            throw new IOException("Region " + position + "-" + (position + length) + " is beyond the end of the file");
+        }
+        if (length < MIN_MAPPING_SIZE) {
+            ByteBuffer buffer = ByteBuffer.allocate((int) length);
+            while (buffer.hasRemaining()) {
+                if (channel.read(buffer, position + buffer.position()) < 0) {
+                    throw new IOException("Unexpected end of file at " + (position + buffer.position()));
+                }
+            }
+            buffer.flip();
+            return new MappedFile(Collections.singletonList(buffer), length);
+        }
+        // A mapping stays valid after the channel is closed, until the buffer is garbage collected
+        List<ByteBuffer> buffers = new ArrayList<>();
+        for (long offset = 0; offset < length; offset += MAX_MAPPING_SIZE) {
+            buffers.add(channel.map(FileChannel.MapMode.READ_ONLY, position + offset,
+                    Math.min(MAX_MAPPING_SIZE, length - offset)));
+        }
+        return new MappedFile(Collections.unmodifiableList(buffers), length);
+    }
+
+    /**
+     * @return length of the mapped region
+     */
+    public long getLength() {
+
+        return length;
+    }
+
+    /**
+     * Computes the MD5 digest of the mapped region.
+     *
+     * @return the MD5 digest
+     * @throws NoSuchAlgorithmException if MD5 is not available
+     */
+    public byte[] md5() throws NoSuchAlgorithmException {
+
+        MessageDigest digest = MessageDigest.getInstance("MD5");
+        for (ByteBuffer buffer : buffers) {
+            digest.update(buffer.duplicate());
+        }
+        return digest.digest();
+    }
+
+    /**
+     * Returns the mapped region as a request body. The body is replayable, so a retried request sends the same
+     * bytes without reading the file again.
+     *
+     * @return the request body
+     */
+    public BinaryData toBinaryData() {
+
+        List<ByteBuffer> views = new ArrayList<>(buffers.size());
+        for (ByteBuffer buffer : buffers) {
+            views.add(buffer.duplicate());
+        }
+        return BinaryData.fromListByteBuffer(views);
+    }
+}
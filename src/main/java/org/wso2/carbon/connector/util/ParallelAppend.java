@@ -0,0 +1,148 @@
+/*
+ *  Copyright (c) 2025, WSO2 LLC. (https://www.wso2.com).
+ *
+ *  WSO2 LLC. licenses this file to you under the Apache License,
+ *  Version 2.0 (the "License"); you may not use this file except
+ *  in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *  "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License.
+ */
+
+
+package org.wso2.carbon.connector.util;
+
+import com.azure.storage.file.datalake.DataLakeFileAsyncClient;
+import com.azure.storage.file.datalake.models.DataLakeStorageException;
+import com.azure.storage.file.datalake.options.DataLakeFileAppendOptions;
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+import reactor.util.function.Tuples;
+import reactor.util.retry.Retry;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Appends a local file to a remote file in fixed-size chunks sent in parallel, each at its precomputed position
+ * after the given start position. The service accepts appends in any order, so the chunks travel over as many
+ * connections as the concurrency allows and are hashed on as many cores. A chunk that fails once the retries of the
+ * pipeline are exhausted is appended again on its own, without repeating the chunks that succeeded. The appended
+ * data is uncommitted until the caller flushes the file at the end of the appended range.
+ */
+public class ParallelAppend {
+
+    private static final Log log = LogFactory.getLog(ParallelAppend.class);
+
+    public static final long DEFAULT_CHUNK_SIZE = 8L * 1024 * 1024;
+    public static final int DEFAULT_CONCURRENCY = 8;
+
+    static final int CHUNK_RETRIES = 3;
+    static final Duration CHUNK_RETRY_DELAY = Duration.ofSeconds(1);
+
+    private final DataLakeFileAsyncClient client;
+    private final Path file;
+    private final long position;
+    private final long chunkSize;
+    private final int concurrency;
+    private final boolean contentMd5;
+    private final String leaseId;
+    private final AtomicLong retryCount = new AtomicLong();
+
+    /**
+     * @param client      client of the target file
+     * @param file        local file to append
+     * @param position    position of the first byte of the local file in the target file
+     * @param chunkSize   size of the appended chunks in bytes, or null for the default size
+     * @param concurrency number of chunks appended in parallel, or null for the default concurrency
+     * @param contentMd5  whether every chunk is sent with its MD5
+     * @param leaseId     lease of the target file, or null
+     */
+    public ParallelAppend(DataLakeFileAsyncClient client, Path file, long position, Long chunkSize,
+                          Integer concurrency, boolean contentMd5, String leaseId) {
+
+        this.client = client;
+        this.file = file;
+        this.position = position;
+        this.chunkSize = chunkSize != null && chunkSize > 0 ? chunkSize : DEFAULT_CHUNK_SIZE;
+        this.concurrency = concurrency != null && concurrency > 0 ? concurrency : DEFAULT_CONCURRENCY;
+        this.contentMd5 = contentMd5;
+        this.leaseId = leaseId;
+    }
+
+    /**
+     * Appends every chunk of the file.
+     *
+     * @return the number of bytes appended
+     */
+    public Mono<Long> append() {
+
+        return Mono.fromCallable(() -> Files.size(file))
+                .flatMap(size -> Flux.range(0, (int) ((size + chunkSize - 1) / chunkSize))
+                        .map(chunk -> chunk * chunkSize)
+                        .flatMap(offset -> appendChunk(offset, Math.min(chunkSize, size - offset)), concurrency)
+                        .then(Mono.just(size)));
+    }
+
+    /**
+     * @return the position of the first byte of the local file in the target file
+     */
+    public long getPosition() {
+
+        return position;
+    }
+
+    /**
+     * @return the number of chunk appends repeated after they failed
+     */
+    public long getRetryCount() {
+
+        return retryCount.get();
+    }
+
+    private Mono<Void> appendChunk(long offset, long length) {
+
+        return Mono.fromCallable(() -> {
+                    MappedFile chunk = MappedFile.map(file, offset, length);
+                    return Tuples.of(chunk.toBinaryData(), new DataLakeFileAppendOptions().setLeaseId(leaseId)
+                            .setContentHash(contentMd5 ? chunk.md5() : null));
+                })
+                // The chunks are read and hashed in parallel rather than on the event loop
+                .subscribeOn(Schedulers.boundedElastic())
+                .flatMap(request -> Mono.defer(() -> client.appendWithResponse(request.getT1(), position + offset,
+                                request.getT2()))
+                        .retryWhen(Retry.backoff(CHUNK_RETRIES, CHUNK_RETRY_DELAY)
+                                .filter(ParallelAppend::isRetryable)
+                                .doBeforeRetry(signal -> {
+                                    retryCount.incrementAndGet();
+                                    log.warn("Appending the chunk at offset " + offset + " of " + file + " to "
+                                            + client.getFilePath() + " failed, retrying it", signal.failure());
+                                })
+                                .onRetryExhaustedThrow((spec, signal) -> signal.failure())))
+                .then();
+    }
+
+    /**
+     * Errors of the request itself, such as a missing file or lease, fail the same way when repeated.
+     */
+    private static boolean isRetryable(Throwable e) {
+
+        if (!(e instanceof DataLakeStorageException)) {
+            return true;
+        }
+        int status = ((DataLakeStorageException) e).getStatusCode();
+        return status >= 500 || status == 408 || status == 429;
+    }
+}
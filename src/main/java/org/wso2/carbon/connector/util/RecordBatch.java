@@ -0,0 +1,223 @@
+/*
+ *  Copyright (c) 2025, WSO2 LLC. (https://www.wso2.com).
+ *
+ *  WSO2 LLC. licenses this file to you under the Apache License,
+ *  Version 2.0 (the "License"); you may not use this file except
+ *  in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *  "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License.
+ */
+
+
+package org.wso2.carbon.connector.util;
+
+import com.azure.core.util.BinaryData;
+import com.google.gson.JsonParser;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.regex.Pattern;
+
+/**
+ * The records of a JSON array serialized as the body of a single append. The array is read one record at a time
+ * and every record is encoded straight into fixed-size blocks, which make up the request body as they are, so
+ * neither the array nor the body is ever held as a string or copied into one contiguous buffer.
+ */
+public final class RecordBatch {
+
+    static final int BLOCK_SIZE = 64 * 1024;
+    private static final Pattern MEMBER_NAME = Pattern.compile("[^.\\[\\]*?@$()'\"\\s]+");
+
+    private final List<ByteBuffer> blocks = new ArrayList<>();
+    private final MessageDigest digest;
+    private byte[] block = new byte[BLOCK_SIZE];
+    private int blockLength;
+    private long length;
+    private int recordCount;
+
+    private RecordBatch(boolean md5) throws NoSuchAlgorithmException {
+
+        this.digest = md5 ? MessageDigest.getInstance("MD5") : null;
+    }
+
+    /**
+     * Reads the records of a JSON array and serializes them.
+     *
+     * @param json      the JSON document
+     * @param path      the path of the array in the document as dot separated member names, such as
+     *                  {@code $.orders.items}, or null or {@code $} if the document is the array
+     * @param format    the format of the records
+     * @param delimiter the delimiter written after every record
+     * @param md5       whether to compute the MD5 of the serialized records
+     * @return the serialized records
+     * @throws IOException              if the document cannot be read or is not valid JSON
+     * @throws IllegalArgumentException if the path is not supported or does not lead to an array
+     * @throws NoSuchAlgorithmException if MD5 is not available
+     */
+    public static RecordBatch read(Reader json, String path, RecordFormat format, String delimiter, boolean md5)
+            throws IOException, NoSuchAlgorithmException {
+
+        RecordBatch batch = new RecordBatch(md5);
+        JsonReader reader = new JsonReader(json);
+        select(reader, path);
+        if (reader.peek() != JsonToken.BEGIN_ARRAY) {
+            throw new IllegalArgumentException("The records at " + (path != null ? path : "$")
+                    + " are not a JSON array");
+        }
+        Writer out = new OutputStreamWriter(batch.new BlockOutputStream(), StandardCharsets.UTF_8);
+        reader.beginArray();
+        while (reader.hasNext()) {
+            format.write(JsonParser.parseReader(reader), out);
+            out.write(delimiter);
+            batch.recordCount++;
+        }
+        out.flush();
+        batch.finish();
+        return batch;
+    }
+
+    /**
+     * @return the serialized records as a request body
+     */
+    public BinaryData toBinaryData() {
+
+        List<ByteBuffer> content = new ArrayList<>(blocks.size());
+        for (ByteBuffer buffer : blocks) {
+            content.add(buffer.duplicate());
+        }
+        return BinaryData.fromListByteBuffer(content);
+    }
+
+    /**
+     * @return the MD5 of the serialized records, or null if it was not computed
+     */
+    public byte[] md5() {
+
+        return digest != null ? digest.digest() : null;
+    }
+
+    public long getLength() {
+
+        return length;
+    }
+
+    public int getRecordCount() {
+
+        return recordCount;
+    }
+
+    /**
+     * Positions the reader at the array the path leads to.
+     */
+    private static void select(JsonReader reader, String path) throws IOException {
+
+        for (String member : getMembers(path)) {
+            if (reader.peek() != JsonToken.BEGIN_OBJECT) {
+                throw new IllegalArgumentException("The records path " + path + " does not lead to a JSON array");
+            }
+            reader.beginObject();
+            boolean found = false;
+            while (!found && reader.hasNext()) {
+                if (reader.nextName().equals(member)) {
+                    found = true;
+                } else {
+                    reader.skipValue();
+                }
+            }
+            if (!found) {
+                throw new IllegalArgumentException("The records path " + path + " does not lead to a JSON array");
+            }
+        }
+    }
+
+    /**
+     * Splits a records path into the member names it is made of. The array is read as a stream, so only paths of
+     * member names can be followed; indices, wildcards other than a trailing {@code [*]}, recursive descent and
+     * filters are rejected rather than ignored.
+     *
+     * @throws IllegalArgumentException if the path is not made of member names only
+     */
+    static List<String> getMembers(String path) {
+
+        String trimmed = path != null ? path.trim() : "";
+        if (trimmed.endsWith("[*]")) {
+            trimmed = trimmed.substring(0, trimmed.length() - 3);
+        }
+        if (trimmed.isEmpty() || "$".equals(trimmed)) {
+            return Collections.emptyList();
+        }
+        if (trimmed.startsWith("$.")) {
+            trimmed = trimmed.substring(2);
+        }
+        List<String> members = Arrays.asList(trimmed.split("\\.", -1));
+        for (String member : members) {
+            if (!MEMBER_NAME.matcher(member).matches()) {
+                throw new IllegalArgumentException("The records path " + path + " is not supported, only member "
+                        + "names such as $.orders.items can be followed");
+            }
+        }
+        return members;
+    }
+
+    private void finish() {
+
+        if (blockLength > 0) {
+            blocks.add(ByteBuffer.wrap(block, 0, blockLength).asReadOnlyBuffer());
+        }
+        block = null;
+    }
+
+    /**
+     * Appends the encoded records to the blocks of the batch, starting a new block whenever one is full.
+     */
+    private final class BlockOutputStream extends OutputStream {
+
+        @Override
+        public void write(int b) {
+
+            write(new byte[]{(byte) b}, 0, 1);
+        }
+
+        @Override
+        public void write(byte[] bytes, int offset, int count) {
+
+            if (digest != null) {
+                digest.update(bytes, offset, count);
+            }
+            length += count;
+            while (count > 0) {
+                if (blockLength == BLOCK_SIZE) {
+                    blocks.add(ByteBuffer.wrap(block).asReadOnlyBuffer());
+                    block = new byte[BLOCK_SIZE];
+                    blockLength = 0;
+                }
+                int copied = Math.min(count, BLOCK_SIZE - blockLength);
+                System.arraycopy(bytes, offset, block, blockLength, copied);
+                blockLength += copied;
+                offset += copied;
+                count -= copied;
+            }
+        }
+    }
+}
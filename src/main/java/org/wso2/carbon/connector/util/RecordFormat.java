@@ -0,0 +1,133 @@
+/*
+ *  Copyright (c) 2025, WSO2 LLC. (https://www.wso2.com).
+ *
+ *  WSO2 LLC. licenses this file to you under the Apache License,
+ *  Version 2.0 (the "License"); you may not use this file except
+ *  in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *  "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License.
+ */
+
+
+package org.wso2.carbon.connector.util;
+
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonPrimitive;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Formats the records of a batch append can be written in, each followed by the record delimiter.
+ */
+public enum RecordFormat {
+
+    /**
+     * Every record as compact JSON, as in JSON Lines.
+     */
+    JSONL {
+        @Override
+        void write(JsonElement record, Writer out) {
+
+            GSON.toJson(record, out);
+        }
+    },
+
+    /**
+     * Every record as a CSV row. The members of an object or the elements of an array are the fields, in order;
+     * nested values are written as JSON and quoted like any field that needs it.
+     */
+    CSV {
+        @Override
+        void write(JsonElement record, Writer out) throws IOException {
+
+            if (record.isJsonObject()) {
+                boolean first = true;
+                for (Map.Entry<String, JsonElement> member : record.getAsJsonObject().entrySet()) {
+                    if (!first) {
+                        out.write(',');
+                    }
+                    writeField(member.getValue(), out);
+                    first = false;
+                }
+            } else if (record.isJsonArray()) {
+                for (int i = 0; i < record.getAsJsonArray().size(); i++) {
+                    if (i > 0) {
+                        out.write(',');
+                    }
+                    writeField(record.getAsJsonArray().get(i), out);
+                }
+            } else {
+                writeField(record, out);
+            }
+        }
+    },
+
+    /**
+     * Strings as they are and other records as compact JSON.
+     */
+    TEXT {
+        @Override
+        void write(JsonElement record, Writer out) throws IOException {
+
+            if (record.isJsonPrimitive() && record.getAsJsonPrimitive().isString()) {
+                out.write(record.getAsString());
+            } else {
+                GSON.toJson(record, out);
+            }
+        }
+    };
+
+    private static final Gson GSON = new GsonBuilder().disableHtmlEscaping().serializeNulls().create();
+
+    /**
+     * Writes a record, without the delimiter that follows it.
+     *
+     * @param record the record
+     * @param out    the writer of the batch
+     * @throws IOException if the record cannot be written
+     */
+    abstract void write(JsonElement record, Writer out) throws IOException;
+
+    /**
+     * Parses the value of the {@code recordFormat} parameter.
+     *
+     * @param value the parameter value, JSONL if empty
+     * @return the format
+     * @throws IllegalArgumentException if the value is not a known format
+     */
+    public static RecordFormat fromString(String value) {
+
+        if (value == null || value.isEmpty()) {
+            return JSONL;
+        }
+        return valueOf(value.trim().toUpperCase(Locale.ROOT));
+    }
+
+    private static void writeField(JsonElement field, Writer out) throws IOException {
+
+        if (field.isJsonNull()) {
+            return;
+        }
+        String value = field.isJsonPrimitive() ? ((JsonPrimitive) field).getAsString() : GSON.toJson(field);
+        if (value.indexOf(',') < 0 && value.indexOf('"') < 0 && value.indexOf('\n') < 0 && value.indexOf('\r') < 0) {
+            out.write(value);
+            return;
+        }
+        out.write('"');
+        out.write(value.replace("\"", "\"\""));
+        out.write('"');
+    }
+}
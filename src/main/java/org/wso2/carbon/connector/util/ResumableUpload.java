@@ -0,0 +1,260 @@
+/*
+ *  Copyright (c) 2025, WSO2 LLC. (https://www.wso2.com).
+ *
+ *  WSO2 LLC. licenses this file to you under the Apache License,
+ *  Version 2.0 (the "License"); you may not use this file except
+ *  in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *  "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License.
+ */
+
+package org.wso2.carbon.connector.util;
+
+import com.azure.core.http.rest.Response;
+import com.azure.storage.file.datalake.DataLakeFileAsyncClient;
+import com.azure.storage.file.datalake.models.DataLakeStorageException;
+import com.azure.storage.file.datalake.models.PathHttpHeaders;
+import com.azure.storage.file.datalake.models.PathInfo;
+import com.azure.storage.file.datalake.options.DataLakeFileAppendOptions;
+import com.azure.storage.file.datalake.options.DataLakeFileFlushOptions;
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Map;
+import java.util.Properties;
+
+/**
+ * Uploads a local file in fixed-size chunks appended at explicit offsets, and records the offset acknowledged by the
+ * service in a small checkpoint file after every chunk. If the upload is interrupted, the next upload of the same
+ * file to the same path continues from the recorded offset instead of starting over. The file is committed with a
+ * single flush once every chunk is appended, after which the checkpoint is removed.
+ */
+public class ResumableUpload {
+
+    private static final Log log = LogFactory.getLog(ResumableUpload.class);
+
+    public static final long DEFAULT_CHUNK_SIZE = 8L * 1024 * 1024;
+    public static final int DEFAULT_CONCURRENCY = 8;
+
+    private static final String CHECKPOINT_SUFFIX = ".checkpoint";
+    private static final String TARGET = "target";
+    private static final String LOCAL_FILE = "localFile";
+    private static final String SIZE = "size";
+    private static final String LAST_MODIFIED = "lastModified";
+    private static final String OFFSET = "offset";
+
+    private final DataLakeFileAsyncClient client;
+    private final Path file;
+    private final Path checkpointFile;
+    private final long chunkSize;
+    private final int concurrency;
+    private final PathHttpHeaders headers;
+    private final Map<String, String> metadata;
+    private final boolean contentMd5;
+    private volatile long resumedOffset;
+
+    /**
+     * @param client              client of the target file
+     * @param file                local file to upload
+     * @param checkpointDirectory directory of the checkpoint files, or null for the default directory
+     * @param chunkSize           size of the appended chunks in bytes, or null for the default size
+     * @param concurrency         number of chunks appended in parallel, or null for the default concurrency
+     * @param headers             HTTP headers of the file, sent with the flush
+     * @param metadata            metadata of the file, sent when the file is created
+     * @param contentMd5          whether the MD5 of the whole file is sent with the flush
+     */
+    public ResumableUpload(DataLakeFileAsyncClient client, Path file, String checkpointDirectory, Long chunkSize,
+                           Integer concurrency, PathHttpHeaders headers, Map<String, String> metadata,
+                           boolean contentMd5) {
+
+        this.client = client;
+        this.file = file.toAbsolutePath();
+        this.chunkSize = chunkSize != null && chunkSize > 0 ? chunkSize : DEFAULT_CHUNK_SIZE;
+        this.concurrency = concurrency != null && concurrency > 0 ? concurrency : DEFAULT_CONCURRENCY;
+        this.headers = headers;
+        this.metadata = metadata;
+        this.contentMd5 = contentMd5;
+        Path directory = checkpointDirectory != null && !checkpointDirectory.isEmpty() ?
+                Paths.get(checkpointDirectory) : getDefaultCheckpointDirectory();
+        // The checkpoint is named after the source and the target, so that every pair resumes independently
+        this.checkpointFile = directory.resolve(
+                sha256(this.file + "\n" + client.getFileUrl()) + CHECKPOINT_SUFFIX);
+    }
+
+    /**
+     * @return the directory used for checkpoint files when none is configured
+     */
+    public static Path getDefaultCheckpointDirectory() {
+
+        return Paths.get(System.getProperty("java.io.tmpdir"), "msazuredatalakestorage-checkpoints");
+    }
+
+    /**
+     * Uploads the file, resuming a previous attempt if a matching checkpoint exists.
+     *
+     * @return the response of the flush that commits the file
+     */
+    public Mono<Response<PathInfo>> upload() {
+
+        return Mono.fromCallable(this::readCheckpoint)
+                .subscribeOn(Schedulers.boundedElastic())
+                .flatMap(offset -> {
+                    resumedOffset = offset;
+                    if (offset == 0) {
+                        return upload(0);
+                    }
+                    log.info("Resuming the upload of " + file + " to " + client.getFilePath() + " at offset "
+                            + offset);
+                    // If the target was deleted in the meantime, the uncommitted chunks are gone with it
+                    return upload(offset).onErrorResume(e -> e instanceof DataLakeStorageException &&
+                            ((DataLakeStorageException) e).getStatusCode() == 404, e -> {
+                        log.warn("The target of the interrupted upload of " + file + " no longer exists, "
+                                + "restarting the upload");
+                        resumedOffset = 0;
+                        return upload(0);
+                    });
+                });
+    }
+
+    /**
+     * @return the offset the last upload started from, 0 unless it resumed an interrupted upload
+     */
+    public long getResumedOffset() {
+
+        return resumedOffset;
+    }
+
+    /**
+     * @return the checkpoint file of this upload
+     */
+    public Path getCheckpointFile() {
+
+        return checkpointFile;
+    }
+
+    private Mono<Response<PathInfo>> upload(long start) {
+
+        Mono<Void> create = start > 0 ? Mono.empty() :
+                client.createWithResponse(null, null, null, metadata, null)
+                        .then(Mono.fromCallable(() -> writeCheckpoint(0)).then());
+        return create
+                .then(appendFrom(start))
+                .then(flush())
+                .flatMap(response -> Mono.fromCallable(() -> {
+                    Files.deleteIfExists(checkpointFile);
+                    return response;
+                }));
+    }
+
+    private Mono<Void> appendFrom(long start) {
+
+        long size = getSize();
+        long chunks = (size - start + chunkSize - 1) / chunkSize;
+        DataLakeFileAppendOptions options = new DataLakeFileAppendOptions();
+        // Chunks are appended in parallel but acknowledged in order, so that the checkpoint always holds an offset
+        // up to which every byte was appended
+        return Flux.range(0, (int) chunks)
+                .map(chunk -> start + chunk * chunkSize)
+                .flatMapSequential(offset -> {
+                    long length = Math.min(chunkSize, size - offset);
+                    return Mono.fromCallable(() -> MappedFile.map(file, offset, length))
+                            .flatMap(chunk -> client.appendWithResponse(chunk.toBinaryData(), offset, options))
+                            .thenReturn(offset + length);
+                }, concurrency)
+                .concatMap(end -> Mono.fromCallable(() -> writeCheckpoint(end)))
+                .then();
+    }
+
+    private Mono<Response<PathInfo>> flush() {
+
+        Mono<PathHttpHeaders> flushHeaders = contentMd5 ?
+                Mono.fromCallable(() -> headers.setContentMd5(Utils.md5(file)))
+                        .subscribeOn(Schedulers.boundedElastic()) :
+                Mono.just(headers);
+        return flushHeaders.flatMap(pathHttpHeaders -> client.flushWithResponse(getSize(),
+                new DataLakeFileFlushOptions().setPathHttpHeaders(pathHttpHeaders)));
+    }
+
+    /**
+     * Returns the offset recorded for this upload, or 0 if there is no checkpoint or it was written for a
+     * different version of the file.
+     */
+    private long readCheckpoint() throws IOException {
+
+        if (!Files.exists(checkpointFile)) {
+            return 0;
+        }
+        Properties checkpoint = new Properties();
+        try (InputStream in = Files.newInputStream(checkpointFile)) {
+            checkpoint.load(in);
+        }
+        if (!client.getFileUrl().equals(checkpoint.getProperty(TARGET)) ||
+                !file.toString().equals(checkpoint.getProperty(LOCAL_FILE)) ||
+                !String.valueOf(getSize()).equals(checkpoint.getProperty(SIZE)) ||
+                !String.valueOf(Files.getLastModifiedTime(file).toMillis())
+                        .equals(checkpoint.getProperty(LAST_MODIFIED))) {
+            log.info("Discarding the checkpoint of " + file + " since the file changed after it was written");
+            Files.delete(checkpointFile);
+            return 0;
+        }
+        return Long.parseLong(checkpoint.getProperty(OFFSET, "0"));
+    }
+
+    private long writeCheckpoint(long offset) throws IOException {
+
+        Properties checkpoint = new Properties();
+        checkpoint.setProperty(TARGET, client.getFileUrl());
+        checkpoint.setProperty(LOCAL_FILE, file.toString());
+        checkpoint.setProperty(SIZE, String.valueOf(getSize()));
+        checkpoint.setProperty(LAST_MODIFIED, String.valueOf(Files.getLastModifiedTime(file).toMillis()));
+        checkpoint.setProperty(OFFSET, String.valueOf(offset));
+        Files.createDirectories(checkpointFile.getParent());
+        // Written aside and moved over the previous checkpoint, so that a crash never leaves it half written
+        Path temporary = checkpointFile.resolveSibling(checkpointFile.getFileName() + ".tmp");
+        try (OutputStream out = Files.newOutputStream(temporary)) {
+            checkpoint.store(out, null);
+        }
+        Files.move(temporary, checkpointFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        return offset;
+    }
+
+    private long getSize() {
+
+        return file.toFile().length();
+    }
+
+    private static String sha256(String value) {
+
+        try {
+            byte[] hash = MessageDigest.getInstance("SHA-256").digest(value.getBytes(StandardCharsets.UTF_8));
+            StringBuilder hex = new StringBuilder();
+            for (byte b : hash) {
+                hex.append(String.format("%02x", b));
+            }
+            return hex.toString();
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -20,6 +20,13 @@ package org.wso2.carbon.connector.util;
 import com.google.gson.Gson;
 import org.apache.commons.lang.StringUtils;
 
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
 import java.util.HashMap;
 
 /**
@@ -27,6 +34,8 @@ import java.util.HashMap;
  */
 public class Utils {
 
+    private static final int DIGEST_BUFFER_SIZE = 64 * 1024;
+
     /**
      * Add data to a map from a JSON string.
      *
@@ -49,4 +58,27 @@ public class Utils {
         }
 
     }
+
+    /**
+     * Computes the MD5 digest of a file in a single streaming pass with a fixed size buffer, so that the heap used
+     * does not depend on the size of the file.
+     *
+     * @param file the file to digest
+     * @return the MD5 digest
+     * @throws IOException              if the file cannot be read
+     * @throws NoSuchAlgorithmException if MD5 is not available
+     */
+    public static byte[] md5(Path file) throws IOException, NoSuchAlgorithmException {
+
+        MessageDigest digest = MessageDigest.getInstance("MD5");
+        ByteBuffer buffer = ByteBuffer.allocate(DIGEST_BUFFER_SIZE);
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            while (channel.read(buffer) != -1) {
+                buffer.flip();
+                digest.update(buffer);
+                buffer.clear();
+            }
+        }
+        return digest.digest();
+    }
 }
@@ -0,0 +1,226 @@
+/*
+ *  Copyright (c) 2025, WSO2 LLC. (https://www.wso2.com).
+ *
+ *  WSO2 LLC. licenses this file to you under the Apache License,
+ *  Version 2.0 (the "License"); you may not use this file except
+ *  in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *  "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License.
+ */
+
+
+package org.wso2.carbon.connector.connection;
+
+import com.azure.storage.file.datalake.DataLakeFileAsyncClient;
+import com.sun.net.httpserver.HttpExchange;
+import org.testng.Assert;
+import org.testng.annotations.AfterClass;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+import org.wso2.carbon.connector.core.ConnectException;
+import org.wso2.carbon.connector.util.StubServer;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Verifies {@link AppendBuffer} against a local stand-in for the Data Lake endpoint that only accepts appends at the
+ * end of the file.
+ */
+public class AppendBufferTest {
+
+    private StubServer server;
+    private DataLakeFileAsyncClient client;
+    private final ByteArrayOutputStream file = new ByteArrayOutputStream();
+    private final AtomicInteger appendCount = new AtomicInteger();
+
+    @BeforeClass
+    public void startServer() throws IOException {
+
+        server = StubServer.start(this::handle);
+        client = server.getFileAsyncClient("container", "folder/records.log");
+    }
+
+    @AfterClass(alwaysRun = true)
+    public void stopServer() {
+
+        server.close();
+    }
+
+    @BeforeMethod
+    public void reset() {
+
+        synchronized (file) {
+            file.reset();
+        }
+        appendCount.set(0);
+    }
+
+    @Test(description = "Records appended within the linger time are written as a single append")
+    public void testCoalesceWithinLingerTime() throws Exception {
+
+        AppendBuffer buffer = new AppendBuffer(newConfig(1024, 200), new AppendOffsetTracker());
+        StringBuilder expected = new StringBuilder();
+        for (int i = 0; i < 20; i++) {
+            String record = "record-" + i + "\n";
+            buffer.append(client, record.getBytes(StandardCharsets.UTF_8));
+            expected.append(record);
+        }
+        Assert.assertEquals(appendCount.get(), 0);
+        Assert.assertTrue(buffer.flush(Duration.ofSeconds(10)));
+        Assert.assertEquals(appendCount.get(), 1);
+        Assert.assertEquals(content(), expected.toString());
+        Assert.assertEquals(buffer.getBufferedBytes(), 0L);
+        Assert.assertEquals(buffer.getFailedBatchCount(), 0L);
+        buffer.close();
+    }
+
+    @Test(description = "Records of concurrent messages are written in order once they reach the batch size")
+    public void testConcurrentAppendsKeepOrder() throws Exception {
+
+        AppendBuffer buffer = new AppendBuffer(newConfig(1, 60000), new AppendOffsetTracker());
+        int threadCount = 4;
+        int recordCount = 200;
+        List<Thread> threads = new ArrayList<>();
+        for (int t = 0; t < threadCount; t++) {
+            int thread = t;
+            threads.add(new Thread(() -> {
+                try {
+                    for (int i = 0; i < recordCount; i++) {
+                        buffer.append(client, (thread + ":" + i + "\n").getBytes(StandardCharsets.UTF_8));
+                    }
+                } catch (Exception e) {
+                    throw new IllegalStateException(e);
+                }
+            }));
+        }
+        threads.forEach(Thread::start);
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        Assert.assertTrue(buffer.flush(Duration.ofSeconds(10)));
+        Assert.assertEquals(buffer.getFailedBatchCount(), 0L);
+        Assert.assertTrue(appendCount.get() > 1);
+        Assert.assertTrue(appendCount.get() < threadCount * recordCount);
+
+        Map<String, Integer> lastRecord = new HashMap<>();
+        String[] lines = content().split("\n");
+        Assert.assertEquals(lines.length, threadCount * recordCount);
+        for (String line : lines) {
+            String[] parts = line.split(":");
+            int record = Integer.parseInt(parts[1]);
+            Assert.assertEquals(record, lastRecord.getOrDefault(parts[0], -1) + 1);
+            lastRecord.put(parts[0], record);
+        }
+        buffer.close();
+    }
+
+    @Test(description = "A batch is appended again at the actual length of a file someone else appended to")
+    public void testResyncAfterForeignAppend() throws Exception {
+
+        AppendOffsetTracker offsetTracker = new AppendOffsetTracker();
+        AppendBuffer buffer = new AppendBuffer(newConfig(1024, 50), offsetTracker);
+        buffer.append(client, "first\n".getBytes(StandardCharsets.UTF_8));
+        Assert.assertTrue(buffer.flush(Duration.ofSeconds(10)));
+        synchronized (file) {
+            file.write("foreign\n".getBytes(StandardCharsets.UTF_8));
+        }
+        buffer.append(client, "second\n".getBytes(StandardCharsets.UTF_8));
+        Assert.assertTrue(buffer.flush(Duration.ofSeconds(10)));
+        Assert.assertEquals(content(), "first\nforeign\nsecond\n");
+        Assert.assertEquals(buffer.getFailedBatchCount(), 0L);
+        Assert.assertEquals(offsetTracker.getResyncCount(), 1L);
+        Assert.assertEquals(offsetTracker.getNextPosition(client.getFileUrl()), Long.valueOf(21));
+        buffer.close();
+    }
+
+    @Test(description = "A record larger than the buffer memory is rejected")
+    public void testRecordLargerThanMemory() throws Exception {
+
+        AppendBuffer buffer = new AppendBuffer(newConfig(1024, 200), new AppendOffsetTracker());
+        try {
+            buffer.append(client, new byte[1024 * 1024 + 1]);
+            Assert.fail("The record was buffered");
+        } catch (IllegalArgumentException e) {
+            // Expected
+        }
+        Assert.assertEquals(buffer.getBufferedBytes(), 0L);
+        buffer.close();
+    }
+
+    private static ConnectionConfiguration newConfig(int batchSize, int lingerTime) throws ConnectException {
+
+        ConnectionConfiguration config = new ConnectionConfiguration();
+        config.setConnectionName("appendBufferTest");
+        config.setAppendBufferSize(batchSize);
+        config.setAppendBufferLingerTime(lingerTime);
+        config.setAppendBufferMemory(1);
+        return config;
+    }
+
+    private String content() {
+
+        synchronized (file) {
+            return new String(file.toByteArray(), StandardCharsets.UTF_8);
+        }
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+
+        Map<String, String> query = new HashMap<>();
+        if (exchange.getRequestURI().getQuery() != null) {
+            for (String parameter : exchange.getRequestURI().getQuery().split("&")) {
+                String[] pair = parameter.split("=", 2);
+                query.put(pair[0], pair.length > 1 ? pair[1] : "");
+            }
+        }
+        byte[] body = readBody(exchange.getRequestBody());
+        int status;
+        synchronized (file) {
+            if ("HEAD".equals(exchange.getRequestMethod())) {
+                exchange.getResponseHeaders().add("Content-Length", String.valueOf(file.size()));
+                status = 200;
+            } else if ("append".equals(query.get("action"))
+                    && Long.parseLong(query.get("position")) == file.size() && "true".equals(query.get("flush"))) {
+                appendCount.incrementAndGet();
+                file.write(body, 0, body.length);
+                status = 202;
+            } else {
+                exchange.getResponseHeaders().add("x-ms-error-code", "InvalidFlushPosition");
+                status = 400;
+            }
+        }
+        exchange.getResponseHeaders().add("ETag", "\"0x1\"");
+        exchange.getResponseHeaders().add("Last-Modified", "Wed, 01 Jan 2025 00:00:00 GMT");
+        exchange.sendResponseHeaders(status, -1);
+        exchange.close();
+    }
+
+    private static byte[] readBody(InputStream in) throws IOException {
+
+        ByteArrayOutputStream body = new ByteArrayOutputStream();
+        byte[] buffer = new byte[8192];
+        int read;
+        while ((read = in.read(buffer)) > 0) {
+            body.write(buffer, 0, read);
+        }
+        return body.toByteArray();
+    }
+}
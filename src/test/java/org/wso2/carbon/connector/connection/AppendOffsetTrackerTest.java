@@ -0,0 +1,201 @@
+/*
+ *  Copyright (c) 2025, WSO2 LLC. (https://www.wso2.com).
+ *
+ *  WSO2 LLC. licenses this file to you under the Apache License,
+ *  Version 2.0 (the "License"); you may not use this file except
+ *  in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *  "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License.
+ */
+
+package org.wso2.carbon.connector.connection;
+
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Verifies the positions handed out by {@link AppendOffsetTracker} and the order it lets ranges be flushed in.
+ */
+public class AppendOffsetTrackerTest {
+
+    private static final String URL = "https://account.dfs.core.windows.net/fs/a.log";
+    private static final Duration TIMEOUT = Duration.ofSeconds(10);
+
+    @Test(description = "Appends to a tracked file reserve consecutive ranges without fetching its length")
+    public void testConsecutiveRanges() throws Exception {
+
+        AppendOffsetTracker tracker = new AppendOffsetTracker();
+        AtomicInteger fetchCount = new AtomicInteger();
+        Assert.assertEquals(tracker.reserve(URL, null, 10, false, () -> {
+            fetchCount.incrementAndGet();
+            return 100;
+        }, TIMEOUT).getPosition(), 100L);
+        Assert.assertEquals(tracker.reserve(URL, null, 5, false, () -> 0, TIMEOUT).getPosition(), 110L);
+        Assert.assertEquals(tracker.reserve(URL, null, 1, false, () -> 0, TIMEOUT).getEnd(), 116L);
+        Assert.assertEquals(fetchCount.get(), 1);
+        Assert.assertEquals(tracker.getCommittedLength(URL), Long.valueOf(100));
+        Assert.assertEquals(tracker.getNextPosition(URL), Long.valueOf(116));
+        Assert.assertEquals(tracker.getHitCount(), 2);
+        Assert.assertEquals(tracker.getMissCount(), 1);
+    }
+
+    @Test(description = "A flush moves the committed length and optionally discards the data appended after it")
+    public void testCommitted() throws Exception {
+
+        AppendOffsetTracker tracker = new AppendOffsetTracker();
+        AppendOffsetTracker.Range first = tracker.reserve(URL, null, 10, false, () -> 0, TIMEOUT);
+        AppendOffsetTracker.Range second = tracker.reserve(URL, null, 10, false, () -> 0, TIMEOUT);
+        first.appended();
+        Assert.assertTrue(first.beginFlush(TIMEOUT));
+        first.committed();
+        Assert.assertEquals(tracker.getCommittedLength(URL), Long.valueOf(10));
+        Assert.assertEquals(tracker.getNextPosition(URL), Long.valueOf(20));
+        second.appended();
+        AppendOffsetTracker.Range flush = tracker.beginFlush(URL, 15, TIMEOUT);
+        flush.committed(false);
+        Assert.assertEquals(tracker.getCommittedLength(URL), Long.valueOf(15));
+        Assert.assertEquals(tracker.getNextPosition(URL), Long.valueOf(15));
+    }
+
+    @Test(description = "An append flushes the file itself only while no other append to the file is in flight")
+    public void testFlushWithAppend() throws Exception {
+
+        AppendOffsetTracker tracker = new AppendOffsetTracker();
+        AppendOffsetTracker.Range first = tracker.reserve(URL, null, 10, false, () -> 0, TIMEOUT);
+        Assert.assertTrue(first.beginAppend(true, TIMEOUT));
+        // The flush of the first append would discard data appended after it meanwhile, so the next one waits
+        AppendOffsetTracker.Range second = tracker.reserve(URL, null, 10, false, () -> 0, TIMEOUT);
+        CompletableFuture<Boolean> secondAppend = CompletableFuture.supplyAsync(() -> call(() ->
+                second.beginAppend(true, TIMEOUT)));
+        Thread.sleep(100);
+        Assert.assertFalse(secondAppend.isDone());
+        first.committed();
+        Assert.assertTrue(secondAppend.get(10, TimeUnit.SECONDS));
+        second.committed();
+        Assert.assertEquals(tracker.getCommittedLength(URL), Long.valueOf(20));
+
+        AppendOffsetTracker.Range third = tracker.reserve(URL, null, 10, false, () -> 0, TIMEOUT);
+        tracker.reserve(URL, null, 10, false, () -> 0, TIMEOUT);
+        Assert.assertFalse(third.beginAppend(true, TIMEOUT));
+    }
+
+    @Test(description = "Of two flushing appends that complete out of order, neither commits before the first")
+    public void testOutOfOrderFlushes() throws Exception {
+
+        AppendOffsetTracker tracker = new AppendOffsetTracker();
+        AppendOffsetTracker.Range first = tracker.reserve(URL, null, 10, false, () -> 0, TIMEOUT);
+        AppendOffsetTracker.Range second = tracker.reserve(URL, null, 10, false, () -> 0, TIMEOUT);
+        Assert.assertFalse(first.beginAppend(true, TIMEOUT));
+        Assert.assertFalse(second.beginAppend(true, TIMEOUT));
+        List<Long> flushes = new CopyOnWriteArrayList<>();
+
+        second.appended();
+        CompletableFuture<Void> secondFlush = CompletableFuture.runAsync(() -> flush(second, flushes));
+        Thread.sleep(100);
+        Assert.assertFalse(secondFlush.isDone());
+        Assert.assertTrue(flushes.isEmpty());
+
+        first.appended();
+        CompletableFuture<Void> firstFlush = CompletableFuture.runAsync(() -> flush(first, flushes));
+        secondFlush.get(10, TimeUnit.SECONDS);
+        firstFlush.get(10, TimeUnit.SECONDS);
+        // The first range is flushed before the second, or needs no flush of its own after it
+        Assert.assertEquals(flushes.get(flushes.size() - 1), Long.valueOf(20));
+        Assert.assertTrue(flushes.size() == 1 || flushes.get(0) == 10L);
+        Assert.assertEquals(tracker.getCommittedLength(URL), Long.valueOf(20));
+        Assert.assertEquals(tracker.getResyncCount(), 0);
+    }
+
+    @Test(description = "After a failed append, the ranges after it are not flushed and the length is only fetched "
+            + "again once they are done")
+    public void testFailure() throws Exception {
+
+        AppendOffsetTracker tracker = new AppendOffsetTracker();
+        AppendOffsetTracker.Range first = tracker.reserve(URL, null, 10, false, () -> 0, TIMEOUT);
+        AppendOffsetTracker.Range second = tracker.reserve(URL, null, 10, false, () -> 0, TIMEOUT);
+        Assert.assertFalse(first.failed(new IllegalStateException("Connection reset")));
+        Assert.assertNull(tracker.getNextPosition(URL));
+        CompletableFuture<Long> retry = CompletableFuture.supplyAsync(() -> call(() ->
+                tracker.reserve(URL, null, 10, false, () -> 5, TIMEOUT).getPosition()));
+        Thread.sleep(100);
+        // The retry would overlap the second range, which is still in flight
+        Assert.assertFalse(retry.isDone());
+
+        second.appended();
+        try {
+            second.beginFlush(TIMEOUT);
+            Assert.fail("The range after a failed append was flushed");
+        } catch (IllegalStateException e) {
+            Assert.assertTrue(second.failed(e));
+        }
+        Assert.assertEquals(retry.get(10, TimeUnit.SECONDS), Long.valueOf(5));
+    }
+
+    @Test(description = "An append the service does not check the position of checks the length of the file")
+    public void testVerify() throws Exception {
+
+        AppendOffsetTracker tracker = new AppendOffsetTracker();
+        tracker.reserve(URL, null, 10, false, () -> 0, TIMEOUT).committed();
+        AppendOffsetTracker.Range range = tracker.reserve(URL, null, 5, true, () -> 10, TIMEOUT);
+        Assert.assertEquals(range.getPosition(), 10L);
+        range.appended();
+        tracker.beginFlush(URL, 15, TIMEOUT).committed();
+        // Someone else appended 3 bytes
+        Assert.assertEquals(tracker.reserve(URL, null, 5, true, () -> 18, TIMEOUT).getPosition(), 18L);
+        Assert.assertEquals(tracker.getResyncCount(), 1);
+    }
+
+    @Test(description = "Offsets are fetched again under another lease")
+    public void testLease() throws Exception {
+
+        AppendOffsetTracker tracker = new AppendOffsetTracker();
+        tracker.reserve(URL, "lease-1", 10, false, () -> 0, TIMEOUT).committed();
+        AppendOffsetTracker.Range range = tracker.reserve(URL, "lease-1", 1, false, () -> 100, TIMEOUT);
+        Assert.assertEquals(range.getPosition(), 10L);
+        // The append under the other lease is in flight
+        try {
+            tracker.reserve(URL, "lease-2", 1, false, () -> 100, Duration.ofMillis(100));
+            Assert.fail("A range was reserved under another lease while an append was in flight");
+        } catch (TimeoutException e) {
+            // Expected
+        }
+        range.committed();
+        Assert.assertEquals(tracker.reserve(URL, "lease-2", 1, false, () -> 100, TIMEOUT).getPosition(), 100L);
+    }
+
+    private static void flush(AppendOffsetTracker.Range range, List<Long> flushes) {
+
+        call(() -> {
+            if (range.beginFlush(TIMEOUT)) {
+                flushes.add(range.getEnd());
+                range.committed();
+            }
+            return null;
+        });
+    }
+
+    private static <T> T call(java.util.concurrent.Callable<T> callable) {
+
+        try {
+            return callable.call();
+        } catch (Exception e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
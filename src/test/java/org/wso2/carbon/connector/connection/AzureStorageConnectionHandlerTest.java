@@ -0,0 +1,113 @@
+/*
+ *  Copyright (c) 2025, WSO2 LLC. (https://www.wso2.com).
+ *
+ *  WSO2 LLC. licenses this file to you under the Apache License,
+ *  Version 2.0 (the "License"); you may not use this file except
+ *  in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *  "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License.
+ */
+
+package org.wso2.carbon.connector.connection;
+
+import com.azure.storage.file.datalake.DataLakeServiceClient;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Verifies the client lifecycle of {@link AzureStorageConnectionHandler} under concurrent access.
+ */
+public class AzureStorageConnectionHandlerTest {
+
+    private static final int PARALLEL_CALLERS = 500;
+
+    @Test(description = "Concurrent first use of a connection builds exactly one client")
+    public void testNoDuplicateClientBuilds() throws Exception {
+
+        AzureStorageConnectionHandler handler =
+                new AzureStorageConnectionHandler(createConfiguration("concurrentBuild", "key-1"));
+        long buildsBefore = DataLakeServiceClientCache.getClientBuildCount();
+
+        ExecutorService executor = Executors.newFixedThreadPool(PARALLEL_CALLERS);
+        CountDownLatch startGate = new CountDownLatch(1);
+        try {
+            List<Future<DataLakeServiceClient>> results = new ArrayList<>();
+            for (int i = 0; i < PARALLEL_CALLERS; i++) {
+                Callable<DataLakeServiceClient> caller = () -> {
+                    startGate.await();
+                    try (ClientLease lease = handler.leaseDataLakeServiceClient()) {
+                        return lease.getClient();
+                    }
+                };
+                results.add(executor.submit(caller));
+            }
+            startGate.countDown();
+
+            Set<DataLakeServiceClient> clients = Collections.newSetFromMap(new IdentityHashMap<>());
+            for (Future<DataLakeServiceClient> result : results) {
+                clients.add(result.get());
+            }
+            Assert.assertEquals(clients.size(), 1, "All callers must observe the same client");
+            Assert.assertEquals(DataLakeServiceClientCache.getClientBuildCount() - buildsBefore, 1);
+        } finally {
+            executor.shutdownNow();
+            handler.close();
+        }
+    }
+
+    @Test(description = "An operation in flight keeps its client while the connection switches to a new one")
+    public void testLeasedClientSurvivesReconfiguration() throws Exception {
+
+        AzureStorageConnectionHandler handler =
+                new AzureStorageConnectionHandler(createConfiguration("reconfigure", "key-2"));
+        try {
+            ClientLease lease = handler.leaseDataLakeServiceClient();
+            DataLakeServiceClient previousClient = lease.getClient();
+
+            handler.setConnectionConfig(createConfiguration("reconfigure", "key-3"));
+            DataLakeServiceClient currentClient = handler.getDataLakeServiceClient();
+
+            Assert.assertNotSame(currentClient, previousClient);
+            Assert.assertSame(lease.getClient(), previousClient);
+            Assert.assertEquals(handler.getMetrics().getClientRebuildCount(), 1);
+            lease.close();
+
+            // Unchanged settings must not rebuild the client
+            handler.setConnectionConfig(createConfiguration("reconfigure", "key-3"));
+            Assert.assertSame(handler.getDataLakeServiceClient(), currentClient);
+            Assert.assertEquals(handler.getMetrics().getClientRebuildCount(), 1);
+        } finally {
+            handler.close();
+        }
+    }
+
+    private static ConnectionConfiguration createConfiguration(String connectionName, String key)
+            throws Exception {
+
+        ConnectionConfiguration configuration = new ConnectionConfiguration();
+        configuration.setConnectionName(connectionName);
+        configuration.setAccountName("devstoreaccount");
+        configuration.setAccountKey(Base64.getEncoder().encodeToString(key.getBytes()));
+        return configuration;
+    }
+}
@@ -0,0 +1,204 @@
+/*
+ *  Copyright (c) 2025, WSO2 LLC. (https://www.wso2.com).
+ *
+ *  WSO2 LLC. licenses this file to you under the Apache License,
+ *  Version 2.0 (the "License"); you may not use this file except
+ *  in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *  "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License.
+ */
+
+package org.wso2.carbon.connector.connection;
+
+import com.azure.core.exception.HttpResponseException;
+import com.azure.core.http.HttpHeaders;
+import com.azure.core.http.HttpMethod;
+import com.azure.core.http.HttpRequest;
+import com.azure.core.http.HttpResponse;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.io.FileNotFoundException;
+import java.nio.ByteBuffer;
+import java.nio.charset.Charset;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Verifies the state transitions of {@link CircuitBreaker}.
+ */
+public class CircuitBreakerTest {
+
+    @Test(description = "The circuit opens after the configured number of consecutive service failures")
+    public void testOpensAfterThreshold() throws Exception {
+
+        CircuitBreaker circuitBreaker = new CircuitBreaker(createConfiguration(3, 60));
+        for (int i = 0; i < 2; i++) {
+            Assert.assertTrue(circuitBreaker.allowRequest());
+            circuitBreaker.recordFailure();
+        }
+        Assert.assertTrue(circuitBreaker.allowRequest());
+        circuitBreaker.recordSuccess();
+        for (int i = 0; i < 3; i++) {
+            Assert.assertTrue(circuitBreaker.allowRequest());
+            circuitBreaker.recordFailure();
+        }
+        Assert.assertEquals(circuitBreaker.getState(), CircuitBreaker.State.OPEN);
+        Assert.assertFalse(circuitBreaker.allowRequest());
+        Assert.assertEquals(circuitBreaker.getOpenCount(), 1);
+        Assert.assertEquals(circuitBreaker.getRejectedCount(), 1);
+    }
+
+    @Test(description = "A single probe is let through after the open time and its outcome decides the state")
+    public void testHalfOpenProbe() throws Exception {
+
+        AtomicLong clock = new AtomicLong();
+        CircuitBreaker circuitBreaker = new CircuitBreaker(createConfiguration(1, 1), clock::get);
+        circuitBreaker.allowRequest();
+        circuitBreaker.recordFailure();
+        Assert.assertFalse(circuitBreaker.allowRequest());
+        clock.addAndGet(TimeUnit.MILLISECONDS.toNanos(1100));
+
+        Assert.assertTrue(circuitBreaker.allowRequest());
+        Assert.assertFalse(circuitBreaker.allowRequest(), "Only one probe may be in flight");
+        circuitBreaker.recordFailure();
+        Assert.assertEquals(circuitBreaker.getState(), CircuitBreaker.State.OPEN);
+        clock.addAndGet(TimeUnit.MILLISECONDS.toNanos(1100));
+
+        Assert.assertTrue(circuitBreaker.allowRequest());
+        circuitBreaker.recordSuccess();
+        Assert.assertEquals(circuitBreaker.getState(), CircuitBreaker.State.CLOSED);
+        Assert.assertTrue(circuitBreaker.allowRequest());
+    }
+
+    @Test(description = "Failures recorded while the circuit is open do not extend the open period")
+    public void testLateFailuresKeepOpenPeriod() throws Exception {
+
+        AtomicLong clock = new AtomicLong();
+        CircuitBreaker circuitBreaker = new CircuitBreaker(createConfiguration(2, 10), clock::get);
+        for (int i = 0; i < 3; i++) {
+            Assert.assertTrue(circuitBreaker.allowRequest());
+        }
+        circuitBreaker.recordFailure();
+        circuitBreaker.recordFailure();
+        Assert.assertEquals(circuitBreaker.getState(), CircuitBreaker.State.OPEN);
+
+        clock.addAndGet(TimeUnit.SECONDS.toNanos(9));
+        circuitBreaker.recordFailure();
+        Assert.assertEquals(circuitBreaker.getOpenCount(), 1);
+        clock.addAndGet(TimeUnit.SECONDS.toNanos(1));
+        Assert.assertTrue(circuitBreaker.allowRequest(), "The probe is let through 10 seconds after opening");
+        Assert.assertEquals(circuitBreaker.getState(), CircuitBreaker.State.HALF_OPEN);
+    }
+
+    @Test(description = "A probe that never reached the service frees its slot without closing the circuit")
+    public void testReleasedProbe() throws Exception {
+
+        AtomicLong clock = new AtomicLong();
+        CircuitBreaker circuitBreaker = new CircuitBreaker(createConfiguration(1, 1), clock::get);
+        circuitBreaker.allowRequest();
+        circuitBreaker.recordFailure();
+        clock.addAndGet(TimeUnit.SECONDS.toNanos(1));
+
+        Assert.assertTrue(circuitBreaker.allowRequest());
+        circuitBreaker.releaseProbe();
+        Assert.assertEquals(circuitBreaker.getState(), CircuitBreaker.State.HALF_OPEN);
+        Assert.assertTrue(circuitBreaker.allowRequest(), "Another probe may be sent");
+        Assert.assertFalse(circuitBreaker.allowRequest());
+        circuitBreaker.recordFailure();
+        Assert.assertEquals(circuitBreaker.getState(), CircuitBreaker.State.OPEN);
+    }
+
+    @Test(description = "The circuit never opens if no threshold is configured")
+    public void testDisabledWithoutThreshold() throws Exception {
+
+        CircuitBreaker circuitBreaker = new CircuitBreaker(createConfiguration(null, null));
+        for (int i = 0; i < 100; i++) {
+            Assert.assertTrue(circuitBreaker.allowRequest());
+            circuitBreaker.recordFailure();
+        }
+        Assert.assertEquals(circuitBreaker.getState(), CircuitBreaker.State.CLOSED);
+    }
+
+    @Test(description = "Throttling, unavailability and timeouts count as service failures, other errors do not")
+    public void testServiceFailureClassification() {
+
+        Assert.assertTrue(CircuitBreaker.isServiceFailure(new RuntimeException(createResponseException(503))));
+        Assert.assertTrue(CircuitBreaker.isServiceFailure(createResponseException(429)));
+        Assert.assertTrue(CircuitBreaker.isServiceFailure(
+                new IllegalStateException(new TimeoutException("Timeout on blocking read"))));
+        Assert.assertFalse(CircuitBreaker.isServiceFailure(createResponseException(404)));
+        Assert.assertFalse(CircuitBreaker.isServiceFailure(new RuntimeException(new FileNotFoundException())));
+    }
+
+    private static HttpResponseException createResponseException(int statusCode) {
+
+        HttpResponse response = new HttpResponse(new HttpRequest(HttpMethod.GET, "https://localhost")) {
+
+            @Override
+            public int getStatusCode() {
+
+                return statusCode;
+            }
+
+            @Override
+            @Deprecated
+            public String getHeaderValue(String name) {
+
+                return null;
+            }
+
+            @Override
+            public HttpHeaders getHeaders() {
+
+                return new HttpHeaders();
+            }
+
+            @Override
+            public Flux<ByteBuffer> getBody() {
+
+                return Flux.empty();
+            }
+
+            @Override
+            public Mono<byte[]> getBodyAsByteArray() {
+
+                return Mono.empty();
+            }
+
+            @Override
+            public Mono<String> getBodyAsString() {
+
+                return Mono.empty();
+            }
+
+            @Override
+            public Mono<String> getBodyAsString(Charset charset) {
+
+                return Mono.empty();
+            }
+        };
+        return new HttpResponseException("Status code " + statusCode, response);
+    }
+
+    private static ConnectionConfiguration createConfiguration(Integer threshold, Integer openTime)
+            throws Exception {
+
+        ConnectionConfiguration config = new ConnectionConfiguration();
+        config.setConnectionName("circuitBreakerTest");
+        config.setCircuitBreakerThreshold(threshold);
+        config.setCircuitBreakerOpenTime(openTime);
+        return config;
+    }
+}
@@ -0,0 +1,119 @@
+/*
+ *  Copyright (c) 2025, WSO2 LLC. (https://www.wso2.com).
+ *
+ *  WSO2 LLC. licenses this file to you under the Apache License,
+ *  Version 2.0 (the "License"); you may not use this file except
+ *  in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *  "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License.
+ */
+
+package org.wso2.carbon.connector.connection;
+
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Verifies the adaptation of the limit of {@link ConcurrencyLimiter}.
+ */
+public class ConcurrencyLimiterTest {
+
+    @Test(description = "The limit grows while the operations using it complete in time, up to the maximum")
+    public void testAdditiveIncrease() throws Exception {
+
+        ConcurrencyLimiter limiter = new ConcurrencyLimiter(createConfiguration(4, 10, 1));
+        for (int round = 0; round < 4; round++) {
+            releaseAll(acquire(limiter, limiter.getLimit()), false);
+        }
+        Assert.assertTrue(limiter.getLimit() > 4, "Limit did not grow: " + limiter.getLimit());
+        for (int round = 0; round < 100; round++) {
+            releaseAll(acquire(limiter, limiter.getLimit()), false);
+        }
+        Assert.assertEquals(limiter.getLimit(), 10);
+        Assert.assertEquals(limiter.getInFlight(), 0);
+    }
+
+    @Test(description = "The limit does not grow while it is not used")
+    public void testNoIncreaseWhenIdle() throws Exception {
+
+        ConcurrencyLimiter limiter = new ConcurrencyLimiter(createConfiguration(16, 32, 1));
+        for (int i = 0; i < 100; i++) {
+            releaseAll(acquire(limiter, 1), false);
+        }
+        Assert.assertEquals(limiter.getLimit(), 16);
+    }
+
+    @Test(description = "Operations throttled together halve the limit only once")
+    public void testMultiplicativeDecrease() throws Exception {
+
+        ConcurrencyLimiter limiter = new ConcurrencyLimiter(createConfiguration(16, 32, 1));
+        releaseAll(acquire(limiter, 16), true);
+        Assert.assertEquals(limiter.getLimit(), 8);
+
+        acquire(limiter, 1).get(0).release(true);
+        Assert.assertEquals(limiter.getLimit(), 4);
+    }
+
+    @Test(description = "Operations over the limit time out in the queue")
+    public void testQueueTimeout() throws Exception {
+
+        ConcurrencyLimiter limiter = new ConcurrencyLimiter(createConfiguration(1, 1, 1));
+        ConcurrencyLimiter.Permit permit = limiter.acquire();
+        Assert.assertNull(limiter.acquire());
+        Assert.assertEquals(limiter.getQueueTimeoutCount(), 1);
+        Assert.assertTrue(limiter.getLastQueueWaitTime() < 1000);
+
+        new Thread(() -> {
+            try {
+                Thread.sleep(200);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            permit.release(false);
+        }).start();
+        Assert.assertNotNull(limiter.acquire());
+        Assert.assertTrue(limiter.getLastQueueWaitTime() >= 150);
+    }
+
+    private static List<ConcurrencyLimiter.Permit> acquire(ConcurrencyLimiter limiter, int count)
+            throws InterruptedException {
+
+        List<ConcurrencyLimiter.Permit> permits = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            ConcurrencyLimiter.Permit permit = limiter.acquire();
+            Assert.assertNotNull(permit);
+            permits.add(permit);
+        }
+        return permits;
+    }
+
+    private static void releaseAll(List<ConcurrencyLimiter.Permit> permits, boolean serviceFailure) {
+
+        for (ConcurrencyLimiter.Permit permit : permits) {
+            permit.release(serviceFailure);
+        }
+    }
+
+    private static ConnectionConfiguration createConfiguration(int initialLimit, int maxLimit, int queueTimeout)
+            throws Exception {
+
+        ConnectionConfiguration config = new ConnectionConfiguration();
+        config.setConnectionName("concurrencyLimiterTest");
+        config.setAdaptiveConcurrency(true);
+        config.setInitialConcurrencyLimit(initialLimit);
+        config.setMaxConcurrencyLimit(maxLimit);
+        config.setConcurrencyQueueTimeout(queueTimeout);
+        return config;
+    }
+}
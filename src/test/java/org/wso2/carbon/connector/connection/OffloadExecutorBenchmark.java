@@ -0,0 +1,161 @@
+/*
+ *  Copyright (c) 2025, WSO2 LLC. (https://www.wso2.com).
+ *
+ *  WSO2 LLC. licenses this file to you under the Apache License,
+ *  Version 2.0 (the "License"); you may not use this file except
+ *  in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *  "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License.
+ */
+
+package org.wso2.carbon.connector.connection;
+
+import com.azure.core.http.netty.NettyAsyncHttpClientBuilder;
+import com.azure.storage.file.datalake.DataLakeFileClient;
+import io.netty.util.concurrent.DefaultThreadFactory;
+import org.wso2.carbon.connector.util.Benchmark;
+import org.wso2.carbon.connector.util.StubServer;
+import reactor.netty.http.client.HttpClient;
+import reactor.netty.resources.ConnectionProvider;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BiConsumer;
+
+/**
+ * Compares the throughput and thread count of blocking operations run on the mediation threads with the same
+ * operations offloaded to an {@link OffloadExecutor}, against a local stand-in for the Data Lake endpoint that
+ * answers every request after a fixed latency.
+ * <p>
+ * Every iteration dispatches {@code benchmark.operations} blocking property lookups (2000 by default) from a pool of
+ * {@code benchmark.workers} mediation threads (20 by default), and waits for all of them. The blocking model is also
+ * run with one mediation thread per operation, which is what the blocking model needs to match the offloaded
+ * throughput. Offloaded operations run on virtual threads on Java 21 and later, and on platform threads otherwise.
+ */
+public final class OffloadExecutorBenchmark {
+
+    private static final long LATENCY_MILLIS = 200;
+
+    private OffloadExecutorBenchmark() {
+
+    }
+
+    public static void main(String[] args) throws Exception {
+
+        int operations = Integer.getInteger("benchmark.operations", 2000);
+        int workers = Integer.getInteger("benchmark.workers", 20);
+        Benchmark benchmark = Benchmark.fromSystemProperties();
+        // The server closes the pooled connections of the client beyond this many, failing the requests sent on them
+        System.setProperty("sun.net.httpserver.maxIdleConnections", String.valueOf(operations));
+        ScheduledExecutorService latency = Executors.newSingleThreadScheduledExecutor(
+                new DefaultThreadFactory("benchmark-latency", true));
+        // The response is sent later from the scheduler, so that the server does not hold a thread per request
+        try (StubServer server = StubServer.start(exchange -> {
+            drain(exchange.getRequestBody());
+            latency.schedule(() -> {
+                try {
+                    exchange.getResponseHeaders().add("ETag", "\"0x1\"");
+                    exchange.getResponseHeaders().add("Last-Modified", "Wed, 01 Jan 2025 00:00:00 GMT");
+                    exchange.getResponseHeaders().add("x-ms-resource-type", "file");
+                    exchange.sendResponseHeaders(200, -1);
+                } catch (IOException e) {
+                    // The client gave up on the request
+                } finally {
+                    exchange.close();
+                }
+            }, LATENCY_MILLIS, TimeUnit.MILLISECONDS);
+        })) {
+            // The connection pool must not be what limits the concurrency
+            DataLakeFileClient client = server.newServiceClientBuilder()
+                    .httpClient(new NettyAsyncHttpClientBuilder(
+                            HttpClient.create(ConnectionProvider.create("benchmark", operations))).build())
+                    .buildClient().getFileSystemClient("container").getFileClient("file.txt");
+
+            ConnectionConfiguration config = new ConnectionConfiguration();
+            config.setOffloadExecution(true);
+            config.setMaxOffloadedOperations(operations);
+            OffloadExecutor offloadExecutor = new OffloadExecutor(config);
+
+            System.out.println("Java " + System.getProperty("java.version") + ", " + operations + " operations, "
+                    + LATENCY_MILLIS + " ms latency, " + Runtime.getRuntime().availableProcessors() + " CPUs");
+            run(benchmark, "blocking, " + workers + " mediation threads", operations, workers,
+                    OffloadExecutorBenchmark::runBlocking, client);
+            run(benchmark, "blocking, " + operations + " mediation threads", operations, operations,
+                    OffloadExecutorBenchmark::runBlocking, client);
+            run(benchmark, "offloaded, " + workers + " mediation threads", operations, workers,
+                    (operation, done) -> offloadExecutor.execute(operation)
+                            .doFinally(signal -> done.countDown())
+                            .subscribe(null, e -> { }), client);
+        } finally {
+            latency.shutdownNow();
+        }
+        System.exit(0);
+    }
+
+    private static void run(Benchmark benchmark, String name, int operations, int workers,
+                            BiConsumer<Runnable, CountDownLatch> dispatch, DataLakeFileClient client)
+            throws Exception {
+
+        ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+        AtomicInteger peakThreads = new AtomicInteger();
+        AtomicInteger failures = new AtomicInteger();
+        ExecutorService mediationThreads = Executors.newFixedThreadPool(workers,
+                new DefaultThreadFactory("benchmark-mediation", true));
+        Runnable operation = () -> {
+            try {
+                client.getProperties();
+            } catch (RuntimeException e) {
+                failures.incrementAndGet();
+            }
+        };
+        try {
+            long median = benchmark.measure(name, () -> {
+                threads.resetPeakThreadCount();
+                CountDownLatch done = new CountDownLatch(operations);
+                for (int i = 0; i < operations; i++) {
+                    mediationThreads.execute(() -> dispatch.accept(operation, done));
+                }
+                done.await();
+                peakThreads.accumulateAndGet(threads.getPeakThreadCount(), Math::max);
+                return null;
+            });
+            System.out.printf("%-48s %10.1f operations/s, peak %d live threads, %d failed%n", name,
+                    operations / (median / 1e9), peakThreads.get(), failures.get());
+        } finally {
+            mediationThreads.shutdownNow();
+        }
+    }
+
+    private static void runBlocking(Runnable operation, CountDownLatch done) {
+
+        try {
+            operation.run();
+        } finally {
+            done.countDown();
+        }
+    }
+
+    private static void drain(InputStream in) throws IOException {
+
+        byte[] buffer = new byte[8192];
+        while (in.read(buffer) > 0) {
+            // Discarded
+        }
+    }
+}
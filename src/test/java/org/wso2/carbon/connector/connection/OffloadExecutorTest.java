@@ -0,0 +1,101 @@
+/*
+ *  Copyright (c) 2025, WSO2 LLC. (https://www.wso2.com).
+ *
+ *  WSO2 LLC. licenses this file to you under the Apache License,
+ *  Version 2.0 (the "License"); you may not use this file except
+ *  in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *  "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License.
+ */
+
+package org.wso2.carbon.connector.connection;
+
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Verifies the bounds applied by {@link OffloadExecutor}.
+ */
+public class OffloadExecutorTest {
+
+    @Test(description = "Offloaded tasks run off the calling thread")
+    public void testExecute() throws Exception {
+
+        OffloadExecutor executor = new OffloadExecutor(createConfiguration(2, 10));
+        Thread caller = Thread.currentThread();
+        Thread[] worker = new Thread[1];
+        executor.execute(() -> worker[0] = Thread.currentThread()).block();
+        Assert.assertNotSame(worker[0], caller);
+        Assert.assertEquals(executor.getInFlight(), 0);
+    }
+
+    @Test(description = "Tasks over the maximum of offloaded operations are rejected")
+    public void testRejection() throws Exception {
+
+        OffloadExecutor executor = new OffloadExecutor(createConfiguration(1, 10));
+        CountDownLatch release = new CountDownLatch(1);
+        executor.execute(() -> await(release)).subscribe();
+        try {
+            executor.execute(() -> { }).block();
+            Assert.fail("The second task was not rejected");
+        } catch (RejectedExecutionException e) {
+            Assert.assertEquals(executor.getRejectedCount(), 1);
+        } finally {
+            release.countDown();
+        }
+    }
+
+    @Test(description = "Tasks exceeding the offload timeout are interrupted and free their slot")
+    public void testTimeout() throws Exception {
+
+        OffloadExecutor executor = new OffloadExecutor(createConfiguration(1, 1));
+        CountDownLatch interrupted = new CountDownLatch(1);
+        try {
+            executor.execute(() -> {
+                try {
+                    Thread.sleep(10000);
+                } catch (InterruptedException e) {
+                    interrupted.countDown();
+                }
+            }).block();
+            Assert.fail("The task did not time out");
+        } catch (RuntimeException e) {
+            Assert.assertTrue(e.getCause() instanceof TimeoutException, "Unexpected error: " + e);
+        }
+        Assert.assertTrue(interrupted.await(5, TimeUnit.SECONDS));
+        Assert.assertEquals(executor.getTimeoutCount(), 1);
+        executor.execute(() -> { }).block();
+    }
+
+    private static void await(CountDownLatch latch) {
+
+        try {
+            latch.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static ConnectionConfiguration createConfiguration(int maxOperations, int timeout) throws Exception {
+
+        ConnectionConfiguration config = new ConnectionConfiguration();
+        config.setConnectionName("offloadExecutorTest");
+        config.setOffloadExecution(true);
+        config.setMaxOffloadedOperations(maxOperations);
+        config.setOffloadTimeout(timeout);
+        return config;
+    }
+}
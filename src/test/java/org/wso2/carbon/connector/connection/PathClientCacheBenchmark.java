@@ -0,0 +1,86 @@
+/*
+ *  Copyright (c) 2025, WSO2 LLC. (https://www.wso2.com).
+ *
+ *  WSO2 LLC. licenses this file to you under the Apache License,
+ *  Version 2.0 (the "License"); you may not use this file except
+ *  in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *  "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License.
+ */
+
+package org.wso2.carbon.connector.connection;
+
+import com.azure.storage.file.datalake.DataLakeFileClient;
+import com.azure.storage.file.datalake.DataLakeServiceClient;
+import com.azure.storage.file.datalake.DataLakeServiceClientBuilder;
+import org.wso2.carbon.connector.util.Benchmark;
+
+/**
+ * Compares building a file client for every lookup with looking it up in a {@link PathClientCache}, the way
+ * operations get the client of their path. The lookups cycle over a handful of hot paths, as a flow that writes to
+ * the same few files does. No request is sent, so no endpoint is needed.
+ * <p>
+ * Every iteration makes {@code benchmark.lookups} lookups (100000 by default) over {@code benchmark.paths} paths
+ * (8 by default), and the time per lookup is reported.
+ */
+public final class PathClientCacheBenchmark {
+
+    private static final String FILE_SYSTEM = "container";
+
+    private PathClientCacheBenchmark() {
+
+    }
+
+    public static void main(String[] args) throws Exception {
+
+        int lookups = Integer.getInteger("benchmark.lookups", 100000);
+        int pathCount = Integer.getInteger("benchmark.paths", 8);
+        Benchmark benchmark = Benchmark.fromSystemProperties();
+        DataLakeServiceClient serviceClient = new DataLakeServiceClientBuilder()
+                .endpoint("https://account.dfs.core.windows.net")
+                .sasToken("sv=2021-06-08&sig=benchmark")
+                .buildClient();
+        String[] paths = new String[pathCount];
+        for (int i = 0; i < pathCount; i++) {
+            paths[i] = "folder/sub folder/file-" + i + ".json";
+        }
+        ConnectionConfiguration config = new ConnectionConfiguration();
+        config.setConnectionName("pathClientCacheBenchmark");
+        PathClientCache cache = new PathClientCache(config);
+
+        System.out.println("Java " + System.getProperty("java.version") + ", " + lookups + " lookups over "
+                + pathCount + " paths");
+        long built = benchmark.measure("build the file client", () -> {
+            int urlLength = 0;
+            for (int i = 0; i < lookups; i++) {
+                urlLength += build(serviceClient, paths[i % pathCount]).getFileUrl().length();
+            }
+            return urlLength;
+        });
+        long cached = benchmark.measure("look the file client up in the cache", () -> {
+            int urlLength = 0;
+            for (int i = 0; i < lookups; i++) {
+                String path = paths[i % pathCount];
+                urlLength += cache.get(serviceClient, DataLakeFileClient.class, FILE_SYSTEM, path,
+                        () -> build(serviceClient, path)).getFileUrl().length();
+            }
+            return urlLength;
+        });
+        System.out.printf("%-48s %10.3f us per lookup%n", "build the file client", built / 1e3 / lookups);
+        System.out.printf("%-48s %10.3f us per lookup%n", "look the file client up in the cache",
+                cached / 1e3 / lookups);
+    }
+
+    private static DataLakeFileClient build(DataLakeServiceClient serviceClient, String path) {
+
+        return serviceClient.getFileSystemClient(FILE_SYSTEM).getFileClient(path);
+    }
+}
@@ -0,0 +1,75 @@
+/*
+ *  Copyright (c) 2025, WSO2 LLC. (https://www.wso2.com).
+ *
+ *  WSO2 LLC. licenses this file to you under the Apache License,
+ *  Version 2.0 (the "License"); you may not use this file except
+ *  in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *  "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License.
+ */
+
+package org.wso2.carbon.connector.connection;
+
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+/**
+ * Verifies the lookups and eviction of {@link PathClientCache}.
+ */
+public class PathClientCacheTest {
+
+    @Test(description = "Clients are reused per parent client, type, file system and path")
+    public void testHitsAndMisses() throws Exception {
+
+        PathClientCache cache = new PathClientCache(createConfiguration(10));
+        Object parent = new Object();
+        String first = cache.get(parent, String.class, "fs", "a.txt", () -> new String("a"));
+        Assert.assertSame(cache.get(parent, String.class, "fs", "a.txt", () -> new String("a")), first);
+        Assert.assertNotSame(cache.get(parent, String.class, "other", "a.txt", () -> new String("a")), first);
+        Assert.assertNotSame(cache.get(new Object(), String.class, "fs", "a.txt", () -> new String("a")), first);
+        Assert.assertEquals(cache.getHitCount(), 1);
+        Assert.assertEquals(cache.getMissCount(), 3);
+        Assert.assertEquals(cache.getSize(), 3);
+    }
+
+    @Test(description = "The least recently used client is evicted once the cache is full")
+    public void testEviction() throws Exception {
+
+        PathClientCache cache = new PathClientCache(createConfiguration(2));
+        Object parent = new Object();
+        String a = cache.get(parent, String.class, "fs", "a", () -> new String("a"));
+        cache.get(parent, String.class, "fs", "b", () -> new String("b"));
+        cache.get(parent, String.class, "fs", "a", () -> new String("a"));
+        cache.get(parent, String.class, "fs", "c", () -> new String("c"));
+        Assert.assertEquals(cache.getEvictionCount(), 1);
+        Assert.assertEquals(cache.getSize(), 2);
+        Assert.assertSame(cache.get(parent, String.class, "fs", "a", () -> new String("a")), a);
+        Assert.assertEquals(cache.getMissCount(), 3);
+    }
+
+    @Test(description = "A cache size of zero disables caching")
+    public void testDisabled() throws Exception {
+
+        PathClientCache cache = new PathClientCache(createConfiguration(0));
+        Object parent = new Object();
+        String a = cache.get(parent, String.class, "fs", "a", () -> new String("a"));
+        Assert.assertNotSame(cache.get(parent, String.class, "fs", "a", () -> new String("a")), a);
+        Assert.assertEquals(cache.getSize(), 0);
+    }
+
+    private static ConnectionConfiguration createConfiguration(int size) throws Exception {
+
+        ConnectionConfiguration config = new ConnectionConfiguration();
+        config.setConnectionName("pathClientCacheTest");
+        config.setPathClientCacheSize(size);
+        return config;
+    }
+}
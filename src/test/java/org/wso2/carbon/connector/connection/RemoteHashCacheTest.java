@@ -0,0 +1,119 @@
+/*
+ *  Copyright (c) 2025, WSO2 LLC. (https://www.wso2.com).
+ *
+ *  WSO2 LLC. licenses this file to you under the Apache License,
+ *  Version 2.0 (the "License"); you may not use this file except
+ *  in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *  "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License.
+ */
+
+
+package org.wso2.carbon.connector.connection;
+
+import org.testng.Assert;
+import org.testng.annotations.Test;
+import reactor.core.publisher.Mono;
+
+/**
+ * Verifies the lookups and matching of {@link RemoteHashCache}.
+ */
+public class RemoteHashCacheTest {
+
+    private static final String URL = "https://account.dfs.core.windows.net/fs/a.txt";
+
+    @Test(description = "A cached file matches only the content with its hash and length")
+    public void testMatches() {
+
+        RemoteHashCache cache = new RemoteHashCache();
+        Assert.assertNull(cache.get(URL));
+        byte[] md5 = {1, 2, 3};
+        cache.put(URL, md5, 11);
+        md5[0] = 9;
+        RemoteHashCache.Entry entry = cache.get(URL);
+        Assert.assertTrue(entry.matches(new byte[]{1, 2, 3}, 11));
+        Assert.assertFalse(entry.matches(new byte[]{1, 2, 3}, 12));
+        Assert.assertFalse(entry.matches(new byte[]{1, 2, 4}, 11));
+        Assert.assertEquals(cache.getHitCount(), 1);
+        Assert.assertEquals(cache.getMissCount(), 1);
+    }
+
+    @Test(description = "A removed file is looked up again")
+    public void testRemove() {
+
+        RemoteHashCache cache = new RemoteHashCache();
+        cache.put(URL, new byte[]{1}, 1);
+        cache.remove(URL);
+        Assert.assertNull(cache.get(URL));
+        Assert.assertEquals(cache.getSize(), 0);
+    }
+
+    @Test(description = "Removing a directory forgets the files below it, but not its siblings")
+    public void testRemoveTree() {
+
+        RemoteHashCache cache = new RemoteHashCache();
+        String directory = "https://account.dfs.core.windows.net/fs/dir";
+        cache.put(directory + "/a.txt", new byte[]{1}, 1);
+        cache.put(directory + "/sub/b.txt", new byte[]{2}, 1);
+        cache.put(directory + "2/c.txt", new byte[]{3}, 1);
+        cache.removeTree(directory);
+        Assert.assertNull(cache.get(directory + "/a.txt"));
+        Assert.assertNull(cache.get(directory + "/sub/b.txt"));
+        Assert.assertNotNull(cache.get(directory + "2/c.txt"));
+        cache.removeTree(directory + "2/c.txt");
+        Assert.assertEquals(cache.getSize(), 0);
+    }
+
+    @Test(description = "Deleting a file system forgets its files, but not those of file systems sharing its prefix")
+    public void testRemoveFileSystem() {
+
+        RemoteHashCache cache = new RemoteHashCache();
+        String fileSystem = "https://account.dfs.core.windows.net/fs";
+        cache.put(fileSystem + "/a.txt", new byte[]{1}, 1);
+        cache.put(fileSystem + "/dir/b.txt", new byte[]{2}, 1);
+        cache.put(fileSystem + "2/c.txt", new byte[]{3}, 1);
+        cache.removeTree(fileSystem);
+        Assert.assertNull(cache.get(fileSystem + "/a.txt"));
+        Assert.assertNull(cache.get(fileSystem + "/dir/b.txt"));
+        Assert.assertNotNull(cache.get(fileSystem + "2/c.txt"));
+    }
+
+    @Test(description = "A write forgets the file when it starts, and records its content only if it is known")
+    public void testTrack() {
+
+        RemoteHashCache cache = new RemoteHashCache();
+        cache.put(URL, new byte[]{1}, 1);
+        Mono<String> write = Mono.fromCallable(() -> {
+            Assert.assertNull(cache.get(URL));
+            // A lookup while the write is in progress caches the content being replaced
+            cache.put(URL, new byte[]{1}, 1);
+            return "written";
+        });
+
+        cache.track(write, URL, null, 2).block();
+        Assert.assertNull(cache.get(URL));
+
+        cache.track(write, URL, () -> new byte[]{2}, 2).block();
+        Assert.assertTrue(cache.get(URL).matches(new byte[]{2}, 2));
+
+        // A write whose content is unknown does not record it
+        cache.track(write, URL, () -> null, 2).block();
+        Assert.assertNull(cache.get(URL));
+
+        cache.put(URL, new byte[]{1}, 1);
+        try {
+            cache.track(Mono.error(new IllegalStateException("failed")), URL, () -> new byte[]{2}, 2).block();
+            Assert.fail("The write did not fail");
+        } catch (IllegalStateException e) {
+            Assert.assertNull(cache.get(URL));
+        }
+    }
+}
@@ -0,0 +1,293 @@
+/*
+ *  Copyright (c) 2025, WSO2 LLC. (https://www.wso2.com).
+ *
+ *  WSO2 LLC. licenses this file to you under the Apache License,
+ *  Version 2.0 (the "License"); you may not use this file except
+ *  in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *  "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License.
+ */
+
+package org.wso2.carbon.connector.connection;
+
+import com.azure.core.credential.AccessToken;
+import com.azure.core.credential.TokenCredential;
+import com.azure.core.credential.TokenRequestContext;
+import org.json.JSONObject;
+import org.testng.Assert;
+import org.testng.annotations.AfterClass;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.Test;
+import org.wso2.carbon.connector.util.StubServer;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.OffsetDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Tests {@link SharedTokenCredential} against a local stub token endpoint.
+ */
+public class SharedTokenCredentialTest {
+
+    private static final TokenRequestContext STORAGE_SCOPE =
+            new TokenRequestContext().addScopes("https://storage.azure.com/.default");
+
+    private StubServer tokenEndpoint;
+    private final AtomicInteger tokenRequests = new AtomicInteger();
+    private volatile int responseStatus = 200;
+    private volatile long expiresIn = 3600;
+    private volatile boolean fetchedOnNonBlockingThread;
+
+    @BeforeClass
+    public void startTokenEndpoint() throws IOException {
+
+        tokenEndpoint = StubServer.start(exchange -> {
+            int request = tokenRequests.incrementAndGet();
+            byte[] body = String.format("{\"access_token\":\"token-%d\",\"expires_in\":%d}", request, expiresIn)
+                    .getBytes(StandardCharsets.UTF_8);
+            exchange.sendResponseHeaders(responseStatus, body.length);
+            try (OutputStream outputStream = exchange.getResponseBody()) {
+                outputStream.write(body);
+            }
+        });
+    }
+
+    @AfterClass
+    public void stopTokenEndpoint() {
+
+        tokenEndpoint.close();
+    }
+
+    @Test(description = "Connections of the same service principal share one cached token")
+    public void testTokenIsSharedAndCached() throws Exception {
+
+        tokenRequests.set(0);
+        responseStatus = 200;
+        expiresIn = 3600;
+        SharedTokenCredential first =
+                SharedTokenCredential.acquire("tenant/shared", this::createStubCredential, Duration.ofMinutes(5));
+        SharedTokenCredential second =
+                SharedTokenCredential.acquire("tenant/shared", this::createStubCredential, Duration.ofMinutes(5));
+        ExecutorService executor = Executors.newFixedThreadPool(50);
+        try {
+            Assert.assertSame(first, second);
+            Assert.assertEquals(first.getClientCount(), 2);
+
+            List<Future<AccessToken>> tokens = new ArrayList<>();
+            for (int i = 0; i < 50; i++) {
+                SharedTokenCredential credential = i % 2 == 0 ? first : second;
+                tokens.add(executor.submit(() -> credential.getTokenSync(STORAGE_SCOPE)));
+            }
+            for (Future<AccessToken> token : tokens) {
+                Assert.assertEquals(token.get().getToken(), "token-1");
+            }
+            Assert.assertEquals(tokenRequests.get(), 1);
+            Assert.assertEquals(first.getTokenFetchCount(), 1);
+            Assert.assertTrue(first.getLastTokenFetchTime() >= 0);
+        } finally {
+            executor.shutdownNow();
+            SharedTokenCredential.release(first);
+            SharedTokenCredential.release(second);
+        }
+    }
+
+    @Test(description = "The token is refreshed in the background before it expires")
+    public void testBackgroundRefresh() throws Exception {
+
+        tokenRequests.set(0);
+        responseStatus = 200;
+        expiresIn = 4;
+        // Refresh halfway through the lifetime of the token, two seconds after it was issued, while it is usable
+        SharedTokenCredential credential = SharedTokenCredential.acquire("tenant/refresh",
+                this::createStubCredential, Duration.ofSeconds(119), Duration.ofMillis(100), Duration.ofSeconds(1));
+        try {
+            Assert.assertEquals(credential.getTokenSync(STORAGE_SCOPE).getToken(), "token-1");
+            long deadline = System.currentTimeMillis() + 10000;
+            // The request is counted before the refreshed token is cached, so wait for the token itself
+            while ((tokenRequests.get() < 2 || !credential.getTokenSync(STORAGE_SCOPE).getToken()
+                    .equals("token-" + tokenRequests.get())) && System.currentTimeMillis() < deadline) {
+                Thread.sleep(50);
+            }
+            Assert.assertTrue(tokenRequests.get() >= 2, "Token must be refreshed in the background");
+            int requests = tokenRequests.get();
+            Assert.assertEquals(credential.getTokenSync(STORAGE_SCOPE).getToken(), "token-" + requests);
+            Assert.assertEquals(tokenRequests.get(), requests, "A refreshed token must be served from the cache");
+        } finally {
+            SharedTokenCredential.release(credential);
+        }
+    }
+
+    @Test(description = "A token is refreshed the margin before it expires, but no earlier than halfway through")
+    public void testRefreshDelay() {
+
+        Duration minDelay = Duration.ofSeconds(30);
+        Assert.assertEquals(SharedTokenCredential.getRefreshDelay(Duration.ofMinutes(60), Duration.ofMinutes(5),
+                minDelay), Duration.ofMinutes(55));
+        Assert.assertEquals(SharedTokenCredential.getRefreshDelay(Duration.ofMinutes(6), Duration.ofMinutes(5),
+                minDelay), Duration.ofMinutes(3));
+        Assert.assertEquals(SharedTokenCredential.getRefreshDelay(Duration.ofSeconds(40), Duration.ofMinutes(5),
+                minDelay), minDelay);
+        Assert.assertEquals(SharedTokenCredential.getRefreshDelay(Duration.ofSeconds(-10), Duration.ofMinutes(5),
+                minDelay), minDelay);
+    }
+
+    @Test(description = "Inline fetches replace the pending refresh instead of starting more refresh cycles")
+    public void testSingleRefreshCycle() throws Exception {
+
+        AtomicInteger fetches = new AtomicInteger();
+        TokenRequestContext otherScope = new TokenRequestContext().addScopes("https://example.com/.default");
+        // Tokens live two seconds and are refreshed after one
+        SharedTokenCredential credential = SharedTokenCredential.acquire("tenant/cycles",
+                () -> request -> Mono.just(new AccessToken("token-" + fetches.incrementAndGet(),
+                        OffsetDateTime.now().plusSeconds(2))),
+                Duration.ofMinutes(5), Duration.ofMillis(200), Duration.ofMillis(500));
+        try {
+            // Three inline fetches, each of which used to start its own refresh cycle
+            credential.getTokenSync(STORAGE_SCOPE);
+            credential.getTokenSync(otherScope);
+            credential.getTokenSync(STORAGE_SCOPE);
+            Assert.assertEquals(fetches.get(), 3);
+            Thread.sleep(3500);
+            // A single cycle refreshes about three times in that period, three cycles about nine times
+            int refreshes = fetches.get() - 3;
+            Assert.assertTrue(refreshes >= 2 && refreshes <= 5, refreshes + " background refreshes");
+        } finally {
+            SharedTokenCredential.release(credential);
+        }
+        int fetchesAfterRelease = fetches.get();
+        Thread.sleep(1500);
+        Assert.assertEquals(fetches.get(), fetchesAfterRelease, "A released credential must not refresh");
+    }
+
+    @Test(description = "A provider handing out the same token close to its expiry is not asked again right away")
+    public void testStaleTokenRefreshIsBounded() throws Exception {
+
+        AtomicInteger fetches = new AtomicInteger();
+        AccessToken staleToken = new AccessToken("stale", OffsetDateTime.now().plusSeconds(2));
+        SharedTokenCredential credential = SharedTokenCredential.acquire("tenant/stale",
+                () -> request -> {
+                    fetches.incrementAndGet();
+                    return Mono.just(staleToken);
+                }, Duration.ofMinutes(5), Duration.ofMillis(200), Duration.ofMillis(500));
+        try {
+            credential.getTokenSync(STORAGE_SCOPE);
+            Thread.sleep(3000);
+            // Refreshes halve their delay down to the minimum, instead of following each other immediately
+            Assert.assertTrue(fetches.get() <= 15, fetches.get() + " fetches");
+        } finally {
+            SharedTokenCredential.release(credential);
+        }
+    }
+
+    @Test(description = "An asynchronous fetch does not block the non-blocking thread that subscribes to it")
+    public void testAsyncFetchOffEventLoop() {
+
+        tokenRequests.set(0);
+        responseStatus = 200;
+        expiresIn = 3600;
+        fetchedOnNonBlockingThread = false;
+        SharedTokenCredential credential =
+                SharedTokenCredential.acquire("tenant/async", this::createStubCredential, Duration.ofMinutes(5));
+        try {
+            // The parallel scheduler stands in for a Reactor Netty event loop
+            AccessToken token = credential.getToken(STORAGE_SCOPE).subscribeOn(Schedulers.parallel())
+                    .block(Duration.ofSeconds(10));
+            Assert.assertEquals(token.getToken(), "token-1");
+            Assert.assertEquals(credential.getToken(STORAGE_SCOPE).subscribeOn(Schedulers.parallel())
+                    .block(Duration.ofSeconds(10)).getToken(), "token-1");
+            Assert.assertEquals(tokenRequests.get(), 1);
+            Assert.assertFalse(fetchedOnNonBlockingThread, "The token must be fetched off the subscribing thread");
+        } finally {
+            SharedTokenCredential.release(credential);
+        }
+    }
+
+    @Test(description = "Service principals with different secrets get their own credential, named by fingerprint")
+    public void testKeyFingerprintsSecret() {
+
+        String current = SharedTokenCredential.getKey("tenant", "client", "secret-1");
+        String rotated = SharedTokenCredential.getKey("tenant", "client", "secret-2");
+        Assert.assertEquals(SharedTokenCredential.getKey("tenant", "client", "secret-1"), current);
+        Assert.assertNotEquals(rotated, current);
+        Assert.assertTrue(current.matches("tenant/client/[0-9a-f]{64}"), current);
+        Assert.assertFalse(current.contains("secret-1"));
+
+        SharedTokenCredential first = SharedTokenCredential.acquire(current, this::createStubCredential,
+                Duration.ofMinutes(5));
+        SharedTokenCredential second = SharedTokenCredential.acquire(rotated, this::createStubCredential,
+                Duration.ofMinutes(5));
+        try {
+            Assert.assertNotSame(first, second);
+        } finally {
+            SharedTokenCredential.release(first);
+            SharedTokenCredential.release(second);
+        }
+    }
+
+    @Test(description = "Failed token fetches are counted and reported to the caller")
+    public void testFetchFailure() {
+
+        tokenRequests.set(0);
+        responseStatus = 500;
+        SharedTokenCredential credential =
+                SharedTokenCredential.acquire("tenant/failure", this::createStubCredential, Duration.ofMinutes(5));
+        try {
+            try {
+                credential.getTokenSync(STORAGE_SCOPE);
+                Assert.fail("Token fetch must fail");
+            } catch (IllegalStateException e) {
+                // Expected, the stub endpoint rejects the request
+            }
+            Assert.assertEquals(credential.getTokenFetchFailureCount(), 1);
+            Assert.assertEquals(credential.getTokenFetchCount(), 0);
+        } finally {
+            SharedTokenCredential.release(credential);
+        }
+    }
+
+    /**
+     * A credential that fetches tokens from the stub endpoint, standing in for the identity client.
+     */
+    private TokenCredential createStubCredential() {
+
+        return request -> Mono.fromCallable(() -> {
+            fetchedOnNonBlockingThread |= Schedulers.isInNonBlockingThread();
+            URL url = new URL(tokenEndpoint.getEndpoint() + "/token");
+            HttpURLConnection connection = (HttpURLConnection) url.openConnection();
+            try {
+                if (connection.getResponseCode() != 200) {
+                    throw new IllegalStateException("Token endpoint returned " + connection.getResponseCode());
+                }
+                try (InputStream inputStream = connection.getInputStream()) {
+                    JSONObject response =
+                            new JSONObject(new String(inputStream.readAllBytes(), StandardCharsets.UTF_8));
+                    return new AccessToken(response.getString("access_token"),
+                            OffsetDateTime.now().plusSeconds(response.getLong("expires_in")));
+                }
+            } finally {
+                connection.disconnect();
+            }
+        });
+    }
+}
@@ -0,0 +1,98 @@
+/*
+ *  Copyright (c) 2025, WSO2 LLC. (https://www.wso2.com).
+ *
+ *  WSO2 LLC. licenses this file to you under the Apache License,
+ *  Version 2.0 (the "License"); you may not use this file except
+ *  in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *  "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License.
+ */
+
+package org.wso2.carbon.connector.connection;
+
+import org.testng.Assert;
+import org.testng.annotations.Test;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+
+/**
+ * Verifies the choices of {@link TransferTuner}.
+ */
+public class TransferTunerTest {
+
+    private static final long MIB = 1024L * 1024L;
+    private static final long GIB = 1024L * MIB;
+
+    @Test(description = "Without history the defaults are used, fitted to the size of the content")
+    public void testDefaults() {
+
+        TransferTuner tuner = new TransferTuner();
+        assertSettings(tuner.tune(GIB), 8 * MIB, 4);
+        assertSettings(tuner.tune(-1), 8 * MIB, 4);
+        assertSettings(tuner.tune(3 * MIB), MIB, 3);
+        assertSettings(tuner.tune(100), MIB, 1);
+        assertSettings(tuner.tune(0), MIB, 1);
+    }
+
+    @Test(description = "The concurrency climbs while it improves the throughput and falls back once it does not")
+    public void testConcurrencyClimb() {
+
+        TransferTuner tuner = new TransferTuner();
+        tuner.recordTransfer(new TransferTuner.Settings(8 * MIB, 4), GIB, Duration.ofSeconds(4).toNanos());
+        Assert.assertEquals(tuner.tune(GIB).getMaxConcurrency(), 8);
+        tuner.recordTransfer(new TransferTuner.Settings(8 * MIB, 8), GIB, Duration.ofSeconds(2).toNanos());
+        Assert.assertEquals(tuner.tune(GIB).getMaxConcurrency(), 16);
+        tuner.recordTransfer(new TransferTuner.Settings(8 * MIB, 16), GIB, Duration.ofSeconds(3).toNanos());
+        Assert.assertEquals(tuner.tune(GIB).getMaxConcurrency(), 8);
+        Assert.assertEquals(tuner.getThroughput(), GIB / 2.0, 1);
+    }
+
+    @Test(description = "Blocks are sized from the latency and the throughput of a single stream")
+    public void testBlockSizeFromLatency() {
+
+        TransferTuner tuner = new TransferTuner();
+        // 100 MiB/s per stream at a concurrency of 4, and a worse concurrency of 8
+        tuner.recordTransfer(new TransferTuner.Settings(8 * MIB, 4), 400 * MIB, Duration.ofSeconds(1).toNanos());
+        tuner.recordTransfer(new TransferTuner.Settings(8 * MIB, 8), 200 * MIB, Duration.ofSeconds(1).toNanos());
+        tuner.recordLatency(Duration.ofMillis(50).toNanos());
+        Assert.assertEquals(tuner.getLatency(), 50.0, 0.001);
+        // 100 MiB/s * 50 ms * 8 round trips
+        assertSettings(tuner.tune(10 * GIB), 40 * MIB, 4);
+    }
+
+    @Test(description = "Small transfers and transfers that did not use every stream are not measured")
+    public void testSmallTransfersIgnored() {
+
+        TransferTuner tuner = new TransferTuner();
+        tuner.recordTransfer(new TransferTuner.Settings(MIB, 1), MIB, Duration.ofMillis(10).toNanos());
+        tuner.recordTransfer(new TransferTuner.Settings(8 * MIB, 4), 16 * MIB, Duration.ofMillis(10).toNanos());
+        Assert.assertEquals(tuner.getThroughput(), 0.0);
+        assertSettings(tuner.tune(GIB), 8 * MIB, 4);
+    }
+
+    @Test(description = "A tracked transfer is recorded once it completes")
+    public void testTrack() {
+
+        TransferTuner tuner = new TransferTuner();
+        TransferTuner.Settings settings = new TransferTuner.Settings(4 * MIB, 1);
+        Assert.assertEquals(tuner.track(Mono.delay(Duration.ofMillis(20)).thenReturn("done"), settings,
+                () -> 8 * MIB).block(), "done");
+        Assert.assertTrue(tuner.getThroughput() > 0);
+        Assert.assertEquals(tuner.tune(GIB).getMaxConcurrency(), 2);
+    }
+
+    private static void assertSettings(TransferTuner.Settings settings, long blockSize, int maxConcurrency) {
+
+        Assert.assertEquals(settings.getBlockSize(), blockSize);
+        Assert.assertEquals(settings.getMaxConcurrency(), maxConcurrency);
+    }
+}
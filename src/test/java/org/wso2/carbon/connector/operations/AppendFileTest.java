@@ -0,0 +1,228 @@
+/*
+ *  Copyright (c) 2025, WSO2 LLC. (https://www.wso2.com).
+ *
+ *  WSO2 LLC. licenses this file to you under the Apache License,
+ *  Version 2.0 (the "License"); you may not use this file except
+ *  in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *  "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License.
+ */
+
+package org.wso2.carbon.connector.operations;
+
+import com.azure.core.util.BinaryData;
+import com.azure.storage.file.datalake.DataLakeFileClient;
+import com.sun.net.httpserver.HttpExchange;
+import org.testng.Assert;
+import org.testng.annotations.AfterClass;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+import org.wso2.carbon.connector.connection.AppendOffsetTracker;
+import org.wso2.carbon.connector.util.StubServer;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Verifies the order {@link AppendFile} appends and flushes concurrent ranges of a file in, against a local stand-in
+ * for the Data Lake endpoint that keeps appended data uncommitted until a flush at the end of contiguous data.
+ */
+public class AppendFileTest {
+
+    private static final Duration TIMEOUT = Duration.ofSeconds(10);
+
+    private StubServer server;
+    private DataLakeFileClient client;
+    private final ByteArrayOutputStream committed = new ByteArrayOutputStream();
+    private final TreeMap<Long, byte[]> uncommitted = new TreeMap<>();
+    private final AtomicInteger requestCount = new AtomicInteger();
+    private final AtomicInteger rejectedCount = new AtomicInteger();
+    private volatile CountDownLatch laterAppended;
+
+    @BeforeClass
+    public void startServer() throws IOException {
+
+        server = StubServer.start(this::handle);
+        client = server.getServiceClient().getFileSystemClient("container").getFileClient("folder/a.log");
+    }
+
+    @AfterClass(alwaysRun = true)
+    public void stopServer() {
+
+        server.close();
+    }
+
+    @BeforeMethod
+    public void reset() {
+
+        synchronized (committed) {
+            committed.reset();
+            uncommitted.clear();
+        }
+        requestCount.set(0);
+        rejectedCount.set(0);
+        laterAppended = null;
+    }
+
+    @Test(description = "Two flushing appends whose requests complete out of order are both committed in order")
+    public void testOutOfOrderFlushingAppends() throws Exception {
+
+        AppendOffsetTracker tracker = new AppendOffsetTracker();
+        AppendOffsetTracker.Range first = reserve(tracker, 10);
+        AppendOffsetTracker.Range second = reserve(tracker, 10);
+        // The stand-in holds the append of the first range until the second range is appended
+        laterAppended = new CountDownLatch(1);
+
+        CompletableFuture<Void> firstAppend = CompletableFuture.runAsync(() -> append(first, "aaaaaaaaaa"));
+        CompletableFuture<Void> secondAppend = CompletableFuture.runAsync(() -> append(second, "bbbbbbbbbb"));
+        secondAppend.get(10, TimeUnit.SECONDS);
+        firstAppend.get(10, TimeUnit.SECONDS);
+
+        Assert.assertEquals(content(), "aaaaaaaaaabbbbbbbbbb");
+        Assert.assertEquals(rejectedCount.get(), 0);
+        Assert.assertEquals(tracker.getResyncCount(), 0);
+        Assert.assertEquals(tracker.getCommittedLength(client.getFileUrl()), Long.valueOf(20));
+    }
+
+    @Test(description = "A flushing append to a file nothing else appends to is flushed in the same request")
+    public void testSequentialFlushingAppends() throws Exception {
+
+        AppendOffsetTracker tracker = new AppendOffsetTracker();
+        append(reserve(tracker, 5), "first");
+        append(reserve(tracker, 6), "second");
+
+        Assert.assertEquals(content(), "firstsecond");
+        // The length of the file is fetched once, every append flushes the file itself
+        Assert.assertEquals(requestCount.get(), 3);
+        Assert.assertEquals(rejectedCount.get(), 0);
+    }
+
+    private AppendOffsetTracker.Range reserve(AppendOffsetTracker tracker, long length) throws Exception {
+
+        return tracker.reserve(client.getFileUrl(), null, length, false, () -> client.getProperties().getFileSize(),
+                TIMEOUT);
+    }
+
+    private void append(AppendOffsetTracker.Range range, String content) {
+
+        try {
+            AppendFile.appendRange(client, range, BinaryData.fromString(content), null, true, null, null, null, null,
+                    10, null);
+        } catch (RuntimeException | InterruptedException | TimeoutException e) {
+            range.failed(e);
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private String content() {
+
+        synchronized (committed) {
+            return new String(committed.toByteArray(), StandardCharsets.UTF_8);
+        }
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+
+        requestCount.incrementAndGet();
+        Map<String, String> query = new HashMap<>();
+        if (exchange.getRequestURI().getQuery() != null) {
+            for (String parameter : exchange.getRequestURI().getQuery().split("&")) {
+                String[] pair = parameter.split("=", 2);
+                query.put(pair[0], pair.length > 1 ? pair[1] : "");
+            }
+        }
+        byte[] body = readBody(exchange.getRequestBody());
+        String action = query.get("action");
+        CountDownLatch latch = laterAppended;
+        if ("append".equals(action) && latch != null) {
+            try {
+                if (Long.parseLong(query.get("position")) == 0) {
+                    latch.await(5, TimeUnit.SECONDS);
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        int status;
+        synchronized (committed) {
+            if ("HEAD".equals(exchange.getRequestMethod())) {
+                exchange.getResponseHeaders().add("Content-Length", String.valueOf(committed.size()));
+                status = 200;
+            } else if ("append".equals(action)) {
+                long position = Long.parseLong(query.get("position"));
+                uncommitted.put(position, body);
+                status = !"true".equals(query.get("flush")) || flush(position + body.length, false) ? 202 : 400;
+                if (latch != null && position > 0) {
+                    latch.countDown();
+                }
+            } else if ("flush".equals(action)) {
+                status = flush(Long.parseLong(query.get("position")), "true".equals(query.get("retainUncommittedData")))
+                        ? 200 : 400;
+            } else {
+                status = 400;
+            }
+        }
+        if (status == 400) {
+            rejectedCount.incrementAndGet();
+            exchange.getResponseHeaders().add("x-ms-error-code", "InvalidFlushPosition");
+        }
+        exchange.getResponseHeaders().add("ETag", "\"0x1\"");
+        exchange.getResponseHeaders().add("Last-Modified", "Wed, 01 Jan 2025 00:00:00 GMT");
+        exchange.sendResponseHeaders(status, -1);
+        exchange.close();
+    }
+
+    /**
+     * Commits the uncommitted data up to a position, which must be the end of data contiguous with the file.
+     */
+    private boolean flush(long position, boolean retainUncommittedData) {
+
+        long end = committed.size();
+        while (end < position && uncommitted.containsKey(end)) {
+            end += uncommitted.get(end).length;
+        }
+        if (end != position) {
+            return false;
+        }
+        for (long next = committed.size(); next < position; ) {
+            byte[] data = uncommitted.remove(next);
+            committed.write(data, 0, data.length);
+            next += data.length;
+        }
+        if (!retainUncommittedData) {
+            uncommitted.clear();
+        }
+        return true;
+    }
+
+    private static byte[] readBody(InputStream in) throws IOException {
+
+        ByteArrayOutputStream body = new ByteArrayOutputStream();
+        byte[] buffer = new byte[8192];
+        int read;
+        while ((read = in.read(buffer)) > 0) {
+            body.write(buffer, 0, read);
+        }
+        return body.toByteArray();
+    }
+}
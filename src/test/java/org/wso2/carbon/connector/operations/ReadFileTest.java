@@ -0,0 +1,103 @@
+/*
+ *  Copyright (c) 2025, WSO2 LLC. (https://www.wso2.com).
+ *
+ *  WSO2 LLC. licenses this file to you under the Apache License,
+ *  Version 2.0 (the "License"); you may not use this file except
+ *  in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *  "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License.
+ */
+
+package org.wso2.carbon.connector.operations;
+
+import com.azure.storage.file.datalake.DataLakeFileAsyncClient;
+import com.azure.storage.file.datalake.models.DataLakeStorageException;
+import com.azure.storage.file.datalake.models.FileRange;
+import org.testng.Assert;
+import org.testng.annotations.AfterClass;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.Test;
+import org.wso2.carbon.connector.util.AzureConstants;
+import org.wso2.carbon.connector.util.StubServer;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.Map;
+
+/**
+ * Verifies how {@link ReadFile} recognizes and continues a page that starts at or after the end of a file, against a
+ * local stand-in for the Data Lake endpoint holding an empty file.
+ */
+public class ReadFileTest {
+
+    private static final String ETAG = "0x8DC0000000000001";
+
+    private StubServer server;
+
+    @BeforeClass
+    public void startServer() throws IOException {
+
+        server = StubServer.start(exchange -> {
+            // Every file is empty, so every range is past its end, as the service answers for an empty file
+            boolean missing = exchange.getRequestURI().getPath().endsWith("missing.txt");
+            exchange.getResponseHeaders().add("ETag", "\"" + ETAG + "\"");
+            exchange.getResponseHeaders().add("x-ms-error-code", missing ? "PathNotFound" : "InvalidRange");
+            exchange.sendResponseHeaders(missing ? 404 : 416, -1);
+            exchange.close();
+        });
+    }
+
+    @AfterClass(alwaysRun = true)
+    public void stopServer() {
+
+        server.close();
+    }
+
+    @Test(description = "The first page of an empty file completes the read at its offset")
+    public void testPageOfEmptyFile() {
+
+        FileRange fileRange = new FileRange(0, 10L);
+        DataLakeStorageException e = read("folder/empty.txt", fileRange);
+
+        Assert.assertTrue(ReadFile.isPastEnd(e));
+        Map<String, Object> continuation = ReadFile.getPastEndContinuation(fileRange, e);
+        Assert.assertEquals(continuation.get(AzureConstants.NEXT_OFFSET), 0L);
+        Assert.assertEquals(continuation.get(AzureConstants.E_TAG), ETAG);
+        Assert.assertEquals(continuation.get(AzureConstants.COMPLETE), true);
+    }
+
+    @Test(description = "A page after the end of a file completes the read where it starts")
+    public void testPageAfterEnd() {
+
+        FileRange fileRange = new FileRange(4096, 1024L);
+        DataLakeStorageException e = read("folder/empty.txt", fileRange);
+
+        Assert.assertTrue(ReadFile.isPastEnd(e));
+        Assert.assertEquals(ReadFile.getPastEndContinuation(fileRange, e).get(AzureConstants.NEXT_OFFSET), 4096L);
+    }
+
+    @Test(description = "Other failures of a read are not taken for the end of the file")
+    public void testMissingFile() {
+
+        Assert.assertFalse(ReadFile.isPastEnd(read("folder/missing.txt", new FileRange(0, 10L))));
+    }
+
+    private DataLakeStorageException read(String path, FileRange fileRange) {
+
+        DataLakeFileAsyncClient client = server.getFileAsyncClient("container", path);
+        try {
+            client.readWithResponse(fileRange, null, null, false).block(Duration.ofSeconds(10));
+        } catch (DataLakeStorageException e) {
+            return e;
+        }
+        throw new AssertionError("The read did not fail");
+    }
+}
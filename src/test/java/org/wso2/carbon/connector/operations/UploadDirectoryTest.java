@@ -0,0 +1,238 @@
+/*
+ *  Copyright (c) 2025, WSO2 LLC. (https://www.wso2.com).
+ *
+ *  WSO2 LLC. licenses this file to you under the Apache License,
+ *  Version 2.0 (the "License"); you may not use this file except
+ *  in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *  "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License.
+ */
+
+package org.wso2.carbon.connector.operations;
+
+import com.azure.storage.common.ParallelTransferOptions;
+import com.azure.storage.file.datalake.DataLakeFileSystemAsyncClient;
+import com.sun.net.httpserver.HttpExchange;
+import org.json.JSONArray;
+import org.json.JSONObject;
+import org.testng.Assert;
+import org.testng.annotations.AfterClass;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+import org.wso2.carbon.connector.connection.RemoteHashCache;
+import org.wso2.carbon.connector.util.AzureConstants;
+import org.wso2.carbon.connector.util.ChecksumAlgorithm;
+import org.wso2.carbon.connector.util.StubServer;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Stream;
+
+/**
+ * Verifies {@link UploadDirectory} against a local stand-in for the Data Lake endpoint that, like the service, only
+ * creates a path whose parent directory exists.
+ */
+public class UploadDirectoryTest {
+
+    private static final Duration TIMEOUT = Duration.ofSeconds(30);
+
+    private StubServer server;
+    private DataLakeFileSystemAsyncClient fileSystemClient;
+    private Path localDirectory;
+    private RemoteHashCache remoteHashCache;
+    private final Set<String> directories = new HashSet<>();
+    private final List<String> createdDirectories = Collections.synchronizedList(new ArrayList<>());
+    private final Map<String, Integer> fileSizes = new HashMap<>();
+
+    @BeforeClass
+    public void setUp() throws IOException {
+
+        server = StubServer.start(this::handle);
+        fileSystemClient = server.getServiceAsyncClient().getFileSystemAsyncClient("container");
+        localDirectory = Files.createTempDirectory("upload-directory");
+        write("a.txt", "aaaaa");
+        write("sub/b.txt", "bbbbbbb");
+        write("sub/rejected.txt", "xxxx");
+        write("sub/deep/c.txt", "ccc");
+        write("other/d.txt", "dd");
+    }
+
+    @AfterClass(alwaysRun = true)
+    public void tearDown() throws IOException {
+
+        server.close();
+        try (Stream<Path> paths = Files.walk(localDirectory)) {
+            paths.sorted(Collections.reverseOrder()).forEach(path -> path.toFile().delete());
+        }
+    }
+
+    @BeforeMethod
+    public void reset() {
+
+        synchronized (directories) {
+            directories.clear();
+            createdDirectories.clear();
+            fileSizes.clear();
+        }
+        remoteHashCache = new RemoteHashCache();
+    }
+
+    @Test(description = "Directories are created parents first and a failed file does not stop the others")
+    public void testRecursiveUpload() throws Exception {
+
+        JSONObject summary = upload(true);
+
+        Assert.assertEquals(new HashSet<>(createdDirectories),
+                new HashSet<>(Arrays.asList("target", "target/other", "target/sub", "target/sub/deep")));
+        for (String directory : createdDirectories) {
+            String parent = directory.contains("/") ? directory.substring(0, directory.lastIndexOf('/')) : null;
+            Assert.assertTrue(parent == null || createdDirectories.indexOf(parent) < createdDirectories.indexOf(
+                    directory), directory + " was created before its parent");
+        }
+        synchronized (directories) {
+            Assert.assertEquals(fileSizes.get("target/a.txt"), Integer.valueOf(5));
+            Assert.assertEquals(fileSizes.get("target/sub/b.txt"), Integer.valueOf(7));
+            Assert.assertEquals(fileSizes.get("target/sub/deep/c.txt"), Integer.valueOf(3));
+            Assert.assertEquals(fileSizes.get("target/other/d.txt"), Integer.valueOf(2));
+        }
+
+        Assert.assertEquals(summary.getInt(AzureConstants.TOTAL_FILES), 5);
+        Assert.assertEquals(summary.getInt(AzureConstants.UPLOADED_FILES), 4);
+        Assert.assertEquals(summary.getInt(AzureConstants.FAILED_FILES), 1);
+        Assert.assertEquals(summary.getLong(AzureConstants.TOTAL_BYTES), 17L);
+        Assert.assertEquals(summary.getInt(AzureConstants.CREATED_DIRECTORIES), 4);
+        JSONArray files = summary.getJSONArray(AzureConstants.FILES);
+        for (int i = 0; i < files.length(); i++) {
+            JSONObject file = files.getJSONObject(i);
+            boolean rejected = file.getString(AzureConstants.PATH).equals("target/sub/rejected.txt");
+            Assert.assertEquals(file.getBoolean(AzureConstants.STATUS), !rejected, file.toString());
+            if (rejected) {
+                Assert.assertEquals(file.getString(AzureConstants.ERROR), "HTTP 403 AuthorizationPermissionMismatch");
+            }
+        }
+
+        // Directories that exist already are not counted again
+        Assert.assertEquals(upload(true).getInt(AzureConstants.CREATED_DIRECTORIES), 0);
+    }
+
+    @Test(description = "A non-recursive upload skips the subdirectories")
+    public void testNonRecursiveUpload() throws Exception {
+
+        JSONObject summary = upload(false);
+
+        Assert.assertEquals(createdDirectories, Collections.singletonList("target"));
+        synchronized (directories) {
+            Assert.assertEquals(fileSizes.keySet(), Collections.singleton("target/a.txt"));
+        }
+        Assert.assertEquals(summary.getInt(AzureConstants.TOTAL_FILES), 1);
+        Assert.assertEquals(summary.getInt(AzureConstants.UPLOADED_FILES), 1);
+        Assert.assertEquals(summary.getLong(AzureConstants.TOTAL_BYTES), 5L);
+        Assert.assertEquals(summary.getInt(AzureConstants.CREATED_DIRECTORIES), 1);
+    }
+
+    @Test(description = "The cached hashes of uploaded files are forgotten, including those of failed uploads")
+    public void testForgetCachedHashes() throws Exception {
+
+        String uploaded = fileSystemClient.getFileAsyncClient("target/sub/b.txt").getFileUrl();
+        String rejected = fileSystemClient.getFileAsyncClient("target/sub/rejected.txt").getFileUrl();
+        String other = fileSystemClient.getFileAsyncClient("elsewhere/e.txt").getFileUrl();
+        remoteHashCache.put(uploaded, new byte[]{1}, 7);
+        remoteHashCache.put(rejected, new byte[]{2}, 4);
+        remoteHashCache.put(other, new byte[]{3}, 1);
+
+        upload(true);
+
+        Assert.assertNull(remoteHashCache.get(uploaded));
+        Assert.assertNull(remoteHashCache.get(rejected));
+        Assert.assertNotNull(remoteHashCache.get(other));
+    }
+
+    private JSONObject upload(boolean recursive) throws Exception {
+
+        return UploadDirectory.upload(fileSystemClient, localDirectory, recursive, "target", 4,
+                new ParallelTransferOptions(), ChecksumAlgorithm.NONE, remoteHashCache).block(TIMEOUT).toJson();
+    }
+
+    private void write(String path, String content) throws IOException {
+
+        Path file = localDirectory.resolve(path);
+        Files.createDirectories(file.getParent());
+        Files.write(file, content.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+
+        String path = exchange.getRequestURI().getPath().replaceFirst("^/container/", "");
+        String query = String.valueOf(exchange.getRequestURI().getQuery());
+        int length = readBody(exchange.getRequestBody());
+        String parent = path.contains("/") ? path.substring(0, path.lastIndexOf('/')) : null;
+        int status;
+        String errorCode = null;
+        synchronized (directories) {
+            if (parent != null && !directories.contains(parent)) {
+                status = 404;
+                errorCode = "PathNotFound";
+            } else if (query.contains("resource=directory")) {
+                if (directories.add(path)) {
+                    createdDirectories.add(path);
+                    status = 201;
+                } else {
+                    status = 409;
+                    errorCode = "PathAlreadyExists";
+                }
+            } else if (path.endsWith("rejected.txt")) {
+                status = 403;
+                errorCode = "AuthorizationPermissionMismatch";
+            } else if (query.contains("resource=file")) {
+                fileSizes.put(path, 0);
+                status = 201;
+            } else if (query.contains("action=append")) {
+                fileSizes.merge(path, length, Integer::sum);
+                status = 202;
+            } else if (query.contains("action=flush")) {
+                status = 200;
+            } else {
+                status = 400;
+            }
+        }
+        if (errorCode != null) {
+            exchange.getResponseHeaders().add("x-ms-error-code", errorCode);
+        }
+        exchange.getResponseHeaders().add("ETag", "\"0x1\"");
+        exchange.getResponseHeaders().add("Last-Modified", "Wed, 01 Jan 2025 00:00:00 GMT");
+        exchange.sendResponseHeaders(status, -1);
+        exchange.close();
+    }
+
+    private static int readBody(InputStream in) throws IOException {
+
+        byte[] buffer = new byte[8192];
+        int length = 0;
+        int read;
+        while ((read = in.read(buffer)) > 0) {
+            length += read;
+        }
+        return length;
+    }
+}
@@ -0,0 +1,229 @@
+/*
+ *  Copyright (c) 2025, WSO2 LLC. (https://www.wso2.com).
+ *
+ *  WSO2 LLC. licenses this file to you under the Apache License,
+ *  Version 2.0 (the "License"); you may not use this file except
+ *  in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *  "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License.
+ */
+
+package org.wso2.carbon.connector.operations;
+
+import com.azure.storage.common.ParallelTransferOptions;
+import com.azure.storage.file.datalake.DataLakeFileAsyncClient;
+import com.azure.storage.file.datalake.models.PathHttpHeaders;
+import com.sun.net.httpserver.HttpExchange;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+import org.wso2.carbon.connector.connection.RemoteHashCache;
+import org.wso2.carbon.connector.util.StubServer;
+import reactor.core.publisher.Mono;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.RandomAccessFile;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.time.Duration;
+import java.util.Base64;
+import java.util.HashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Verifies that {@link UploadFile} uploads a local file larger than the heap with its Content-MD5, and keeps the
+ * cached remote hashes in line with what it uploaded. The large uploads run in a forked JVM with a small heap. All
+ * uploads go to a local stand-in for the Data Lake endpoint.
+ */
+public class UploadFileTest {
+
+    private static final String HEAP = "-Xmx64m";
+    // The forked JVM exits when the heap overflows, instead of leaving the upload waiting for a dead worker
+    private static final String EXIT_ON_OUT_OF_MEMORY = "-XX:+ExitOnOutOfMemoryError";
+    private static final long FORK_TIMEOUT_MINUTES = 5;
+
+    @Test(description = "A file larger than the heap is uploaded with its Content-MD5")
+    public void testUploadLargerThanHeap() throws Exception {
+
+        assertUploadedInFork(false);
+    }
+
+    @Test(description = "A file larger than the heap is uploaded resumably with its Content-MD5")
+    public void testResumableUploadLargerThanHeap() throws Exception {
+
+        assertUploadedInFork(true);
+    }
+
+    @Test(description = "An upload replaces the cached hash of the file, or forgets it if it is not to be cached")
+    public void testUploadReplacesCachedHash() throws Exception {
+
+        Path file = Files.createTempFile("upload-file-cached", ".txt");
+        try (StubServer server = StubServer.start(UploadFileTest::accept)) {
+            byte[] content = "new content".getBytes(StandardCharsets.UTF_8);
+            Files.write(file, content);
+            DataLakeFileAsyncClient client = server.getFileAsyncClient("container", "folder/cached.txt");
+            String fileUrl = client.getFileUrl();
+            RemoteHashCache remoteHashCache = new RemoteHashCache();
+
+            remoteHashCache.put(fileUrl, new byte[]{1}, 3);
+            PathHttpHeaders headers = new PathHttpHeaders();
+            remoteHashCache.track(UploadFile.uploadFile(client, file, UploadFile.md5(file), headers, new HashMap<>(),
+                    new ParallelTransferOptions(), false, null), fileUrl, headers::getContentMd5, content.length)
+                    .block(Duration.ofSeconds(10));
+            Assert.assertTrue(remoteHashCache.get(fileUrl)
+                    .matches(MessageDigest.getInstance("MD5").digest(content), content.length));
+
+            // Without caching, or without skipping unchanged content, the stale hash is only forgotten
+            remoteHashCache.put(fileUrl, new byte[]{1}, 3);
+            remoteHashCache.track(UploadFile.uploadFile(client, file, Mono.empty(),
+                    new PathHttpHeaders(), new HashMap<>(), new ParallelTransferOptions(), false, null), fileUrl, null,
+                    -1).block(Duration.ofSeconds(10));
+            Assert.assertNull(remoteHashCache.get(fileUrl));
+        } finally {
+            Files.delete(file);
+        }
+    }
+
+    private static void accept(HttpExchange exchange) throws IOException {
+
+        String query = String.valueOf(exchange.getRequestURI().getQuery());
+        readBody(exchange.getRequestBody());
+        exchange.getResponseHeaders().add("ETag", "\"0x1\"");
+        exchange.getResponseHeaders().add("Last-Modified", "Wed, 01 Jan 2025 00:00:00 GMT");
+        exchange.sendResponseHeaders(query.contains("action=append") ? 202 :
+                query.contains("action=flush") ? 200 : 201, -1);
+        exchange.close();
+    }
+
+    private static void assertUploadedInFork(boolean resumable) throws Exception {
+
+        String java = System.getProperty("java.home") + File.separator + "bin" + File.separator + "java";
+        Process process = new ProcessBuilder(java, HEAP, EXIT_ON_OUT_OF_MEMORY, "-cp",
+                System.getProperty("java.class.path"), UploadFileTest.class.getName(), String.valueOf(resumable))
+                .redirectErrorStream(true)
+                .start();
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        Thread reader = new Thread(() -> {
+            try (InputStream in = process.getInputStream()) {
+                byte[] buffer = new byte[8192];
+                int read;
+                while ((read = in.read(buffer)) > 0) {
+                    output.write(buffer, 0, read);
+                }
+            } catch (IOException e) {
+                // The output only explains a failure
+            }
+        });
+        reader.start();
+        if (!process.waitFor(FORK_TIMEOUT_MINUTES, TimeUnit.MINUTES)) {
+            process.destroyForcibly();
+            Assert.fail("The upload did not finish within " + FORK_TIMEOUT_MINUTES + " minutes");
+        }
+        reader.join();
+        Assert.assertEquals(process.exitValue(), 0, output.toString(StandardCharsets.UTF_8.name()));
+    }
+
+    /**
+     * Runs in the forked JVM. Uploads a sparse file three times the size of the heap and exits with 0 if the
+     * stand-in received every byte and the Content-MD5 of the whole file.
+     *
+     * @param args whether the upload is resumable
+     */
+    public static void main(String[] args) throws Exception {
+
+        boolean resumable = Boolean.parseBoolean(args[0]);
+        long size = 3 * Runtime.getRuntime().maxMemory();
+        Path file = Files.createTempFile("upload-file-large", ".bin");
+        Path checkpointDirectory = Files.createTempDirectory("upload-file-checkpoints");
+        AtomicLong received = new AtomicLong();
+        AtomicLong flushedLength = new AtomicLong(-1);
+        String[] flushedMd5 = new String[1];
+        int status = 1;
+        try (StubServer server = StubServer.start(exchange -> {
+            String query = String.valueOf(exchange.getRequestURI().getQuery());
+            long length = readBody(exchange.getRequestBody());
+            int responseStatus = 201;
+            if (query.contains("action=append")) {
+                received.addAndGet(length);
+                responseStatus = 202;
+            } else if (query.contains("action=flush")) {
+                flushedMd5[0] = exchange.getRequestHeaders().getFirst("x-ms-content-md5");
+                flushedLength.set(Long.parseLong(query.replaceAll(".*position=(\\d+).*", "$1")));
+                responseStatus = 200;
+            }
+            exchange.getResponseHeaders().add("ETag", "\"0x1\"");
+            exchange.getResponseHeaders().add("Last-Modified", "Wed, 01 Jan 2025 00:00:00 GMT");
+            exchange.sendResponseHeaders(responseStatus, -1);
+            exchange.close();
+        })) {
+            // A sparse file, so that the test does not need the disk space
+            try (RandomAccessFile raf = new RandomAccessFile(file.toFile(), "rw")) {
+                raf.setLength(size);
+            }
+            DataLakeFileAsyncClient client = server.getFileAsyncClient("container", "folder/large.bin");
+            ParallelTransferOptions options = new ParallelTransferOptions()
+                    .setBlockSizeLong(1024L * 1024)
+                    .setMaxSingleUploadSizeLong(1024L * 1024)
+                    .setMaxConcurrency(4);
+            int statusCode = UploadFile.uploadFile(client, file, UploadFile.md5(file), new PathHttpHeaders(),
+                    new HashMap<>(), options, resumable, checkpointDirectory.toString())
+                    .block(Duration.ofMinutes(FORK_TIMEOUT_MINUTES)).getStatusCode();
+
+            String expectedMd5 = Base64.getEncoder().encodeToString(md5OfZeros(size));
+            if (statusCode != 200 || received.get() != size || flushedLength.get() != size ||
+                    !expectedMd5.equals(flushedMd5[0])) {
+                System.out.println("Uploaded " + received.get() + " of " + size + " bytes, flushed at "
+                        + flushedLength.get() + " with Content-MD5 " + flushedMd5[0] + " instead of " + expectedMd5
+                        + ", status " + statusCode);
+            } else {
+                status = 0;
+            }
+        } catch (Throwable e) {
+            e.printStackTrace(System.out);
+        } finally {
+            Files.deleteIfExists(file);
+            try (java.util.stream.Stream<Path> files = Files.list(checkpointDirectory)) {
+                for (Path checkpoint : (Iterable<Path>) files::iterator) {
+                    Files.delete(checkpoint);
+                }
+            }
+            Files.delete(checkpointDirectory);
+        }
+        // The SDK leaves non-daemon threads behind
+        System.exit(status);
+    }
+
+    private static byte[] md5OfZeros(long size) throws Exception {
+
+        MessageDigest digest = MessageDigest.getInstance("MD5");
+        byte[] zeros = new byte[1024 * 1024];
+        for (long remaining = size; remaining > 0; remaining -= zeros.length) {
+            digest.update(zeros, 0, (int) Math.min(zeros.length, remaining));
+        }
+        return digest.digest();
+    }
+
+    private static long readBody(InputStream in) throws IOException {
+
+        byte[] buffer = new byte[8192];
+        long length = 0;
+        int read;
+        while ((read = in.read(buffer)) > 0) {
+            length += read;
+        }
+        return length;
+    }
+}
@@ -0,0 +1,93 @@
+/*
+ *  Copyright (c) 2025, WSO2 LLC. (https://www.wso2.com).
+ *
+ *  WSO2 LLC. licenses this file to you under the Apache License,
+ *  Version 2.0 (the "License"); you may not use this file except
+ *  in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *  "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License.
+ */
+
+package org.wso2.carbon.connector.util;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.Callable;
+
+/**
+ * A minimal harness for the benchmarks of the connector, which are run through their main method from the test
+ * class path and are not part of the test suite. Every task runs a number of warm-up iterations, whose times are
+ * discarded, followed by the measured iterations.
+ */
+public final class Benchmark {
+
+    public static final int DEFAULT_WARMUP_ITERATIONS = 3;
+    public static final int DEFAULT_ITERATIONS = 5;
+
+    private final int warmupIterations;
+    private final int iterations;
+
+    public Benchmark(int warmupIterations, int iterations) {
+
+        this.warmupIterations = warmupIterations;
+        this.iterations = iterations;
+    }
+
+    /**
+     * Creates a harness from the system properties {@code benchmark.warmup} and {@code benchmark.iterations}.
+     *
+     * @return the harness
+     */
+    public static Benchmark fromSystemProperties() {
+
+        return new Benchmark(Integer.getInteger("benchmark.warmup", DEFAULT_WARMUP_ITERATIONS),
+                Integer.getInteger("benchmark.iterations", DEFAULT_ITERATIONS));
+    }
+
+    /**
+     * Runs a task and prints the median, minimum and maximum time of the measured iterations.
+     *
+     * @param name name of the task in the report
+     * @param task the task, whose result is discarded
+     * @return the median time in nanoseconds
+     * @throws Exception if the task fails
+     */
+    public long measure(String name, Callable<?> task) throws Exception {
+
+        for (int i = 0; i < warmupIterations; i++) {
+            task.call();
+        }
+        List<Long> times = new ArrayList<>();
+        for (int i = 0; i < iterations; i++) {
+            long start = System.nanoTime();
+            task.call();
+            times.add(System.nanoTime() - start);
+        }
+        Collections.sort(times);
+        long median = times.get(times.size() / 2);
+        System.out.printf("%-48s median %10.1f ms  min %10.1f ms  max %10.1f ms%n", name, median / 1e6,
+                times.get(0) / 1e6, times.get(times.size() - 1) / 1e6);
+        return median;
+    }
+
+    /**
+     * Prints the throughput of a task that processes the given number of bytes in the given time.
+     *
+     * @param name  name of the task in the report
+     * @param bytes the number of bytes processed
+     * @param nanos the time taken
+     */
+    public static void printThroughput(String name, long bytes, long nanos) {
+
+        System.out.printf("%-48s %10.1f MB/s%n", name, bytes / 1e6 / (nanos / 1e9));
+    }
+}
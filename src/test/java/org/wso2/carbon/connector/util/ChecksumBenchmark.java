@@ -0,0 +1,82 @@
+/*
+ *  Copyright (c) 2025, WSO2 LLC. (https://www.wso2.com).
+ *
+ *  WSO2 LLC. licenses this file to you under the Apache License,
+ *  Version 2.0 (the "License"); you may not use this file except
+ *  in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *  "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License.
+ */
+
+package org.wso2.carbon.connector.util;
+
+import java.nio.ByteBuffer;
+import java.security.MessageDigest;
+import java.util.Random;
+
+/**
+ * Compares the cost of the checksum algorithms of uploads and appends on payloads of 1 MB to 1 GB. MD5 digests the
+ * whole payload, as it is sent with the flush. CRC64 checksums every block separately, as it is sent with every
+ * append request. NONE only walks the blocks, which is the baseline of the other two.
+ * <p>
+ * The payload is a random buffer of {@code benchmark.bufferSize} bytes (64 MB by default) repeated up to the payload
+ * size, so that payloads larger than the heap can be measured. Blocks are {@code benchmark.blockSize} bytes (4 MB by
+ * default), the default block size of uploads, and the buffer holds a whole number of them.
+ */
+public final class ChecksumBenchmark {
+
+    private static final long[] PAYLOAD_SIZES = {1L << 20, 16L << 20, 256L << 20, 1L << 30};
+
+    private ChecksumBenchmark() {
+
+    }
+
+    public static void main(String[] args) throws Exception {
+
+        int bufferSize = Integer.getInteger("benchmark.bufferSize", 64 << 20);
+        int blockSize = Integer.getInteger("benchmark.blockSize", 4 << 20);
+        byte[] buffer = new byte[bufferSize];
+        new Random(bufferSize).nextBytes(buffer);
+        Benchmark benchmark = Benchmark.fromSystemProperties();
+
+        System.out.println("Java " + System.getProperty("java.version") + ", " + (blockSize >> 20) + " MB blocks");
+        for (long size : PAYLOAD_SIZES) {
+            for (ChecksumAlgorithm algorithm : ChecksumAlgorithm.values()) {
+                String name = algorithm + ", " + (size >> 20) + " MB";
+                long median = benchmark.measure(name, () -> checksum(algorithm, buffer, size, blockSize));
+                if (algorithm != ChecksumAlgorithm.NONE) {
+                    Benchmark.printThroughput(name, size, median);
+                }
+            }
+        }
+    }
+
+    private static Object checksum(ChecksumAlgorithm algorithm, byte[] buffer, long size, int blockSize)
+            throws Exception {
+
+        MessageDigest md5 = algorithm == ChecksumAlgorithm.MD5 ? MessageDigest.getInstance("MD5") : null;
+        long crc64 = 0;
+        int blocks = 0;
+        for (long offset = 0; offset < size; offset += blockSize) {
+            int start = (int) (offset / blockSize % (buffer.length / blockSize)) * blockSize;
+            ByteBuffer block = ByteBuffer.wrap(buffer, start, (int) Math.min(blockSize, size - offset));
+            if (algorithm == ChecksumAlgorithm.MD5) {
+                md5.update(block);
+            } else if (algorithm == ChecksumAlgorithm.CRC64) {
+                crc64 ^= new Crc64().update(block).getValue();
+            } else {
+                blocks += block.remaining() > 0 ? 1 : 0;
+            }
+        }
+        // The results are returned so that the work cannot be optimized away
+        return md5 != null ? md5.digest() : crc64 ^ blocks;
+    }
+}
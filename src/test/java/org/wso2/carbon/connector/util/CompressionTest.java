@@ -0,0 +1,163 @@
+/*
+ *  Copyright (c) 2025, WSO2 LLC. (https://www.wso2.com).
+ *
+ *  WSO2 LLC. licenses this file to you under the Apache License,
+ *  Version 2.0 (the "License"); you may not use this file except
+ *  in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *  "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License.
+ */
+
+
+package org.wso2.carbon.connector.util;
+
+import com.azure.core.util.FluxUtil;
+import io.netty.handler.codec.compression.Zstd;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+import reactor.core.publisher.Flux;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Verifies that {@link Compression} produces standard encodings and restores the content from them.
+ */
+public class CompressionTest {
+
+    private static byte[] content() {
+
+        StringBuilder json = new StringBuilder("[");
+        for (int i = 0; i < 20000; i++) {
+            json.append("{\"id\":").append(i).append(",\"name\":\"record-").append(i % 97).append("\"},");
+        }
+        return json.append("{}]").toString().getBytes(StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Splits content into chunks of uneven size, as they arrive from a stream.
+     */
+    private static Flux<ByteBuffer> chunks(byte[] content, int chunkSize) {
+
+        List<ByteBuffer> chunks = new ArrayList<>();
+        for (int offset = 0; offset < content.length; offset += chunkSize) {
+            chunks.add(ByteBuffer.wrap(content, offset, Math.min(chunkSize, content.length - offset)));
+        }
+        return Flux.fromIterable(chunks);
+    }
+
+    private static byte[] collect(Flux<ByteBuffer> content) {
+
+        return FluxUtil.collectBytesInByteBufferStream(content).block();
+    }
+
+    private static byte[] readAll(InputStream in) throws IOException {
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        byte[] buffer = new byte[8192];
+        int read;
+        while ((read = in.read(buffer)) > 0) {
+            out.write(buffer, 0, read);
+        }
+        return out.toByteArray();
+    }
+
+    @Test(description = "Streamed gzip output is a standard gzip file of the content")
+    public void testGzipCompress() throws IOException {
+
+        byte[] content = content();
+        byte[] compressed = collect(Compression.GZIP.compress(chunks(content, 7001)));
+        Assert.assertTrue(compressed.length * 5 < content.length, "JSON compresses at least five times");
+        Assert.assertEquals(readAll(new GZIPInputStream(new ByteArrayInputStream(compressed))), content);
+    }
+
+    @Test(description = "A gzip file is decompressed whatever the chunk boundaries of the stream")
+    public void testGzipDecompress() throws IOException {
+
+        byte[] content = content();
+        ByteArrayOutputStream compressed = new ByteArrayOutputStream();
+        try (GZIPOutputStream out = new GZIPOutputStream(compressed)) {
+            out.write(content);
+        }
+        for (int chunkSize : new int[]{1, 13, 65536}) {
+            Assert.assertEquals(collect(Compression.GZIP.decompress(chunks(compressed.toByteArray(), chunkSize))),
+                    content);
+        }
+    }
+
+    @Test(description = "Deflate content survives a round trip")
+    public void testDeflateRoundTrip() {
+
+        byte[] content = content();
+        Assert.assertEquals(collect(Compression.DEFLATE.decompress(
+                Compression.DEFLATE.compress(chunks(content, 4096)))), content);
+    }
+
+    @Test(description = "Zstandard content survives a round trip where the native library is available")
+    public void testZstdRoundTrip() {
+
+        byte[] content = content();
+        try {
+            Assert.assertEquals(collect(Compression.ZSTD.decompress(
+                    Compression.ZSTD.compress(chunks(content, 4096)))), content);
+            Assert.assertTrue(Zstd.isAvailable());
+        } catch (IllegalStateException e) {
+            Assert.assertFalse(Zstd.isAvailable());
+        }
+    }
+
+    @Test(description = "Empty content compresses to a valid empty stream")
+    public void testEmptyContent() {
+
+        byte[] compressed = collect(Compression.GZIP.compress(Flux.empty()));
+        Assert.assertTrue(compressed.length > 0);
+        Assert.assertEquals(collect(Compression.GZIP.decompress(Flux.just(ByteBuffer.wrap(compressed)))),
+                new byte[0]);
+    }
+
+    @Test(description = "Content that is not in the declared encoding fails the stream")
+    public void testCorruptContent() {
+
+        try {
+            collect(Compression.GZIP.decompress(Flux.just(ByteBuffer.wrap(content()))));
+            Assert.fail("Content that is not gzip must not be decompressed");
+        } catch (RuntimeException e) {
+            // expected
+        }
+    }
+
+    @Test(description = "Parameter values and Content-Encoding headers map to the compression")
+    public void testParse() {
+
+        Assert.assertEquals(Compression.fromString(null), Compression.NONE);
+        Assert.assertEquals(Compression.fromString(" gzip "), Compression.GZIP);
+        Assert.assertEquals(Compression.fromContentEncoding("GZIP"), Compression.GZIP);
+        Assert.assertEquals(Compression.fromContentEncoding("zstd"), Compression.ZSTD);
+        Assert.assertEquals(Compression.fromContentEncoding("br"), Compression.NONE);
+        Assert.assertEquals(Compression.fromContentEncoding(null), Compression.NONE);
+        Assert.assertEquals(Compression.NONE.compress(Flux.just(ByteBuffer.wrap(new byte[]{1}))).count().block(),
+                Long.valueOf(1));
+        try {
+            Compression.fromString("lz4");
+            Assert.fail("Unknown compressions must be rejected");
+        } catch (IllegalArgumentException e) {
+            // expected
+        }
+    }
+}
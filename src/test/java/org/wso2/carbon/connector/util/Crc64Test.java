@@ -0,0 +1,56 @@
+/*
+ *  Copyright (c) 2025, WSO2 LLC. (https://www.wso2.com).
+ *
+ *  WSO2 LLC. licenses this file to you under the Apache License,
+ *  Version 2.0 (the "License"); you may not use this file except
+ *  in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *  "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License.
+ */
+
+package org.wso2.carbon.connector.util;
+
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Random;
+
+/**
+ * Verifies {@link Crc64} against the Azure Storage CRC64 variant.
+ */
+public class Crc64Test {
+
+    @Test(description = "The checksum of the standard check input matches the reference value")
+    public void testCheckValue() {
+
+        byte[] input = "123456789".getBytes(StandardCharsets.US_ASCII);
+        Assert.assertEquals(new Crc64().update(input, 0, input.length).getValue(), 0xAE8B14860A799888L);
+        Assert.assertEquals(new Crc64().getValue(), 0L);
+    }
+
+    @Test(description = "Content added in unaligned parts gives the checksum of the whole content")
+    public void testIncrementalUpdate() {
+
+        byte[] content = new byte[100003];
+        new Random(7).nextBytes(content);
+        long whole = new Crc64().update(content, 0, content.length).getValue();
+        Crc64 parts = new Crc64().update(content, 0, 5).update(content, 5, 4096).update(content, 4101, 95902);
+        Assert.assertEquals(parts.getValue(), whole);
+    }
+
+    @Test(description = "The header encoding is the base64 of the little-endian checksum")
+    public void testBase64() {
+
+        byte[] input = "123456789".getBytes(StandardCharsets.US_ASCII);
+        Assert.assertEquals(new Crc64().update(input, 0, input.length).toBase64(), "iJh5CoYUi64=");
+    }
+}
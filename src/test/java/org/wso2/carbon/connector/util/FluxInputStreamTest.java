@@ -0,0 +1,125 @@
+/*
+ *  Copyright (c) 2025, WSO2 LLC. (https://www.wso2.com).
+ *
+ *  WSO2 LLC. licenses this file to you under the Apache License,
+ *  Version 2.0 (the "License"); you may not use this file except
+ *  in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *  "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License.
+ */
+
+
+package org.wso2.carbon.connector.util;
+
+import org.testng.Assert;
+import org.testng.annotations.Test;
+import reactor.core.publisher.Flux;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Verifies that {@link FluxInputStream} reads the buffers of a source in order and on demand.
+ */
+public class FluxInputStreamTest {
+
+    @Test(description = "The bytes of all buffers are read in order, across reads of any size")
+    public void testRead() throws IOException {
+
+        byte[] content = new byte[100000];
+        new Random(5).nextBytes(content);
+        Flux<ByteBuffer> source = Flux.range(0, 100).map(i -> ByteBuffer.wrap(content, i * 1000, 1000));
+
+        ByteArrayOutputStream read = new ByteArrayOutputStream();
+        try (InputStream stream = new FluxInputStream(source)) {
+            read.write(stream.read());
+            byte[] bytes = new byte[1777];
+            int count;
+            while ((count = stream.read(bytes)) != -1) {
+                read.write(bytes, 0, count);
+            }
+            Assert.assertEquals(stream.read(), -1);
+        }
+        Assert.assertEquals(read.toByteArray(), content);
+    }
+
+    @Test(description = "Buffers are requested as the stream is read and closing the stream cancels the source")
+    public void testOnDemand() throws IOException {
+
+        AtomicInteger emitted = new AtomicInteger();
+        AtomicBoolean cancelled = new AtomicBoolean();
+        Flux<ByteBuffer> source = Flux.range(0, 1000).map(i -> ByteBuffer.wrap(new byte[]{i.byteValue()}))
+                .doOnNext(buffer -> emitted.incrementAndGet()).doOnCancel(() -> cancelled.set(true));
+
+        InputStream stream = new FluxInputStream(source);
+        Assert.assertEquals(stream.read(), 0);
+        Assert.assertEquals(stream.read(), 1);
+        Assert.assertTrue(emitted.get() <= 2 + FluxInputStream.PREFETCH);
+        stream.close();
+        Assert.assertTrue(cancelled.get());
+    }
+
+    @Test(description = "A failure of the source fails the read", expectedExceptions = IOException.class)
+    public void testFailure() throws IOException {
+
+        Flux<ByteBuffer> source = Flux.concat(Flux.just(ByteBuffer.wrap(new byte[]{1})),
+                Flux.error(new IllegalStateException("Connection reset")));
+        try (InputStream stream = new FluxInputStream(source)) {
+            Assert.assertEquals(stream.read(), 1);
+            stream.read();
+        }
+    }
+
+    @Test(description = "The source is done with once, whether the stream is read to the end, fails or is closed")
+    public void testDone() throws IOException {
+
+        AtomicInteger done = new AtomicInteger();
+        InputStream read = new FluxInputStream(Flux.just(ByteBuffer.wrap(new byte[]{1})), done::incrementAndGet);
+        Assert.assertEquals(read.read(), 1);
+        Assert.assertEquals(done.get(), 0);
+        Assert.assertEquals(read.read(), -1);
+        read.close();
+        Assert.assertEquals(done.get(), 1);
+
+        InputStream failed = new FluxInputStream(Flux.error(new IllegalStateException()), done::incrementAndGet);
+        try {
+            failed.read();
+            Assert.fail();
+        } catch (IOException e) {
+            Assert.assertEquals(done.get(), 2);
+        }
+
+        InputStream closed = new FluxInputStream(Flux.never(), done::incrementAndGet);
+        closed.close();
+        closed.close();
+        Assert.assertEquals(done.get(), 3);
+    }
+
+    @Test(description = "A stream that is dropped unread cancels its source once it is collected")
+    public void testDropped() throws InterruptedException {
+
+        AtomicBoolean cancelled = new AtomicBoolean();
+        AtomicBoolean done = new AtomicBoolean();
+        new FluxInputStream(Flux.<ByteBuffer>never().doOnCancel(() -> cancelled.set(true)), () -> done.set(true));
+
+        for (int i = 0; i < 100 && !done.get(); i++) {
+            System.gc();
+            Thread.sleep(50);
+        }
+        Assert.assertTrue(done.get());
+        Assert.assertTrue(cancelled.get());
+    }
+}
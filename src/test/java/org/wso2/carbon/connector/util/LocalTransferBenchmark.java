@@ -0,0 +1,202 @@
+/*
+ *  Copyright (c) 2025, WSO2 LLC. (https://www.wso2.com).
+ *
+ *  WSO2 LLC. licenses this file to you under the Apache License,
+ *  Version 2.0 (the "License"); you may not use this file except
+ *  in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *  "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License.
+ */
+
+package org.wso2.carbon.connector.util;
+
+import com.azure.core.util.BinaryData;
+import com.azure.core.util.Context;
+import com.azure.storage.common.ParallelTransferOptions;
+import com.azure.storage.file.datalake.DataLakeFileAsyncClient;
+import com.azure.storage.file.datalake.DataLakeFileClient;
+import com.azure.storage.file.datalake.models.FileRange;
+import com.azure.storage.file.datalake.options.DataLakeFileAppendOptions;
+import com.azure.storage.file.datalake.options.ReadToFileOptions;
+import com.sun.net.httpserver.HttpExchange;
+import io.netty.util.concurrent.DefaultThreadFactory;
+import reactor.core.publisher.Flux;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Compares the local file I/O of appends and downloads against a local stand-in for the Data Lake endpoint, which
+ * discards appended content and serves downloads from a local file.
+ * <ul>
+ * <li>Appends of a local file with its MD5: a streaming digest followed by a body read through
+ * {@link BinaryData#fromFile}, as before {@link MappedFile}, against a {@link MappedFile} serving both.</li>
+ * <li>Downloads: the file writer of the SDK, which {@code DownloadFile} uses, against a downloader that preallocates
+ * the target and writes every range at its position.</li>
+ * </ul>
+ * The file is {@code benchmark.size} bytes (512 MiB by default). Downloads use 8 MiB blocks and 8 parallel ranges.
+ */
+public final class LocalTransferBenchmark {
+
+    private static final long BLOCK_SIZE = 8L << 20;
+    private static final int CONCURRENCY = 8;
+    private static final Pattern RANGE = Pattern.compile("bytes=(\\d+)-(\\d+)");
+
+    private LocalTransferBenchmark() {
+
+    }
+
+    public static void main(String[] args) throws Exception {
+
+        long size = Long.getLong("benchmark.size", 512L << 20);
+        Benchmark benchmark = Benchmark.fromSystemProperties();
+        Path source = Files.createTempFile("local-transfer-benchmark", ".bin");
+        Path target = source.resolveSibling(source.getFileName() + ".download");
+        ExecutorService serverThreads = Executors.newCachedThreadPool(
+                new DefaultThreadFactory("benchmark-server", true));
+        try (StubServer server = StubServer.start(exchange -> handle(exchange, source, size), serverThreads)) {
+            writeRandom(source, size);
+            DataLakeFileClient client = server.getServiceClient().getFileSystemClient("container")
+                    .getFileClient("large.bin");
+            DataLakeFileAsyncClient asyncClient = server.getFileAsyncClient("container", "large.bin");
+
+            System.out.println("Java " + System.getProperty("java.version") + ", " + (size >> 20) + " MiB, "
+                    + Runtime.getRuntime().availableProcessors() + " CPUs");
+            benchmark.measure("append with MD5, streamed digest and body", () ->
+                    client.appendWithResponse(BinaryData.fromFile(source), 0,
+                            new DataLakeFileAppendOptions().setContentHash(Utils.md5(source)), null, Context.NONE));
+            benchmark.measure("append with MD5, mapped file", () -> {
+                MappedFile content = MappedFile.map(source);
+                return client.appendWithResponse(content.toBinaryData(), 0,
+                        new DataLakeFileAppendOptions().setContentHash(content.md5()), null, Context.NONE);
+            });
+            ParallelTransferOptions options = new ParallelTransferOptions().setBlockSizeLong(BLOCK_SIZE)
+                    .setMaxConcurrency(CONCURRENCY);
+            benchmark.measure("download, SDK file writer", () -> {
+                Files.deleteIfExists(target);
+                return client.readToFileWithResponse(new ReadToFileOptions(target.toString())
+                        .setRangeGetContentMd5(false).setParallelTransferOptions(options), null, Context.NONE);
+            });
+            verify(source, target);
+            benchmark.measure("download, preallocated ranged writer", () -> {
+                downloadRanges(asyncClient, target, size);
+                return null;
+            });
+            verify(source, target);
+        } finally {
+            serverThreads.shutdownNow();
+            Files.deleteIfExists(source);
+            Files.deleteIfExists(target);
+        }
+        System.exit(0);
+    }
+
+    /**
+     * Preallocates the target and writes every downloaded range at its position, as it arrives.
+     */
+    private static void downloadRanges(DataLakeFileAsyncClient client, Path target, long size) throws IOException {
+
+        try (RandomAccessFile file = new RandomAccessFile(target.toFile(), "rw")) {
+            file.setLength(size);
+            FileChannel channel = file.getChannel();
+            Flux.range(0, (int) ((size + BLOCK_SIZE - 1) / BLOCK_SIZE))
+                    .flatMap(block -> {
+                        long offset = block * BLOCK_SIZE;
+                        AtomicLong position = new AtomicLong(offset);
+                        return client.readWithResponse(new FileRange(offset, Math.min(BLOCK_SIZE, size - offset)),
+                                        null, null, false)
+                                .flatMapMany(response -> response.getValue())
+                                .doOnNext(buffer -> {
+                                    try {
+                                        long at = position.getAndAdd(buffer.remaining());
+                                        while (buffer.hasRemaining()) {
+                                            at += channel.write(buffer, at);
+                                        }
+                                    } catch (IOException e) {
+                                        throw new IllegalStateException(e);
+                                    }
+                                });
+                    }, CONCURRENCY)
+                    .blockLast();
+        }
+    }
+
+    private static void verify(Path source, Path target) throws Exception {
+
+        if (!Arrays.equals(Utils.md5(source), Utils.md5(target))) {
+            throw new IllegalStateException("The downloaded file differs from the source");
+        }
+    }
+
+    private static void writeRandom(Path file, long size) throws IOException {
+
+        byte[] buffer = new byte[1 << 20];
+        Random random = new Random(size);
+        try (OutputStream out = Files.newOutputStream(file)) {
+            for (long written = 0; written < size; written += buffer.length) {
+                random.nextBytes(buffer);
+                out.write(buffer, 0, (int) Math.min(buffer.length, size - written));
+            }
+        }
+    }
+
+    private static void handle(HttpExchange exchange, Path source, long size) throws IOException {
+
+        byte[] buffer = new byte[64 * 1024];
+        try (InputStream in = exchange.getRequestBody()) {
+            while (in.read(buffer) > 0) {
+                // Appended content is discarded
+            }
+        }
+        exchange.getResponseHeaders().add("ETag", "\"0x1\"");
+        exchange.getResponseHeaders().add("Last-Modified", "Wed, 01 Jan 2025 00:00:00 GMT");
+        exchange.getResponseHeaders().add("x-ms-resource-type", "file");
+        if (!"GET".equals(exchange.getRequestMethod())) {
+            exchange.sendResponseHeaders("PATCH".equals(exchange.getRequestMethod()) ? 202 : 200, -1);
+            exchange.close();
+            return;
+        }
+        String range = exchange.getRequestHeaders().getFirst("x-ms-range");
+        Matcher matcher = RANGE.matcher(range != null ? range : "");
+        long start = 0;
+        long end = size - 1;
+        if (matcher.matches()) {
+            start = Long.parseLong(matcher.group(1));
+            end = Math.min(Long.parseLong(matcher.group(2)), size - 1);
+            exchange.getResponseHeaders().add("Content-Range", "bytes " + start + "-" + end + "/" + size);
+        }
+        exchange.sendResponseHeaders(matcher.matches() ? 206 : 200, end - start + 1);
+        try (FileChannel channel = FileChannel.open(source, StandardOpenOption.READ);
+             OutputStream out = exchange.getResponseBody()) {
+            ByteBuffer chunk = ByteBuffer.wrap(buffer);
+            for (long position = start; position <= end; ) {
+                chunk.clear().limit((int) Math.min(buffer.length, end - position + 1));
+                int read = channel.read(chunk, position);
+                out.write(buffer, 0, read);
+                position += read;
+            }
+        }
+    }
+}
@@ -0,0 +1,97 @@
+/*
+ *  Copyright (c) 2025, WSO2 LLC. (https://www.wso2.com).
+ *
+ *  WSO2 LLC. licenses this file to you under the Apache License,
+ *  Version 2.0 (the "License"); you may not use this file except
+ *  in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *  "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License.
+ */
+
+
+package org.wso2.carbon.connector.util;
+
+import org.testng.Assert;
+import org.testng.annotations.AfterClass;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.Test;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.util.Arrays;
+import java.util.Random;
+
+/**
+ * Verifies that {@link MappedFile} digests and sends exactly the bytes of the requested region.
+ */
+public class MappedFileTest {
+
+    private byte[] content;
+    private Path file;
+
+    @BeforeClass
+    public void setUp() throws IOException {
+
+        content = new byte[(int) (3 * MappedFile.MIN_MAPPING_SIZE + 17)];
+        new Random(11).nextBytes(content);
+        file = Files.createTempFile("mapped-file", ".bin");
+        Files.write(file, content);
+    }
+
+    @AfterClass
+    public void tearDown() throws IOException {
+
+        Files.deleteIfExists(file);
+    }
+
+    @Test(description = "A whole file is mapped with the digest of a streaming read")
+    public void testWholeFile() throws Exception {
+
+        MappedFile mapped = MappedFile.map(file);
+        Assert.assertEquals(mapped.getLength(), content.length);
+        Assert.assertEquals(mapped.md5(), Utils.md5(file));
+        Assert.assertEquals(mapped.toBinaryData().toBytes(), content);
+    }
+
+    @Test(description = "Regions below and above the mapping threshold hold the bytes at their offset")
+    public void testRegions() throws Exception {
+
+        long[][] regions = {{5, 1000}, {MappedFile.MIN_MAPPING_SIZE - 3, 2 * MappedFile.MIN_MAPPING_SIZE + 20}};
+        for (long[] region : regions) {
+            byte[] expected = Arrays.copyOfRange(content, (int) region[0], (int) (region[0] + region[1]));
+            MappedFile mapped = MappedFile.map(file, region[0], region[1]);
+            Assert.assertEquals(mapped.toBinaryData().toBytes(), expected);
+            Assert.assertEquals(mapped.md5(), MessageDigest.getInstance("MD5").digest(expected));
+        }
+    }
+
+    @Test(description = "The request body can be read more than once, as a retried request does")
+    public void testReplayable() throws Exception {
+
+        MappedFile mapped = MappedFile.map(file, 100, MappedFile.MIN_MAPPING_SIZE);
+        byte[] first = mapped.toBinaryData().toBytes();
+        Assert.assertEquals(mapped.toBinaryData().toBytes(), first);
+        Assert.assertEquals(mapped.md5(), mapped.md5());
+    }
+
+    @Test(description = "A region beyond the end of the file is rejected")
+    public void testBeyondEndOfFile() {
+
+        try {
+            MappedFile.map(file, content.length - 10, 11);
+            Assert.fail("Mapping beyond the end of the file must fail");
+        } catch (IOException e) {
+            Assert.assertTrue(e.getMessage().contains("beyond the end"));
+        }
+    }
+}
@@ -0,0 +1,161 @@
+/*
+ *  Copyright (c) 2025, WSO2 LLC. (https://www.wso2.com).
+ *
+ *  WSO2 LLC. licenses this file to you under the Apache License,
+ *  Version 2.0 (the "License"); you may not use this file except
+ *  in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *  "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License.
+ */
+
+
+package org.wso2.carbon.connector.util;
+
+import com.azure.storage.file.datalake.DataLakeFileAsyncClient;
+import com.sun.net.httpserver.HttpExchange;
+import org.testng.Assert;
+import org.testng.annotations.AfterClass;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Verifies {@link ParallelAppend} against a local stand-in for the Data Lake endpoint that fails some appends.
+ */
+public class ParallelAppendTest {
+
+    private static final int CHUNK_SIZE = 1024;
+
+    private StubServer server;
+    private DataLakeFileAsyncClient client;
+    private final Map<Long, byte[]> appended = new ConcurrentHashMap<>();
+    private final AtomicInteger appendCount = new AtomicInteger();
+    private volatile long failingPosition = -1;
+    private volatile int failureStatus;
+
+    @BeforeClass
+    public void startServer() throws IOException {
+
+        server = StubServer.start(this::handle);
+        // The client tries once, so that failures reach the retries of the chunks
+        client = server.getFileAsyncClient("container", "folder/large.bin");
+    }
+
+    @AfterClass(alwaysRun = true)
+    public void stopServer() {
+
+        server.close();
+    }
+
+    @Test(description = "Every chunk is appended at its position after the start position, a failed one retried alone")
+    public void testAppendWithRetriedChunk() throws Exception {
+
+        byte[] content = new byte[5 * CHUNK_SIZE + 100];
+        new Random(1).nextBytes(content);
+        Path file = Files.createTempFile("parallel-append", ".bin");
+        try {
+            Files.write(file, content);
+            reset(1000 + 2 * CHUNK_SIZE, 503);
+            ParallelAppend append = new ParallelAppend(client, file, 1000, (long) CHUNK_SIZE, 4, true, null);
+            Assert.assertEquals(append.append().block(), Long.valueOf(content.length));
+            Assert.assertEquals(append.getRetryCount(), 1L);
+            Assert.assertEquals(appendCount.get(), 7);
+            Assert.assertEquals(appended.size(), 6);
+            ByteArrayOutputStream joined = new ByteArrayOutputStream();
+            for (long position = 1000; position < 1000 + content.length; position += CHUNK_SIZE) {
+                byte[] chunk = appended.get(position);
+                Assert.assertNotNull(chunk, "No chunk was appended at " + position);
+                joined.write(chunk);
+            }
+            Assert.assertEquals(joined.toByteArray(), content);
+        } finally {
+            Files.delete(file);
+        }
+    }
+
+    @Test(description = "A chunk rejected by the service is not retried")
+    public void testClientErrorNotRetried() throws Exception {
+
+        Path file = Files.createTempFile("parallel-append", ".bin");
+        try {
+            Files.write(file, new byte[3 * CHUNK_SIZE]);
+            reset(CHUNK_SIZE, 412);
+            ParallelAppend append = new ParallelAppend(client, file, 0, (long) CHUNK_SIZE, 1, false, "lease");
+            try {
+                append.append().block();
+                Assert.fail("The append did not fail");
+            } catch (RuntimeException e) {
+                // Expected, the lease condition failed
+            }
+            Assert.assertEquals(append.getRetryCount(), 0L);
+        } finally {
+            Files.delete(file);
+        }
+    }
+
+    private void reset(long failingPosition, int failureStatus) {
+
+        appended.clear();
+        appendCount.set(0);
+        this.failingPosition = failingPosition;
+        this.failureStatus = failureStatus;
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+
+        Map<String, String> query = new HashMap<>();
+        if (exchange.getRequestURI().getQuery() != null) {
+            for (String parameter : exchange.getRequestURI().getQuery().split("&")) {
+                String[] pair = parameter.split("=", 2);
+                query.put(pair[0], pair.length > 1 ? pair[1] : "");
+            }
+        }
+        byte[] body = readBody(exchange.getRequestBody());
+        int status;
+        if ("append".equals(query.get("action"))) {
+            appendCount.incrementAndGet();
+            long position = Long.parseLong(query.get("position"));
+            if (position == failingPosition) {
+                // Fails once
+                failingPosition = -1;
+                status = failureStatus;
+            } else {
+                appended.put(position, body);
+                status = 202;
+            }
+        } else {
+            status = 400;
+        }
+        exchange.sendResponseHeaders(status, -1);
+        exchange.close();
+    }
+
+    private static byte[] readBody(InputStream in) throws IOException {
+
+        ByteArrayOutputStream body = new ByteArrayOutputStream();
+        byte[] buffer = new byte[8192];
+        int read;
+        while ((read = in.read(buffer)) > 0) {
+            body.write(buffer, 0, read);
+        }
+        return body.toByteArray();
+    }
+}
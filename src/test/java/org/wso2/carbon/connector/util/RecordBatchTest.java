@@ -0,0 +1,111 @@
+/*
+ *  Copyright (c) 2025, WSO2 LLC. (https://www.wso2.com).
+ *
+ *  WSO2 LLC. licenses this file to you under the Apache License,
+ *  Version 2.0 (the "License"); you may not use this file except
+ *  in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *  "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License.
+ */
+
+
+package org.wso2.carbon.connector.util;
+
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.util.Arrays;
+
+/**
+ * Verifies that {@link RecordBatch} serializes the records of the selected array into a single append body.
+ */
+public class RecordBatchTest {
+
+    @Test(description = "The records of a nested array are written as JSON lines with their length and MD5")
+    public void testJsonLines() throws Exception {
+
+        String json = "{\"meta\":{\"skip\":[1,2]},\"orders\":{\"items\":[{\"id\":1,\"note\":\"a<b\"},"
+                + "{\"id\":2,\"note\":null}]}}";
+        RecordBatch batch = RecordBatch.read(new StringReader(json), "$.orders.items", RecordFormat.JSONL, "\n",
+                true);
+
+        byte[] expected = "{\"id\":1,\"note\":\"a<b\"}\n{\"id\":2,\"note\":null}\n".getBytes(StandardCharsets.UTF_8);
+        Assert.assertEquals(batch.getRecordCount(), 2);
+        Assert.assertEquals(batch.getLength(), expected.length);
+        Assert.assertEquals(batch.toBinaryData().toBytes(), expected);
+        Assert.assertEquals(batch.md5(), MessageDigest.getInstance("MD5").digest(expected));
+    }
+
+    @Test(description = "Records are written as CSV rows and fields that need it are quoted")
+    public void testCsv() throws Exception {
+
+        String json = "[{\"id\":1,\"name\":\"plain\"},{\"id\":2,\"name\":\"with, \\\"quotes\\\"\"},[3,null,true]]";
+        RecordBatch batch = RecordBatch.read(new StringReader(json), null, RecordFormat.CSV, "\r\n", false);
+
+        Assert.assertEquals(batch.getRecordCount(), 3);
+        Assert.assertEquals(batch.toBinaryData().toString(), "1,plain\r\n2,\"with, \"\"quotes\"\"\"\r\n3,,true\r\n");
+        Assert.assertNull(batch.md5());
+    }
+
+    @Test(description = "A batch larger than a block is split across blocks without losing bytes")
+    public void testManyBlocks() throws Exception {
+
+        StringBuilder json = new StringBuilder("[");
+        StringBuilder expected = new StringBuilder();
+        for (int i = 0; i < 20000; i++) {
+            json.append(i > 0 ? "," : "").append("\"record ").append(i).append(" \u00e9\"");
+            expected.append("record ").append(i).append(" \u00e9|");
+        }
+        json.append(']');
+        RecordBatch batch = RecordBatch.read(new StringReader(json.toString()), "$", RecordFormat.TEXT, "|", false);
+
+        byte[] bytes = expected.toString().getBytes(StandardCharsets.UTF_8);
+        Assert.assertTrue(bytes.length > 2 * RecordBatch.BLOCK_SIZE);
+        Assert.assertEquals(batch.getRecordCount(), 20000);
+        Assert.assertEquals(batch.getLength(), bytes.length);
+        Assert.assertEquals(batch.toBinaryData().toBytes(), bytes);
+    }
+
+    @Test(description = "A path that does not lead to an array is rejected",
+            expectedExceptions = IllegalArgumentException.class)
+    public void testNotAnArray() throws Exception {
+
+        RecordBatch.read(new StringReader("{\"orders\":{\"count\":2}}"), "$.orders", RecordFormat.JSONL, "\n", false);
+    }
+
+    @Test(description = "A member path may end with a wildcard over the array")
+    public void testTrailingWildcard() throws Exception {
+
+        RecordBatch batch = RecordBatch.read(new StringReader("{\"orders\":{\"items\":[1,2]}}"),
+                "$.orders.items[*]", RecordFormat.JSONL, "\n", false);
+
+        Assert.assertEquals(batch.getRecordCount(), 2);
+    }
+
+    @Test(description = "Paths that are not made of member names are rejected instead of being misread")
+    public void testUnsupportedPath() {
+
+        for (String path : new String[]{"$.orders[0]", "$..items", "$.orders[*].items", "$.orders[?(@.id)]",
+                "$['orders']", "$.*", "orders.", "@.orders"}) {
+            try {
+                RecordBatch.getMembers(path);
+                Assert.fail("Accepted " + path);
+            } catch (IllegalArgumentException e) {
+                Assert.assertTrue(e.getMessage().contains("not supported"), e.getMessage());
+            }
+        }
+        Assert.assertEquals(RecordBatch.getMembers("orders.items"), Arrays.asList("orders", "items"));
+        Assert.assertTrue(RecordBatch.getMembers("$[*]").isEmpty());
+    }
+}
@@ -0,0 +1,233 @@
+/*
+ *  Copyright (c) 2025, WSO2 LLC. (https://www.wso2.com).
+ *
+ *  WSO2 LLC. licenses this file to you under the Apache License,
+ *  Version 2.0 (the "License"); you may not use this file except
+ *  in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *  "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License.
+ */
+
+package org.wso2.carbon.connector.util;
+
+import com.azure.storage.file.datalake.DataLakeFileAsyncClient;
+import com.azure.storage.file.datalake.models.PathHttpHeaders;
+import com.sun.net.httpserver.HttpExchange;
+import org.testng.Assert;
+import org.testng.annotations.AfterClass;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.TreeMap;
+
+/**
+ * Verifies {@link ResumableUpload} against a local stand-in for the Data Lake endpoint that drops the connection in
+ * the middle of an upload.
+ */
+public class ResumableUploadTest {
+
+    private static final int CHUNK_SIZE = 1024;
+
+    private StubServer server;
+    private DataLakeFileAsyncClient client;
+    private Path checkpointDirectory;
+    private final TreeMap<Long, byte[]> appended = new TreeMap<>();
+    private final List<Long> appendPositions = Collections.synchronizedList(new ArrayList<>());
+    private volatile byte[] committed;
+    private volatile int dropAppendAt;
+
+    @BeforeClass
+    public void startServer() throws IOException {
+
+        server = StubServer.start(this::handle);
+        // The client tries once, so that the dropped connection surfaces as a failed upload
+        client = server.getFileAsyncClient("container", "folder/large.bin");
+        checkpointDirectory = Files.createTempDirectory("resumable-upload");
+    }
+
+    @AfterClass(alwaysRun = true)
+    public void stopServer() throws IOException {
+
+        server.close();
+        try (java.util.stream.Stream<Path> files = Files.list(checkpointDirectory)) {
+            for (Path file : (Iterable<Path>) files::iterator) {
+                Files.delete(file);
+            }
+        }
+        Files.delete(checkpointDirectory);
+    }
+
+    @BeforeMethod
+    public void reset() {
+
+        synchronized (appended) {
+            appended.clear();
+        }
+        appendPositions.clear();
+        committed = null;
+        dropAppendAt = -1;
+    }
+
+    @Test(description = "An upload interrupted by a dropped connection resumes from the last acknowledged chunk")
+    public void testResumeAfterDroppedConnection() throws Exception {
+
+        byte[] content = randomContent(5 * CHUNK_SIZE + 100);
+        Path file = Files.createTempFile("resumable-upload", ".bin");
+        try {
+            Files.write(file, content);
+            dropAppendAt = 3;
+            ResumableUpload first = newUpload(file);
+            uploadInterrupted(first);
+            Assert.assertTrue(Files.exists(first.getCheckpointFile()));
+            Assert.assertNull(committed);
+
+            appendPositions.clear();
+            dropAppendAt = -1;
+            ResumableUpload second = newUpload(file);
+            Assert.assertEquals(second.upload().block().getStatusCode(), 200);
+            Assert.assertEquals(second.getResumedOffset(), 2L * CHUNK_SIZE);
+            // Only the chunks after the last acknowledged one are sent again
+            Assert.assertEquals(appendPositions.get(0), Long.valueOf(2L * CHUNK_SIZE));
+            Assert.assertEquals(appendPositions.size(), 4);
+            Assert.assertEquals(committed, content);
+            Assert.assertFalse(Files.exists(second.getCheckpointFile()));
+        } finally {
+            Files.delete(file);
+        }
+    }
+
+    @Test(description = "The checkpoint is discarded if the local file changed since it was written")
+    public void testRestartWhenFileChanged() throws Exception {
+
+        Path file = Files.createTempFile("resumable-upload", ".bin");
+        try {
+            Files.write(file, randomContent(4 * CHUNK_SIZE));
+            dropAppendAt = 2;
+            ResumableUpload first = newUpload(file);
+            uploadInterrupted(first);
+            Assert.assertTrue(Files.exists(first.getCheckpointFile()));
+
+            byte[] content = randomContent(3 * CHUNK_SIZE + 1);
+            Files.write(file, content);
+            dropAppendAt = -1;
+            ResumableUpload second = newUpload(file);
+            Assert.assertEquals(second.upload().block().getStatusCode(), 200);
+            Assert.assertEquals(second.getResumedOffset(), 0L);
+            Assert.assertEquals(committed, content);
+            Assert.assertFalse(Files.exists(second.getCheckpointFile()));
+        } finally {
+            Files.delete(file);
+        }
+    }
+
+    private ResumableUpload newUpload(Path file) {
+
+        return new ResumableUpload(client, file, checkpointDirectory.toString(), (long) CHUNK_SIZE, 1,
+                new PathHttpHeaders(), new HashMap<>(), true);
+    }
+
+    private static void uploadInterrupted(ResumableUpload upload) {
+
+        try {
+            upload.upload().block();
+            Assert.fail("The upload was not interrupted");
+        } catch (RuntimeException e) {
+            // Expected, the connection was dropped
+        }
+    }
+
+    private static byte[] randomContent(int size) {
+
+        byte[] content = new byte[size];
+        new Random(size).nextBytes(content);
+        return content;
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+
+        Map<String, String> query = new HashMap<>();
+        if (exchange.getRequestURI().getQuery() != null) {
+            for (String parameter : exchange.getRequestURI().getQuery().split("&")) {
+                String[] pair = parameter.split("=", 2);
+                query.put(pair[0], pair.length > 1 ? pair[1] : "");
+            }
+        }
+        byte[] body = readBody(exchange.getRequestBody());
+        int status;
+        if ("file".equals(query.get("resource"))) {
+            synchronized (appended) {
+                appended.clear();
+            }
+            status = 201;
+        } else if ("append".equals(query.get("action"))) {
+            long position = Long.parseLong(query.get("position"));
+            appendPositions.add(position);
+            if (appendPositions.size() == dropAppendAt) {
+                // Closes the connection without a response, as a broken network would
+                exchange.close();
+                return;
+            }
+            synchronized (appended) {
+                appended.put(position, body);
+            }
+            status = 202;
+        } else if ("flush".equals(query.get("action"))) {
+            status = commit(Long.parseLong(query.get("position"))) ? 200 : 400;
+        } else {
+            status = 400;
+        }
+        exchange.getResponseHeaders().add("ETag", "\"0x1\"");
+        exchange.getResponseHeaders().add("Last-Modified", "Wed, 01 Jan 2025 00:00:00 GMT");
+        exchange.sendResponseHeaders(status, -1);
+        exchange.close();
+    }
+
+    private boolean commit(long length) {
+
+        ByteArrayOutputStream content = new ByteArrayOutputStream();
+        synchronized (appended) {
+            for (Map.Entry<Long, byte[]> chunk : appended.entrySet()) {
+                if (chunk.getKey() != content.size()) {
+                    return false;
+                }
+                content.write(chunk.getValue(), 0, chunk.getValue().length);
+            }
+        }
+        if (content.size() != length) {
+            return false;
+        }
+        committed = content.toByteArray();
+        return true;
+    }
+
+    private static byte[] readBody(InputStream in) throws IOException {
+
+        ByteArrayOutputStream body = new ByteArrayOutputStream();
+        byte[] buffer = new byte[8192];
+        int read;
+        while ((read = in.read(buffer)) > 0) {
+            body.write(buffer, 0, read);
+        }
+        return body.toByteArray();
+    }
+}
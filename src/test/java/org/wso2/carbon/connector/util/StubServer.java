@@ -0,0 +1,114 @@
+/*
+ *  Copyright (c) 2025, WSO2 LLC. (https://www.wso2.com).
+ *
+ *  WSO2 LLC. licenses this file to you under the Apache License,
+ *  Version 2.0 (the "License"); you may not use this file except
+ *  in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *  "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License.
+ */
+
+
+package org.wso2.carbon.connector.util;
+
+import com.azure.storage.common.policy.RequestRetryOptions;
+import com.azure.storage.common.policy.RetryPolicyType;
+import com.azure.storage.file.datalake.DataLakeFileAsyncClient;
+import com.azure.storage.file.datalake.DataLakeServiceAsyncClient;
+import com.azure.storage.file.datalake.DataLakeServiceClient;
+import com.azure.storage.file.datalake.DataLakeServiceClientBuilder;
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.util.concurrent.Executor;
+
+/**
+ * A local HTTP server standing in for the Data Lake endpoint or the identity provider in tests, together with
+ * clients of the Data Lake endpoint it serves.
+ */
+public final class StubServer implements AutoCloseable {
+
+    private final HttpServer server;
+
+    private StubServer(HttpServer server) {
+
+        this.server = server;
+    }
+
+    /**
+     * Starts a server on a free local port that hands every request to the handler.
+     *
+     * @param handler the handler of all requests
+     * @return the started server
+     * @throws IOException if the server cannot be started
+     */
+    public static StubServer start(HttpHandler handler) throws IOException {
+
+        return start(handler, null);
+    }
+
+    /**
+     * Starts a server on a free local port that hands every request to the handler on the given executor.
+     *
+     * @param handler  the handler of all requests
+     * @param executor the executor of the handler, or null to handle requests one at a time on the dispatcher
+     * @return the started server
+     * @throws IOException if the server cannot be started
+     */
+    public static StubServer start(HttpHandler handler, Executor executor) throws IOException {
+
+        HttpServer server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        server.createContext("/", handler);
+        server.setExecutor(executor);
+        server.start();
+        return new StubServer(server);
+    }
+
+    public String getEndpoint() {
+
+        return "http://localhost:" + server.getAddress().getPort();
+    }
+
+    /**
+     * @return a builder of service clients of this server, with a single try per request so that failures reach
+     * the code under test instead of being retried by the pipeline.
+     */
+    public DataLakeServiceClientBuilder newServiceClientBuilder() {
+
+        return new DataLakeServiceClientBuilder()
+                .endpoint(getEndpoint())
+                .sasToken("sv=2021-06-08&sig=test")
+                .retryOptions(new RequestRetryOptions(RetryPolicyType.FIXED, 1, 10, 1L, 1L, null));
+    }
+
+    public DataLakeServiceClient getServiceClient() {
+
+        return newServiceClientBuilder().buildClient();
+    }
+
+    public DataLakeServiceAsyncClient getServiceAsyncClient() {
+
+        return newServiceClientBuilder().buildAsyncClient();
+    }
+
+    public DataLakeFileAsyncClient getFileAsyncClient(String fileSystemName, String filePath) {
+
+        return getServiceAsyncClient().getFileSystemAsyncClient(fileSystemName).getFileAsyncClient(filePath);
+    }
+
+    @Override
+    public void close() {
+
+        server.stop(0);
+    }
+}
@@ -0,0 +1,68 @@
+/*
+ *  Copyright (c) 2025, WSO2 LLC. (https://www.wso2.com).
+ *
+ *  WSO2 LLC. licenses this file to you under the Apache License,
+ *  Version 2.0 (the "License"); you may not use this file except
+ *  in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *  "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License.
+ */
+
+package org.wso2.carbon.connector.util;
+
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import java.io.RandomAccessFile;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+
+/**
+ * Verifies the helpers of {@link Utils}.
+ */
+public class UtilsTest {
+
+    @Test(description = "The streamed MD5 digest matches the digest of the whole content")
+    public void testMd5() throws Exception {
+
+        byte[] content = "The quick brown fox jumps over the lazy dog".getBytes(StandardCharsets.UTF_8);
+        Path file = Files.createTempFile("utils-md5", ".txt");
+        try {
+            Files.write(file, content);
+            Assert.assertEquals(Utils.md5(file), MessageDigest.getInstance("MD5").digest(content));
+        } finally {
+            Files.delete(file);
+        }
+    }
+
+    @Test(description = "Files larger than the heap are digested without loading them into memory")
+    public void testMd5OfFileLargerThanHeap() throws Exception {
+
+        long size = Runtime.getRuntime().maxMemory() + 64L * 1024 * 1024;
+        Path file = Files.createTempFile("utils-md5-large", ".bin");
+        try {
+            // A sparse file, so that the test does not need the disk space
+            try (RandomAccessFile raf = new RandomAccessFile(file.toFile(), "rw")) {
+                raf.setLength(size);
+            }
+            MessageDigest expected = MessageDigest.getInstance("MD5");
+            byte[] zeros = new byte[1024 * 1024];
+            for (long remaining = size; remaining > 0; remaining -= zeros.length) {
+                expected.update(zeros, 0, (int) Math.min(zeros.length, remaining));
+            }
+            Assert.assertEquals(Utils.md5(file), expected.digest());
+        } finally {
+            Files.delete(file);
+        }
+    }
+}